@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH result files in JSON format (as produced by
+ * <code>-rf json</code>), a baseline and a current run. For each benchmark and
+ * parameter combination the relative change of the score is computed. A
+ * change counts as a regression (or improvement) when the score is worse (or
+ * better) by more than the threshold <i>and</i> the difference is larger than
+ * the combined error of both scores. For throughput benchmarks higher scores
+ * are better, for all other modes lower scores are better.
+ * <p>
+ * Usage: <code>BenchmarkReport baseline.json current.json [threshold%]</code>
+ * , the default threshold is {@value #DEFAULT_THRESHOLD}%. The process exits
+ * with status 1 when at least one regression is found.
+ * @author Rinde van Lon
+ */
+public final class BenchmarkReport {
+  static final double DEFAULT_THRESHOLD = 10d;
+  private static final String THROUGHPUT = "thrpt";
+
+  private BenchmarkReport() {}
+
+  /**
+   * Prints the comparison of two JMH result files.
+   * @param args The baseline file, the current file and optionally the
+   *          threshold in percent.
+   */
+  public static void main(String[] args) {
+    checkArgument(args.length == 2 || args.length == 3,
+        "Usage: BenchmarkReport baseline.json current.json [threshold%]");
+    final double threshold = args.length == 3 ? Double.parseDouble(args[2])
+        : DEFAULT_THRESHOLD;
+    final ImmutableList<Comparison> comparisons;
+    try (Reader baseline = Files.newBufferedReader(Paths.get(args[0]),
+        Charsets.UTF_8);
+        Reader current = Files.newBufferedReader(Paths.get(args[1]),
+            Charsets.UTF_8)) {
+      comparisons = compare(parse(baseline), parse(current), threshold);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    System.out.print(format(comparisons));
+    for (final Comparison c : comparisons) {
+      if (c.status == Status.REGRESSION) {
+        System.exit(1);
+      }
+    }
+  }
+
+  /**
+   * Parses a JMH result file.
+   * @param reader The JSON to parse.
+   * @return A map of benchmark keys (the benchmark name followed by its
+   *         parameters) to results.
+   */
+  static ImmutableSortedMap<String, Result> parse(Reader reader) {
+    final Map<String, Result> results = new TreeMap<>();
+    for (final JsonElement e : new JsonParser().parse(reader)
+        .getAsJsonArray()) {
+      final JsonObject obj = e.getAsJsonObject();
+      final StringBuilder key = new StringBuilder(obj.get("benchmark")
+          .getAsString());
+      if (obj.has("params")) {
+        final Map<String, String> params = new TreeMap<>();
+        for (final Entry<String, JsonElement> p : obj.getAsJsonObject("params")
+            .entrySet()) {
+          params.put(p.getKey(), p.getValue().getAsString());
+        }
+        key.append(params);
+      }
+      final JsonObject metric = obj.getAsJsonObject("primaryMetric");
+      results.put(key.toString(), new Result(obj.get("mode").getAsString(),
+          metric.get("score").getAsDouble(), number(metric.get("scoreError")),
+          metric.get("scoreUnit").getAsString()));
+    }
+    return ImmutableSortedMap.copyOf(results);
+  }
+
+  // JMH writes NaN as a string when the error can not be computed
+  static double number(JsonElement e) {
+    final double d = e.getAsJsonPrimitive().isNumber() ? e.getAsDouble()
+        : Double.parseDouble(e.getAsString());
+    return Double.isNaN(d) ? 0d : d;
+  }
+
+  /**
+   * Compares the current results with the baseline results.
+   * @param baseline The baseline results.
+   * @param current The current results.
+   * @param threshold The threshold in percent.
+   * @return A comparison for each current result.
+   */
+  static ImmutableList<Comparison> compare(Map<String, Result> baseline,
+      Map<String, Result> current, double threshold) {
+    final ImmutableList.Builder<Comparison> builder = ImmutableList.builder();
+    for (final Entry<String, Result> entry : current.entrySet()) {
+      builder.add(new Comparison(entry.getKey(), Optional.fromNullable(baseline
+          .get(entry.getKey())), entry.getValue(), threshold));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param comparisons The comparisons to format.
+   * @return A table with a line per comparison.
+   */
+  static String format(Iterable<Comparison> comparisons) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-10s %9s %14s %14s  %-10s %s%n", "status",
+        "change", "baseline", "current", "unit", "benchmark"));
+    for (final Comparison c : comparisons) {
+      if (c.baseline.isPresent()) {
+        sb.append(String.format("%-10s %+8.1f%% %14.3f %14.3f  %-10s %s%n",
+            c.status, c.change, c.baseline.get().score, c.current.score,
+            c.current.unit, c.benchmark));
+      } else {
+        sb.append(String.format("%-10s %9s %14s %14.3f  %-10s %s%n",
+            c.status, "", "", c.current.score, c.current.unit, c.benchmark));
+      }
+    }
+    return sb.toString();
+  }
+
+  enum Status {
+    OK, IMPROVED, REGRESSION, NEW
+  }
+
+  static final class Result {
+    final String mode;
+    final double score;
+    final double error;
+    final String unit;
+
+    Result(String m, double s, double e, String u) {
+      mode = m;
+      score = s;
+      error = e;
+      unit = u;
+    }
+  }
+
+  static final class Comparison {
+    final String benchmark;
+    final Optional<Result> baseline;
+    final Result current;
+    // positive changes are always improvements
+    final double change;
+    final Status status;
+
+    Comparison(String name, Optional<Result> base, Result cur,
+        double threshold) {
+      benchmark = name;
+      baseline = base;
+      current = cur;
+      if (!base.isPresent()) {
+        change = 0d;
+        status = Status.NEW;
+        return;
+      }
+      final Result b = base.get();
+      final double diff = THROUGHPUT.equals(cur.mode) ? cur.score - b.score
+          : b.score - cur.score;
+      change = b.score == 0d ? 0d : diff / b.score * 100d;
+      final boolean significant = Math.abs(diff) > b.error + cur.error
+          && Math.abs(change) > threshold;
+      if (!significant) {
+        status = Status.OK;
+      } else {
+        status = diff > 0 ? Status.IMPROVED : Status.REGRESSION;
+      }
+    }
+  }
+}
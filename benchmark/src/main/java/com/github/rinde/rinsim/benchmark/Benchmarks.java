@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.MultimapGraph;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Inputs that are shared by several benchmarks.
+ * @author Rinde van Lon
+ */
+final class Benchmarks {
+  /**
+   * The distance between two neighboring nodes of a grid graph.
+   */
+  static final double GRID_SPACING = 10d;
+
+  private Benchmarks() {}
+
+  /**
+   * Creates a square grid graph in which all neighboring nodes are connected
+   * in both directions.
+   * @param size The number of nodes along one side of the grid.
+   * @return A new graph with <code>size * size</code> nodes.
+   */
+  static Graph<MultiAttributeData> grid(int size) {
+    final Graph<MultiAttributeData> graph = new MultimapGraph<>();
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        final Point p = new Point(i * GRID_SPACING, j * GRID_SPACING);
+        if (i > 0) {
+          final Point left = new Point((i - 1) * GRID_SPACING, j
+              * GRID_SPACING);
+          graph.addConnection(p, left);
+          graph.addConnection(left, p);
+        }
+        if (j > 0) {
+          final Point down = new Point(i * GRID_SPACING, (j - 1)
+              * GRID_SPACING);
+          graph.addConnection(p, down);
+          graph.addConnection(down, p);
+        }
+      }
+    }
+    return graph;
+  }
+}
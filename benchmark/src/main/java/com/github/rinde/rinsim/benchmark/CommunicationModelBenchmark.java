@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.github.rinde.rinsim.core.model.communication.CommunicationAPI;
+import com.github.rinde.rinsim.core.model.communication.CommunicationModel;
+import com.github.rinde.rinsim.core.model.communication.CommunicationUser;
+import com.github.rinde.rinsim.core.model.communication.Message;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks {@link CommunicationModel#broadcast(Message)} including the
+ * delivery of the messages in
+ * {@link CommunicationModel#afterTick(TimeLapse)}. Each invocation one in ten
+ * users broadcasts a message, the users are randomly spread over a square and
+ * have a communication radius of a tenth of the size of the square.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CommunicationModelBenchmark {
+  private static final double SIZE = 1000d;
+  private static final double RADIUS = SIZE / 10d;
+  private static final int BROADCAST_RATIO = 10;
+
+  /**
+   * The number of communication users.
+   */
+  @Param({ "10", "100", "1000" })
+  public int users;
+
+  /**
+   * Indicates whether the communication model ignores distances.
+   */
+  @Param({ "false", "true" })
+  public boolean ignoreDistances;
+
+  private CommunicationModel model;
+  private BenchmarkUser[] senders;
+  private long time;
+
+  /**
+   * Creates the model and registers the users.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = new MersenneTwister(123);
+    model = new CommunicationModel(new MersenneTwister(456), ignoreDistances);
+    senders = new BenchmarkUser[users / BROADCAST_RATIO];
+    for (int i = 0; i < users; i++) {
+      final BenchmarkUser u = new BenchmarkUser(new Point(
+          rng.nextDouble() * SIZE, rng.nextDouble() * SIZE));
+      model.register(u);
+      if (i % BROADCAST_RATIO == 0 && i / BROADCAST_RATIO < senders.length) {
+        senders[i / BROADCAST_RATIO] = u;
+      }
+    }
+  }
+
+  /**
+   * Broadcasts the messages and delivers them.
+   * @return The number of received messages, to avoid dead code elimination.
+   */
+  @Benchmark
+  public int broadcast() {
+    for (final BenchmarkUser u : senders) {
+      model.broadcast(u.message);
+    }
+    model.afterTick(TimeLapseFactory.create(time, time + 1));
+    time++;
+    int received = 0;
+    for (final BenchmarkUser u : senders) {
+      received += u.received;
+    }
+    return received;
+  }
+
+  static class BenchmarkUser implements CommunicationUser {
+    final Point position;
+    final Message message;
+    int received;
+
+    BenchmarkUser(Point pos) {
+      position = pos;
+      message = new BenchmarkMessage(this);
+    }
+
+    @Override
+    public void setCommunicationAPI(CommunicationAPI api) {}
+
+    @Override
+    public Point getPosition() {
+      return position;
+    }
+
+    @Override
+    public double getRadius() {
+      return RADIUS;
+    }
+
+    @Override
+    public double getReliability() {
+      return 1d;
+    }
+
+    @Override
+    public void receive(Message m) {
+      received++;
+    }
+  }
+
+  static class BenchmarkMessage extends Message {
+    BenchmarkMessage(CommunicationUser sender) {
+      super(sender);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.central.Central;
+import com.github.rinde.rinsim.central.RandomSolver;
+import com.github.rinde.rinsim.core.model.Model;
+import com.github.rinde.rinsim.experiment.MASConfiguration;
+import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.scenario.AddDepotEvent;
+import com.github.rinde.rinsim.scenario.AddParcelEvent;
+import com.github.rinde.rinsim.scenario.AddVehicleEvent;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Parser;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Scenario;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compares the default mode of {@link DynamicPDPTWProblem} with the fast
+ * forward mode by simulating a complete Gendreau06 scenario with a centralized
+ * {@link RandomSolver}. The scenario file is resolved relative to the working
+ * directory, by default the benchmark expects to be run from the
+ * <code>benchmark</code> directory.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class DynamicPDPTWProblemBenchmark {
+
+  /**
+   * The Gendreau06 scenario file.
+   */
+  @Param({ "../scenario-util/files/test/gendreau06/req_rapide_1_240_24" })
+  public String file;
+
+  /**
+   * Indicates whether the problem runs in fast forward mode.
+   */
+  @Param({ "false", "true" })
+  public boolean fastForward;
+
+  private Gendreau06Scenario scenario;
+  private MASConfiguration configuration;
+
+  /**
+   * Parses the scenario.
+   */
+  @Setup
+  public void setUp() {
+    scenario = Gendreau06Parser.parse(new File(file));
+    configuration = Central.solverConfiguration(RandomSolver.supplier());
+  }
+
+  /**
+   * Simulates the scenario.
+   * @return The statistics of the simulation.
+   */
+  @Benchmark
+  public StatisticsDTO simulate() {
+    final ImmutableList<? extends StochasticSupplier<? extends Model<?>>> suppliers = configuration
+        .getModels();
+    final Model<?>[] models = new Model<?>[suppliers.size()];
+    for (int i = 0; i < suppliers.size(); i++) {
+      models[i] = suppliers.get(i).get(i);
+    }
+    final DynamicPDPTWProblem problem = fastForward ? DynamicPDPTWProblem
+        .fastForward(scenario, 123L, models) : new DynamicPDPTWProblem(
+        scenario, 123L, models);
+    problem.addCreator(AddVehicleEvent.class,
+        configuration.getVehicleCreator());
+    if (configuration.getDepotCreator().isPresent()) {
+      problem.addCreator(AddDepotEvent.class, configuration.getDepotCreator()
+          .get());
+    }
+    if (configuration.getParcelCreator().isPresent()) {
+      problem.addCreator(AddParcelEvent.class, configuration
+          .getParcelCreator().get());
+    }
+    return problem.simulate();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.EventDispatcher;
+import com.github.rinde.rinsim.event.Listener;
+
+/**
+ * Benchmarks {@link EventDispatcher#dispatchEvent(Event)} for a varying number
+ * of listeners.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class EventDispatcherBenchmark {
+  enum EventTypes {
+    FIRST, SECOND
+  }
+
+  /**
+   * The number of listeners of the dispatched event type.
+   */
+  @Param({ "1", "10", "100" })
+  public int listeners;
+
+  private EventDispatcher dispatcher;
+  private Event event;
+
+  /**
+   * Creates the dispatcher and adds the listeners.
+   * @param bh The blackhole that consumes the received events.
+   */
+  @Setup
+  public void setUp(final Blackhole bh) {
+    dispatcher = new EventDispatcher(EventTypes.values());
+    for (int i = 0; i < listeners; i++) {
+      dispatcher.addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          bh.consume(e);
+        }
+      }, EventTypes.FIRST);
+    }
+    // a listener of another type should not be notified
+    dispatcher.addListener(new Listener() {
+      @Override
+      public void handleEvent(Event e) {
+        throw new IllegalStateException();
+      }
+    }, EventTypes.SECOND);
+    event = new Event(EventTypes.FIRST, this);
+  }
+
+  /**
+   * Dispatches a single event.
+   */
+  @Benchmark
+  public void dispatchEvent() {
+    dispatcher.dispatchEvent(event);
+  }
+}
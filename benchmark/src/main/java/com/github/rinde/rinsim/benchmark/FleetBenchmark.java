@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.Measure;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.github.rinde.rinsim.core.model.road.ColumnarPlaneRoadModel;
+import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
+import com.github.rinde.rinsim.core.model.road.PlaneRoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Compares moving a large fleet with {@link PlaneRoadModel}, where every
+ * vehicle moves itself, with the batched moves of
+ * {@link ColumnarPlaneRoadModel}. Each invocation is a single tick of one
+ * second in which every vehicle drives towards its own random destination.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FleetBenchmark {
+  private static final double SIZE = 100d;
+  private static final double SPEED = 50d;
+  private static final long TICK_LENGTH = 1000L;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({ "1000", "100000" })
+  public int vehicles;
+
+  private PlaneRoadModel planeModel;
+  private ColumnarPlaneRoadModel columnarModel;
+  private FleetVehicle[] planeVehicles;
+  private FleetVehicle[] columnarVehicles;
+  private long time;
+
+  /**
+   * Creates both models with the same vehicles.
+   */
+  @Setup
+  public void setUp() {
+    final Point min = new Point(0, 0);
+    final Point max = new Point(SIZE, SIZE);
+    planeModel = new PlaneRoadModel(min, max, SI.KILOMETER, Measure.valueOf(
+        SPEED, NonSI.KILOMETERS_PER_HOUR));
+    columnarModel = new ColumnarPlaneRoadModel(min, max, SI.KILOMETER,
+        Measure.valueOf(SPEED, NonSI.KILOMETERS_PER_HOUR));
+    final RandomGenerator rng = new MersenneTwister(123);
+    planeVehicles = new FleetVehicle[vehicles];
+    columnarVehicles = new FleetVehicle[vehicles];
+    for (int i = 0; i < vehicles; i++) {
+      final Point start = planeModel.getRandomPosition(rng);
+      final Point destination = planeModel.getRandomPosition(rng);
+      planeVehicles[i] = new FleetVehicle(destination);
+      columnarVehicles[i] = new FleetVehicle(destination);
+      planeModel.addObjectAt(planeVehicles[i], start);
+      columnarModel.addObjectAt(columnarVehicles[i], start);
+    }
+  }
+
+  /**
+   * Every vehicle moves itself using
+   * {@link RoadModel#moveTo(MovingRoadUser, Point, TimeLapse)}.
+   */
+  @Benchmark
+  public void moveEach() {
+    for (final FleetVehicle v : planeVehicles) {
+      if (!planeModel.getPosition(v).equals(v.destination)) {
+        planeModel.moveTo(v, v.destination, nextTimeLapse());
+      }
+    }
+    time += TICK_LENGTH;
+  }
+
+  /**
+   * All vehicles are moved by the batched move kernel.
+   */
+  @Benchmark
+  public void moveBatched() {
+    if (time == 0) {
+      for (final FleetVehicle v : columnarVehicles) {
+        columnarModel.setDestination(v, v.destination);
+      }
+    }
+    columnarModel.afterTick(nextTimeLapse());
+    time += TICK_LENGTH;
+  }
+
+  TimeLapse nextTimeLapse() {
+    return TimeLapseFactory.create(time, time + TICK_LENGTH);
+  }
+
+  static class FleetVehicle implements MovingRoadUser {
+    final Point destination;
+
+    FleetVehicle(Point dest) {
+      destination = dest;
+    }
+
+    @Override
+    public void initRoadUser(RoadModel model) {}
+
+    @Override
+    public double getSpeed() {
+      return SPEED;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks {@link Graphs#shortestPathEuclideanDistance(Graph, Point, Point)}
+ * on grid graphs of increasing size. Each invocation computes the path
+ * between the next pair of a fixed sequence of random node pairs.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class GraphsBenchmark {
+  private static final int NUM_PAIRS = 256;
+
+  /**
+   * The number of nodes along one side of the grid.
+   */
+  @Param({ "10", "30", "100" })
+  public int gridSize;
+
+  private Graph<MultiAttributeData> graph;
+  private Point[] from;
+  private Point[] to;
+  private int index;
+
+  /**
+   * Creates the graph and the node pairs.
+   */
+  @Setup
+  public void setUp() {
+    graph = Benchmarks.grid(gridSize);
+    final RandomGenerator rng = new MersenneTwister(123);
+    from = new Point[NUM_PAIRS];
+    to = new Point[NUM_PAIRS];
+    for (int i = 0; i < NUM_PAIRS; i++) {
+      from[i] = graph.getRandomNode(rng);
+      to[i] = graph.getRandomNode(rng);
+    }
+  }
+
+  /**
+   * @return The shortest path between the next pair of nodes.
+   */
+  @Benchmark
+  public List<Point> shortestPath() {
+    index = (index + 1) % NUM_PAIRS;
+    return Graphs.shortestPathEuclideanDistance(graph, from[index], to[index]);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.github.rinde.rinsim.core.model.Model;
+import com.github.rinde.rinsim.core.model.TestModelProvider;
+import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.Vehicle;
+import com.github.rinde.rinsim.core.model.road.PlaneRoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Benchmarks {@link DefaultPDPModel#pickup(Vehicle, Parcel, TimeLapse)} and
+ * {@link DefaultPDPModel#deliver(Vehicle, Parcel, TimeLapse)}. Each invocation
+ * lets every vehicle pick up and deliver a new parcel at its own position, the
+ * parcel is registered before and unregistered after such that the size of
+ * the model stays constant. The model additionally contains a number of
+ * parcels that are waiting to be picked up.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PDPModelBenchmark {
+  private static final double SIZE = 1000d;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({ "10", "100", "1000" })
+  public int vehicles;
+
+  /**
+   * The number of parcels that are waiting to be picked up.
+   */
+  @Param({ "100", "10000" })
+  public int parcels;
+
+  private RoadModel roadModel;
+  private DefaultPDPModel pdpModel;
+  private BenchmarkVehicle[] users;
+
+  /**
+   * Creates the models and registers the vehicles and parcels.
+   */
+  @Setup
+  public void setUp() {
+    roadModel = new PlaneRoadModel(new Point(0, 0), new Point(SIZE, SIZE),
+        SI.METER, Measure.valueOf(Double.POSITIVE_INFINITY,
+            SI.METERS_PER_SECOND));
+    pdpModel = new DefaultPDPModel();
+    final TestModelProvider mp = new TestModelProvider(
+        Arrays.<Model<?>> asList(roadModel, pdpModel));
+    pdpModel.registerModelProvider(mp);
+
+    final RandomGenerator rng = new MersenneTwister(123);
+    users = new BenchmarkVehicle[vehicles];
+    for (int i = 0; i < vehicles; i++) {
+      users[i] = new BenchmarkVehicle(roadModel.getRandomPosition(rng));
+      register(users[i]);
+    }
+    for (int i = 0; i < parcels; i++) {
+      register(new BenchmarkParcel(roadModel.getRandomPosition(rng),
+          roadModel.getRandomPosition(rng)));
+    }
+  }
+
+  void register(Vehicle v) {
+    pdpModel.register(v);
+    roadModel.register(v);
+  }
+
+  void register(Parcel p) {
+    pdpModel.register(p);
+    roadModel.register(p);
+  }
+
+  /**
+   * Every vehicle picks up and delivers a parcel.
+   */
+  @Benchmark
+  public void pickupDeliver() {
+    for (final BenchmarkVehicle v : users) {
+      final BenchmarkParcel p = new BenchmarkParcel(v.position, v.position);
+      register(p);
+      pdpModel.pickup(v, p, TimeLapseFactory.create(0, 1));
+      pdpModel.deliver(v, p, TimeLapseFactory.create(0, 1));
+      pdpModel.unregister(p);
+    }
+  }
+
+  static class BenchmarkParcel extends Parcel {
+    BenchmarkParcel(Point origin, Point destination) {
+      super(destination, 0, TimeWindow.ALWAYS, 0, TimeWindow.ALWAYS, 1d);
+      setStartPosition(origin);
+    }
+
+    @Override
+    public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
+  }
+
+  static class BenchmarkVehicle extends Vehicle {
+    final Point position;
+
+    BenchmarkVehicle(Point pos) {
+      position = pos;
+      setStartPosition(pos);
+      setCapacity(1d);
+    }
+
+    @Override
+    public double getSpeed() {
+      return 1d;
+    }
+
+    @Override
+    protected void tickImpl(TimeLapse time) {}
+
+    @Override
+    public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
+  }
+}
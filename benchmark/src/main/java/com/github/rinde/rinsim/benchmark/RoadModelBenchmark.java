@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.github.rinde.rinsim.core.model.road.GraphRoadModel;
+import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.collect.Lists;
+
+/**
+ * Benchmarks {@link GraphRoadModel#followPath(MovingRoadUser, Queue,
+ * com.github.rinde.rinsim.core.TimeLapse)}. Each invocation moves all
+ * vehicles for a single tick along precomputed paths, a vehicle that reaches
+ * the end of its path follows the same path in reverse. The shortest path
+ * computations are done during setup and are not measured.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class RoadModelBenchmark {
+  // in milliseconds, with the speed of the vehicles this is one connection
+  private static final long TICK_LENGTH = 1000L;
+  // in meters per second
+  private static final double SPEED = 10d;
+
+  /**
+   * The number of nodes along one side of the grid.
+   */
+  @Param({ "10", "100" })
+  public int gridSize;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({ "10", "100", "1000" })
+  public int vehicles;
+
+  private GraphRoadModel roadModel;
+  private BenchmarkVehicle[] users;
+  private long time;
+
+  /**
+   * Creates the road model and places the vehicles at random nodes.
+   */
+  @Setup
+  public void setUp() {
+    final Graph<MultiAttributeData> graph = Benchmarks.grid(gridSize);
+    roadModel = new GraphRoadModel(graph, SI.METER, SI.METERS_PER_SECOND);
+    final RandomGenerator rng = new MersenneTwister(123);
+    users = new BenchmarkVehicle[vehicles];
+    for (int i = 0; i < vehicles; i++) {
+      final Point from = graph.getRandomNode(rng);
+      Point to = graph.getRandomNode(rng);
+      while (to.equals(from)) {
+        to = graph.getRandomNode(rng);
+      }
+      users[i] = new BenchmarkVehicle(Graphs.shortestPathEuclideanDistance(
+          graph, from, to));
+      roadModel.addObjectAt(users[i], from);
+    }
+  }
+
+  /**
+   * Moves all vehicles during one tick.
+   * @param bh Consumes the move progress.
+   */
+  @Benchmark
+  public void followPath(Blackhole bh) {
+    for (final BenchmarkVehicle v : users) {
+      if (v.path.isEmpty()) {
+        v.reverse();
+      }
+      bh.consume(roadModel.followPath(v, v.path,
+          TimeLapseFactory.create(time, time + TICK_LENGTH)));
+    }
+    time += TICK_LENGTH;
+  }
+
+  static class BenchmarkVehicle implements MovingRoadUser {
+    private List<Point> route;
+    Queue<Point> path;
+
+    BenchmarkVehicle(List<Point> r) {
+      route = r;
+      path = new LinkedList<>(route);
+    }
+
+    void reverse() {
+      route = Lists.reverse(route);
+      path = new LinkedList<>(route);
+    }
+
+    @Override
+    public void initRoadUser(RoadModel model) {}
+
+    @Override
+    public double getSpeed() {
+      return SPEED;
+    }
+  }
+}
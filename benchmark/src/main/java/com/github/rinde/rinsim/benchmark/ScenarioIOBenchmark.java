@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+import com.github.rinde.rinsim.scenario.ScenarioTestUtil;
+
+/**
+ * Benchmarks reading and writing scenarios with {@link ScenarioIO}.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ScenarioIOBenchmark {
+
+  /**
+   * The seed of the random scenario.
+   */
+  @Param({ "123" })
+  public long seed;
+
+  private Scenario scenario;
+  private String json;
+
+  /**
+   * Creates the scenario and its JSON representation.
+   */
+  @Setup
+  public void setUp() {
+    scenario = ScenarioTestUtil.create(seed);
+    json = ScenarioIO.write(scenario);
+  }
+
+  /**
+   * @return The scenario read from JSON.
+   */
+  @Benchmark
+  public Scenario read() {
+    return ScenarioIO.read(json);
+  }
+
+  /**
+   * @return The scenario written to JSON.
+   */
+  @Benchmark
+  public String write() {
+    return ScenarioIO.write(scenario);
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * JMH benchmarks of the hot paths of RinSim and a tool to compare benchmark
+ * results with a baseline. Build the benchmark jar and run all benchmarks from
+ * the <code>benchmark</code> directory:
+ *
+ * <pre>
+ * mvn -pl benchmark -am package -DskipTests
+ * cd benchmark
+ * java -jar target/benchmarks.jar -rf json -rff current.json
+ * </pre>
+ *
+ * A subset can be selected with a regular expression and parameters can be
+ * overridden, e.g. <code>java -jar target/benchmarks.jar Graphs -p
+ * gridSize=300</code>. To compare against an earlier run:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.github.rinde.rinsim.benchmark.BenchmarkReport baseline.json current.json
+ * </pre>
+ */
+@ParametersAreNonnullByDefault
+package com.github.rinde.rinsim.benchmark;
+
+import javax.annotation.ParametersAreNonnullByDefault;
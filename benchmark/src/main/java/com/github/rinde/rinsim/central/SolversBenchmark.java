@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.core.pdptw.VehicleDTO;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Benchmarks {@link Solvers#computeStats(GlobalStateObject, ImmutableList)}
+ * for a random state with a varying number of vehicles and parcels. This
+ * benchmark is in the same package as {@link GlobalStateObject} such that the
+ * state can be constructed directly.
+ * @author Rinde van Lon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SolversBenchmark {
+  private static final double SIZE = 10d;
+  private static final long HORIZON = 8 * 60 * 60 * 1000L;
+  private static final double SPEED = 30d;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({ "1", "10", "50" })
+  public int vehicles;
+
+  /**
+   * The number of parcels in the route of each vehicle.
+   */
+  @Param({ "5", "20" })
+  public int parcelsPerVehicle;
+
+  private GlobalStateObject state;
+  private ImmutableList<ImmutableList<ParcelDTO>> routes;
+
+  /**
+   * Creates the state and the routes.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = new MersenneTwister(123);
+    final ImmutableSet.Builder<ParcelDTO> parcels = ImmutableSet.builder();
+    final ImmutableList.Builder<VehicleStateObject> vehicleStates = ImmutableList
+        .builder();
+    final ImmutableList.Builder<ImmutableList<ParcelDTO>> routesBuilder = ImmutableList
+        .builder();
+    for (int i = 0; i < vehicles; i++) {
+      final Point start = point(rng);
+      final VehicleDTO dto = VehicleDTO.builder()
+          .startPosition(start)
+          .speed(SPEED)
+          .capacity(parcelsPerVehicle)
+          .availabilityTimeWindow(new TimeWindow(0, HORIZON))
+          .build();
+      vehicleStates.add(new VehicleStateObject(dto, start,
+          ImmutableSet.<ParcelDTO> of(), 0, null, null));
+
+      // all parcels are first picked up and then delivered in the same order
+      final ImmutableList.Builder<ParcelDTO> pickups = ImmutableList.builder();
+      for (int j = 0; j < parcelsPerVehicle; j++) {
+        final long begin = (long) (rng.nextDouble() * HORIZON / 2);
+        pickups.add(ParcelDTO.builder(point(rng), point(rng))
+            .timeWindows(new TimeWindow(begin, begin + HORIZON / 4))
+            .serviceDuration(5 * 60 * 1000L)
+            .build());
+      }
+      final ImmutableList<ParcelDTO> ps = pickups.build();
+      parcels.addAll(ps);
+      routesBuilder.add(ImmutableList.<ParcelDTO> builder().addAll(ps)
+          .addAll(ps).build());
+    }
+    state = new GlobalStateObject(parcels.build(), vehicleStates.build(), 0L,
+        SI.MILLI(SI.SECOND), NonSI.KILOMETERS_PER_HOUR, SI.KILOMETER);
+    routes = routesBuilder.build();
+  }
+
+  static Point point(RandomGenerator rng) {
+    return new Point(rng.nextDouble() * SIZE, rng.nextDouble() * SIZE);
+  }
+
+  /**
+   * @return The statistics of the routes.
+   */
+  @Benchmark
+  public StatisticsDTO computeStats() {
+    return Solvers.computeStats(state, routes);
+  }
+}
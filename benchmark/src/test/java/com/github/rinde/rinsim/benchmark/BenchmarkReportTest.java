@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.benchmark.BenchmarkReport.Comparison;
+import com.github.rinde.rinsim.benchmark.BenchmarkReport.Result;
+import com.github.rinde.rinsim.benchmark.BenchmarkReport.Status;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Tests for {@link BenchmarkReport}.
+ * @author Rinde van Lon
+ */
+public class BenchmarkReportTest {
+
+  static String json(String mode, double a, String errorA, double b) {
+    return "[{\"benchmark\":\"x.A.run\",\"mode\":\"" + mode + "\","
+        + "\"params\":{\"size\":\"10\",\"n\":\"2\"},"
+        + "\"primaryMetric\":{\"score\":" + a + ",\"scoreError\":" + errorA
+        + ",\"scoreUnit\":\"us/op\"}},"
+        + "{\"benchmark\":\"x.B.run\",\"mode\":\"" + mode + "\","
+        + "\"primaryMetric\":{\"score\":" + b
+        + ",\"scoreError\":\"NaN\",\"scoreUnit\":\"us/op\"}}]";
+  }
+
+  /**
+   * Benchmarks are identified by name and sorted parameters.
+   */
+  @Test
+  public void testParse() {
+    final ImmutableSortedMap<String, Result> results = BenchmarkReport
+        .parse(new StringReader(json("avgt", 10d, "0.5", 3d)));
+    assertEquals(ImmutableList.of("x.A.run{n=2, size=10}", "x.B.run"),
+        results.keySet().asList());
+    final Result a = results.get("x.A.run{n=2, size=10}");
+    assertEquals(10d, a.score, 0);
+    assertEquals(.5, a.error, 0);
+    assertEquals("us/op", a.unit);
+    assertEquals(0d, results.get("x.B.run").error, 0);
+  }
+
+  /**
+   * Lower is better for average time, higher is better for throughput.
+   * Changes within the error or threshold are ignored.
+   */
+  @Test
+  public void testCompare() {
+    final ImmutableSortedMap<String, Result> base = BenchmarkReport
+        .parse(new StringReader(json("avgt", 10d, "0.5", 10d)));
+
+    ImmutableList<Comparison> cs = BenchmarkReport.compare(base,
+        BenchmarkReport.parse(new StringReader(json("avgt", 12d, "0.5", 5d))),
+        10d);
+    assertEquals(Status.REGRESSION, cs.get(0).status);
+    assertEquals(-20d, cs.get(0).change, 1e-9);
+    assertEquals(Status.IMPROVED, cs.get(1).status);
+    assertEquals(50d, cs.get(1).change, 1e-9);
+
+    // within the error
+    cs = BenchmarkReport.compare(base,
+        BenchmarkReport.parse(new StringReader(json("avgt", 12d, "1.6", 10.5))),
+        10d);
+    assertEquals(Status.OK, cs.get(0).status);
+    assertEquals(Status.OK, cs.get(1).status);
+
+    final ImmutableSortedMap<String, Result> thrpt = BenchmarkReport
+        .parse(new StringReader(json("thrpt", 10d, "0.5", 10d)));
+    cs = BenchmarkReport.compare(thrpt,
+        BenchmarkReport.parse(new StringReader(json("thrpt", 12d, "0.5", 5d))),
+        10d);
+    assertEquals(Status.IMPROVED, cs.get(0).status);
+    assertEquals(Status.REGRESSION, cs.get(1).status);
+
+    cs = BenchmarkReport.compare(
+        ImmutableSortedMap.<String, Result> of(),
+        thrpt, 10d);
+    assertEquals(Status.NEW, cs.get(0).status);
+    assertFalse(cs.get(0).baseline.isPresent());
+
+    final String table = BenchmarkReport.format(cs);
+    assertTrue(table.contains("NEW"));
+    assertTrue(table.contains("x.A.run{n=2, size=10}"));
+  }
+}
@@ -31,6 +31,7 @@ import com.github.rinde.rinsim.core.model.ModelProvider;
 import com.github.rinde.rinsim.core.model.ModelReceiver;
 import com.github.rinde.rinsim.core.pdptw.DefaultParcel;
 import com.github.rinde.rinsim.experiment.DefaultMASConfiguration;
+import com.github.rinde.rinsim.experiment.ExperimentMetrics;
 import com.github.rinde.rinsim.experiment.MASConfiguration;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem.Creator;
 import com.github.rinde.rinsim.pdptw.common.PDPRoadModel;
@@ -183,11 +184,13 @@ public final class Central {
           currentRouteBuilder.add(l);
         }
 
+        final long start = System.nanoTime();
         final Iterator<Queue<DefaultParcel>> routes = solverAdapter
             .get()
             .solve(
                 SolveArgs.create().useAllParcels()
                     .useCurrentRoutes(currentRouteBuilder.build())).iterator();
+        ExperimentMetrics.recordSolverInvocation(System.nanoTime() - start);
 
         for (final RouteFollowingVehicle vehicle : vehicles) {
           vehicle.setRoute(routes.next());
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.github.rinde.rinsim.util.StochasticSuppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A bounded cache of {@link Solver} results. Solvers that are decorated using
+ * {@link #wrap(Solver)} first look up the {@link GlobalStateObject} in the
+ * cache, only when the state has not been solved before the delegate solver is
+ * called. A state is identified by its available parcels, time, units and, for
+ * every vehicle, its location, contents, remaining service time, destination,
+ * route and {@link com.github.rinde.rinsim.core.pdptw.VehicleDTO}.
+ * <p>
+ * Parcels are compared using {@link ParcelDTO#equals(Object)}, which means
+ * that states are only considered equal when they refer to the same parcel
+ * instances. This is the case when the same
+ * {@link com.github.rinde.rinsim.scenario.Scenario} instance is simulated
+ * multiple times (e.g. using repetitions in an experiment).
+ * <p>
+ * <b>Caching should only be used for deterministic solvers</b>, for a
+ * stochastic solver the cache returns the solution of the first invocation
+ * regardless of the seed. A cache should not be shared between different
+ * solver configurations. Instances are thread safe, the cache can be shared by
+ * simulations that run concurrently.
+ * @author Rinde van Lon
+ */
+public final class SolverCache {
+  final long maxSize;
+  private final Cache<StateKey, ImmutableList<ImmutableList<ParcelDTO>>> cache;
+
+  private SolverCache(long max) {
+    maxSize = max;
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(max)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Creates a new empty cache.
+   * @param maxSize The maximum number of solutions that is kept in the cache,
+   *          when this size is exceeded the least recently used solutions are
+   *          evicted.
+   * @return A new cache.
+   */
+  public static SolverCache create(long maxSize) {
+    checkArgument(maxSize > 0, "Max size must be positive, found %s.",
+        maxSize);
+    return new SolverCache(maxSize);
+  }
+
+  /**
+   * Decorates the specified {@link Solver} such that its results are stored in
+   * and retrieved from this cache.
+   * @param delegate The solver to decorate.
+   * @return The decorated solver.
+   */
+  public Solver wrap(Solver delegate) {
+    return new CachedSolver(delegate, this);
+  }
+
+  /**
+   * Decorates the specified {@link StochasticSupplier} such that all created
+   * {@link Solver}s are wrapped using {@link #wrap(Solver)}. The cache itself
+   * is not serialized, a deserialized supplier uses a new empty cache with the
+   * same maximum size.
+   * @param sup The supplier to decorate.
+   * @return The decorated supplier.
+   */
+  public StochasticSupplier<Solver> wrap(
+      StochasticSupplier<? extends Solver> sup) {
+    return new CachedSupplier(sup, this);
+  }
+
+  /**
+   * @return The hit and miss statistics of this cache, see
+   *         {@link CacheStats#hitRate()}.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * @return The number of solutions that are currently in the cache.
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Removes all solutions from the cache.
+   */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  ImmutableList<ImmutableList<ParcelDTO>> solve(Solver delegate,
+      GlobalStateObject state) {
+    final StateKey key = new StateKey(state);
+    final ImmutableList<ImmutableList<ParcelDTO>> cached = cache
+        .getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    final ImmutableList<ImmutableList<ParcelDTO>> result = delegate
+        .solve(state);
+    cache.put(key, result);
+    return result;
+  }
+
+  private static final class CachedSolver implements Solver {
+    private final Solver delegate;
+    private final SolverCache cache;
+
+    CachedSolver(Solver deleg, SolverCache c) {
+      delegate = deleg;
+      cache = c;
+    }
+
+    @Override
+    public ImmutableList<ImmutableList<ParcelDTO>> solve(GlobalStateObject state) {
+      return cache.solve(delegate, state);
+    }
+  }
+
+  private static final class CachedSupplier extends
+      StochasticSuppliers.AbstractStochasticSupplier<Solver> {
+    private static final long serialVersionUID = 3471540930546826436L;
+    private final StochasticSupplier<? extends Solver> supplier;
+    private final long maxSize;
+    @Nullable
+    private transient SolverCache cache;
+
+    CachedSupplier(StochasticSupplier<? extends Solver> sup, SolverCache c) {
+      supplier = sup;
+      cache = c;
+      maxSize = c.maxSize;
+    }
+
+    @Override
+    public Solver get(long seed) {
+      synchronized (this) {
+        if (cache == null) {
+          cache = create(maxSize);
+        }
+      }
+      return cache.wrap(supplier.get(seed));
+    }
+
+    @Override
+    public String toString() {
+      return supplier.toString();
+    }
+  }
+
+  /**
+   * Fingerprint of a {@link GlobalStateObject}, the hash code is computed once.
+   */
+  static final class StateKey {
+    private final GlobalStateObject state;
+    private final int hashCode;
+
+    StateKey(GlobalStateObject s) {
+      state = s;
+      int hash = Objects.hash(s.availableParcels, s.time, s.timeUnit,
+          s.speedUnit, s.distUnit);
+      for (final VehicleStateObject vso : s.vehicles) {
+        hash = 31 * hash + Objects.hash(vso.getDto(), vso.location,
+            vso.contents, vso.remainingServiceTime, vso.destination, vso.route);
+      }
+      hashCode = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (other == null || other.getClass() != getClass()) {
+        return false;
+      }
+      final StateKey o = (StateKey) other;
+      if (hashCode != o.hashCode) {
+        return false;
+      }
+      final GlobalStateObject s1 = state;
+      final GlobalStateObject s2 = o.state;
+      if (s1.time != s2.time
+          || s1.vehicles.size() != s2.vehicles.size()
+          || !s1.timeUnit.equals(s2.timeUnit)
+          || !s1.speedUnit.equals(s2.speedUnit)
+          || !s1.distUnit.equals(s2.distUnit)
+          || !s1.availableParcels.equals(s2.availableParcels)) {
+        return false;
+      }
+      for (int i = 0; i < s1.vehicles.size(); i++) {
+        final VehicleStateObject v1 = s1.vehicles.get(i);
+        final VehicleStateObject v2 = s2.vehicles.get(i);
+        if (v1.remainingServiceTime != v2.remainingServiceTime
+            || !Objects.equals(v1.destination, v2.destination)
+            || !v1.location.equals(v2.location)
+            || !v1.getDto().equals(v2.getDto())
+            || !v1.contents.equals(v2.contents)
+            || !v1.route.equals(v2.route)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
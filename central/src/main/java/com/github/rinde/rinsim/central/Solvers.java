@@ -45,7 +45,6 @@ import com.github.rinde.rinsim.core.model.pdp.PDPModel;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.VehicleParcelActionInfo;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
-import com.github.rinde.rinsim.core.model.road.RoadModels;
 import com.github.rinde.rinsim.core.pdptw.DefaultParcel;
 import com.github.rinde.rinsim.core.pdptw.DefaultVehicle;
 import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
@@ -53,6 +52,7 @@ import com.github.rinde.rinsim.core.pdptw.VehicleDTO;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.pdptw.common.PDPRoadModel;
 import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.util.UnitContext;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -127,6 +127,8 @@ public final class Solvers {
     long maxTime = 0;
     int movedVehicles = 0;
     final Set<ParcelDTO> parcels = newHashSet();
+    final UnitContext units = UnitContext.create(state.timeUnit,
+        state.distUnit, state.speedUnit);
 
     final ImmutableList.Builder<ImmutableList<Long>> arrivalTimesBuilder = ImmutableList
         .builder();
@@ -149,8 +151,7 @@ public final class Solvers {
 
       long time = state.time;
       Point vehicleLocation = vso.location;
-      final Measure<Double, Velocity> speed = Measure.valueOf(
-          vso.getDto().speed, state.speedUnit);
+      final double speed = vso.getDto().speed;
       final Set<ParcelDTO> seen = newHashSet();
       for (int j = 0; j < route.size(); j++) {
         final ParcelDTO cur = route.get(j);
@@ -174,13 +175,11 @@ public final class Solvers {
           // vehicle is not there yet, go there first, then service
           final Point nextLoc = inCargo ? cur.deliveryLocation
               : cur.pickupLocation;
-          final Measure<Double, Length> distance = Measure.valueOf(
-              Point.distance(vehicleLocation, nextLoc), state.distUnit);
-          totalDistance += distance.getValue();
+          final double distance = Point.distance(vehicleLocation, nextLoc);
+          totalDistance += distance;
           vehicleLocation = nextLoc;
           final long tt = DoubleMath.roundToLong(
-              RoadModels.computeTravelTime(speed, distance, state.timeUnit),
-              RoundingMode.CEILING);
+              units.computeTravelTime(speed, distance), RoundingMode.CEILING);
           time += tt;
         }
         if (inCargo) {
@@ -218,13 +217,11 @@ public final class Solvers {
       }
 
       // go to depot
-      final Measure<Double, Length> distance = Measure.valueOf(
-          Point.distance(vehicleLocation, vso.getDto().startPosition),
-          state.distUnit);
-      totalDistance += distance.getValue();
+      final double distance = Point.distance(vehicleLocation,
+          vso.getDto().startPosition);
+      totalDistance += distance;
       final long tt = DoubleMath.roundToLong(
-          RoadModels.computeTravelTime(speed, distance, state.timeUnit),
-          RoundingMode.CEILING);
+          units.computeTravelTime(speed, distance), RoundingMode.CEILING);
       time += tt;
       // check overtime
       if (vso.getDto().availabilityTimeWindow.isAfterEnd(time)) {
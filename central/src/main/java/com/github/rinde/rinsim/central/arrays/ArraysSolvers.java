@@ -36,10 +36,10 @@ import javax.measure.unit.Unit;
 
 import com.github.rinde.rinsim.central.GlobalStateObject;
 import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
-import com.github.rinde.rinsim.core.model.road.RoadModels;
 import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.util.TimeWindow;
+import com.github.rinde.rinsim.util.UnitContext;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -100,16 +100,18 @@ public final class ArraysSolvers {
       Unit<Length> distUnit, Measure<Double, Velocity> speed,
       Unit<Duration> outputTimeUnit, RoundingMode rm) {
     checkArgument(points.size() >= 2);
+    final UnitContext units = UnitContext.create(outputTimeUnit, distUnit,
+        speed.getUnit());
+    final double speedValue = speed.getValue();
     final int[][] matrix = new int[points.size()][points.size()];
     for (int i = 0; i < points.size(); i++) {
+      final Point pi = points.get(i);
       for (int j = 0; j < i; j++) {
         if (i != j) {
           // compute distance
-          final Measure<Double, Length> dist = Measure.valueOf(
-              Point.distance(points.get(i), points.get(j)), distUnit);
+          final double dist = Point.distance(pi, points.get(j));
           // calculate duration in desired unit
-          final double duration = RoadModels.computeTravelTime(speed, dist,
-              outputTimeUnit);
+          final double duration = units.computeTravelTime(speedValue, dist);
           // round duration
           final int tt = DoubleMath.roundToInt(duration, rm);
           matrix[i][j] = tt;
@@ -420,15 +422,15 @@ public final class ArraysSolvers {
     final int n = sva.travelTime.length;
     // compute vehicle travel times
     final int[][] vehicleTravelTimes = new int[v][n];
+    final UnitContext units = UnitContext.create(outputTimeUnit,
+        state.distUnit, state.speedUnit);
 
     final UnmodifiableIterator<VehicleStateObject> iterator = state.vehicles
         .iterator();
 
     for (int i = 0; i < v; i++) {
       final VehicleStateObject cur = iterator.next();
-      final Measure<Double, Velocity> speed = Measure.valueOf(
-          cur.getDto().speed,
-          state.speedUnit);
+      final double speed = cur.getDto().speed;
 
       final ParcelDTO dest = cur.destination;
       if (dest != null) {
@@ -441,28 +443,23 @@ public final class ArraysSolvers {
         final int index = isInCargo ? pio.deliveryIndex : pio.pickupIndex;
 
         checkArgument(index > 0);
-        vehicleTravelTimes[i][index] = computeRoundedTravelTime(speed,
-            Measure.valueOf(
-                Point.distance(cur.location, sva.location2index.get(index)),
-                state.distUnit), outputTimeUnit);
+        vehicleTravelTimes[i][index] = computeRoundedTravelTime(units, speed,
+            Point.distance(cur.location, sva.location2index.get(index)));
 
       } else {
         // add travel time for every location
         for (int j = 1; j < n; j++) {
-          vehicleTravelTimes[i][j] = computeRoundedTravelTime(speed,
-              Measure.valueOf(
-                  Point.distance(cur.location, sva.location2index.get(j)),
-                  state.distUnit), outputTimeUnit);
+          vehicleTravelTimes[i][j] = computeRoundedTravelTime(units, speed,
+              Point.distance(cur.location, sva.location2index.get(j)));
         }
       }
     }
     return vehicleTravelTimes;
   }
 
-  static int computeRoundedTravelTime(Measure<Double, Velocity> speed,
-      Measure<Double, Length> dist, Unit<Duration> outputTimeUnit) {
-    return DoubleMath.roundToInt(
-        RoadModels.computeTravelTime(speed, dist, outputTimeUnit),
+  static int computeRoundedTravelTime(UnitContext units, double speed,
+      double dist) {
+    return DoubleMath.roundToInt(units.computeTravelTime(speed, dist),
         RoundingMode.CEILING);
   }
 
@@ -0,0 +1,672 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.measure.quantity.Duration;
+import javax.measure.unit.Unit;
+
+import com.github.rinde.rinsim.central.Solver;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.github.rinde.rinsim.util.StochasticSuppliers;
+
+/**
+ * A {@link MultiVehicleArraysSolver} that constructs a solution using cheapest
+ * insertion and then improves it using local search until no improvement can
+ * be found or until the time budget is exhausted. The construction inserts
+ * every unassigned pickup-and-delivery pair (in order of pickup due date) at
+ * the position in any route where it increases the objective the least. The
+ * improvement phase applies the following neighborhoods in a first improvement
+ * fashion:
+ * <ul>
+ * <li>2-opt, reverses a segment of a route that does not contain both the
+ * pickup and delivery of a parcel.</li>
+ * <li>relocate, moves a single location to another position in the same
+ * route.</li>
+ * <li>pair relocate, moves a pickup-and-delivery pair to another route.</li>
+ * <li>exchange, swaps two pickup-and-delivery pairs between two routes.</li>
+ * </ul>
+ * All moves respect the pickup-before-delivery constraint, the current
+ * destinations and the inventories of the vehicles. The objective is the sum
+ * of travel time and tardiness, the same objective as computed by
+ * {@link ArraysSolvers#computeRouteTardiness(int[], int[], int[], int[], int)}
+ * and
+ * {@link ArraysSolvers#computeTotalTravelTime(int[], int[][], int[])}.
+ * Insertions are evaluated incrementally, only the part of the route after the
+ * insertion point is re-evaluated and evaluation stops as soon as the arrival
+ * time at a location equals the arrival time in the unchanged route.
+ * <p>
+ * The solver is deterministic as long as the time budget is not exhausted.
+ * Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+public class InsertionLocalSearchSolver implements MultiVehicleArraysSolver {
+
+  private final long timeBudgetNs;
+
+  /**
+   * Create a new instance.
+   * @param timeBudgetMillis The maximum time in milliseconds that may be spent
+   *          on improving the initial solution, the construction of the initial
+   *          solution is always completed. A budget of <code>0</code> disables
+   *          the improvement phase.
+   */
+  public InsertionLocalSearchSolver(long timeBudgetMillis) {
+    checkArgument(timeBudgetMillis >= 0,
+        "Time budget must be non-negative, found %s.", timeBudgetMillis);
+    timeBudgetNs = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+  }
+
+  @Override
+  public SolutionObject[] solve(int[][] travelTime, int[] releaseDates,
+      int[] dueDates, int[][] servicePairs, int[] serviceTimes,
+      int[][] vehicleTravelTimes, int[][] inventories,
+      int[] remainingServiceTimes, int[] currentDestinations,
+      @Nullable SolutionObject[] currentSolutions) {
+    final Search search = new Search(travelTime, releaseDates, dueDates,
+        servicePairs, serviceTimes, vehicleTravelTimes, inventories,
+        remainingServiceTimes, currentDestinations, System.nanoTime()
+            + timeBudgetNs);
+    search.construct();
+    if (timeBudgetNs > 0) {
+      search.improve();
+    }
+    return search.toSolutionObjects();
+  }
+
+  /**
+   * Creates a supplier of {@link InsertionLocalSearchSolver} instances. Since
+   * the solver is deterministic the seed is ignored.
+   * @param timeBudgetMillis The time budget for the improvement phase, see
+   *          {@link #InsertionLocalSearchSolver(long)}.
+   * @return A new supplier.
+   */
+  public static StochasticSupplier<MultiVehicleArraysSolver> supplier(
+      final long timeBudgetMillis) {
+    return new StochasticSuppliers.AbstractStochasticSupplier<MultiVehicleArraysSolver>() {
+      private static final long serialVersionUID = -2791347262846718290L;
+
+      @Override
+      public MultiVehicleArraysSolver get(long seed) {
+        return new InsertionLocalSearchSolver(timeBudgetMillis);
+      }
+
+      @Override
+      public String toString() {
+        return InsertionLocalSearchSolver.class.getSimpleName() + "-"
+            + timeBudgetMillis;
+      }
+    };
+  }
+
+  /**
+   * Creates a supplier of {@link Solver} instances that use an
+   * {@link InsertionLocalSearchSolver} via a {@link MultiVehicleSolverAdapter}.
+   * @param timeBudgetMillis The time budget for the improvement phase, see
+   *          {@link #InsertionLocalSearchSolver(long)}.
+   * @param timeUnit The time unit that is used for the <code>int</code> arrays
+   *          that are passed to the solver.
+   * @return A new supplier.
+   */
+  public static StochasticSupplier<Solver> solverSupplier(
+      final long timeBudgetMillis, final Unit<Duration> timeUnit) {
+    return new StochasticSuppliers.AbstractStochasticSupplier<Solver>() {
+      private static final long serialVersionUID = 5216462709340862186L;
+
+      @Override
+      public Solver get(long seed) {
+        return new MultiVehicleSolverAdapter(new InsertionLocalSearchSolver(
+            timeBudgetMillis), timeUnit);
+      }
+
+      @Override
+      public String toString() {
+        return InsertionLocalSearchSolver.class.getSimpleName() + "-"
+            + timeBudgetMillis;
+      }
+    };
+  }
+
+  /**
+   * A route of a single vehicle including the arrival time, cumulative travel
+   * time and cumulative tardiness at every position.
+   */
+  static final class Route {
+    final int vehicle;
+    final int[] locs;
+    final int[] arrival;
+    final int[] travel;
+    final int[] tardiness;
+    // first index in the route that may be changed
+    int first;
+    int size;
+
+    Route(int vehicle, int capacity) {
+      this.vehicle = vehicle;
+      locs = new int[capacity];
+      arrival = new int[capacity];
+      travel = new int[capacity];
+      tardiness = new int[capacity];
+    }
+
+    int cost() {
+      return travel[size - 1] + tardiness[size - 1];
+    }
+
+    void insert(int index, int loc) {
+      System.arraycopy(locs, index, locs, index + 1, size - index);
+      locs[index] = loc;
+      size++;
+    }
+
+    void remove(int index) {
+      System.arraycopy(locs, index + 1, locs, index, size - index - 1);
+      size--;
+    }
+
+    // reverses the segment [from, to] (inclusive)
+    void reverse(int from, int to) {
+      for (int i = from, j = to; i < j; i++, j--) {
+        final int tmp = locs[i];
+        locs[i] = locs[j];
+        locs[j] = tmp;
+      }
+    }
+
+    int indexOf(int loc) {
+      for (int i = 0; i < size; i++) {
+        if (locs[i] == loc) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    void copyFrom(Route r) {
+      checkArgument(r.vehicle == vehicle);
+      System.arraycopy(r.locs, 0, locs, 0, r.size);
+      System.arraycopy(r.arrival, 0, arrival, 0, r.size);
+      System.arraycopy(r.travel, 0, travel, 0, r.size);
+      System.arraycopy(r.tardiness, 0, tardiness, 0, r.size);
+      size = r.size;
+      first = r.first;
+    }
+  }
+
+  static final class Search {
+    final int[][] travelTime;
+    final int[] releaseDates;
+    final int[] dueDates;
+    final int[] serviceTimes;
+    final int[][] vehicleTravelTimes;
+    final int[] remainingServiceTimes;
+    final int[] currentDestinations;
+    final int[][] inventories;
+    final int[][] servicePairs;
+    final long deadline;
+
+    // the partner location of every location (pickup <-> delivery), -1 if
+    // there is no partner
+    final int[] partner;
+    final boolean[] isPickup;
+    // the vehicle a location is bound to, -1 if it may be moved between
+    // vehicles
+    final int[] boundVehicle;
+    final boolean[] placed;
+
+    final Route[] routes;
+    final Route[] scratchA;
+    final Route[] scratchB;
+    final int[] marks;
+    int stamp;
+
+    // results of the step() method
+    int stepArrival;
+    int stepTravel;
+    int stepTardiness;
+
+    // results of the insertion methods
+    int bestFirst;
+    int bestSecond;
+
+    Search(int[][] tt, int[] rd, int[] dd, int[][] sp, int[] st, int[][] vtt,
+        int[][] inv, int[] rst, int[] cd, long dl) {
+      travelTime = tt;
+      releaseDates = rd;
+      dueDates = dd;
+      servicePairs = sp;
+      serviceTimes = st;
+      vehicleTravelTimes = vtt;
+      inventories = inv;
+      remainingServiceTimes = rst;
+      currentDestinations = cd;
+      deadline = dl;
+
+      final int n = tt.length;
+      final int v = vtt.length;
+      partner = new int[n];
+      Arrays.fill(partner, -1);
+      isPickup = new boolean[n];
+      boundVehicle = new int[n];
+      Arrays.fill(boundVehicle, -1);
+      placed = new boolean[n];
+      marks = new int[n];
+
+      routes = new Route[v];
+      scratchA = new Route[v];
+      scratchB = new Route[v];
+      for (int i = 0; i < v; i++) {
+        routes[i] = new Route(i, n);
+        scratchA[i] = new Route(i, n);
+        scratchB[i] = new Route(i, n);
+      }
+    }
+
+    void construct() {
+      final int n = travelTime.length;
+      for (int i = 0; i < servicePairs.length; i++) {
+        partner[servicePairs[i][0]] = servicePairs[i][1];
+        partner[servicePairs[i][1]] = servicePairs[i][0];
+        isPickup[servicePairs[i][0]] = true;
+      }
+      for (int i = 0; i < inventories.length; i++) {
+        boundVehicle[inventories[i][1]] = inventories[i][0];
+      }
+
+      // start location, current destination (if any) and depot
+      for (int i = 0; i < routes.length; i++) {
+        final Route r = routes[i];
+        r.insert(0, 0);
+        r.first = 1;
+        final int dest = currentDestinations[i];
+        if (dest > 0) {
+          r.insert(1, dest);
+          r.first = 2;
+          placed[dest] = true;
+          boundVehicle[dest] = i;
+          if (isPickup[dest]) {
+            boundVehicle[partner[dest]] = i;
+          }
+        }
+        r.insert(r.size, n - 1);
+        update(r, 1);
+      }
+
+      // locations that are bound to a vehicle are inserted first
+      for (int i = 1; i < n - 1; i++) {
+        if (!placed[i] && boundVehicle[i] >= 0) {
+          final Route r = routes[boundVehicle[i]];
+          final int p = partner[i] >= 0 ? r.indexOf(partner[i]) + 1 : r.first;
+          bestSingleInsertion(r, i, p, r.size - 1, Integer.MAX_VALUE);
+          r.insert(bestFirst, i);
+          update(r, bestFirst);
+          placed[i] = true;
+        }
+      }
+
+      // the remaining pairs are inserted in order of the due date of the
+      // pickup, a primitive sort key is used to avoid boxing
+      final long[] order = new long[servicePairs.length];
+      int size = 0;
+      for (int i = 0; i < servicePairs.length; i++) {
+        final int pickup = servicePairs[i][0];
+        if (!placed[pickup]) {
+          order[size++] = (long) dueDates[pickup] << Integer.SIZE | pickup;
+        }
+      }
+      Arrays.sort(order, 0, size);
+      for (int i = 0; i < size; i++) {
+        final int pickup = (int) order[i];
+        final int delivery = partner[pickup];
+        int best = Integer.MAX_VALUE;
+        int bestRoute = -1;
+        int first = -1;
+        int second = -1;
+        for (int j = 0; j < routes.length; j++) {
+          final Route r = routes[j];
+          final int cost = bestPairInsertion(r, pickup, delivery,
+              best == Integer.MAX_VALUE ? best : best + r.cost());
+          if (bestFirst >= 0 && cost - r.cost() < best) {
+            best = cost - r.cost();
+            bestRoute = j;
+            first = bestFirst;
+            second = bestSecond;
+          }
+        }
+        insertPair(routes[bestRoute], pickup, delivery, first, second);
+        placed[pickup] = true;
+        placed[delivery] = true;
+      }
+    }
+
+    void improve() {
+      boolean improved = true;
+      while (improved && !expired()) {
+        improved = false;
+        for (final Route r : routes) {
+          improved |= twoOpt(r);
+          improved |= relocate(r);
+        }
+        for (final Route r : routes) {
+          improved |= relocatePair(r);
+        }
+        for (int i = 0; i < routes.length; i++) {
+          for (int j = i + 1; j < routes.length; j++) {
+            improved |= exchange(routes[i], routes[j]);
+          }
+        }
+      }
+    }
+
+    boolean expired() {
+      return System.nanoTime() - deadline >= 0;
+    }
+
+    SolutionObject[] toSolutionObjects() {
+      final SolutionObject[] sols = new SolutionObject[routes.length];
+      for (int i = 0; i < routes.length; i++) {
+        final Route r = routes[i];
+        final int[] route = Arrays.copyOf(r.locs, r.size);
+        final int[] arrivalTimes = ArraysSolvers.computeArrivalTimes(route,
+            travelTime, remainingServiceTimes[i], vehicleTravelTimes[i],
+            serviceTimes, releaseDates);
+        final int totalTravelTime = ArraysSolvers.computeTotalTravelTime(
+            route, travelTime, vehicleTravelTimes[i]);
+        final int tardiness = ArraysSolvers.computeRouteTardiness(route,
+            arrivalTimes, serviceTimes, dueDates, remainingServiceTimes[i]);
+        sols[i] = new SolutionObject(route, arrivalTimes, totalTravelTime
+            + tardiness);
+      }
+      return sols;
+    }
+
+    /*
+     * NEIGHBORHOODS
+     */
+
+    boolean twoOpt(Route r) {
+      boolean improved = false;
+      for (int i = r.first; i < r.size - 2 && !expired(); i++) {
+        stamp++;
+        marks[r.locs[i]] = stamp;
+        for (int j = i + 1; j < r.size - 1; j++) {
+          final int loc = r.locs[j];
+          // if the partner is in the segment, reversing it breaks the
+          // precedence constraint, this holds for all longer segments as well
+          if (partner[loc] >= 0 && marks[partner[loc]] == stamp) {
+            break;
+          }
+          marks[loc] = stamp;
+          final Route s = scratchA[r.vehicle];
+          s.copyFrom(r);
+          s.reverse(i, j);
+          update(s, i);
+          if (s.cost() < r.cost()) {
+            r.copyFrom(s);
+            improved = true;
+          }
+        }
+      }
+      return improved;
+    }
+
+    boolean relocate(Route r) {
+      boolean improved = false;
+      final Route s = scratchA[r.vehicle];
+      for (int i = r.first; i < r.size - 1 && !expired(); i++) {
+        final int loc = r.locs[i];
+        s.copyFrom(r);
+        s.remove(i);
+        update(s, i);
+        int from = s.first;
+        int to = s.size - 1;
+        if (partner[loc] >= 0) {
+          final int p = s.indexOf(partner[loc]);
+          if (isPickup[loc]) {
+            to = p;
+          } else {
+            from = Math.max(from, p + 1);
+          }
+        }
+        final int cost = bestSingleInsertion(s, loc, from, to, r.cost());
+        if (bestFirst >= 0 && cost < r.cost()) {
+          s.insert(bestFirst, loc);
+          update(s, bestFirst);
+          r.copyFrom(s);
+          improved = true;
+        }
+      }
+      return improved;
+    }
+
+    boolean relocatePair(Route r) {
+      boolean improved = false;
+      final Route s = scratchA[r.vehicle];
+      for (int i = r.first; i < r.size - 1 && !expired(); i++) {
+        final int pickup = r.locs[i];
+        if (!isPickup[pickup] || boundVehicle[pickup] >= 0) {
+          continue;
+        }
+        final int delivery = partner[pickup];
+        removePair(r, s, i);
+        final int gain = r.cost() - s.cost();
+        for (final Route other : routes) {
+          if (other == r) {
+            continue;
+          }
+          final int bound = other.cost() + gain;
+          final int cost = bestPairInsertion(other, pickup, delivery, bound);
+          if (bestFirst >= 0 && cost < bound) {
+            insertPair(other, pickup, delivery, bestFirst, bestSecond);
+            r.copyFrom(s);
+            improved = true;
+            // the location at i has changed, it needs to be checked again
+            i--;
+            break;
+          }
+        }
+      }
+      return improved;
+    }
+
+    boolean exchange(Route r1, Route r2) {
+      final Route s1 = scratchA[r1.vehicle];
+      final Route s2 = scratchB[r2.vehicle];
+      final int current = r1.cost() + r2.cost();
+      for (int i = r1.first; i < r1.size - 1 && !expired(); i++) {
+        final int p1 = r1.locs[i];
+        if (!isPickup[p1] || boundVehicle[p1] >= 0) {
+          continue;
+        }
+        removePair(r1, s1, i);
+        for (int j = r2.first; j < r2.size - 1; j++) {
+          final int p2 = r2.locs[j];
+          if (!isPickup[p2] || boundVehicle[p2] >= 0) {
+            continue;
+          }
+          removePair(r2, s2, j);
+          final int cost1 = bestPairInsertion(s1, p2, partner[p2],
+              current - s2.cost());
+          if (bestFirst < 0) {
+            continue;
+          }
+          final int first1 = bestFirst;
+          final int second1 = bestSecond;
+          final int bound = current - cost1;
+          final int cost2 = bestPairInsertion(s2, p1, partner[p1], bound);
+          if (bestFirst >= 0 && cost2 < bound) {
+            insertPair(s1, p2, partner[p2], first1, second1);
+            insertPair(s2, p1, partner[p1], bestFirst, bestSecond);
+            r1.copyFrom(s1);
+            r2.copyFrom(s2);
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /*
+     * EVALUATION
+     */
+
+    // computes arrival, travel time and tardiness when moving from prevLoc to
+    // loc, where loc is at position pos in the route of vehicle veh.
+    void step(int veh, int pos, int prevLoc, int prevArrival, int loc) {
+      final int rst = remainingServiceTimes[veh];
+      final int tt = pos == 1 ? vehicleTravelTimes[veh][loc]
+          : travelTime[prevLoc][loc];
+      final int prevService = pos == 2 && rst > 0 ? rst
+          : serviceTimes[prevLoc];
+      stepArrival = Math.max(prevArrival + prevService + tt,
+          releaseDates[loc]);
+      final int service = pos == 1 && rst > 0 ? rst : serviceTimes[loc];
+      stepTravel = tt;
+      stepTardiness = Math.max(0, stepArrival + service - dueDates[loc]);
+    }
+
+    // recomputes the cached values of the route starting at index from
+    void update(Route r, int from) {
+      for (int j = Math.max(from, 1); j < r.size; j++) {
+        step(r.vehicle, j, r.locs[j - 1], r.arrival[j - 1], r.locs[j]);
+        r.arrival[j] = stepArrival;
+        r.travel[j] = r.travel[j - 1] + stepTravel;
+        r.tardiness[j] = r.tardiness[j - 1] + stepTardiness;
+      }
+    }
+
+    // removes the pair of which the pickup is at index i in r, result is
+    // stored in s
+    void removePair(Route r, Route s, int i) {
+      s.copyFrom(r);
+      s.remove(s.indexOf(partner[r.locs[i]]));
+      s.remove(i);
+      update(s, i);
+    }
+
+    void insertPair(Route r, int pickup, int delivery, int first, int second) {
+      r.insert(first, pickup);
+      r.insert(second + 1, delivery);
+      update(r, first);
+    }
+
+    /**
+     * Finds the cheapest insertion of a single location in the route. The
+     * location is inserted before the location at index <code>q</code> with
+     * <code>from &le; q &le; to</code>. The index is stored in
+     * {@link #bestFirst} or <code>-1</code> if there is no insertion cheaper
+     * than the bound.
+     */
+    int bestSingleInsertion(Route r, int loc, int from, int to, int bound) {
+      int best = bound;
+      bestFirst = -1;
+      for (int q = from; q <= to; q++) {
+        step(r.vehicle, q, r.locs[q - 1], r.arrival[q - 1], loc);
+        final int cost = evaluateTail(r, q, 1, loc, stepArrival,
+            r.travel[q - 1] + stepTravel, r.tardiness[q - 1] + stepTardiness,
+            best);
+        if (cost < best) {
+          best = cost;
+          bestFirst = q;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Finds the cheapest insertion of a pickup and delivery pair in the route.
+     * The pickup is inserted before the location at index <code>p</code>, the
+     * delivery is inserted before the location at index <code>q</code> of the
+     * original route, with <code>first &le; p &le; q &lt; size</code>. The
+     * indices are stored in {@link #bestFirst} and {@link #bestSecond}, or
+     * <code>-1</code> if there is no insertion cheaper than the bound.
+     */
+    int bestPairInsertion(Route r, int pickup, int delivery, int bound) {
+      int best = bound;
+      bestFirst = -1;
+      bestSecond = -1;
+      final int last = r.size - 1;
+      for (int p = r.first; p <= last; p++) {
+        step(r.vehicle, p, r.locs[p - 1], r.arrival[p - 1], pickup);
+        int arrival = stepArrival;
+        int travel = r.travel[p - 1] + stepTravel;
+        int tardiness = r.tardiness[p - 1] + stepTardiness;
+        int prev = pickup;
+        for (int q = p; q <= last; q++) {
+          // costs only increase while walking over the route
+          if (travel + tardiness >= best) {
+            break;
+          }
+          step(r.vehicle, q + 1, prev, arrival, delivery);
+          final int cost = evaluateTail(r, q, 2, delivery, stepArrival, travel
+              + stepTravel, tardiness + stepTardiness, best);
+          if (cost < best) {
+            best = cost;
+            bestFirst = p;
+            bestSecond = q;
+          }
+          if (q < last) {
+            step(r.vehicle, q + 1, prev, arrival, r.locs[q]);
+            arrival = stepArrival;
+            travel += stepTravel;
+            tardiness += stepTardiness;
+            prev = r.locs[q];
+          }
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Evaluates the remainder of the route, starting at index
+     * <code>from</code> of the original route that is shifted by
+     * <code>shift</code> positions due to insertions. Evaluation stops as soon
+     * as the arrival time equals the arrival time of the original route, from
+     * that point the original cached values are used. Returns
+     * {@link Integer#MAX_VALUE} when the bound is exceeded.
+     */
+    int evaluateTail(Route r, int from, int shift, int prevLoc,
+        int prevArrival, int travel, int tardiness, int bound) {
+      final int last = r.size - 1;
+      int prev = prevLoc;
+      int arrival = prevArrival;
+      int tt = travel;
+      int tard = tardiness;
+      for (int k = from; k <= last; k++) {
+        if (tt + tard >= bound) {
+          return Integer.MAX_VALUE;
+        }
+        step(r.vehicle, k + shift, prev, arrival, r.locs[k]);
+        arrival = stepArrival;
+        tt += stepTravel;
+        tard += stepTardiness;
+        prev = r.locs[k];
+        // the remainder is identical to the original route, positions do not
+        // matter since insertions always happen after the current destination
+        if (arrival == r.arrival[k]) {
+          return tt + tard + r.travel[last] - r.travel[k] + r.tardiness[last]
+              - r.tardiness[k];
+        }
+      }
+      return tt + tard >= bound ? Integer.MAX_VALUE : tt + tard;
+    }
+  }
+}
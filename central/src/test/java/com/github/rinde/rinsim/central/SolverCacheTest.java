@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.arrays.InsertionLocalSearchSolver;
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.experiment.Experiment;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.ExperimentResults;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06ObjectiveFunction;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Parser;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Scenario;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link SolverCache}.
+ * @author Rinde van Lon
+ */
+public class SolverCacheTest {
+
+  /**
+   * Repeating a scenario with a deterministic solver should give identical
+   * results, all solver invocations of the repetitions should be cache hits.
+   */
+  @Test
+  public void testRepetitions() {
+    final Gendreau06Scenario scenario = Gendreau06Parser
+        .parser()
+        .addFile(ScenarioPaths.GENDREAU)
+        .parse()
+        .get(0);
+    final SolverCache cache = SolverCache.create(10000);
+    final DebugSolverCreator dsc = new DebugSolverCreator(
+        new InsertionLocalSearchSolver(0), scenario.getTimeUnit());
+
+    final ExperimentResults results = Experiment
+        .build(Gendreau06ObjectiveFunction.instance())
+        .withThreads(1)
+        .addScenario(scenario)
+        .addConfiguration(Central.solverConfiguration(cache.wrap(dsc)))
+        .repeat(3)
+        .perform();
+
+    final int invocations = dsc.solver.getInputs().size();
+    assertTrue(invocations > 0);
+    assertEquals(invocations, cache.stats().missCount());
+    assertTrue(cache.stats().hitCount() >= 2 * invocations);
+    assertEquals(invocations, cache.size());
+
+    final ImmutableList<SimulationResult> list = results.results.asList();
+    assertEquals(3, list.size());
+    assertEquals(list.get(0).stats, list.get(1).stats);
+    assertEquals(list.get(0).stats, list.get(2).stats);
+  }
+
+  /**
+   * The cache should not exceed its maximum size.
+   */
+  @Test
+  public void testBounded() {
+    final Gendreau06Scenario scenario = Gendreau06Parser
+        .parser()
+        .addFile(ScenarioPaths.GENDREAU)
+        .parse()
+        .get(0);
+    final SolverCache cache = SolverCache.create(1);
+    Experiment
+        .build(Gendreau06ObjectiveFunction.instance())
+        .addScenario(scenario)
+        .addConfiguration(Central.solverConfiguration(cache.wrap(
+            InsertionLocalSearchSolver.solverSupplier(0,
+                scenario.getTimeUnit()))))
+        .perform();
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Identical states should map to the same solution.
+   */
+  @Test
+  public void testSameState() {
+    final Gendreau06Scenario scenario = Gendreau06Parser
+        .parser()
+        .addFile(ScenarioPaths.GENDREAU)
+        .offline()
+        .parse()
+        .get(0);
+    final DebugSolverCreator dsc = new DebugSolverCreator(
+        new InsertionLocalSearchSolver(0), scenario.getTimeUnit());
+    Experiment
+        .build(Gendreau06ObjectiveFunction.instance())
+        .addScenario(scenario)
+        .addConfiguration(Central.solverConfiguration(dsc))
+        .perform();
+    final GlobalStateObject state = dsc.solver.getInputs().get(0);
+
+    final SolverCache cache = SolverCache.create(10);
+    final Solver solver = cache.wrap(dsc.solver);
+    final ImmutableList<ImmutableList<ParcelDTO>> first = solver.solve(state);
+    assertSame(first, solver.solve(state));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(1, cache.stats().missCount());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.Central;
+import com.github.rinde.rinsim.central.DebugSolverCreator;
+import com.github.rinde.rinsim.central.ScenarioPaths;
+import com.github.rinde.rinsim.experiment.Experiment;
+import com.github.rinde.rinsim.experiment.ExperimentResults;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06ObjectiveFunction;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Parser;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Scenario;
+
+/**
+ * Tests for {@link InsertionLocalSearchSolver}, all inputs and outputs are
+ * checked by the {@link ArraysSolverValidator} and the
+ * {@link com.github.rinde.rinsim.central.SolverValidator}.
+ * @author Rinde van Lon
+ */
+public class InsertionLocalSearchSolverTest {
+
+  /**
+   * Solves a small instance with two vehicles of which one has a current
+   * destination and an inventory.
+   */
+  @Test
+  public void testSmallInstance() {
+    final int[][] travelTime = new int[][] {
+        /* 0 */new int[] { 0, 10, 20, 30, 40, 50, 10 },
+        /* 1 */new int[] { 10, 0, 10, 20, 30, 40, 20 },
+        /* 2 */new int[] { 20, 10, 0, 10, 20, 30, 30 },
+        /* 3 */new int[] { 30, 20, 10, 0, 10, 20, 40 },
+        /* 4 */new int[] { 40, 30, 20, 10, 0, 10, 50 },
+        /* 5 */new int[] { 50, 40, 30, 20, 10, 0, 60 },
+        /* 6 */new int[] { 10, 20, 30, 40, 50, 60, 0 } };
+    final int[] releaseDates = { 0, 0, 0, 0, 0, 0, 0 };
+    final int[] dueDates = { 0, 100, 200, 100, 200, 300, 400 };
+    final int[][] servicePairs = { new int[] { 1, 2 }, new int[] { 3, 4 } };
+    final int[] serviceTimes = { 0, 5, 5, 5, 5, 5, 0 };
+    final int[][] vehicleTravelTimes = {
+        new int[] { 0, 10, 20, 30, 40, 50, 10 },
+        new int[] { 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 3,
+            Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE } };
+    final int[][] inventories = { new int[] { 1, 5 } };
+    final int[] remainingServiceTimes = { 0, 0 };
+    final int[] currentDestinations = { 0, 3 };
+
+    final MultiVehicleArraysSolver solver = ArraysSolverValidator
+        .wrap(new InsertionLocalSearchSolver(100));
+    final SolutionObject[] sols = solver.solve(travelTime, releaseDates,
+        dueDates, servicePairs, serviceTimes, vehicleTravelTimes,
+        inventories, remainingServiceTimes, currentDestinations, null);
+
+    assertEquals(2, sols.length);
+    assertEquals(3, sols[1].route[1]);
+
+    final SolutionObject[] constructed = ArraysSolverValidator.wrap(
+        new InsertionLocalSearchSolver(0)).solve(travelTime, releaseDates,
+        dueDates, servicePairs, serviceTimes, vehicleTravelTimes, inventories,
+        remainingServiceTimes, currentDestinations, null);
+    assertTrue(ArraysSolvers.computeTotalObjectiveValue(sols) <= ArraysSolvers
+        .computeTotalObjectiveValue(constructed));
+  }
+
+  /**
+   * Runs the solver on a Gendreau06 instance both online and offline, the
+   * solutions must be valid and better than those of a random solver.
+   */
+  @Test
+  public void testGendreau() {
+    final Gendreau06ObjectiveFunction objFunc = Gendreau06ObjectiveFunction
+        .instance();
+    for (final boolean offline : new boolean[] { true, false }) {
+      final Gendreau06Parser parser = Gendreau06Parser.parser().addFile(
+          ScenarioPaths.GENDREAU);
+      if (offline) {
+        parser.offline();
+      }
+      final Gendreau06Scenario scenario = parser.parse().get(0);
+
+      final ExperimentResults heuristic = Experiment.build(objFunc)
+          .addScenario(scenario)
+          .addConfiguration(Central.solverConfiguration(
+              new DebugSolverCreator(new InsertionLocalSearchSolver(50),
+                  scenario.getTimeUnit())))
+          .perform();
+      final ExperimentResults random = Experiment.build(objFunc)
+          .addScenario(scenario)
+          .addConfiguration(Central.solverConfiguration(
+              new DebugSolverCreator(new RandomMVArraysSolver(
+                  new MersenneTwister(123)), scenario.getTimeUnit())))
+          .perform();
+
+      final double heuristicCost = objFunc.computeCost(heuristic.results
+          .asList().get(0).stats);
+      final double randomCost = objFunc.computeCost(random.results.asList()
+          .get(0).stats);
+      assertTrue(objFunc.isValidResult(heuristic.results.asList().get(0).stats));
+      assertTrue(heuristicCost + " " + randomCost, heuristicCost < randomCost);
+    }
+  }
+}
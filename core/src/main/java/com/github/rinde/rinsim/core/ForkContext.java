@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.newIdentityHashMap;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps track of the forks of the objects of a simulation while it is being
+ * forked, see {@link Simulator#fork(org.apache.commons.math3.random.RandomGenerator)}.
+ * Each object is forked at most once, objects are compared by identity.
+ * Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+public final class ForkContext {
+  private final Map<Object, Object> forks;
+  private final Set<Object> forking;
+
+  ForkContext() {
+    forks = newIdentityHashMap();
+    forking = Collections.newSetFromMap(Maps
+        .<Object, Boolean> newIdentityHashMap());
+  }
+
+  /**
+   * Returns the fork of the specified object. If the object has not yet been
+   * forked, it is forked using {@link Forkable#fork(ForkContext)}.
+   * @param original The object of the original simulation.
+   * @param <T> The type of the object.
+   * @return The fork of the object.
+   * @throws IllegalArgumentException if the object is not {@link Forkable}.
+   * @throws IllegalStateException if the object is (indirectly) needed for
+   *           creating its own fork.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(T original) {
+    final Object fork = forks.get(original);
+    if (fork != null) {
+      return (T) fork;
+    }
+    checkArgument(original instanceof Forkable,
+        "%s can not be forked, it should implement Forkable.", original);
+    checkState(forking.add(original),
+        "%s is needed for creating its own fork.", original);
+    final Object newFork = ((Forkable<?>) original).fork(this);
+    forking.remove(original);
+    checkState(newFork != null && newFork.getClass() == original.getClass(),
+        "The fork of %s must be of the same class, found %s. Override fork().",
+        original, newFork);
+    forks.put(original, newFork);
+    return (T) newFork;
+  }
+
+  /**
+   * @param original The object of the original simulation.
+   * @return <code>true</code> if the object has been forked,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isForked(Object original) {
+    return forks.containsKey(original);
+  }
+
+  /**
+   * Registers a fork that is created outside of this context, e.g. the fork of
+   * a model that is decorated by another model.
+   * @param original The object of the original simulation.
+   * @param fork The fork of the object.
+   * @param <T> The type of the object.
+   * @throws IllegalArgumentException if the object is already forked.
+   */
+  public <T> void put(T original, T fork) {
+    checkArgument(!forks.containsKey(original), "%s is already forked.",
+        original);
+    forks.put(original, fork);
+  }
+}
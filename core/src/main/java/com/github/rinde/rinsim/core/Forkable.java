@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core;
+
+/**
+ * Implementors of this interface can be copied into a simulation that is
+ * forked using {@link Simulator#fork(org.apache.commons.math3.random.RandomGenerator)}.
+ * All objects that are registered in a simulator, all {@link TickListener}s
+ * and all objects that are referenced by them (e.g. the handler of scenario
+ * events) need to be forkable for the simulator to be forkable.
+ * <p>
+ * A fork should not be registered in the forked simulator or its models, the
+ * models copy their state (e.g. the positions of objects) themselves. Objects
+ * that are immutable may return themselves as fork.
+ * @param <T> The type of the fork.
+ * @author Rinde van Lon
+ */
+public interface Forkable<T> {
+
+  /**
+   * Creates a fork of this object. References to other objects of the
+   * simulation (e.g. models, parcels or the simulator itself) should be
+   * replaced by their forks, these can be obtained using
+   * {@link ForkContext#get(Object)}.
+   * @param context The context of the fork.
+   * @return The fork of this object, it must be of the same class as this
+   *         object.
+   */
+  T fork(ForkContext context);
+}
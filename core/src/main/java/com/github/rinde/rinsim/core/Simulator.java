@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.core;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,6 +24,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
 import javax.measure.Measure;
 import javax.measure.quantity.Duration;
 import javax.measure.unit.Unit;
@@ -31,12 +33,15 @@ import org.apache.commons.math3.random.RandomGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.rinde.rinsim.core.SimulatorProfiler.Phase;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.core.model.Model;
 import com.github.rinde.rinsim.core.model.ModelManager;
 import com.github.rinde.rinsim.core.model.ModelProvider;
 import com.github.rinde.rinsim.event.Event;
 import com.github.rinde.rinsim.event.EventAPI;
 import com.github.rinde.rinsim.event.EventDispatcher;
+import com.google.common.base.Optional;
 
 /**
  * Simulator is the core class of a simulation. It is responsible for managing
@@ -56,6 +61,10 @@ import com.github.rinde.rinsim.event.EventDispatcher;
  * Note that objects can not be registered <b>before</b> calling
  * {@link #configure()} and {@link Model}s can not be registered <b>after</b>
  * configuring.
+ * <p>
+ * A configured simulator can be copied using {@link #fork(RandomGenerator)},
+ * the fork continues from the current state of the simulator independently of
+ * the original.
  * 
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
  * @author Bartosz Michalik  - simulator API
@@ -121,6 +130,10 @@ public class Simulator implements SimulatorAPI {
   private final RandomGenerator rand;
   private final long timeStep;
   private final TimeLapse timeLapse;
+  @Nullable
+  private SimulatorProfiler profiler;
+  private boolean ticking;
+  private boolean afterTicking;
 
   // TODO RandomGenerator should be moved into an own model. This way, objects
   // that need a reference to a random generator can get one by implementing
@@ -211,7 +224,17 @@ public class Simulator implements SimulatorAPI {
     if (obj instanceof TickListener) {
       addTickListener((TickListener) obj);
     }
-    return modelManager.register(obj);
+    if (profiler == null) {
+      return modelManager.register(obj);
+    }
+    final boolean counting = profiler.startCounting();
+    try {
+      return modelManager.register(obj);
+    } finally {
+      if (counting) {
+        profiler.stopCounting();
+      }
+    }
   }
 
   /**
@@ -301,6 +324,9 @@ public class Simulator implements SimulatorAPI {
       tick();
     }
     dispatcher.dispatchEvent(new Event(SimulatorEventType.STOPPED, this));
+    if (profiler != null) {
+      profiler.export();
+    }
   }
 
   /**
@@ -308,6 +334,22 @@ public class Simulator implements SimulatorAPI {
    * step).
    */
   public void tick() {
+    final SimulatorProfiler p = profiler;
+    if (p == null) {
+      doTick(null);
+    } else {
+      final boolean counting = p.startCounting();
+      try {
+        doTick(p);
+      } finally {
+        if (counting) {
+          p.stopCounting();
+        }
+      }
+    }
+  }
+
+  private void doTick(@Nullable SimulatorProfiler p) {
     // unregister all pending objects
     Set<Object> copy;
     copy = toUnregister;
@@ -326,20 +368,123 @@ public class Simulator implements SimulatorAPI {
 
     final long end = time + timeStep;
     LOGGER.trace("{} ->----> tick ->----> {}", time, end);
+    ticking = true;
     for (final TickListener t : localCopy) {
       timeLapse.initialize(time, end);
-      t.tick(timeLapse);
+      if (p == null) {
+        t.tick(timeLapse);
+      } else {
+        final long start = System.nanoTime();
+        t.tick(timeLapse);
+        p.record(Phase.TICK, t.getClass(), System.nanoTime() - start);
+      }
     }
+    ticking = false;
     timeLapse.initialize(time, end);
     // in the after tick the TimeLapse can no longer be consumed
     timeLapse.consumeAll();
+    afterTicking = true;
     for (final TickListener t : localCopy) {
-      t.afterTick(timeLapse);
+      if (p == null) {
+        t.afterTick(timeLapse);
+      } else {
+        final long start = System.nanoTime();
+        t.afterTick(timeLapse);
+        p.record(Phase.AFTER_TICK, t.getClass(), System.nanoTime() - start);
+      }
     }
+    afterTicking = false;
     time += timeStep;
 
   }
 
+  /**
+   * Creates a fork of this simulator. The fork is a new simulator with the
+   * same time, time step and models, it contains copies of all registered
+   * objects and tick listeners and continues from the current state of this
+   * simulator. A fork does not share any mutable state with this simulator or
+   * with other forks, as such the simulator and its forks can be simulated
+   * concurrently on separate threads. This can be used for evaluating what-if
+   * scenarios by simulating a fork a number of ticks ahead using
+   * {@link #tick()}, after which it can be discarded.
+   * <p>
+   * All models must implement {@link ForkableModel}. All tick listeners, all
+   * objects registered in the models and all objects that are referenced by
+   * them must implement {@link Forkable}, they are copied via a
+   * {@link ForkContext}. Event listeners and the profiler are not copied to
+   * the fork. A simulator can be forked in between ticks or during
+   * {@link TickListener#afterTick(TimeLapse)}, in the latter case the fork
+   * starts at the next tick.
+   * @param rng The random number generator that is used in the fork.
+   * @return The fork.
+   * @throws IllegalArgumentException if a model is not a
+   *           {@link ForkableModel} or an object is not {@link Forkable}.
+   */
+  public Simulator fork(RandomGenerator rng) {
+    checkState(configured,
+        "A simulator can only be forked after calling configure().");
+    checkState(!ticking,
+        "A simulator can not be forked during tick(), only during afterTick().");
+    final List<Model<?>> models = modelManager.getModels();
+    for (final Model<?> m : models) {
+      checkArgument(m instanceof ForkableModel,
+          "%s can not be forked, it should implement ForkableModel.", m);
+    }
+    final Simulator fork = new Simulator(rng, Measure.valueOf(timeStep,
+        getTimeUnit()));
+    fork.time = afterTicking ? time + timeStep : time;
+
+    final ForkContext context = new ForkContext();
+    context.put(this, fork);
+    for (final Model<?> m : models) {
+      final Model<?> modelFork = ((ForkableModel) m).createFork();
+      context.put(m, modelFork);
+      fork.register(modelFork);
+    }
+    fork.configure();
+    for (final Model<?> m : models) {
+      ((ForkableModel) m).forkState(context);
+    }
+
+    // the order of the tick listeners is preserved
+    final Set<TickListener> listeners = new LinkedHashSet<TickListener>();
+    for (final TickListener t : new ArrayList<TickListener>(tickListeners)) {
+      listeners.add(context.get(t));
+    }
+    fork.tickListeners = Collections.synchronizedSet(listeners);
+    for (final Object o : toUnregister) {
+      fork.toUnregister.add(context.get(o));
+    }
+    return fork;
+  }
+
+  /**
+   * Enables profiling of this simulator. From then on the durations of the
+   * calls to {@link TickListener#tick(TimeLapse)},
+   * {@link TickListener#afterTick(TimeLapse)}, {@link Model#register(Object)}
+   * and {@link Model#unregister(Object)} are recorded, as well as the number
+   * of dispatched events per type. When profiling is not enabled (the
+   * default) the simulator is not slowed down. Calling this method more than
+   * once has no effect.
+   * @return The profiler that records the data.
+   */
+  public SimulatorProfiler enableProfiling() {
+    if (profiler == null) {
+      profiler = new SimulatorProfiler();
+      modelManager.setProfiler(profiler);
+    }
+    return profiler;
+  }
+
+  /**
+   * @return The profiler of this simulator, absent if profiling is not
+   *         enabled.
+   * @see #enableProfiling()
+   */
+  public Optional<SimulatorProfiler> getProfiler() {
+    return Optional.fromNullable(profiler);
+  }
+
   /**
    * Either starts or stops the simulation depending on the current state.
    */
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.rinde.rinsim.event.EventDispatcher;
+import com.github.rinde.rinsim.util.LogHistogram;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.io.Files;
+
+/**
+ * Records where a {@link Simulator} spends its time. For each phase the
+ * durations of the calls are recorded per class: per {@link TickListener} class
+ * for {@link Phase#TICK} and {@link Phase#AFTER_TICK}, per
+ * {@link com.github.rinde.rinsim.core.model.Model} class for
+ * {@link Phase#REGISTER} and {@link Phase#UNREGISTER}. In addition the
+ * events that are dispatched during ticks and registrations are counted per
+ * event type. Profiling is enabled via {@link Simulator#enableProfiling()}, a
+ * simulator without profiler does not record anything. All methods are thread
+ * safe, the data can be queried while the simulation is running.
+ * @author Rinde van Lon
+ */
+public final class SimulatorProfiler {
+
+  /**
+   * The phases of a simulation that are profiled.
+   */
+  public enum Phase {
+    /**
+     * {@link TickListener#tick(TimeLapse)}.
+     */
+    TICK,
+
+    /**
+     * {@link TickListener#afterTick(TimeLapse)}.
+     */
+    AFTER_TICK,
+
+    /**
+     * {@link com.github.rinde.rinsim.core.model.Model#register(Object)}.
+     */
+    REGISTER,
+
+    /**
+     * {@link com.github.rinde.rinsim.core.model.Model#unregister(Object)}.
+     */
+    UNREGISTER
+  }
+
+  private final Map<Phase, Map<Class<?>, Timing>> timings;
+  private final Multiset<Enum<?>> eventCounts;
+  private Optional<File> exportFile;
+
+  SimulatorProfiler() {
+    timings = new EnumMap<>(Phase.class);
+    for (final Phase p : Phase.values()) {
+      timings.put(p, new LinkedHashMap<Class<?>, Timing>());
+    }
+    eventCounts = ConcurrentHashMultiset.create();
+    exportFile = Optional.absent();
+  }
+
+  /**
+   * Records the duration of a single call.
+   * @param phase The phase of the call.
+   * @param type The class of the object that was called.
+   * @param nanos The duration of the call in nanoseconds.
+   */
+  public synchronized void record(Phase phase, Class<?> type, long nanos) {
+    final Map<Class<?>, Timing> map = timings.get(phase);
+    Timing timing = map.get(type);
+    if (timing == null) {
+      timing = new Timing();
+      map.put(type, timing);
+    }
+    timing.add(nanos);
+  }
+
+  /**
+   * @param phase The phase.
+   * @return A copy of the timings of all classes for the specified phase.
+   */
+  public synchronized ImmutableMap<Class<?>, Timing> getTimings(Phase phase) {
+    final ImmutableMap.Builder<Class<?>, Timing> builder = ImmutableMap
+        .builder();
+    for (final Entry<Class<?>, Timing> entry : timings.get(phase).entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().copy());
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param phase The phase.
+   * @param type The class.
+   * @return A copy of the timing of the specified class in the specified
+   *         phase, or absent if nothing has been recorded.
+   */
+  public synchronized Optional<Timing> getTiming(Phase phase, Class<?> type) {
+    final Timing timing = timings.get(phase).get(type);
+    return timing == null ? Optional.<Timing> absent() : Optional.of(timing
+        .copy());
+  }
+
+  /**
+   * @return The number of dispatched events per event type.
+   */
+  public ImmutableMultiset<Enum<?>> getEventCounts() {
+    return ImmutableMultiset.copyOf(eventCounts);
+  }
+
+  /**
+   * Removes all recorded data.
+   */
+  public synchronized void reset() {
+    for (final Map<Class<?>, Timing> map : timings.values()) {
+      map.clear();
+    }
+    eventCounts.clear();
+  }
+
+  /**
+   * When set, the profile is written to the specified file in CSV format (see
+   * {@link #toCsv()}) each time the simulator stops.
+   * @param file The file to write to.
+   */
+  public synchronized void exportOnStop(File file) {
+    exportFile = Optional.of(file);
+  }
+
+  /**
+   * Creates a CSV representation of the profile. The first line is a header,
+   * every other line contains the statistics of a phase and class, the counts
+   * of events have phase <code>EVENT</code> and the event type instead of the
+   * class. All durations are in nanoseconds.
+   * @return A string in CSV format.
+   */
+  public synchronized String toCsv() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("phase,name,count,total,mean,min,max,p50,p99\n");
+    for (final Entry<Phase, Map<Class<?>, Timing>> phase : timings.entrySet()) {
+      for (final Entry<Class<?>, Timing> entry : phase.getValue().entrySet()) {
+        final Timing t = entry.getValue();
+        sb.append(phase.getKey()).append(',')
+            .append(entry.getKey().getName()).append(',')
+            .append(t.getCount()).append(',')
+            .append(t.getTotalNanos()).append(',')
+            .append(String.format(Locale.US, "%.1f", t.getMeanNanos()))
+            .append(',')
+            .append(t.getMinNanos()).append(',')
+            .append(t.getMaxNanos()).append(',')
+            .append(t.getPercentileNanos(50)).append(',')
+            .append(t.getPercentileNanos(99)).append('\n');
+      }
+    }
+    for (final Multiset.Entry<Enum<?>> entry : eventCounts.entrySet()) {
+      sb.append("EVENT,").append(entry.getElement()).append(',')
+          .append(entry.getCount()).append(",,,,,,\n");
+    }
+    return sb.toString();
+  }
+
+  void export() {
+    final Optional<File> file;
+    synchronized (this) {
+      file = exportFile;
+    }
+    if (file.isPresent()) {
+      try {
+        Files.createParentDirs(file.get());
+        Files.write(toCsv(), file.get(), Charsets.UTF_8);
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  // events dispatched on the current thread are counted until stopCounting(),
+  // returns false (and changes nothing) if the thread is already counting,
+  // e.g. when an object is registered during a tick
+  boolean startCounting() {
+    if (EventDispatcher.isCounting()) {
+      return false;
+    }
+    EventDispatcher.startCounting(eventCounts);
+    return true;
+  }
+
+  void stopCounting() {
+    EventDispatcher.stopCounting();
+  }
+
+  /**
+   * Statistics of the durations of calls. Durations are collected in a
+   * {@link LogHistogram} with buckets of exponentially increasing size: bucket
+   * <code>i</code> of {@link #getHistogram()} contains durations in the range
+   * <code>[2^i, 2^(i+1))</code> nanoseconds, bucket <code>0</code> also
+   * contains durations of <code>0</code>.
+   */
+  public static final class Timing {
+    private final LogHistogram histogram;
+
+    Timing() {
+      this(LogHistogram.create(0));
+    }
+
+    private Timing(LogHistogram h) {
+      histogram = h;
+    }
+
+    void add(long nanos) {
+      histogram.add(nanos);
+    }
+
+    static int bucket(long nanos) {
+      return nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    Timing copy() {
+      return new Timing(histogram.copy());
+    }
+
+    /**
+     * @return The number of calls.
+     */
+    public long getCount() {
+      return histogram.getCount();
+    }
+
+    /**
+     * @return The total duration of all calls.
+     */
+    public long getTotalNanos() {
+      return histogram.getTotal();
+    }
+
+    /**
+     * @return The mean duration of a call.
+     */
+    public double getMeanNanos() {
+      return histogram.getMean();
+    }
+
+    /**
+     * @return The shortest duration of a call.
+     */
+    public long getMinNanos() {
+      return histogram.getMin();
+    }
+
+    /**
+     * @return The longest duration of a call.
+     */
+    public long getMaxNanos() {
+      return histogram.getMax();
+    }
+
+    /**
+     * Computes an upper bound for the specified percentile, the upper bound
+     * is the end of the histogram bucket that contains the percentile (but
+     * never more than the maximum).
+     * @param percentile The percentile, in range <code>(0, 100]</code>.
+     * @return The upper bound of the percentile in nanoseconds.
+     */
+    public long getPercentileNanos(double percentile) {
+      return histogram.getPercentile(percentile);
+    }
+
+    /**
+     * @return A copy of the histogram, the value at index <code>i</code> is
+     *         the number of calls with a duration in
+     *         <code>[2^i, 2^(i+1))</code> nanoseconds.
+     */
+    public long[] getHistogram() {
+      // bucket i + 1 of the log histogram contains [2^i, 2^(i+1))
+      final long[] buckets = histogram.getBuckets();
+      final long[] result = new long[Long.SIZE];
+      result[0] = buckets[0];
+      for (int i = 1; i < buckets.length; i++) {
+        result[i - 1] += buckets[i];
+      }
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.US,
+          "Timing{count=%d, mean=%.1fns, min=%dns, max=%dns}", getCount(),
+          getMeanNanos(), getMinNanos(), getMaxNanos());
+    }
+  }
+}
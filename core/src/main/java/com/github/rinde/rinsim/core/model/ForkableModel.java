@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model;
+
+import com.github.rinde.rinsim.core.ForkContext;
+
+/**
+ * A {@link Model} that can be copied into a forked simulation, see
+ * {@link com.github.rinde.rinsim.core.Simulator#fork(org.apache.commons.math3.random.RandomGenerator)}.
+ * A model is forked in two steps, first {@link #createFork()} is called on all
+ * models after which the forks of the models are configured in the forked
+ * simulator. Next, {@link #forkState(ForkContext)} is called on all models
+ * which copies the state of the registered objects into the forks.
+ * <p>
+ * The state of a fork should not share mutable data structures with the
+ * original, such that the original and its forks can be simulated
+ * concurrently. Immutable values, such as positions, can be shared.
+ * @author Rinde van Lon
+ */
+public interface ForkableModel {
+
+  /**
+   * Creates a new model with the same configuration as this model but without
+   * any registered objects.
+   * @return The fork of this model.
+   */
+  Model<?> createFork();
+
+  /**
+   * Copies the state of all objects registered in this model into the fork
+   * of this model. The forks of the objects and the fork of this model can be
+   * obtained via {@link ForkContext#get(Object)}.
+   * @param context The context of the fork.
+   */
+  void forkState(ForkContext context);
+}
@@ -26,6 +26,8 @@ import java.util.Set;
 
 import javax.annotation.Nullable;
 
+import com.github.rinde.rinsim.core.SimulatorProfiler;
+import com.github.rinde.rinsim.core.SimulatorProfiler.Phase;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
@@ -41,6 +43,8 @@ public class ModelManager implements ModelProvider {
   private final Multimap<Class<? extends Object>, Model<? extends Object>> registry;
   private final List<Model<? extends Object>> models;
   private boolean configured;
+  @Nullable
+  private SimulatorProfiler profiler;
 
   /**
    * Instantiate a new model manager.
@@ -104,7 +108,14 @@ public class ModelManager implements ModelProvider {
         final Collection<Model<?>> assignableModels = registry
             .get(modelSupportedType);
         for (final Model<?> m : assignableModels) {
-          result |= ((Model<T>) m).register(object);
+          if (profiler == null) {
+            result |= ((Model<T>) m).register(object);
+          } else {
+            final long start = System.nanoTime();
+            result |= ((Model<T>) m).register(object);
+            profiler.record(Phase.REGISTER, m.getClass(), System.nanoTime()
+                - start);
+          }
         }
       }
     }
@@ -134,13 +145,29 @@ public class ModelManager implements ModelProvider {
         final Collection<Model<?>> assignableModels = registry
             .get(modelSupportedType);
         for (final Model<?> m : assignableModels) {
-          result |= ((Model<T>) m).unregister(object);
+          if (profiler == null) {
+            result |= ((Model<T>) m).unregister(object);
+          } else {
+            final long start = System.nanoTime();
+            result |= ((Model<T>) m).unregister(object);
+            profiler.record(Phase.UNREGISTER, m.getClass(), System.nanoTime()
+                - start);
+          }
         }
       }
     }
     return result;
   }
 
+  /**
+   * Sets the profiler that records the durations of the calls to
+   * {@link Model#register(Object)} and {@link Model#unregister(Object)}.
+   * @param p The profiler, or <code>null</code> to disable profiling.
+   */
+  public void setProfiler(@Nullable SimulatorProfiler p) {
+    profiler = p;
+  }
+
   /**
    * @return An unmodifiable view on all registered models.
    */
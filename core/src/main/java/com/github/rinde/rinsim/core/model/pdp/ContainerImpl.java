@@ -17,6 +17,8 @@ package com.github.rinde.rinsim.core.model.pdp;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.github.rinde.rinsim.core.ForkContext;
+
 /**
  * Default implementation of the {@link Container} interface.
  * @author Rinde van Lon 
@@ -35,6 +37,12 @@ public abstract class ContainerImpl extends PDPObjectImpl implements Container {
     capacity = pCapacity;
   }
 
+  @Override
+  protected void initFork(PDPObjectImpl original, ForkContext context) {
+    super.initFork(original, context);
+    capacity = ((ContainerImpl) original).capacity;
+  }
+
   @Override
   public final double getCapacity() {
     return capacity;
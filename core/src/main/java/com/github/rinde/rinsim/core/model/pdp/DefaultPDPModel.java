@@ -24,9 +24,12 @@ import static java.util.Collections.unmodifiableSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.core.model.ModelProvider;
 import com.github.rinde.rinsim.core.model.pdp.TimeWindowPolicy.TimeWindowPolicies;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
@@ -69,7 +72,7 @@ import com.google.common.collect.Multimap;
  * 
  * @author Rinde van Lon 
  */
-public final class DefaultPDPModel extends PDPModel {
+public final class DefaultPDPModel extends PDPModel implements ForkableModel {
 
   /**
    * The {@link EventDispatcher} used for generating events.
@@ -565,6 +568,45 @@ public final class DefaultPDPModel extends PDPModel {
     }
   }
 
+  /**
+   * Creates a new model with the same {@link TimeWindowPolicy} as this model.
+   * @return The fork.
+   */
+  @Override
+  public DefaultPDPModel createFork() {
+    return new DefaultPDPModel(timeWindowPolicy);
+  }
+
+  @Override
+  public void forkState(ForkContext context) {
+    synchronized (this) {
+      final DefaultPDPModel fork = context.get(this);
+      for (final Entry<Container, Double> entry : containerCapacities
+          .entrySet()) {
+        final Container container = context.get(entry.getKey());
+        fork.containerCapacities.put(container, entry.getValue());
+        fork.containerContentsSize.put(container,
+            containerContentsSize.get(entry.getKey()));
+      }
+      for (final Entry<Container, Parcel> entry : containerContents.entries()) {
+        fork.containerContents.put(context.get(entry.getKey()),
+            context.get(entry.getValue()));
+      }
+      for (final Entry<Vehicle, VehicleState> entry : vehicleState.entrySet()) {
+        fork.vehicleState.put(context.get(entry.getKey()), entry.getValue());
+      }
+      for (final Entry<ParcelState, Parcel> entry : parcelState.entries()) {
+        fork.parcelState.put(entry.getKey(), context.get(entry.getValue()));
+      }
+      for (final Entry<Vehicle, Action> entry : pendingVehicleActions
+          .entrySet()) {
+        fork.pendingVehicleActions.put(context.get(entry.getKey()), entry
+            .getValue().fork(fork, context));
+      }
+      fork.currentTime = currentTime;
+    }
+  }
+
   @Override
   public void service(Vehicle vehicle, Parcel parcel, TimeLapse time) {
     if (getContents(vehicle).contains(parcel)) {
@@ -594,6 +636,14 @@ public final class DefaultPDPModel extends PDPModel {
      *         <code>false</code> otherwise.
      */
     boolean isDone();
+
+    /**
+     * Creates a copy of this action for a fork of the model.
+     * @param model The fork of the model.
+     * @param context The context of the fork.
+     * @return The copy.
+     */
+    Action fork(DefaultPDPModel model, ForkContext context);
   }
 
   abstract static class VehicleParcelAction implements Action,
@@ -677,6 +727,12 @@ public final class DefaultPDPModel extends PDPModel {
       super(model, v, p, pTimeNeeded);
     }
 
+    @Override
+    public PickupAction fork(DefaultPDPModel model, ForkContext context) {
+      return new PickupAction(model, context.get(vehicle), context.get(parcel),
+          timeNeeded);
+    }
+
     @Override
     public void finish(TimeLapse time) {
       modelRef.vehicleState.put(vehicle, VehicleState.IDLE);
@@ -689,6 +745,12 @@ public final class DefaultPDPModel extends PDPModel {
       super(model, v, p, pTimeNeeded);
     }
 
+    @Override
+    public DropAction fork(DefaultPDPModel model, ForkContext context) {
+      return new DropAction(model, context.get(vehicle), context.get(parcel),
+          timeNeeded);
+    }
+
     @Override
     protected void finish(TimeLapse time) {
       modelRef.vehicleState.put(vehicle, VehicleState.IDLE);
@@ -702,6 +764,12 @@ public final class DefaultPDPModel extends PDPModel {
       super(model, v, p, pTimeNeeded);
     }
 
+    @Override
+    public DeliverAction fork(DefaultPDPModel model, ForkContext context) {
+      return new DeliverAction(model, context.get(vehicle), context.get(parcel),
+          timeNeeded);
+    }
+
     @Override
     public void finish(TimeLapse time) {
       modelRef.vehicleState.put(vehicle, VehicleState.IDLE);
@@ -15,8 +15,10 @@
  */
 package com.github.rinde.rinsim.core.model.pdp;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.geom.Point;
 import com.google.common.base.Optional;
@@ -73,6 +75,32 @@ public abstract class PDPObjectImpl implements PDPObject {
     }
   }
 
+  /**
+   * Initializes this object as a fork of the specified object, this should be
+   * called by implementations of
+   * {@link com.github.rinde.rinsim.core.Forkable#fork(ForkContext)}. This
+   * object receives the forks of the models of the original, its position and
+   * its state in the models are copied by the models themselves.
+   * {@link #initRoadPDP(RoadModel, PDPModel)} is not called.
+   * @param original The object of which this object is a fork.
+   * @param context The context of the fork.
+   */
+  protected void initFork(PDPObjectImpl original, ForkContext context) {
+    checkArgument(original.getClass() == getClass(),
+        "A fork must be of the same class as the original: %s.",
+        original.getClass());
+    checkState(!pdpModel.isPresent() && !roadModel.isPresent(),
+        "A registered object can not become a fork.");
+    if (original.pdpModel.isPresent()) {
+      pdpModel = Optional.of(context.get(original.pdpModel.get()));
+    }
+    if (original.roadModel.isPresent()) {
+      roadModel = Optional.of(context.get(original.roadModel.get()));
+    }
+    startPosition = original.startPosition;
+    isRegistered = original.isRegistered;
+  }
+
   /**
    * @return <code>true</code> when this object has been registered in both the
    *         {@link RoadModel} and the {@link DefaultPDPModel}.
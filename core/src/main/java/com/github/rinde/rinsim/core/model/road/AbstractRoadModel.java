@@ -27,6 +27,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 
@@ -39,10 +40,12 @@ import javax.measure.unit.NonSI;
 import javax.measure.unit.SI;
 import javax.measure.unit.Unit;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.TimeLapse;
 import com.github.rinde.rinsim.event.EventAPI;
 import com.github.rinde.rinsim.event.EventDispatcher;
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.UnitContext;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Sets;
 
@@ -134,6 +137,11 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
    */
   protected Map<MovingRoadUser, DestinationPath> objDestinations;
 
+  @Nullable
+  private MoveStatistics moveStatistics;
+  @Nullable
+  private UnitContext unitContext;
+
   /**
    * Create model using {@link SI#KILOMETER} and
    * {@link NonSI#KILOMETERS_PER_HOUR}.
@@ -164,6 +172,26 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     eventDispatcher = new EventDispatcher(RoadEventType.MOVE);
   }
 
+  /**
+   * Returns the {@link UnitContext} for the specified time unit and the
+   * external distance and speed units of this model. The SI units of the
+   * context are the internal units of this model. The context is cached, it is
+   * only looked up again when a different time unit is used.
+   * @param timeUnit The time unit.
+   * @return The unit context.
+   */
+  protected final UnitContext unitContext(Unit<Duration> timeUnit) {
+    final UnitContext uc = unitContext;
+    if (uc != null
+        && (uc.getTimeUnit() == timeUnit || uc.getTimeUnit().equals(timeUnit))) {
+      return uc;
+    }
+    final UnitContext newContext = UnitContext.create(timeUnit,
+        externalDistanceUnit, externalSpeedUnit);
+    unitContext = newContext;
+    return newContext;
+  }
+
   /**
    * A function for converting the location representation to a {@link Point}.
    * @param locObj The location to be converted.
@@ -190,7 +218,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     final Point dest = newArrayList(path).get(path.size() - 1);
     objDestinations.put(object, new DestinationPath(dest, path));
     final MoveProgress mp = doFollowPath(object, path, time);
-    eventDispatcher.dispatchEvent(new MoveEvent(self, object, mp));
+    moved(object, mp, time);
     return mp;
   }
 
@@ -207,7 +235,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
       objDestinations.put(object, new DestinationPath(destination, path));
     }
     final MoveProgress mp = doFollowPath(object, path, time);
-    eventDispatcher.dispatchEvent(new MoveEvent(self, object, mp));
+    moved(object, mp, time);
     return mp;
   }
 
@@ -217,6 +245,32 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     return moveTo(object, getPosition(destination), time);
   }
 
+  // the move event is only created when someone is listening
+  void moved(MovingRoadUser object, MoveProgress mp, TimeLapse time) {
+    recordMove(object, mp.distance.getValue(), time.getStartTime());
+    if (eventDispatcher.hasListenerFor(RoadEventType.MOVE)) {
+      eventDispatcher.dispatchEvent(new MoveEvent(self, object, mp));
+    }
+  }
+
+  void recordMove(MovingRoadUser object, double distance, long time) {
+    if (moveStatistics != null) {
+      moveStatistics.record(object, distance, time);
+    }
+  }
+
+  boolean isRecordingMoves() {
+    return moveStatistics != null;
+  }
+
+  @Override
+  public MoveStatistics enableMoveStatistics() {
+    if (moveStatistics == null) {
+      moveStatistics = new MoveStatistics();
+    }
+    return moveStatistics;
+  }
+
   /**
    * Should be overridden by subclasses to define actual
    * {@link RoadModel#followPath(MovingRoadUser, Queue, TimeLapse)} behavior.
@@ -269,6 +323,32 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     objDestinations.clear();
   }
 
+  /**
+   * Copies the locations and destinations of all objects in this model to the
+   * specified fork of this model, the objects are replaced by their forks.
+   * The locations are immutable and are shared with the fork, the paths
+   * towards the destinations are copied. When {@link MoveStatistics} are
+   * enabled they are copied as well. Can be used by subclasses to implement
+   * {@link com.github.rinde.rinsim.core.model.ForkableModel}.
+   * @param fork The fork of this model.
+   * @param context The context of the fork.
+   */
+  protected void copyObjectsTo(AbstractRoadModel<T> fork, ForkContext context) {
+    for (final Entry<RoadUser, T> entry : objLocs.entrySet()) {
+      fork.objLocs.put(context.get(entry.getKey()), entry.getValue());
+    }
+    for (final Entry<MovingRoadUser, DestinationPath> entry : objDestinations
+        .entrySet()) {
+      final DestinationPath dp = entry.getValue();
+      fork.objDestinations.put(context.get(entry.getKey()),
+          fork.new DestinationPath(dp.destination, new LinkedList<Point>(
+              dp.path)));
+    }
+    if (moveStatistics != null) {
+      moveStatistics.copyTo(fork.enableMoveStatistics(), context);
+    }
+  }
+
   @Override
   public boolean containsObject(RoadUser obj) {
     checkArgument(obj != null, "obj can not be null");
@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.core.model.road;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -25,6 +26,7 @@ import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
 import javax.measure.unit.Unit;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.geom.Graph;
 import com.github.rinde.rinsim.geom.Point;
 import com.google.common.collect.HashBasedTable;
@@ -76,6 +78,31 @@ public class CachedGraphRoadModel extends GraphRoadModel {
     return Tables.unmodifiableTable(pathTable);
   }
 
+  /**
+   * Creates a new model with the same graph, units and a copy of the path
+   * cache of this model.
+   * @return The fork.
+   */
+  @Override
+  public CachedGraphRoadModel createFork() {
+    checkState(getClass() == CachedGraphRoadModel.class,
+        "%s must override createFork().", getClass().getName());
+    final CachedGraphRoadModel fork = new CachedGraphRoadModel(graph,
+        externalDistanceUnit, externalSpeedUnit);
+    fork.pathTable = HashBasedTable.create(pathTable);
+    return fork;
+  }
+
+  @Override
+  protected void copyObjectsTo(AbstractRoadModel<Loc> fork,
+      ForkContext context) {
+    super.copyObjectsTo(fork, context);
+    final CachedGraphRoadModel cachedFork = (CachedGraphRoadModel) fork;
+    for (final RoadUser ru : cachedFork.objLocs.keySet()) {
+      cachedFork.classObjectMap.put(ru.getClass(), ru);
+    }
+  }
+
   // overrides internal func to add caching
   @Override
   protected List<Point> doGetShortestPathTo(Point from, Point to) {
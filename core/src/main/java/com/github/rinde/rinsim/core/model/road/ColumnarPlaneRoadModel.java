@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.util.Arrays.asList;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+
+import javax.annotation.Nullable;
+import javax.measure.Measure;
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Velocity;
+import javax.measure.unit.Unit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import com.github.rinde.rinsim.core.TickListener;
+import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.model.road.ColumnarStore.Slot;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A {@link RoadModel} that uses a plane as road structure, like
+ * {@link PlaneRoadModel}, but which keeps the positions of all road users in
+ * primitive arrays instead of in a map of {@link Point}s. This model is meant
+ * for simulations with very large fleets.
+ * <p>
+ * Besides the regular {@link RoadModel} methods, which all work as usual,
+ * this model supports batched moves: a destination can be set for a
+ * {@link MovingRoadUser} using {@link #setDestination(MovingRoadUser, Point)}
+ * after which the model moves the road user towards its destination in
+ * {@link #afterTick(TimeLapse)}. All road users are moved in a single tight
+ * loop, no objects are created per move and no {@link MoveEvent}s are
+ * dispatched, the moves are recorded in the {@link MoveStatistics} (if
+ * enabled). Batched moves do not consume the {@link TimeLapse} of the road
+ * users. Moving a road user using one of the regular methods, e.g.
+ * {@link #moveTo(MovingRoadUser, Point, TimeLapse)}, cancels its batched move.
+ * @author Rinde van Lon
+ */
+public class ColumnarPlaneRoadModel extends AbstractRoadModel<Slot> implements
+    TickListener {
+  /**
+   * The minimum x and y of the plane.
+   */
+  public final Point min;
+  /**
+   * The maximum x and y of the plane.
+   */
+  public final Point max;
+  /**
+   * The maximum speed in meters per second that objects can travel on the
+   * plane.
+   */
+  public final double maxSpeed;
+
+  final ColumnarStore store;
+
+  /**
+   * Create a new plane road model using the specified boundaries and max speed.
+   * @param pMin The minimum x and y of the plane.
+   * @param pMax The maximum x and y of the plane.
+   * @param distanceUnit This is the unit in which all input distances and
+   *          locations (i.e. {@link Point}s) should be specified.
+   * @param pMaxSpeed The maximum speed that objects can travel on the plane.
+   */
+  public ColumnarPlaneRoadModel(Point pMin, Point pMax,
+      Unit<Length> distanceUnit, Measure<Double, Velocity> pMaxSpeed) {
+    super(distanceUnit, pMaxSpeed.getUnit());
+    checkArgument(pMin.x < pMax.x && pMin.y < pMax.y,
+        "min should have coordinates smaller than max");
+    checkArgument(pMaxSpeed.getValue() > 0, "max speed must be positive");
+    min = pMin;
+    max = pMax;
+    maxSpeed = pMaxSpeed.doubleValue(INTERNAL_SPEED_UNIT);
+    store = new ColumnarStore();
+  }
+
+  @Override
+  public Point getRandomPosition(RandomGenerator rnd) {
+    return new Point(min.x + rnd.nextDouble() * (max.x - min.x), min.y
+        + rnd.nextDouble() * (max.y - min.y));
+  }
+
+  @Override
+  public void addObjectAt(RoadUser newObj, Point pos) {
+    checkArgument(
+        isPointInBoundary(pos),
+        "objects can only be added within the boundaries of the plane, %s is not in the boundary.",
+        pos);
+    super.addObjectAt(newObj, pos);
+  }
+
+  @Override
+  public void addObjectAtSamePosition(RoadUser newObj, RoadUser existingObj) {
+    checkArgument(objLocs.containsKey(existingObj),
+        "Object %s does not exist.", existingObj);
+    addObjectAt(newObj, getPosition(existingObj));
+  }
+
+  @Override
+  public void removeObject(RoadUser roadUser) {
+    final Slot slot = objLocs.get(roadUser);
+    super.removeObject(roadUser);
+    store.remove(slot);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    store.clear();
+  }
+
+  @Override
+  public boolean containsObjectAt(RoadUser obj, Point p) {
+    checkArgument(p != null, "point can not be null");
+    return containsObject(obj) && getPosition(obj).equals(p);
+  }
+
+  /**
+   * Sets the destination of a batched move of the specified road user, see
+   * {@link ColumnarPlaneRoadModel}. The speed of the road user is read when
+   * this method is called.
+   * @param object The road user to move.
+   * @param destination The destination.
+   */
+  public void setDestination(MovingRoadUser object, Point destination) {
+    checkArgument(objLocs.containsKey(object), "object must have a location");
+    checkArgument(isPointInBoundary(destination),
+        "destination must be within the predefined boundary of the plane");
+    final double speed = toExternalDistConv.convert(min(
+        toInternalSpeedConv.convert(object.getSpeed()), maxSpeed));
+    store.setDestination(objLocs.get(object), destination.x, destination.y,
+        speed);
+  }
+
+  /**
+   * @param object The road user.
+   * @return <code>true</code> if the road user has not yet reached the
+   *         destination of its batched move, <code>false</code> otherwise.
+   */
+  public boolean isMoving(MovingRoadUser object) {
+    checkArgument(objLocs.containsKey(object), "object must have a location");
+    return store.moving[objLocs.get(object).index];
+  }
+
+  @Override
+  @Nullable
+  public Point getDestination(MovingRoadUser object) {
+    final Slot slot = objLocs.get(object);
+    if (slot != null && store.moving[slot.index]) {
+      return new Point(store.destinationXs[slot.index],
+          store.destinationYs[slot.index]);
+    }
+    return super.getDestination(object);
+  }
+
+  @Override
+  public void tick(TimeLapse timeLapse) {}
+
+  /**
+   * Executes the batched moves of all road users.
+   * @param timeLapse The time lapse of the tick.
+   */
+  @Override
+  public void afterTick(TimeLapse timeLapse) {
+    final double seconds = unitContext(timeLapse.getTimeUnit())
+        .getTimeToSeconds().convert(timeLapse.getTimeStep());
+    final int moved = store.moveAll(seconds);
+    if (moved > 0 && isRecordingMoves()) {
+      synchronized (objLocs) {
+        for (final Entry<RoadUser, Slot> entry : objLocs.entrySet()) {
+          final double step = store.steps[entry.getValue().index];
+          if (step > 0) {
+            recordMove((MovingRoadUser) entry.getKey(), step,
+                timeLapse.getStartTime());
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  protected MoveProgress doFollowPath(MovingRoadUser object, Queue<Point> path,
+      TimeLapse time) {
+    final Slot slot = objLocs.get(object);
+    store.moving[slot.index] = false;
+    final double[] xy = { store.xs[slot.index], store.ys[slot.index] };
+    final MoveProgress mp = PlaneRoadModel.followPath(this, object, xy, path,
+        time, maxSpeed, min, max);
+    store.xs[slot.index] = xy[0];
+    store.ys[slot.index] = xy[1];
+    return mp;
+  }
+
+  @Override
+  public List<Point> getShortestPathTo(Point from, Point to) {
+    checkArgument(
+        isPointInBoundary(from),
+        "from must be within the predefined boundary of the plane, from is %s, boundary: min %s, max %s.",
+        from, min, max);
+    checkArgument(
+        isPointInBoundary(to),
+        "to must be within the predefined boundary of the plane, to is %s, boundary: min %s, max %s.",
+        to, min, max);
+    return asList(from, to);
+  }
+
+  @Override
+  protected Point locObj2point(Slot locObj) {
+    return new Point(store.xs[locObj.index], store.ys[locObj.index]);
+  }
+
+  // every call creates a new slot in the store, objects never share a slot
+  @Override
+  protected Slot point2LocObj(Point point) {
+    return store.add(point.x, point.y);
+  }
+
+  /**
+   * Checks whether the specified point is within the plane as defined by this
+   * model.
+   * @param p The point to check.
+   * @return <code>true</code> if the points is within the boundary,
+   *         <code>false</code> otherwise.
+   */
+  protected boolean isPointInBoundary(Point p) {
+    return PlaneRoadModel.isPointInBoundary(p, min, max);
+  }
+
+  @Override
+  public ImmutableList<Point> getBounds() {
+    return ImmutableList.of(min, max);
+  }
+
+  /**
+   * Create a {@link Supplier} for {@link ColumnarPlaneRoadModel}s.
+   * @param min The minimum x and y of the plane.
+   * @param max The maximum x and y of the plane.
+   * @param distanceUnit This is the unit in which all input distances and
+   *          locations (i.e. {@link Point}s) should be specified.
+   * @param maxSpeed The maximum speed that objects can travel on the plane.
+   * @return A newly created supplier.
+   */
+  public static Supplier<ColumnarPlaneRoadModel> supplier(final Point min,
+      final Point max, final Unit<Length> distanceUnit,
+      final Measure<Double, Velocity> maxSpeed) {
+    return new DefaultSupplier(min, max, distanceUnit, maxSpeed);
+  }
+
+  private static class DefaultSupplier implements
+      Supplier<ColumnarPlaneRoadModel> {
+    final Point min;
+    final Point max;
+    final Unit<Length> distanceUnit;
+    final Measure<Double, Velocity> maxSpeed;
+
+    DefaultSupplier(Point mi, Point ma, Unit<Length> du,
+        Measure<Double, Velocity> ms) {
+      min = mi;
+      max = ma;
+      distanceUnit = du;
+      maxSpeed = ms;
+    }
+
+    @Override
+    public ColumnarPlaneRoadModel get() {
+      return new ColumnarPlaneRoadModel(min, max, distanceUnit, maxSpeed);
+    }
+  }
+}
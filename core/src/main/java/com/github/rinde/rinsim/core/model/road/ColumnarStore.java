@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import java.util.Arrays;
+
+/**
+ * A store that keeps the state of road users in primitive arrays (columns)
+ * that are indexed by a dense index. Compared to keeping the state in maps of
+ * objects this keeps the data of all road users close together in memory,
+ * which allows to update all road users in a single tight loop, see
+ * {@link #moveAll(double)}. The dense index of a road user changes when
+ * another road user is removed, {@link Slot}s are stable handles which always
+ * point to the current index. The store is unit agnostic: positions and
+ * distances are in the same unit, speeds are in that unit per second. This
+ * class is not thread safe.
+ * @author Rinde van Lon
+ */
+final class ColumnarStore {
+  static final int INITIAL_CAPACITY = 16;
+
+  double[] xs;
+  double[] ys;
+  double[] destinationXs;
+  double[] destinationYs;
+  double[] speeds;
+  // the distance traveled during the last invocation of moveAll
+  double[] steps;
+  boolean[] moving;
+  Slot[] slots;
+  int size;
+
+  ColumnarStore() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    xs = new double[capacity];
+    ys = new double[capacity];
+    destinationXs = new double[capacity];
+    destinationYs = new double[capacity];
+    speeds = new double[capacity];
+    steps = new double[capacity];
+    moving = new boolean[capacity];
+    slots = new Slot[capacity];
+  }
+
+  Slot add(double x, double y) {
+    if (size == xs.length) {
+      final int capacity = size * 2;
+      xs = Arrays.copyOf(xs, capacity);
+      ys = Arrays.copyOf(ys, capacity);
+      destinationXs = Arrays.copyOf(destinationXs, capacity);
+      destinationYs = Arrays.copyOf(destinationYs, capacity);
+      speeds = Arrays.copyOf(speeds, capacity);
+      steps = Arrays.copyOf(steps, capacity);
+      moving = Arrays.copyOf(moving, capacity);
+      slots = Arrays.copyOf(slots, capacity);
+    }
+    final Slot slot = new Slot(size);
+    xs[size] = x;
+    ys[size] = y;
+    speeds[size] = 0d;
+    steps[size] = 0d;
+    moving[size] = false;
+    slots[size] = slot;
+    size++;
+    return slot;
+  }
+
+  // the last road user is moved to the index of the removed road user such
+  // that the columns stay dense
+  void remove(Slot slot) {
+    final int i = slot.index;
+    final int last = size - 1;
+    if (i != last) {
+      xs[i] = xs[last];
+      ys[i] = ys[last];
+      destinationXs[i] = destinationXs[last];
+      destinationYs[i] = destinationYs[last];
+      speeds[i] = speeds[last];
+      steps[i] = steps[last];
+      moving[i] = moving[last];
+      slots[i] = slots[last];
+      slots[i].index = i;
+    }
+    slots[last] = null;
+    slot.index = -1;
+    size--;
+  }
+
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      slots[i].index = -1;
+    }
+    size = 0;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  void setDestination(Slot slot, double x, double y, double speed) {
+    destinationXs[slot.index] = x;
+    destinationYs[slot.index] = y;
+    speeds[slot.index] = speed;
+    moving[slot.index] = true;
+  }
+
+  /**
+   * Moves all road users that have a destination in a straight line towards
+   * their destination. Road users that reach their destination stop moving.
+   * The traveled distances are stored in {@link #steps}.
+   * @param seconds The available time in seconds.
+   * @return The number of road users that moved.
+   */
+  int moveAll(double seconds) {
+    int moved = 0;
+    for (int i = 0; i < size; i++) {
+      if (!moving[i]) {
+        steps[i] = 0d;
+        continue;
+      }
+      final double dx = destinationXs[i] - xs[i];
+      final double dy = destinationYs[i] - ys[i];
+      final double length = Math.sqrt(dx * dx + dy * dy);
+      final double travel = speeds[i] * seconds;
+      if (travel >= length) {
+        xs[i] = destinationXs[i];
+        ys[i] = destinationYs[i];
+        moving[i] = false;
+        steps[i] = length;
+      } else {
+        final double fraction = travel / length;
+        xs[i] += fraction * dx;
+        ys[i] += fraction * dy;
+        steps[i] = travel;
+      }
+      moved++;
+    }
+    return moved;
+  }
+
+  /**
+   * A stable handle to the state of a road user in the store.
+   */
+  static final class Slot {
+    int index;
+
+    Slot(int i) {
+      index = i;
+    }
+  }
+}
@@ -74,6 +74,11 @@ public class ForwardingRoadModel extends GenericRoadModel {
     return delegate.unregister(element);
   }
 
+  @Override
+  public MoveStatistics enableMoveStatistics() {
+    return delegate.enableMoveStatistics();
+  }
+
   @Override
   public MoveProgress moveTo(MovingRoadUser object, Point destination,
       TimeLapse time) {
@@ -68,4 +68,11 @@ public abstract class GenericRoadModel extends AbstractModel<RoadUser>
    */
   protected abstract boolean doRegister(RoadUser object);
 
+  /**
+   * Enables the accumulation of {@link MoveStatistics} by this model. Calling
+   * this method more than once returns the same instance.
+   * @return The statistics of this model.
+   */
+  public abstract MoveStatistics enableMoveStatistics();
+
 }
@@ -18,6 +18,7 @@ package com.github.rinde.rinsim.core.model.road;
 import static com.github.rinde.rinsim.geom.Graphs.shortestPathEuclideanDistance;
 import static com.github.rinde.rinsim.geom.Graphs.unmodifiableGraph;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.math.RoundingMode;
 import java.util.ArrayList;
@@ -26,7 +27,6 @@ import java.util.Queue;
 
 import javax.annotation.Nullable;
 import javax.measure.Measure;
-import javax.measure.converter.UnitConverter;
 import javax.measure.quantity.Duration;
 import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
@@ -34,13 +34,17 @@ import javax.measure.unit.Unit;
 
 import org.apache.commons.math3.random.RandomGenerator;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.core.model.road.GraphRoadModel.Loc;
 import com.github.rinde.rinsim.geom.Connection;
 import com.github.rinde.rinsim.geom.ConnectionData;
 import com.github.rinde.rinsim.geom.Graph;
 import com.github.rinde.rinsim.geom.MultiAttributeData;
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.UnitContext;
+import com.github.rinde.rinsim.util.UnitContext.Conversion;
 import com.google.common.collect.ImmutableList;
 import com.google.common.math.DoubleMath;
 
@@ -55,7 +59,8 @@ import com.google.common.math.DoubleMath;
  * @author Bartosz Michalik  changes wrt.
  *         models infrastructure
  */
-public class GraphRoadModel extends AbstractRoadModel<Loc> {
+public class GraphRoadModel extends AbstractRoadModel<Loc> implements
+    ForkableModel {
 
   // FIXME precision stuff should be defined in the interface, implemented in
   // abstract class and thoroughly tested
@@ -92,6 +97,24 @@ public class GraphRoadModel extends AbstractRoadModel<Loc> {
     graph = pGraph;
   }
 
+  /**
+   * Creates a new model with the same graph and units as this model, the graph
+   * is shared and should therefore not be modified while the model or its
+   * forks are used. Subclasses that add state must override this method.
+   * @return The fork.
+   */
+  @Override
+  public GraphRoadModel createFork() {
+    checkState(getClass() == GraphRoadModel.class,
+        "%s must override createFork().", getClass().getName());
+    return new GraphRoadModel(graph, externalDistanceUnit, externalSpeedUnit);
+  }
+
+  @Override
+  public void forkState(ForkContext context) {
+    copyObjectsTo(context.get(this), context);
+  }
+
   @Override
   public void addObjectAt(RoadUser newObj, Point pos) {
     checkArgument(graph.containsNode(pos),
@@ -108,10 +131,9 @@ public class GraphRoadModel extends AbstractRoadModel<Loc> {
     checkLocation(objLoc);
     double traveled = 0;
 
-    final UnitConverter toInternalTimeConv = time.getTimeUnit().getConverterTo(
-        INTERNAL_TIME_UNIT);
-    final UnitConverter toExternalTimeConv = INTERNAL_TIME_UNIT
-        .getConverterTo(time.getTimeUnit());
+    final UnitContext units = unitContext(time.getTimeUnit());
+    final Conversion toInternalTimeConv = units.getTimeToSeconds();
+    final Conversion toExternalTimeConv = units.getSecondsToTime();
 
     Loc tempLoc = objLoc;
     Point tempPos = objLoc;
@@ -421,15 +443,15 @@ public class GraphRoadModel extends AbstractRoadModel<Loc> {
    */
   protected static Loc newLoc(Connection<? extends ConnectionData> conn,
       double relativePos) {
-    final Point diff = Point.diff(conn.to, conn.from);
     final double roadLength = getConnectionLength(conn);
 
     final double perc = relativePos / roadLength;
     if (perc + DELTA >= 1) {
       return new Loc(conn.to.x, conn.to.y, null, -1, 0);
     }
-    return new Loc(conn.from.x + perc * diff.x, conn.from.y + perc * diff.y,
-        conn, roadLength, relativePos);
+    return new Loc(Point.interpolate(conn.from.x, conn.to.x, perc),
+        Point.interpolate(conn.from.y, conn.to.y, perc), conn, roadLength,
+        relativePos);
   }
 
   @Override
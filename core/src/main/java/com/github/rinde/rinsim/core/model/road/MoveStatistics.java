@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.rinde.rinsim.core.ForkContext;
+import com.google.common.base.Optional;
+
+/**
+ * Statistics of the moves of {@link MovingRoadUser}s in a {@link RoadModel}
+ * which are accumulated directly by the model. This is a cheap alternative for
+ * listening to {@link AbstractRoadModel.RoadEventType#MOVE} events: no event
+ * object is created per move. Statistics are only accumulated after they are
+ * enabled via {@link GenericRoadModel#enableMoveStatistics()}. Distances are
+ * expressed in the distance unit of the road model. Instances are not thread
+ * safe.
+ * @author Rinde van Lon
+ */
+public final class MoveStatistics {
+  private final Map<MovingRoadUser, Record> records;
+  private double totalDistance;
+  private long moves;
+  private double moveThreshold;
+
+  MoveStatistics() {
+    records = newLinkedHashMap();
+  }
+
+  /**
+   * Sets the distance that a single move must exceed to count for
+   * {@link #getLastMoveTime(MovingRoadUser)}, smaller moves are still added to
+   * the distances. Only moves that are made after calling this method are
+   * affected. Default: <code>0</code>.
+   * @param threshold The threshold, must be non-negative.
+   */
+  public void setMoveThreshold(double threshold) {
+    checkArgument(threshold >= 0d, "The threshold must be non-negative, "
+        + "found %s.", threshold);
+    moveThreshold = threshold;
+  }
+
+  // copies all statistics to the specified instance, the objects are
+  // replaced by their forks
+  void copyTo(MoveStatistics fork, ForkContext context) {
+    for (final Entry<MovingRoadUser, Record> entry : records.entrySet()) {
+      final Record r = new Record();
+      r.distance = entry.getValue().distance;
+      r.hasMoved = entry.getValue().hasMoved;
+      r.lastMoveTime = entry.getValue().lastMoveTime;
+      fork.records.put(context.get(entry.getKey()), r);
+    }
+    fork.totalDistance = totalDistance;
+    fork.moves = moves;
+    fork.moveThreshold = moveThreshold;
+  }
+
+  void record(MovingRoadUser object, double distance, long time) {
+    Record r = records.get(object);
+    if (r == null) {
+      r = new Record();
+      records.put(object, r);
+    }
+    r.distance += distance;
+    if (distance > moveThreshold) {
+      r.hasMoved = true;
+      r.lastMoveTime = time;
+    }
+    totalDistance += distance;
+    moves++;
+  }
+
+  /**
+   * @return The total distance that is traveled by all objects.
+   */
+  public double getTotalDistance() {
+    return totalDistance;
+  }
+
+  /**
+   * @return The total number of moves, including moves that did not cover any
+   *         distance.
+   */
+  public long getMoves() {
+    return moves;
+  }
+
+  /**
+   * @return The number of objects that have moved at least once.
+   */
+  public int getMovedObjects() {
+    return records.size();
+  }
+
+  /**
+   * @param object The object.
+   * @return The distance that is traveled by the object.
+   */
+  public double getDistance(MovingRoadUser object) {
+    final Record r = records.get(object);
+    return r == null ? 0d : r.distance;
+  }
+
+  /**
+   * @param object The object.
+   * @return The start time of the tick in which the object last traveled a
+   *         distance greater than the move threshold (see
+   *         {@link #setMoveThreshold(double)}), or absent if the object never
+   *         did.
+   */
+  public Optional<Long> getLastMoveTime(MovingRoadUser object) {
+    final Record r = records.get(object);
+    if (r == null || !r.hasMoved) {
+      return Optional.absent();
+    }
+    return Optional.of(r.lastMoveTime);
+  }
+
+  static final class Record {
+    double distance;
+    boolean hasMoved;
+    long lastMoveTime;
+  }
+}
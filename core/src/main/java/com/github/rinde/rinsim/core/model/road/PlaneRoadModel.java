@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.core.model.road;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 
@@ -25,7 +26,6 @@ import java.util.List;
 import java.util.Queue;
 
 import javax.measure.Measure;
-import javax.measure.converter.UnitConverter;
 import javax.measure.quantity.Duration;
 import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
@@ -35,8 +35,12 @@ import javax.measure.unit.Unit;
 
 import org.apache.commons.math3.random.RandomGenerator;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.UnitContext;
+import com.github.rinde.rinsim.util.UnitContext.Conversion;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.math.DoubleMath;
@@ -48,7 +52,8 @@ import com.google.common.math.DoubleMath;
  * 
  * @author Rinde van Lon 
  */
-public class PlaneRoadModel extends AbstractRoadModel<Point> {
+public class PlaneRoadModel extends AbstractRoadModel<Point> implements
+    ForkableModel {
 
   /**
    * The minimum travelable distance.
@@ -99,6 +104,20 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
     maxSpeed = pMaxSpeed.doubleValue(INTERNAL_SPEED_UNIT);
   }
 
+  /**
+   * Creates a new plane road model with the same boundaries, units and max
+   * speed as the specified model, the objects are not copied.
+   * @param original The model to copy.
+   */
+  protected PlaneRoadModel(PlaneRoadModel original) {
+    super(original.externalDistanceUnit, original.externalSpeedUnit);
+    min = original.min;
+    max = original.max;
+    width = original.width;
+    height = original.height;
+    maxSpeed = original.maxSpeed;
+  }
+
   /**
    * Create a new plane road model using the specified boundaries and max speed.
    * It uses {@link SI#KILOMETER} for distances and
@@ -113,6 +132,23 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
         NonSI.KILOMETERS_PER_HOUR));
   }
 
+  /**
+   * Creates a new model with the same boundaries, units and max speed as this
+   * model. Subclasses that add state must override this method.
+   * @return The fork.
+   */
+  @Override
+  public PlaneRoadModel createFork() {
+    checkState(getClass() == PlaneRoadModel.class,
+        "%s must override createFork().", getClass().getName());
+    return new PlaneRoadModel(this);
+  }
+
+  @Override
+  public void forkState(ForkContext context) {
+    copyObjectsTo(context.get(this), context);
+  }
+
   @Override
   public Point getRandomPosition(RandomGenerator rnd) {
     return new Point(min.x + rnd.nextDouble() * width, min.y
@@ -131,21 +167,47 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
   @Override
   protected MoveProgress doFollowPath(MovingRoadUser object, Queue<Point> path,
       TimeLapse time) {
+    final Point loc = objLocs.get(object);
+    final double[] xy = { loc.x, loc.y };
+    final MoveProgress mp = followPath(this, object, xy, path, time, maxSpeed,
+        min, max);
+    objLocs.put(object, new Point(xy[0], xy[1]));
+    return mp;
+  }
+
+  /**
+   * Moves an object on a plane along the specified path for as long as the
+   * time lapse allows. The position of the object is passed as coordinates
+   * such that this can be shared by models that store positions in
+   * different ways (e.g. {@link ColumnarPlaneRoadModel}).
+   * @param model The model in which the object moves.
+   * @param object The object to move.
+   * @param xy The x and y coordinates of the object, they are updated to the
+   *          position that is reached.
+   * @param path The path to follow, reached points are removed from it.
+   * @param time The time lapse to consume.
+   * @param maxSpeed The maximum speed on the plane in internal units.
+   * @param min The minimum x and y of the plane.
+   * @param max The maximum x and y of the plane.
+   * @return The progress of the move.
+   */
+  static MoveProgress followPath(AbstractRoadModel<?> model,
+      MovingRoadUser object, double[] xy, Queue<Point> path, TimeLapse time,
+      double maxSpeed, Point min, Point max) {
     final long startTimeConsumed = time.getTimeConsumed();
-    Point loc = objLocs.get(object);
+    Point loc = new Point(xy[0], xy[1]);
 
-    final UnitConverter toInternalTimeConv = time.getTimeUnit().getConverterTo(
-        INTERNAL_TIME_UNIT);
-    final UnitConverter toExternalTimeConv = INTERNAL_TIME_UNIT
-        .getConverterTo(time.getTimeUnit());
+    final UnitContext units = model.unitContext(time.getTimeUnit());
+    final Conversion toInternalTimeConv = units.getTimeToSeconds();
+    final Conversion toExternalTimeConv = units.getSecondsToTime();
 
     double traveled = 0;
-    final double speed = min(toInternalSpeedConv.convert(object.getSpeed()),
-        maxSpeed);
+    final double speed = min(
+        model.toInternalSpeedConv.convert(object.getSpeed()), maxSpeed);
     if (speed == 0d) {
       // FIXME add test for this case, also check GraphRoadModel
       final Measure<Double, Length> dist = Measure.valueOf(0d,
-          externalDistanceUnit);
+          model.externalDistanceUnit);
       final Measure<Long, Duration> dur = Measure.valueOf(0L,
           time.getTimeUnit());
       return new MoveProgress(dist, dur, new ArrayList<Point>());
@@ -153,14 +215,14 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
 
     final List<Point> travelledNodes = new ArrayList<Point>();
     while (time.hasTimeLeft() && path.size() > 0) {
-      checkArgument(isPointInBoundary(path.peek()),
+      checkArgument(isPointInBoundary(path.peek(), min, max),
           "points in the path must be within the predefined boundary of the plane");
 
       // distance in internal time unit that can be traveled with timeleft
       final double travelDistance = speed
           * toInternalTimeConv.convert(time.getTimeLeft());
-      final double stepLength = toInternalDistConv.convert(Point.distance(loc,
-          path.peek()));
+      final double stepLength = model.toInternalDistConv.convert(Point
+          .distance(loc, path.peek()));
 
       if (travelDistance >= stepLength) {
         loc = path.remove();
@@ -172,25 +234,24 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
         time.consume(timeSpent);
         traveled += stepLength;
       } else {
-        final Point diff = Point.diff(path.peek(), loc);
-
         if (stepLength - travelDistance < DELTA) {
           loc = path.peek();
           traveled += stepLength;
         } else {
           final double perc = travelDistance / stepLength;
-          loc = new Point(loc.x + perc * diff.x, loc.y + perc * diff.y);
+          loc = Point.interpolate(loc, path.peek(), perc);
           traveled += travelDistance;
         }
         time.consumeAll();
 
       }
     }
-    objLocs.put(object, loc);
+    xy[0] = loc.x;
+    xy[1] = loc.y;
 
     // convert to external units
     final Measure<Double, Length> distTraveled = Measure.valueOf(
-        toExternalDistConv.convert(traveled), externalDistanceUnit);
+        model.toExternalDistConv.convert(traveled), model.externalDistanceUnit);
     final Measure<Long, Duration> timeConsumed = Measure.valueOf(
         time.getTimeConsumed() - startTimeConsumed, time.getTimeUnit());
     return new MoveProgress(distTraveled, timeConsumed, travelledNodes);
@@ -228,6 +289,10 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
    */
   // TODO give more general name?
   protected boolean isPointInBoundary(Point p) {
+    return isPointInBoundary(p, min, max);
+  }
+
+  static boolean isPointInBoundary(Point p, Point min, Point max) {
     return p.x >= min.x && p.x <= max.x && p.y >= min.y && p.y <= max.y;
   }
 
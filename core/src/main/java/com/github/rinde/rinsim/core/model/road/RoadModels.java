@@ -23,11 +23,11 @@ import javax.measure.Measure;
 import javax.measure.quantity.Duration;
 import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
-import javax.measure.unit.SI;
 import javax.measure.unit.Unit;
 
 import com.github.rinde.rinsim.geom.Graphs;
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.UnitContext;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
@@ -258,17 +258,13 @@ public final class RoadModels {
    * @param outputTimeUnit The time unit to use for the output.
    * @return The time it takes to travel the specified distance with the
    *         specified speed.
+   * @see UnitContext#computeTravelTime(double, double)
    */
   public static double computeTravelTime(Measure<Double, Velocity> speed,
       Measure<Double, Length> distance, Unit<Duration> outputTimeUnit) {
-    // meters
-    return Measure.valueOf(distance.doubleValue(SI.METER)
-        // divided by m/s
-        / speed.doubleValue(SI.METERS_PER_SECOND),
-        // gives seconds
-        SI.SECOND)
-        // convert to desired unit
-        .doubleValue(outputTimeUnit);
+    return UnitContext.create(outputTimeUnit, distance.getUnit(),
+        speed.getUnit()).computeTravelTime(speed.getValue(),
+        distance.getValue());
   }
 
   static class RoadUserToPositionFunction<T extends RoadUser> implements
@@ -15,6 +15,8 @@
  */
 package com.github.rinde.rinsim.core.pdptw;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.model.pdp.Depot;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
@@ -24,7 +26,7 @@ import com.github.rinde.rinsim.geom.Point;
  * A default {@link Depot} implementation, it does nothing.
  * @author Rinde van Lon 
  */
-public class DefaultDepot extends Depot {
+public class DefaultDepot extends Depot implements Forkable<DefaultDepot> {
 
   /**
    * Instantiate the depot at the provided position.
@@ -34,6 +36,21 @@ public class DefaultDepot extends Depot {
     setStartPosition(startPosition);
   }
 
+  // the position of a fork is copied by initFork
+  DefaultDepot() {}
+
   @Override
   public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
+
+  /**
+   * Creates a fork of this depot, subclasses should override this method.
+   * @param context The context of the fork.
+   * @return The fork.
+   */
+  @Override
+  public DefaultDepot fork(ForkContext context) {
+    final DefaultDepot fork = new DefaultDepot();
+    fork.initFork(this, context);
+    return fork;
+  }
 }
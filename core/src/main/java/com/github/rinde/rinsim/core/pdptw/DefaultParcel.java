@@ -15,6 +15,8 @@
  */
 package com.github.rinde.rinsim.core.pdptw;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
@@ -25,7 +27,7 @@ import com.github.rinde.rinsim.geom.Point;
  * {@link ParcelDTO}.
  * @author Rinde van Lon 
  */
-public class DefaultParcel extends Parcel {
+public class DefaultParcel extends Parcel implements Forkable<DefaultParcel> {
 
   /**
    * A data object which describes the immutable properties of this parcel.
@@ -46,6 +48,18 @@ public class DefaultParcel extends Parcel {
   @Override
   public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
 
+  /**
+   * Creates a fork of this parcel, subclasses should override this method.
+   * @param context The context of the fork.
+   * @return The fork.
+   */
+  @Override
+  public DefaultParcel fork(ForkContext context) {
+    final DefaultParcel fork = new DefaultParcel(dto);
+    fork.initFork(this, context);
+    return fork;
+  }
+
   @Override
   public String toString() {
     return "[DefaultParcel " + dto + "]";
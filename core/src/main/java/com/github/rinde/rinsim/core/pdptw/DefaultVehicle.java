@@ -17,7 +17,9 @@ package com.github.rinde.rinsim.core.pdptw;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPObjectImpl;
 import com.github.rinde.rinsim.core.model.pdp.Vehicle;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.google.common.base.Optional;
@@ -82,6 +84,27 @@ public abstract class DefaultVehicle extends Vehicle {
     pdpModel = Optional.of(pPdpModel);
   }
 
+  /**
+   * Copies the speed of the original and binds this vehicle to the forks of
+   * the models of the original. Subclasses that implement
+   * {@link com.github.rinde.rinsim.core.Forkable} should call this method on a
+   * new instance and copy their own state.
+   * @param original The vehicle of which this vehicle is a fork.
+   * @param context The context of the fork.
+   */
+  @Override
+  protected void initFork(PDPObjectImpl original, ForkContext context) {
+    super.initFork(original, context);
+    final DefaultVehicle v = (DefaultVehicle) original;
+    speed = v.speed;
+    if (v.roadModel.isPresent()) {
+      roadModel = Optional.of(context.get(v.roadModel.get()));
+    }
+    if (v.pdpModel.isPresent()) {
+      pdpModel = Optional.of(context.get(v.pdpModel.get()));
+    }
+  }
+
   /**
    * @return The {@link #dto}.
    */
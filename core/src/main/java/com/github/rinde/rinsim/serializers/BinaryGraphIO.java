@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.serializers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import com.github.rinde.rinsim.geom.AbstractGraph;
+import com.github.rinde.rinsim.geom.Connection;
+import com.github.rinde.rinsim.geom.ConnectionData;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Objects;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * Provides utilities for reading and writing graphs in a binary format that
+ * can be memory mapped. Reading a binary graph file does not involve any
+ * parsing, the returned {@link Graph} reads its nodes and connections directly
+ * from the mapped file. A binary graph file contains:
+ * <ol>
+ * <li>a header with a magic number, the format version, the number of nodes
+ * and the number of connections,</li>
+ * <li>the coordinates of all nodes (<code>x0, y0, x1, y1, ...</code>), sorted
+ * by x and then by y such that nodes can be found using binary search,</li>
+ * <li>the length and the maximum speed of each connection, <code>NaN</code>
+ * indicates that the value is not available,</li>
+ * <li>the outgoing connections in compressed sparse row (CSR) format: for each
+ * node the offset of its first connection and for each connection the index
+ * of its destination node,</li>
+ * <li>the incoming connections in CSR format: for each node the offset of its
+ * first incoming connection and for each incoming connection the index of its
+ * origin node.</li>
+ * </ol>
+ * All numbers are stored in big-endian byte order. Since a single mapped
+ * region is limited to 2GB, graphs of which the file is larger can not be
+ * read.
+ * <p>
+ * The graphs returned by {@link #read(Path)} are read-only and have
+ * {@link MultiAttributeData} as connection data. A connection of which the
+ * length is not available has <code>null</code> connection data, its length is
+ * the distance between its nodes. This class can also be used as a command
+ * line converter from the dot format, see {@link #main(String[])}.
+ * @author Rinde van Lon
+ */
+public final class BinaryGraphIO {
+  /**
+   * The magic number that identifies a binary graph file ("RGRF").
+   */
+  static final int MAGIC = 0x52475246;
+  /**
+   * The current version of the format.
+   */
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+
+  private BinaryGraphIO() {}
+
+  /**
+   * Writes the specified graph to disk in the binary format. For connection
+   * data other than {@link MultiAttributeData} only the length is stored.
+   * @param graph The graph to write.
+   * @param to The file to write to.
+   * @throws IOException When writing fails.
+   */
+  public static void write(Graph<? extends ConnectionData> graph, Path to)
+      throws IOException {
+    final Point[] nodes = graph.getNodes().toArray(new Point[] {});
+    Arrays.sort(nodes, PointComparator.INSTANCE);
+    final Map<Point, Integer> index = Maps.newHashMap();
+    for (int i = 0; i < nodes.length; i++) {
+      index.put(nodes[i], i);
+    }
+
+    final int numConnections = graph.getNumberOfConnections();
+    final int[] outOffsets = new int[nodes.length + 1];
+    final int[] targets = new int[numConnections];
+    final double[] lengths = new double[numConnections];
+    final double[] speeds = new double[numConnections];
+    final int[] inOffsets = new int[nodes.length + 1];
+    final int[] sources = new int[numConnections];
+
+    int conn = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      outOffsets[i] = conn;
+      for (final Point dest : graph.getOutgoingConnections(nodes[i])) {
+        final int target = index.get(dest);
+        targets[conn] = target;
+        inOffsets[target + 1]++;
+        @Nullable
+        final ConnectionData data = graph.connectionData(nodes[i], dest);
+        lengths[conn] = data == null ? Double.NaN : data.getLength();
+        speeds[conn] = data instanceof MultiAttributeData
+            ? ((MultiAttributeData) data).getMaxSpeed() : Double.NaN;
+        conn++;
+      }
+    }
+    outOffsets[nodes.length] = conn;
+    checkArgument(conn == numConnections,
+        "The graph reports %s connections but has %s.", numConnections, conn);
+
+    // counting sort of the connections by destination
+    for (int i = 0; i < nodes.length; i++) {
+      inOffsets[i + 1] += inOffsets[i];
+    }
+    final int[] next = Arrays.copyOf(inOffsets, nodes.length);
+    for (int i = 0; i < nodes.length; i++) {
+      for (int j = outOffsets[i]; j < outOffsets[i + 1]; j++) {
+        sources[next[targets[j]]++] = i;
+      }
+    }
+
+    checkArgument(fileSize(nodes.length, numConnections) <= Integer.MAX_VALUE,
+        "The graph is too large for the binary graph format.");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(to)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(nodes.length);
+      out.writeInt(numConnections);
+      for (final Point p : nodes) {
+        out.writeDouble(p.x);
+        out.writeDouble(p.y);
+      }
+      writeDoubles(lengths, out);
+      writeDoubles(speeds, out);
+      writeInts(outOffsets, out);
+      writeInts(targets, out);
+      writeInts(inOffsets, out);
+      writeInts(sources, out);
+    }
+  }
+
+  /**
+   * Maps the specified binary graph file into memory.
+   * @param file The file to read, it should be written using
+   *          {@link #write(Graph, Path)}.
+   * @return A read-only graph backed by the mapped file.
+   * @throws IOException When the file can not be mapped.
+   */
+  public static Graph<MultiAttributeData> read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0,
+          channel.size());
+      return new MappedGraph(buffer);
+    }
+  }
+
+  /**
+   * Converts a graph in the dot format to the binary format. The graph is read
+   * using {@link DotGraphSerializer#getMultiAttributeGraphSerializer(SerializerFilter...)}
+   * .
+   * @param dotFile The dot file to read.
+   * @param binaryFile The binary file to write.
+   * @throws IOException When reading or writing fails.
+   */
+  public static void convertDot(Path dotFile, Path binaryFile)
+      throws IOException {
+    write(DotGraphSerializer.getMultiAttributeGraphSerializer().read(
+        dotFile.toFile()), binaryFile);
+  }
+
+  /**
+   * Converts a graph file from the dot format to the binary format. Usage:
+   *
+   * <pre>
+   * BinaryGraphIO input.dot output
+   * </pre>
+   * @param args The command line arguments.
+   * @throws IOException When reading or writing fails.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: BinaryGraphIO input.dot output");
+      return;
+    }
+    convertDot(Paths.get(args[0]), Paths.get(args[1]));
+  }
+
+  static long fileSize(long numNodes, long numConnections) {
+    return HEADER_BYTES + 2 * 8 * numNodes + 2 * 8 * numConnections + 2 * 4
+        * (numNodes + 1) + 2 * 4 * numConnections;
+  }
+
+  static void writeDoubles(double[] values, DataOutputStream out)
+      throws IOException {
+    for (final double d : values) {
+      out.writeDouble(d);
+    }
+  }
+
+  static void writeInts(int[] values, DataOutputStream out)
+      throws IOException {
+    for (final int i : values) {
+      out.writeInt(i);
+    }
+  }
+
+  enum PointComparator implements Comparator<Point> {
+    INSTANCE {
+      @Override
+      public int compare(@Nullable Point o1, @Nullable Point o2) {
+        final Point p1 = checkNotNull(o1);
+        final Point p2 = checkNotNull(o2);
+        final int comp = Double.compare(p1.x, p2.x);
+        return comp == 0 ? Double.compare(p1.y, p2.y) : comp;
+      }
+    }
+  }
+
+  /**
+   * A read-only graph that is backed by a buffer in the binary graph format.
+   * Nodes are identified by their index in the sorted coordinate array.
+   */
+  static final class MappedGraph extends AbstractGraph<MultiAttributeData> {
+    final int numNodes;
+    final int numConnections;
+    private final DoubleBuffer coordinates;
+    private final DoubleBuffer lengths;
+    private final DoubleBuffer speeds;
+    private final IntBuffer outOffsets;
+    private final IntBuffer targets;
+    private final IntBuffer inOffsets;
+    private final IntBuffer sources;
+
+    MappedGraph(ByteBuffer buffer) {
+      final ByteBuffer buf = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+      checkArgument(buf.remaining() >= HEADER_BYTES && buf.getInt() == MAGIC,
+          "Not a binary graph.");
+      final int version = buf.getInt();
+      checkArgument(version == VERSION, "Unsupported version: %s.", version);
+      numNodes = buf.getInt();
+      numConnections = buf.getInt();
+      checkArgument(buf.limit() == fileSize(numNodes, numConnections),
+          "The size of the binary graph is invalid.");
+
+      coordinates = slice(buf, 2 * numNodes * 8).asDoubleBuffer();
+      lengths = slice(buf, numConnections * 8).asDoubleBuffer();
+      speeds = slice(buf, numConnections * 8).asDoubleBuffer();
+      outOffsets = slice(buf, (numNodes + 1) * 4).asIntBuffer();
+      targets = slice(buf, numConnections * 4).asIntBuffer();
+      inOffsets = slice(buf, (numNodes + 1) * 4).asIntBuffer();
+      sources = slice(buf, numConnections * 4).asIntBuffer();
+    }
+
+    static ByteBuffer slice(ByteBuffer buf, int numBytes) {
+      final ByteBuffer slice = buf.slice();
+      slice.limit(numBytes);
+      buf.position(buf.position() + numBytes);
+      return slice.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    Point node(int index) {
+      return new Point(coordinates.get(2 * index),
+          coordinates.get(2 * index + 1));
+    }
+
+    /**
+     * Binary search in the sorted coordinates.
+     * @param p The point to look up.
+     * @return The index of the node or <code>-1</code> if it is not a node of
+     *         this graph.
+     */
+    int indexOf(Point p) {
+      int low = 0;
+      int high = numNodes - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        int comp = Double.compare(coordinates.get(2 * mid), p.x);
+        if (comp == 0) {
+          comp = Double.compare(coordinates.get(2 * mid + 1), p.y);
+        }
+        if (comp < 0) {
+          low = mid + 1;
+        } else if (comp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    int connectionIndex(Point from, Point to) {
+      final int f = indexOf(from);
+      final int t = indexOf(to);
+      if (f < 0 || t < 0) {
+        return -1;
+      }
+      for (int i = outOffsets.get(f); i < outOffsets.get(f + 1); i++) {
+        if (targets.get(i) == t) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public boolean containsNode(Point node) {
+      return indexOf(node) >= 0;
+    }
+
+    @Override
+    public Collection<Point> getOutgoingConnections(Point node) {
+      final int index = indexOf(node);
+      if (index < 0) {
+        return ImmutableList.of();
+      }
+      return new NodeList(targets, outOffsets.get(index),
+          outOffsets.get(index + 1));
+    }
+
+    @Override
+    public Collection<Point> getIncomingConnections(Point node) {
+      final int index = indexOf(node);
+      if (index < 0) {
+        return ImmutableList.of();
+      }
+      return new NodeList(sources, inOffsets.get(index),
+          inOffsets.get(index + 1));
+    }
+
+    @Override
+    public boolean hasConnection(Point from, Point to) {
+      return connectionIndex(from, to) >= 0;
+    }
+
+    @Nullable
+    @Override
+    public MultiAttributeData connectionData(Point from, Point to) {
+      final int index = connectionIndex(from, to);
+      return index < 0 ? null : data(index);
+    }
+
+    @Nullable
+    MultiAttributeData data(int index) {
+      final double length = lengths.get(index);
+      if (Double.isNaN(length)) {
+        return null;
+      }
+      final double speed = speeds.get(index);
+      return Double.isNaN(speed) ? new MultiAttributeData(length)
+          : new MultiAttributeData(length, speed);
+    }
+
+    @Override
+    public int getNumberOfConnections() {
+      return numConnections;
+    }
+
+    @Override
+    public List<Connection<MultiAttributeData>> getConnections() {
+      final ImmutableList.Builder<Connection<MultiAttributeData>> builder = ImmutableList
+          .builder();
+      for (int i = 0; i < numNodes; i++) {
+        final Point from = node(i);
+        for (int j = outOffsets.get(i); j < outOffsets.get(i + 1); j++) {
+          builder.add(new Connection<>(from, node(targets.get(j)), data(j)));
+        }
+      }
+      return builder.build();
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return numNodes;
+    }
+
+    @Override
+    public Set<Point> getNodes() {
+      return new NodeSet();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return numNodes == 0;
+    }
+
+    @Override
+    public Point getRandomNode(RandomGenerator generator) {
+      checkState(!isEmpty(), "Can not find a random node in an empty graph.");
+      return node(generator.nextInt(numNodes));
+    }
+
+    @Override
+    protected void doAddConnection(Point from, Point to,
+        @Nullable MultiAttributeData connData) {
+      throw unsupported();
+    }
+
+    @Nullable
+    @Override
+    public MultiAttributeData setConnectionData(Point from, Point to,
+        @Nullable MultiAttributeData edgeData) {
+      throw unsupported();
+    }
+
+    @Override
+    public void removeNode(Point node) {
+      throw unsupported();
+    }
+
+    @Override
+    public void removeConnection(Point from, Point to) {
+      throw unsupported();
+    }
+
+    static UnsupportedOperationException unsupported() {
+      return new UnsupportedOperationException(
+          "A memory mapped graph can not be modified.");
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(numNodes, numConnections, coordinates, targets);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return super.equals(other);
+    }
+
+    /**
+     * The nodes referred to by a range of a CSR index array.
+     */
+    final class NodeList extends AbstractList<Point> {
+      private final IntBuffer indices;
+      private final int from;
+      private final int to;
+
+      NodeList(IntBuffer ind, int f, int t) {
+        indices = ind;
+        from = f;
+        to = t;
+      }
+
+      @Override
+      public Point get(int index) {
+        checkArgument(index >= 0 && index < size(), "Invalid index: %s.",
+            index);
+        return node(indices.get(from + index));
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    }
+
+    /**
+     * A view on the nodes of the graph.
+     */
+    final class NodeSet extends AbstractSet<Point> {
+      @Override
+      public boolean contains(@Nullable Object o) {
+        return o instanceof Point && containsNode((Point) o);
+      }
+
+      @Override
+      public Iterator<Point> iterator() {
+        return new AbstractIterator<Point>() {
+          int index;
+
+          @Nullable
+          @Override
+          protected Point computeNext() {
+            if (index >= numNodes) {
+              return endOfData();
+            }
+            return node(index++);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return numNodes;
+      }
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A tokenizer for line based text files containing numbers, such as the files
+ * of benchmark data sets. Characters are read in bulk into a reusable buffer
+ * and numbers are parsed directly from that buffer, no regular expressions are
+ * used and no strings are created for tokens that are parsed as numbers.
+ * <p>
+ * A file is read line by line: {@link #nextLine()} moves to the next line,
+ * after which the tokens of that line can be read. Tokens are separated by one
+ * or more delimiters, empty tokens are skipped. Numbers are parsed with the
+ * same result as {@link Long#parseLong(String)} and
+ * {@link Double#parseDouble(String)}. Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+public final class CharTokenizer implements Closeable {
+  private static final int BUFFER_SIZE = 8192;
+  private static final int MAX_MANTISSA_DIGITS = 18;
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final int MAX_EXACT_POWER = 22;
+  private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1d;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10d;
+    }
+  }
+
+  private final Reader reader;
+  private final char[] delimiters;
+  private final char[] buffer;
+  private int position;
+  private int limit;
+  private boolean started;
+  private char[] token;
+  private int tokenLength;
+
+  CharTokenizer(Reader r, char[] delims) {
+    reader = r;
+    delimiters = delims;
+    buffer = new char[BUFFER_SIZE];
+    token = new char[64];
+  }
+
+  /**
+   * Creates a new tokenizer.
+   * @param reader The reader to read from, it is closed by {@link #close()}.
+   * @param delimiters The characters that separate tokens, line terminators
+   *          are always delimiters.
+   * @return A new tokenizer.
+   */
+  public static CharTokenizer create(Reader reader, char... delimiters) {
+    checkArgument(delimiters.length > 0, "At least one delimiter is required.");
+    return new CharTokenizer(reader, Arrays.copyOf(delimiters,
+        delimiters.length));
+  }
+
+  /**
+   * Moves to the next line, the remaining tokens of the current line are
+   * skipped. The first invocation moves to the first line.
+   * @return <code>true</code> if there is a next line, <code>false</code> if
+   *         the end of the input has been reached.
+   * @throws IOException When reading fails.
+   */
+  public boolean nextLine() throws IOException {
+    if (started) {
+      int c;
+      while ((c = read()) != -1 && c != '\n') {}
+    }
+    started = true;
+    return peek() != -1;
+  }
+
+  /**
+   * @return <code>true</code> if the current line has another token.
+   * @throws IOException When reading fails.
+   */
+  public boolean hasNextToken() throws IOException {
+    int c;
+    while ((c = peek()) != -1 && c != '\n' && isDelimiter((char) c)) {
+      position++;
+    }
+    return c != -1 && c != '\n';
+  }
+
+  /**
+   * Skips the next token of the current line.
+   * @throws IOException When reading fails.
+   * @throws IllegalArgumentException When the current line has no more
+   *           tokens.
+   */
+  public void skipToken() throws IOException {
+    readToken();
+  }
+
+  /**
+   * @return The next token of the current line.
+   * @throws IOException When reading fails.
+   * @throws IllegalArgumentException When the current line has no more
+   *           tokens.
+   */
+  public String nextToken() throws IOException {
+    readToken();
+    return tokenString();
+  }
+
+  /**
+   * Parses the next token of the current line as an <code>int</code>.
+   * @return The parsed value.
+   * @throws IOException When reading fails.
+   * @throws NumberFormatException When the token is not an <code>int</code>.
+   * @throws IllegalArgumentException When the current line has no more
+   *           tokens.
+   */
+  public int nextInt() throws IOException {
+    final long value = nextLong();
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new NumberFormatException("Value out of range: " + tokenString());
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parses the next token of the current line as a <code>long</code>.
+   * @return The parsed value.
+   * @throws IOException When reading fails.
+   * @throws NumberFormatException When the token is not a <code>long</code>.
+   * @throws IllegalArgumentException When the current line has no more
+   *           tokens.
+   */
+  public long nextLong() throws IOException {
+    readToken();
+    int i = 0;
+    final boolean negative = token[0] == '-';
+    if (negative || token[0] == '+') {
+      i++;
+    }
+    if (i == tokenLength || tokenLength - i > MAX_MANTISSA_DIGITS) {
+      // let the JDK handle (or reject) the exotic cases
+      return Long.parseLong(tokenString());
+    }
+    long value = 0;
+    for (; i < tokenLength; i++) {
+      final int digit = token[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return Long.parseLong(tokenString());
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses the next token of the current line as a <code>double</code>. The
+   * result is identical to the result of {@link Double#parseDouble(String)}.
+   * @return The parsed value.
+   * @throws IOException When reading fails.
+   * @throws NumberFormatException When the token is not a <code>double</code>.
+   * @throws IllegalArgumentException When the current line has no more
+   *           tokens.
+   */
+  public double nextDouble() throws IOException {
+    readToken();
+    int i = 0;
+    final boolean negative = token[0] == '-';
+    if (negative || token[0] == '+') {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean point = false;
+    boolean hasDigits = false;
+    boolean valid = i < tokenLength;
+    for (; i < tokenLength && valid; i++) {
+      final char c = token[i];
+      if (c >= '0' && c <= '9') {
+        hasDigits = true;
+        if (mantissa > 0 || c != '0') {
+          digits++;
+        }
+        mantissa = mantissa * 10 + c - '0';
+        if (point) {
+          exponent--;
+        }
+        valid = digits <= MAX_MANTISSA_DIGITS;
+      } else if (c == '.' && !point) {
+        point = true;
+      } else if ((c == 'e' || c == 'E') && hasDigits && i + 1 < tokenLength) {
+        i++;
+        final boolean negativeExponent = token[i] == '-';
+        if (negativeExponent || token[i] == '+') {
+          i++;
+        }
+        int exp = 0;
+        valid = i < tokenLength;
+        for (; i < tokenLength && valid; i++) {
+          final int digit = token[i] - '0';
+          valid = digit >= 0 && digit <= 9 && exp < MAX_EXACT_POWER * 10;
+          exp = exp * 10 + digit;
+        }
+        exponent += negativeExponent ? -exp : exp;
+        break;
+      } else {
+        valid = false;
+      }
+    }
+    // When the mantissa and the power of ten are both exactly representable
+    // a single multiplication or division is correctly rounded and thus
+    // identical to the result of the JDK (Clinger's fast path).
+    if (!valid || !hasDigits || mantissa > MAX_EXACT_MANTISSA
+        || Math.abs(exponent) > MAX_EXACT_POWER) {
+      return Double.parseDouble(tokenString());
+    }
+    final double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+        : mantissa / POWERS_OF_TEN[-exponent];
+    return negative ? -value : value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  void readToken() throws IOException {
+    checkArgument(hasNextToken(), "There are no more tokens on this line.");
+    tokenLength = 0;
+    int c;
+    while ((c = peek()) != -1 && c != '\n' && c != '\r'
+        && !isDelimiter((char) c)) {
+      if (tokenLength == token.length) {
+        token = Arrays.copyOf(token, token.length * 2);
+      }
+      token[tokenLength++] = (char) c;
+      position++;
+    }
+  }
+
+  String tokenString() {
+    return new String(token, 0, tokenLength);
+  }
+
+  boolean isDelimiter(char c) {
+    if (c == '\r') {
+      return true;
+    }
+    for (final char d : delimiters) {
+      if (c == d) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  int peek() throws IOException {
+    if (position == limit) {
+      limit = reader.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position];
+  }
+
+  int read() throws IOException {
+    final int c = peek();
+    if (c != -1) {
+      position++;
+    }
+    return c;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A histogram of non-negative <code>long</code> values (e.g. durations in
+ * nanoseconds) with constant memory use. Values are collected in buckets of
+ * exponentially increasing size: every power of two is divided in
+ * <code>2^subBucketBits</code> buckets such that percentiles have a relative
+ * error of at most <code>1/2^subBucketBits</code>. With zero sub bucket bits
+ * bucket <code>i > 0</code> contains the values in
+ * <code>[2^(i-1), 2^i)</code>. Negative values are recorded as <code>0</code>.
+ * This class is not thread safe.
+ * @author Rinde van Lon
+ */
+public final class LogHistogram implements Serializable {
+  private static final long serialVersionUID = 4079237950185423375L;
+  private static final double HUNDRED = 100d;
+
+  private final int subBits;
+  private long count;
+  private long total;
+  private long min;
+  private long max;
+  // allocated lazily, many histograms remain empty
+  @Nullable
+  private long[] buckets;
+
+  LogHistogram(int subBucketBits) {
+    subBits = subBucketBits;
+    min = Long.MAX_VALUE;
+  }
+
+  /**
+   * Creates a new empty histogram.
+   * @param subBucketBits The number of bits that is used to divide every power
+   *          of two in sub buckets, must be in range <code>[0, 8]</code>.
+   * @return A new instance.
+   */
+  public static LogHistogram create(int subBucketBits) {
+    checkArgument(subBucketBits >= 0 && subBucketBits <= Byte.SIZE,
+        "The number of sub bucket bits must be in [0, 8], found %s.",
+        subBucketBits);
+    return new LogHistogram(subBucketBits);
+  }
+
+  /**
+   * Adds a value to the histogram.
+   * @param value The value to add.
+   */
+  public void add(long value) {
+    final long v = Math.max(0, value);
+    if (buckets == null) {
+      buckets = new long[getNumBuckets()];
+    }
+    buckets[bucket(v)]++;
+    count++;
+    total += v;
+    min = Math.min(min, v);
+    max = Math.max(max, v);
+  }
+
+  /**
+   * Adds all values of the specified histogram to this histogram.
+   * @param other The histogram to merge into this one, it must have the same
+   *          number of sub bucket bits.
+   */
+  public void merge(LogHistogram other) {
+    checkArgument(other.subBits == subBits,
+        "Can not merge histograms with %s and %s sub bucket bits.", subBits,
+        other.subBits);
+    if (other.buckets == null) {
+      return;
+    }
+    if (buckets == null) {
+      buckets = new long[getNumBuckets()];
+    }
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] += other.buckets[i];
+    }
+    count += other.count;
+    total += other.total;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * @return A copy of this histogram.
+   */
+  public LogHistogram copy() {
+    final LogHistogram h = new LogHistogram(subBits);
+    h.merge(this);
+    return h;
+  }
+
+  /**
+   * @return The number of buckets of this histogram.
+   */
+  public int getNumBuckets() {
+    return (Long.SIZE - subBits) << subBits;
+  }
+
+  /**
+   * Computes the bucket of a value.
+   * @param value A non-negative value.
+   * @return The index of the bucket that contains the value.
+   */
+  public int bucket(long value) {
+    final int subBuckets = 1 << subBits;
+    if (value < subBuckets) {
+      return (int) Math.max(0, value);
+    }
+    final int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int sub = (int) (value >>> (exp - subBits)) & (subBuckets - 1);
+    return (exp - subBits + 1) * subBuckets + sub;
+  }
+
+  /**
+   * Computes the largest value of a bucket.
+   * @param bucket The index of the bucket.
+   * @return The largest value that ends up in the bucket.
+   */
+  public long upperBound(int bucket) {
+    final int subBuckets = 1 << subBits;
+    if (bucket < subBuckets) {
+      return bucket;
+    }
+    final int exp = bucket / subBuckets + subBits - 1;
+    final long sub = bucket % subBuckets;
+    // overflows to Long.MAX_VALUE for the last bucket
+    return (subBuckets + sub + 1 << (exp - subBits)) - 1;
+  }
+
+  /**
+   * @return The number of values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The sum of all values.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * @return The mean of all values, or <code>0</code> if there are none.
+   */
+  public double getMean() {
+    return count == 0 ? 0d : total / (double) count;
+  }
+
+  /**
+   * @return The smallest value, or <code>0</code> if there are none.
+   */
+  public long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  /**
+   * @return The largest value, or <code>0</code> if there are none.
+   */
+  public long getMax() {
+    return count == 0 ? 0 : max;
+  }
+
+  /**
+   * Computes an upper bound for the specified percentile, the upper bound is
+   * the end of the bucket that contains the percentile (but never more than
+   * the maximum).
+   * @param percentile The percentile, in range <code>(0, 100]</code>.
+   * @return The upper bound of the percentile, or <code>0</code> if there are
+   *         no values.
+   */
+  public long getPercentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= HUNDRED,
+        "Percentile must be in (0, 100], found %s.", percentile);
+    if (buckets == null) {
+      return 0;
+    }
+    final double target = percentile / HUNDRED * count;
+    long cumulative = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      cumulative += buckets[i];
+      if (cumulative >= target) {
+        return Math.min(upperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return A copy of the bucket counts, the value at index <code>i</code> is
+   *         the number of values in bucket <code>i</code>.
+   */
+  public long[] getBuckets() {
+    return buckets == null ? new long[getNumBuckets()] : Arrays.copyOf(
+        buckets, buckets.length);
+  }
+}
@@ -499,7 +499,7 @@ public final class StochasticSuppliers {
     }
 
     @Override
-    public Integer get(long seed) {
+    public synchronized Integer get(long seed) {
       distribution.reseedRandomGenerator(seed);
       return distribution.sample();
     }
@@ -524,7 +524,7 @@ public final class StochasticSuppliers {
     }
 
     @Override
-    public Double get(long seed) {
+    public synchronized Double get(long seed) {
       distribution.reseedRandomGenerator(seed);
       double val = distribution.sample();
       if (outOfBoundStrategy == OutOfBoundStrategy.REDRAW) {
@@ -554,7 +554,7 @@ public final class StochasticSuppliers {
     }
 
     @Override
-    public Double get(long seed) {
+    public synchronized Double get(long seed) {
       distribution.reseedRandomGenerator(seed);
       return distribution.sample();
     }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+import javax.measure.converter.MultiplyConverter;
+import javax.measure.converter.RationalConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Quantity;
+import javax.measure.quantity.Velocity;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Resolves a combination of time, distance and speed units to scalar
+ * conversions from and to the SI units {@link SI#SECOND}, {@link SI#METER} and
+ * {@link SI#METERS_PER_SECOND}. Looking up a {@link UnitConverter} and
+ * creating {@link javax.measure.Measure} objects is expensive compared to the
+ * arithmetic of the conversion itself, code that converts values in a loop
+ * should obtain a context once and use its {@link Conversion}s instead.
+ * Contexts are immutable and cached, {@link #create(Unit, Unit, Unit)} returns
+ * the same instance for the same units.
+ * @author Rinde van Lon
+ */
+public final class UnitContext {
+  private static final ConcurrentMap<List<Unit<?>>, UnitContext> CACHE = new ConcurrentHashMap<>();
+
+  private final Unit<Duration> timeUnit;
+  private final Unit<Length> distanceUnit;
+  private final Unit<Velocity> speedUnit;
+  private final Conversion timeToSeconds;
+  private final Conversion secondsToTime;
+  private final Conversion distanceToMeters;
+  private final Conversion metersToDistance;
+  private final Conversion speedToMetersPerSecond;
+  private final Conversion metersPerSecondToSpeed;
+
+  UnitContext(Unit<Duration> time, Unit<Length> distance, Unit<Velocity> speed) {
+    timeUnit = time;
+    distanceUnit = distance;
+    speedUnit = speed;
+    timeToSeconds = Conversion.between(time, SI.SECOND);
+    secondsToTime = Conversion.between(SI.SECOND, time);
+    distanceToMeters = Conversion.between(distance, SI.METER);
+    metersToDistance = Conversion.between(SI.METER, distance);
+    speedToMetersPerSecond = Conversion.between(speed, SI.METERS_PER_SECOND);
+    metersPerSecondToSpeed = Conversion.between(SI.METERS_PER_SECOND, speed);
+  }
+
+  /**
+   * Returns the context for the specified units.
+   * @param time The time unit.
+   * @param distance The distance unit.
+   * @param speed The speed unit.
+   * @return The (cached) context.
+   */
+  public static UnitContext create(Unit<Duration> time, Unit<Length> distance,
+      Unit<Velocity> speed) {
+    final List<Unit<?>> key = ImmutableList.<Unit<?>> of(time, distance,
+        speed);
+    final UnitContext cached = CACHE.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final UnitContext context = new UnitContext(time, distance, speed);
+    final UnitContext prev = CACHE.putIfAbsent(key, context);
+    return prev == null ? context : prev;
+  }
+
+  /**
+   * Computes the duration which is required to travel the specified distance
+   * with the specified speed. The result is identical to
+   * {@link com.github.rinde.rinsim.core.model.road.RoadModels#computeTravelTime(javax.measure.Measure, javax.measure.Measure, Unit)}
+   * using the units of this context.
+   * @param speed The speed in the speed unit of this context.
+   * @param distance The distance in the distance unit of this context.
+   * @return The travel time in the time unit of this context.
+   */
+  public double computeTravelTime(double speed, double distance) {
+    return secondsToTime.convert(distanceToMeters.convert(distance)
+        / speedToMetersPerSecond.convert(speed));
+  }
+
+  /**
+   * @return The time unit.
+   */
+  public Unit<Duration> getTimeUnit() {
+    return timeUnit;
+  }
+
+  /**
+   * @return The distance unit.
+   */
+  public Unit<Length> getDistanceUnit() {
+    return distanceUnit;
+  }
+
+  /**
+   * @return The speed unit.
+   */
+  public Unit<Velocity> getSpeedUnit() {
+    return speedUnit;
+  }
+
+  /**
+   * @return Conversion from the time unit to seconds.
+   */
+  public Conversion getTimeToSeconds() {
+    return timeToSeconds;
+  }
+
+  /**
+   * @return Conversion from seconds to the time unit.
+   */
+  public Conversion getSecondsToTime() {
+    return secondsToTime;
+  }
+
+  /**
+   * @return Conversion from the distance unit to meters.
+   */
+  public Conversion getDistanceToMeters() {
+    return distanceToMeters;
+  }
+
+  /**
+   * @return Conversion from meters to the distance unit.
+   */
+  public Conversion getMetersToDistance() {
+    return metersToDistance;
+  }
+
+  /**
+   * @return Conversion from the speed unit to meters per second.
+   */
+  public Conversion getSpeedToMetersPerSecond() {
+    return speedToMetersPerSecond;
+  }
+
+  /**
+   * @return Conversion from meters per second to the speed unit.
+   */
+  public Conversion getMetersPerSecondToSpeed() {
+    return metersPerSecondToSpeed;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("timeUnit", timeUnit)
+        .add("distanceUnit", distanceUnit)
+        .add("speedUnit", speedUnit)
+        .toString();
+  }
+
+  /**
+   * A conversion between two units represented by a scale factor. The factor
+   * is stored as a dividend and a divisor such that a conversion has exactly
+   * the same result as the {@link UnitConverter} it is created from. Converters
+   * that can not be represented as a scale factor (e.g. converters with an
+   * offset) are used as is.
+   * @author Rinde van Lon
+   */
+  public static final class Conversion {
+    private final double dividend;
+    private final double divisor;
+    @Nullable
+    private final UnitConverter converter;
+
+    Conversion(double dvd, double dvs, @Nullable UnitConverter conv) {
+      dividend = dvd;
+      divisor = dvs;
+      converter = conv;
+    }
+
+    /**
+     * Creates a conversion between the specified units.
+     * @param from The unit to convert from.
+     * @param to The unit to convert to.
+     * @param <Q> The quantity of the units.
+     * @return A new conversion.
+     */
+    public static <Q extends Quantity> Conversion between(Unit<Q> from,
+        Unit<Q> to) {
+      return of(from.getConverterTo(to));
+    }
+
+    /**
+     * Creates a conversion that has the same result as the specified
+     * converter.
+     * @param converter The converter.
+     * @return A new conversion.
+     */
+    public static Conversion of(UnitConverter converter) {
+      if (converter == UnitConverter.IDENTITY) {
+        return new Conversion(1d, 1d, null);
+      } else if (converter instanceof RationalConverter) {
+        final RationalConverter rc = (RationalConverter) converter;
+        return new Conversion(rc.getDividend(), rc.getDivisor(), null);
+      } else if (converter instanceof MultiplyConverter) {
+        return new Conversion(((MultiplyConverter) converter).getFactor(), 1d,
+            null);
+      }
+      return new Conversion(Double.NaN, Double.NaN, converter);
+    }
+
+    /**
+     * @param value The value to convert.
+     * @return The converted value.
+     */
+    public double convert(double value) {
+      if (converter == null) {
+        return value * dividend / divisor;
+      }
+      return converter.convert(value);
+    }
+
+    /**
+     * @return The scale factor of this conversion, or {@link Double#NaN} if
+     *         this conversion is not a scaling.
+     */
+    public double getFactor() {
+      return dividend / divisor;
+    }
+
+    @Override
+    public String toString() {
+      if (converter == null) {
+        return "x * " + dividend + " / " + divisor;
+      }
+      return converter.toString();
+    }
+  }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.measure.Measure;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.VehicleState;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.Vehicle;
+import com.github.rinde.rinsim.core.model.road.CachedGraphRoadModel;
+import com.github.rinde.rinsim.core.model.road.PlaneRoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.LengthData;
+import com.github.rinde.rinsim.geom.MultimapGraph;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Tests for {@link Simulator#fork(org.apache.commons.math3.random.RandomGenerator)}.
+ * @author Rinde van Lon
+ */
+public class SimulatorForkTest {
+
+  Simulator sim;
+
+  /**
+   * Creates a simulator with a plane road model, a pdp model, two vehicles
+   * and four parcels.
+   */
+  @Before
+  public void setUp() {
+    sim = createSimulator(new PlaneRoadModel(new Point(0, 0), new Point(10,
+        10), 30));
+  }
+
+  static Simulator createSimulator(RoadModel rm) {
+    final Simulator sim = new Simulator(new MersenneTwister(123),
+        Measure.valueOf(60L, SI.SECOND));
+    sim.register(rm);
+    sim.register(new DefaultPDPModel());
+    sim.configure();
+    sim.register(new ForkVehicle(0, new Point(0, 0)));
+    sim.register(new ForkVehicle(1, new Point(10, 10)));
+    sim.register(new ForkParcel(0, new Point(2, 2), new Point(8, 2)));
+    sim.register(new ForkParcel(1, new Point(8, 8), new Point(2, 8)));
+    sim.register(new ForkParcel(2, new Point(5, 5), new Point(5, 0)));
+    sim.register(new ForkParcel(3, new Point(1, 9), new Point(9, 1)));
+    return sim;
+  }
+
+  /**
+   * The fork should contain copies of all objects in the same state.
+   */
+  @Test
+  public void forkState() {
+    // stops while the first vehicle is picking up the first parcel
+    tick(sim, 7);
+    final PDPModel pm = sim.getModelProvider().getModel(PDPModel.class);
+    assertEquals(VehicleState.PICKING_UP, pm.getVehicleState(vehicles(sim)
+        .get(0)));
+
+    final Simulator fork = sim.fork(new MersenneTwister(456));
+    assertEquals(sim.getCurrentTime(), fork.getCurrentTime());
+    assertEquals(sim.getTimeStep(), fork.getTimeStep());
+    assertEquals(sim.getModels().size(), fork.getModels().size());
+    for (int i = 0; i < sim.getModels().size(); i++) {
+      assertNotSame(sim.getModels().get(i), fork.getModels().get(i));
+      assertEquals(sim.getModels().get(i).getClass(), fork.getModels().get(i)
+          .getClass());
+    }
+    assertEquals(sim.getTickListeners().size(), fork
+        .getTickListeners().size());
+    for (final TickListener t : fork.getTickListeners()) {
+      assertFalse(sim.getTickListeners().contains(t));
+    }
+    final List<ForkVehicle> forkedVehicles = vehicles(fork);
+    for (int i = 0; i < forkedVehicles.size(); i++) {
+      assertNotSame(vehicles(sim).get(i), forkedVehicles.get(i));
+      assertEquals(100d, forkedVehicles.get(i).getCapacity(), 0);
+    }
+    assertEquals(state(sim), state(fork));
+
+    // the pending pickup is finished in both simulations
+    tick(sim, 3);
+    tick(fork, 3);
+    assertEquals(state(sim), state(fork));
+  }
+
+  /**
+   * A fork and its original should be independent and deterministic.
+   */
+  @Test
+  public void forkIndependence() {
+    tick(sim, 5);
+    final String before = state(sim);
+    final Simulator fork = sim.fork(new MersenneTwister(456));
+    tick(fork, 100);
+    assertEquals(before, state(sim));
+    assertFalse(before.equals(state(fork)));
+
+    tick(sim, 100);
+    assertEquals(state(sim), state(fork));
+    final PDPModel pm = fork.getModelProvider().getModel(PDPModel.class);
+    assertEquals(4, pm.getParcels(ParcelState.DELIVERED).size());
+  }
+
+  /**
+   * Tests forking of a graph road model, the points of the scenario are
+   * connected via the center of the plane.
+   */
+  @Test
+  public void forkGraphRoadModel() {
+    final Point center = new Point(5, 5);
+    final Graph<LengthData> graph = new MultimapGraph<LengthData>();
+    for (final Point p : asList(new Point(0, 0), new Point(10, 10),
+        new Point(2, 2), new Point(8, 2), new Point(8, 8), new Point(2, 8),
+        new Point(5, 0), new Point(1, 9), new Point(9, 1))) {
+      graph.addConnection(p, center);
+      graph.addConnection(center, p);
+    }
+    final Simulator graphSim = createSimulator(new CachedGraphRoadModel(
+        graph, SI.KILOMETER, NonSI.KILOMETERS_PER_HOUR));
+    tick(graphSim, 5);
+    final Simulator fork = graphSim.fork(new MersenneTwister(456));
+    final RoadModel forkRm = fork.getModelProvider()
+        .getModel(RoadModel.class);
+    assertEquals(6, forkRm.getObjects().size());
+    assertEquals(2, forkRm.getObjectsOfType(ForkVehicle.class).size());
+    assertEquals(state(graphSim), state(fork));
+    assertEquals(graphSim.getModelProvider().getModel(RoadModel.class)
+        .getDestination(vehicles(graphSim).get(0)),
+        forkRm.getDestination(vehicles(fork).get(0)));
+
+    tick(fork, 100);
+    tick(graphSim, 100);
+    assertEquals(state(graphSim), state(fork));
+    assertEquals(4, fork.getModelProvider().getModel(PDPModel.class)
+        .getParcels(ParcelState.DELIVERED).size());
+  }
+
+  /**
+   * Forks can be simulated concurrently, each fork should end up in the same
+   * state as a sequentially simulated fork.
+   * @throws InterruptedException Should not happen.
+   * @throws ExecutionException Should not happen.
+   */
+  @Test
+  public void concurrentForks() throws InterruptedException,
+      ExecutionException {
+    tick(sim, 3);
+    final List<Simulator> forks = new ArrayList<Simulator>();
+    for (int i = 0; i < 4; i++) {
+      forks.add(sim.fork(new MersenneTwister(i)));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<String>> results = new ArrayList<Future<String>>();
+      for (final Simulator fork : forks) {
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            tick(fork, 50);
+            return state(fork);
+          }
+        }));
+      }
+      tick(sim, 50);
+      for (final Future<String> result : results) {
+        assertEquals(state(sim), result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * A fork that is created in afterTick starts at the next tick.
+   */
+  @Test
+  public void forkInAfterTick() {
+    final List<Simulator> forks = new ArrayList<Simulator>();
+    sim.addTickListener(new ForkingListener(sim, forks, false));
+    tick(sim, 2);
+    assertEquals(2, forks.size());
+    assertEquals(60L, forks.get(0).getCurrentTime());
+    assertEquals(120L, forks.get(1).getCurrentTime());
+
+    tick(forks.get(0), 1);
+    assertEquals(state(forks.get(1)), state(forks.get(0)));
+    assertEquals(state(sim), state(forks.get(1)));
+  }
+
+  /**
+   * Forking during a tick is not allowed.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void forkInTick() {
+    sim.addTickListener(new ForkingListener(sim,
+        new ArrayList<Simulator>(), true));
+    sim.tick();
+  }
+
+  /**
+   * All models must be forkable.
+   */
+  @Test
+  public void modelNotForkable() {
+    final Simulator s = new Simulator(new MersenneTwister(123),
+        Measure.valueOf(60L, SI.SECOND));
+    s.register(new DummyModel());
+    s.configure();
+    try {
+      s.fork(new MersenneTwister(123));
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("ForkableModel"));
+    }
+  }
+
+  /**
+   * All tick listeners must be forkable.
+   */
+  @Test
+  public void objectNotForkable() {
+    sim.addTickListener(new TickListener() {
+      @Override
+      public void tick(TimeLapse timeLapse) {}
+
+      @Override
+      public void afterTick(TimeLapse timeLapse) {}
+    });
+    try {
+      sim.fork(new MersenneTwister(123));
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Forkable"));
+    }
+  }
+
+  /**
+   * Forking an unconfigured simulator is not allowed.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void forkNotConfigured() {
+    new Simulator(new MersenneTwister(123), Measure.valueOf(60L, SI.SECOND))
+        .fork(new MersenneTwister(123));
+  }
+
+  /**
+   * An object that is needed for its own fork can not be forked.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void cyclicFork() {
+    new ForkContext().get(new Forkable<Object>() {
+      @Override
+      public Object fork(ForkContext context) {
+        return context.get(this);
+      }
+    });
+  }
+
+  static void tick(Simulator s, int ticks) {
+    for (int i = 0; i < ticks; i++) {
+      s.tick();
+    }
+  }
+
+  static List<ForkVehicle> vehicles(Simulator s) {
+    return new ArrayList<ForkVehicle>(s.getModelProvider()
+        .getModel(RoadModel.class).getObjectsOfType(ForkVehicle.class));
+  }
+
+  // a textual representation of the state of all vehicles and parcels
+  static String state(Simulator s) {
+    final RoadModel rm = s.getModelProvider().getModel(RoadModel.class);
+    final PDPModel pm = s.getModelProvider().getModel(PDPModel.class);
+    final StringBuilder sb = new StringBuilder();
+    sb.append(s.getCurrentTime());
+    for (final ForkVehicle v : vehicles(s)) {
+      sb.append(" v").append(v.id).append(rm.getPosition(v))
+          .append(pm.getVehicleState(v));
+      for (final Parcel p : pm.getContents(v)) {
+        sb.append(" p").append(((ForkParcel) p).id);
+      }
+      if (pm.getVehicleState(v) != VehicleState.IDLE) {
+        sb.append(pm.getVehicleActionInfo(v).timeNeeded());
+      }
+    }
+    final Collection<Parcel> parcels = pm.getParcels(ParcelState.values());
+    final String[] parcelStates = new String[parcels.size()];
+    for (final Parcel p : parcels) {
+      parcelStates[((ForkParcel) p).id] = pm.getParcelState(p).toString();
+    }
+    for (int i = 0; i < parcelStates.length; i++) {
+      sb.append(" p").append(i).append(parcelStates[i]);
+    }
+    return sb.toString();
+  }
+
+  static class ForkingListener implements TickListener,
+      Forkable<ForkingListener> {
+    final Simulator simulator;
+    final List<Simulator> forks;
+    final boolean inTick;
+
+    ForkingListener(Simulator s, List<Simulator> f, boolean t) {
+      simulator = s;
+      forks = f;
+      inTick = t;
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      if (inTick) {
+        forks.add(simulator.fork(new MersenneTwister(123)));
+      }
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {
+      if (!inTick) {
+        forks.add(simulator.fork(new MersenneTwister(123)));
+      }
+    }
+
+    @Override
+    public ForkingListener fork(ForkContext context) {
+      return new ForkingListener(context.get(simulator),
+          new ArrayList<Simulator>(), inTick);
+    }
+  }
+
+  static class ForkVehicle extends Vehicle implements Forkable<ForkVehicle> {
+    final int id;
+
+    ForkVehicle(int i, Point start) {
+      id = i;
+      setStartPosition(start);
+      setCapacity(100);
+    }
+
+    ForkVehicle(int i) {
+      id = i;
+    }
+
+    @Override
+    public double getSpeed() {
+      return 30;
+    }
+
+    @Override
+    protected void tickImpl(TimeLapse time) {
+      if (!time.hasTimeLeft()) {
+        return;
+      }
+      final RoadModel rm = getRoadModel();
+      final PDPModel pm = getPDPModel();
+      if (pm.getContents(this).isEmpty()) {
+        for (final Parcel p : pm.getParcels(ParcelState.AVAILABLE)) {
+          if (((ForkParcel) p).id % 2 == id) {
+            rm.moveTo(this, p, time);
+            if (time.hasTimeLeft()) {
+              pm.pickup(this, p, time);
+            }
+            return;
+          }
+        }
+      } else {
+        final Parcel p = pm.getContents(this).iterator().next();
+        rm.moveTo(this, p.getDestination(), time);
+        if (time.hasTimeLeft()) {
+          pm.deliver(this, p, time);
+        }
+      }
+    }
+
+    @Override
+    public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
+
+    @Override
+    public ForkVehicle fork(ForkContext context) {
+      final ForkVehicle fork = new ForkVehicle(id);
+      fork.initFork(this, context);
+      return fork;
+    }
+  }
+
+  static class ForkParcel extends Parcel implements Forkable<ForkParcel> {
+    final int id;
+
+    ForkParcel(int i, Point origin, Point dest) {
+      this(i, dest);
+      setStartPosition(origin);
+    }
+
+    ForkParcel(int i, Point dest) {
+      super(dest, 90, TimeWindow.ALWAYS, 30, TimeWindow.ALWAYS, 1);
+      id = i;
+    }
+
+    @Override
+    public void initRoadPDP(RoadModel pRoadModel, PDPModel pPdpModel) {}
+
+    @Override
+    public ForkParcel fork(ForkContext context) {
+      final ForkParcel fork = new ForkParcel(id, destination);
+      fork.initFork(this, context);
+      return fork;
+    }
+  }
+}
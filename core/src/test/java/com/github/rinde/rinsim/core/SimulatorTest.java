@@ -20,6 +20,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 
 import javax.measure.Measure;
@@ -28,14 +30,22 @@ import javax.measure.unit.SI;
 
 import org.apache.commons.math3.random.MersenneTwister;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.SimulatorProfiler.Phase;
+import com.github.rinde.rinsim.core.SimulatorProfiler.Timing;
 import com.github.rinde.rinsim.core.SimulatorAPI;
 import com.github.rinde.rinsim.core.SimulatorUser;
 import com.github.rinde.rinsim.core.TickListener;
 import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.EventDispatcher;
+import com.google.common.base.Charsets;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 
 /**
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
@@ -43,6 +53,12 @@ import com.google.common.collect.Sets;
  */
 public class SimulatorTest {
 
+  /**
+   * Temporary folder for profile exports.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   private final Measure<Long, Duration> timeStep = Measure
       .valueOf(100L, SI.SECOND);
   private Simulator simulator;
@@ -153,13 +169,129 @@ public class SimulatorTest {
     assertEquals(0, simulator.getCurrentTime());
   }
 
+  /**
+   * Tests that a profiled simulator records tick timings, model registration
+   * timings and event counts, and exports them when it stops.
+   * @throws IOException When reading the export fails.
+   */
+  @Test
+  public void testProfiling() throws IOException {
+    assertFalse(simulator.getProfiler().isPresent());
+    final SimulatorProfiler profiler = simulator.enableProfiling();
+    assertTrue(profiler == simulator.enableProfiling());
+    assertTrue(simulator.getProfiler().isPresent());
+    final File export = new File(tempFolder.getRoot(), "profile.csv");
+    profiler.exportOnStop(export);
+
+    simulator.register(new DummyModel());
+    simulator.configure();
+    final DummyObject obj = new DummyObject();
+    simulator.register(obj);
+    simulator.register(new EventTickListener());
+    simulator.addTickListener(new LimitingTickListener(simulator, 3));
+    simulator.unregister(obj);
+    simulator.start();
+
+    final Timing tick = profiler.getTiming(Phase.TICK,
+        EventTickListener.class).get();
+    assertEquals(3, tick.getCount());
+    assertTrue(tick.getMinNanos() <= tick.getMaxNanos());
+    assertTrue(tick.getPercentileNanos(50) <= tick.getMaxNanos());
+    assertEquals(3, profiler.getTiming(Phase.AFTER_TICK,
+        LimitingTickListener.class).get().getCount());
+    assertEquals(2, profiler.getTimings(Phase.TICK).size());
+    assertEquals(1, profiler.getTiming(Phase.REGISTER, DummyModel.class)
+        .get().getCount());
+    assertEquals(1, profiler.getTiming(Phase.UNREGISTER, DummyModel.class)
+        .get().getCount());
+    assertFalse(profiler.getTiming(Phase.REGISTER, Object.class).isPresent());
+    assertEquals(3, profiler.getEventCounts().count(TestEventType.TICKED));
+
+    final String csv = Files.toString(export, Charsets.UTF_8);
+    assertTrue(csv.startsWith("phase,"));
+    assertTrue(csv.contains("TICK," + EventTickListener.class.getName()
+        + ",3,"));
+    assertTrue(csv.contains("EVENT,TICKED,3,"));
+
+    profiler.reset();
+    assertTrue(profiler.getTimings(Phase.TICK).isEmpty());
+    assertTrue(profiler.getEventCounts().isEmpty());
+  }
+
+  /**
+   * Registering an object during a tick should not stop the counting of the
+   * events of that tick.
+   */
+  @Test
+  public void testProfilingRegisterDuringTick() {
+    final SimulatorProfiler profiler = simulator.enableProfiling();
+    simulator.register(new DummyModel());
+    simulator.configure();
+    final EventDispatcher disp = new EventDispatcher(TestEventType.values());
+    simulator.addTickListener(new TickListener() {
+      @Override
+      public void tick(TimeLapse tl) {
+        simulator.register(new DummyObject());
+        assertTrue(EventDispatcher.isCounting());
+        disp.dispatchEvent(new Event(TestEventType.TICKED, this));
+      }
+
+      @Override
+      public void afterTick(TimeLapse tl) {}
+    });
+    simulator.tick();
+    simulator.tick();
+    assertFalse(EventDispatcher.isCounting());
+    assertEquals(2, profiler.getEventCounts().count(TestEventType.TICKED));
+  }
+
+  /**
+   * Tests the histogram of {@link Timing}.
+   */
+  @Test
+  public void testTiming() {
+    final Timing t = new Timing();
+    assertEquals(0, t.getPercentileNanos(50));
+    for (int i = 0; i < 99; i++) {
+      t.add(10);
+    }
+    t.add(5000);
+    assertEquals(100, t.getCount());
+    assertEquals(10, t.getMinNanos());
+    assertEquals(5000, t.getMaxNanos());
+    assertEquals((99 * 10 + 5000) / 100d, t.getMeanNanos(), 0.0001);
+    assertEquals(15, t.getPercentileNanos(50));
+    assertEquals(15, t.getPercentileNanos(99));
+    assertEquals(5000, t.getPercentileNanos(100));
+    assertEquals(99, t.getHistogram()[Timing.bucket(10)]);
+    assertEquals(0, Timing.bucket(0));
+    assertEquals(3, Timing.bucket(15));
+  }
+
   @Test
   public void testGetRnd() {
     assertNotNull(simulator.getRandomGenerator());
   }
 
+  enum TestEventType {
+    TICKED
+  }
+
   class DummyObject {}
 
+  class EventTickListener implements TickListener {
+    private final EventDispatcher disp = new EventDispatcher(
+        TestEventType.values());
+
+    @Override
+    public void tick(TimeLapse tl) {
+      disp.dispatchEvent(new Event(TestEventType.TICKED, this));
+    }
+
+    @Override
+    public void afterTick(TimeLapse tl) {}
+  }
+
   class DummyObjectTickListener implements TickListener {
     @Override
     public void tick(TimeLapse tl) {}
@@ -177,6 +177,35 @@ public abstract class AbstractRoadModelTest<T extends GenericRoadModel> {
     assertEquals(NE, model.getDestination(testRoadUser));
   }
 
+  /**
+   * Moves should be accumulated in the move statistics once enabled.
+   */
+  @Test
+  public void moveStatistics() {
+    final TestRoadUser testRoadUser = new TestRoadUser();
+    model.addObjectAt(testRoadUser, SW);
+    model.moveTo(testRoadUser, SE, TimeLapseFactory.create(0, 1));
+
+    final MoveStatistics ms = model.enableMoveStatistics();
+    assertSame(ms, model.enableMoveStatistics());
+    assertEquals(0, ms.getMovedObjects());
+    assertFalse(ms.getLastMoveTime(testRoadUser).isPresent());
+
+    // the graph based models only have connections SW -> SE -> NE -> NW
+    final MoveProgress mp1 = model.moveTo(testRoadUser, NE,
+        TimeLapseFactory.create(100, 100 + 60 * 60 * 1000));
+    final MoveProgress mp2 = model.moveTo(testRoadUser, NW,
+        TimeLapseFactory.create(200, 200 + 60 * 60 * 1000));
+    final double distance = mp1.distance.getValue() + mp2.distance.getValue();
+    assertTrue(distance > 0);
+    assertEquals(1, ms.getMovedObjects());
+    assertEquals(2, ms.getMoves());
+    assertEquals(distance, ms.getTotalDistance(), EPSILON);
+    assertEquals(distance, ms.getDistance(testRoadUser), EPSILON);
+    assertEquals(0d, ms.getDistance(new TestRoadUser()), 0);
+    assertEquals(Long.valueOf(200), ms.getLastMoveTime(testRoadUser).get());
+  }
+
   @Test(expected = NullPointerException.class)
   public void followPathFailPath1() {
     final TestRoadUser testRoadUser = new TestRoadUser();
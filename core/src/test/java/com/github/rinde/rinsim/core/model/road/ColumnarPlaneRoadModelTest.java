@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.measure.Measure;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Tests for {@link ColumnarPlaneRoadModel}, the regular road model behavior is
+ * tested by {@link AbstractRoadModelTest}.
+ * @author Rinde van Lon
+ */
+public class ColumnarPlaneRoadModelTest extends
+    AbstractRoadModelTest<ColumnarPlaneRoadModel> {
+
+  @Override
+  public void setUp() {
+    model = new ColumnarPlaneRoadModel(new Point(0, 0), new Point(10, 10),
+        SI.KILOMETER, Measure.valueOf(10d, NonSI.KILOMETERS_PER_HOUR));
+  }
+
+  /**
+   * Road users with a destination are moved in the after tick.
+   */
+  @Test
+  public void batchedMove() {
+    final MoveStatistics ms = model.enableMoveStatistics();
+    final TestRoadUser ru1 = new TestRoadUser();
+    final TestRoadUser ru2 = new TestRoadUser();
+    model.addObjectAt(ru1, new Point(0, 0));
+    model.addObjectAt(ru2, new Point(5, 5));
+
+    model.setDestination(ru1, new Point(1, 0));
+    assertTrue(model.isMoving(ru1));
+    assertFalse(model.isMoving(ru2));
+    assertEquals(new Point(1, 0), model.getDestination(ru1));
+    assertNull(model.getDestination(ru2));
+
+    // speed of the road users is 1 km/h
+    model.afterTick(TimeLapseFactory.create(NonSI.HOUR, 0, 1));
+    assertEquals(new Point(1, 0), model.getPosition(ru1));
+    assertEquals(new Point(5, 5), model.getPosition(ru2));
+    assertFalse(model.isMoving(ru1));
+
+    model.setDestination(ru1, new Point(1, 2));
+    model.afterTick(TimeLapseFactory.create(NonSI.HOUR, 1, 2));
+    assertEquals(1d, model.getPosition(ru1).x, EPSILON);
+    assertEquals(1d, model.getPosition(ru1).y, EPSILON);
+    assertTrue(model.isMoving(ru1));
+    assertEquals(2d, ms.getTotalDistance(), EPSILON);
+    assertEquals(Long.valueOf(1), ms.getLastMoveTime(ru1).get());
+
+    // a regular move cancels the batched move
+    model.moveTo(ru1, new Point(0, 1), TimeLapseFactory.create(NonSI.HOUR, 2,
+        3));
+    assertFalse(model.isMoving(ru1));
+    model.afterTick(TimeLapseFactory.create(NonSI.HOUR, 3, 4));
+    assertEquals(new Point(0, 1), model.getPosition(ru1));
+  }
+
+  /**
+   * Removing road users should keep the positions of the others intact.
+   */
+  @Test
+  public void removeKeepsPositions() {
+    final TestRoadUser[] users = new TestRoadUser[ColumnarStore.INITIAL_CAPACITY * 3];
+    for (int i = 0; i < users.length; i++) {
+      users[i] = new TestRoadUser();
+      model.addObjectAt(users[i], new Point(i / 10d, 0));
+    }
+    for (int i = 0; i < users.length; i += 2) {
+      model.removeObject(users[i]);
+    }
+    assertEquals(users.length / 2, model.store.size);
+    for (int i = 1; i < users.length; i += 2) {
+      assertEquals(new Point(i / 10d, 0), model.getPosition(users[i]));
+      assertTrue(model.containsObjectAt(users[i], new Point(i / 10d, 0)));
+    }
+    final TestRoadUser other = new TestRoadUser();
+    model.addObjectAtSamePosition(other, users[1]);
+    model.setDestination(other, new Point(5, 5));
+    model.afterTick(TimeLapseFactory.create(NonSI.HOUR, 0, 1));
+    assertEquals(new Point(.1, 0), model.getPosition(users[1]));
+    assertFalse(model.getPosition(other).equals(model.getPosition(users[1])));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.serializers;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.MultimapGraph;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Tests for {@link BinaryGraphIO}.
+ * @author Rinde van Lon
+ */
+public class BinaryGraphIOTest {
+
+  /**
+   * Temporary folder for graph files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * A graph written to the binary format and mapped back should be equal to
+   * the original.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    final Point a = new Point(0, 0);
+    final Point b = new Point(10, 0);
+    final Point c = new Point(10, -3);
+    final Point d = new Point(-1, 5);
+    final Graph<MultiAttributeData> graph = new MultimapGraph<>();
+    graph.addConnection(a, b, new MultiAttributeData(10, 5));
+    graph.addConnection(b, a, new MultiAttributeData(10));
+    graph.addConnection(b, c);
+    graph.addConnection(c, a, new MultiAttributeData(3, 1));
+    graph.addConnection(d, a, new MultiAttributeData(7));
+
+    final Path file = tempFolder.getRoot().toPath().resolve("graph.bin");
+    BinaryGraphIO.write(graph, file);
+    final Graph<MultiAttributeData> read = BinaryGraphIO.read(file);
+
+    assertTrue(Graphs.equal(graph, read));
+    assertTrue(Graphs.equal(read, graph));
+    assertEquals(graph.getNodes(), read.getNodes());
+    assertEquals(newHashSet(b, c, d), newHashSet(read
+        .getIncomingConnections(a)));
+    assertEquals(newHashSet(a, c), newHashSet(read.getOutgoingConnections(b)));
+    assertTrue(read.getIncomingConnections(d).isEmpty());
+    assertTrue(read.getOutgoingConnections(new Point(1, 1)).isEmpty());
+    assertFalse(read.containsNode(new Point(1, 1)));
+    assertFalse(read.hasConnection(a, c));
+    assertNull(read.connectionData(b, c));
+    assertEquals(3d, read.connectionLength(b, c), 0);
+    assertEquals(5d, read.connectionData(a, b).getMaxSpeed(), 0);
+
+    final RandomGenerator rng = new MersenneTwister(123);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(graph.containsNode(read.getRandomNode(rng)));
+    }
+    try {
+      read.addConnection(a, c);
+      fail();
+    } catch (final UnsupportedOperationException e) {
+      assertTrue(e.getMessage().contains("modified"));
+    }
+  }
+
+  /**
+   * Converting a dot file should result in the same graph as reading the dot
+   * file.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void testConvertDot() throws IOException {
+    final Path dot = tempFolder.getRoot().toPath().resolve("grid.dot");
+    final Path bin = tempFolder.getRoot().toPath().resolve("grid.bin");
+    DotGraphSerializer.getMultiAttributeGraphSerializer().write(grid(20),
+        dot.toFile());
+    BinaryGraphIO.convertDot(dot, bin);
+
+    final Graph<MultiAttributeData> fromDot = DotGraphSerializer
+        .getMultiAttributeGraphSerializer().read(dot.toFile());
+    final Graph<MultiAttributeData> fromBin = BinaryGraphIO.read(bin);
+    assertEquals(20 * 20, fromBin.getNumberOfNodes());
+    assertTrue(Graphs.equal(fromDot, fromBin));
+    assertEquals(fromDot.getConnections().size(), fromBin.getConnections()
+        .size());
+  }
+
+  /**
+   * Invalid files should be rejected.
+   * @throws IOException When IO fails.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFile() throws IOException {
+    final Path file = tempFolder.newFile("invalid.bin").toPath();
+    Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9,
+        10, 11, 12, 13, 14, 15, 16 });
+    BinaryGraphIO.read(file);
+  }
+
+  /**
+   * Compares load times of the dot format and the binary format for a large
+   * grid graph.
+   * @throws IOException When IO fails.
+   */
+  @Ignore
+  @Test
+  public void benchmarkLoad() throws IOException {
+    final Path dot = tempFolder.getRoot().toPath().resolve("grid.dot");
+    final Path bin = tempFolder.getRoot().toPath().resolve("grid.bin");
+    DotGraphSerializer.getMultiAttributeGraphSerializer().write(grid(300),
+        dot.toFile());
+    BinaryGraphIO.convertDot(dot, bin);
+
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      final Graph<MultiAttributeData> fromDot = DotGraphSerializer
+          .getMultiAttributeGraphSerializer().read(dot.toFile());
+      final long dotNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      final Graph<MultiAttributeData> fromBin = BinaryGraphIO.read(bin);
+      final long binNanos = System.nanoTime() - start;
+
+      // a full scan over all connections
+      start = System.nanoTime();
+      fromBin.getConnections();
+      final long scanNanos = System.nanoTime() - start;
+
+      System.out.printf(
+          "%d connections, dot: %1.1f ms binary: %1.3f ms (full scan %1.1f ms)%n",
+          fromDot.getNumberOfConnections(), dotNanos / 1000000d,
+          binNanos / 1000000d, scanNanos / 1000000d);
+    }
+  }
+
+  static Graph<MultiAttributeData> grid(int size) {
+    final Graph<MultiAttributeData> graph = new MultimapGraph<>();
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        final Point p = new Point(i * 10, j * 10);
+        if (i > 0) {
+          final Point left = new Point((i - 1) * 10, j * 10);
+          graph.addConnection(p, left, new MultiAttributeData(10, 50));
+          graph.addConnection(left, p, new MultiAttributeData(10));
+        }
+        if (j > 0) {
+          final Point down = new Point(i * 10, (j - 1) * 10);
+          graph.addConnection(p, down, new MultiAttributeData(10, 50));
+          graph.addConnection(down, p, new MultiAttributeData(10));
+        }
+      }
+    }
+    return graph;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for {@link CharTokenizer}.
+ * @author Rinde van Lon
+ */
+public class CharTokenizerTest {
+
+  /**
+   * Tests tokenizing of lines with several delimiters, empty tokens and
+   * different line terminators.
+   * @throws IOException When reading fails.
+   */
+  @Test
+  public void testLines() throws IOException {
+    final CharTokenizer tokenizer = CharTokenizer.create(new StringReader(
+        "1;2;;-3;\r\n  ;abc;9223372036854775807\n\n4"), ';', ' ');
+    assertTrue(tokenizer.nextLine());
+    assertEquals(1, tokenizer.nextInt());
+    assertEquals(2L, tokenizer.nextLong());
+    assertEquals(-3, tokenizer.nextInt());
+    assertFalse(tokenizer.hasNextToken());
+
+    assertTrue(tokenizer.nextLine());
+    assertEquals("abc", tokenizer.nextToken());
+    assertEquals(Long.MAX_VALUE, tokenizer.nextLong());
+    assertFalse(tokenizer.hasNextToken());
+
+    assertTrue(tokenizer.nextLine());
+    assertFalse(tokenizer.hasNextToken());
+
+    assertTrue(tokenizer.nextLine());
+    assertEquals(4d, tokenizer.nextDouble(), 0);
+    assertFalse(tokenizer.nextLine());
+    tokenizer.close();
+  }
+
+  /**
+   * Parsed doubles should be identical to {@link Double#parseDouble(String)}.
+   * @throws IOException When reading fails.
+   */
+  @Test
+  public void testDoubles() throws IOException {
+    final List<String> values = Lists.newArrayList("0", "-0", "104.004",
+        "1.98522e-314", "-1.73555e+228", "1e22", "1e23", "9007199254740993",
+        ".5", "-.5e1", "1.", "+3.5", "4.9E-324", "123456789012345678901",
+        "NaN", "-Infinity");
+    final RandomGenerator rng = new MersenneTwister(123);
+    for (int i = 0; i < 10000; i++) {
+      final double value = rng.nextDouble()
+          * Math.pow(10, rng.nextInt(40) - 20);
+      values.add(Double.toString(value));
+      values.add(String.format(Locale.US, "%." + rng.nextInt(8) + "f", value));
+    }
+    final StringBuilder sb = new StringBuilder();
+    for (final String v : values) {
+      sb.append(v).append(' ');
+    }
+    final CharTokenizer tokenizer = CharTokenizer.create(new StringReader(sb
+        .toString()), ' ');
+    assertTrue(tokenizer.nextLine());
+    for (final String v : values) {
+      assertEquals(v, Double.doubleToRawLongBits(Double.parseDouble(v)),
+          Double.doubleToRawLongBits(tokenizer.nextDouble()));
+    }
+    assertFalse(tokenizer.hasNextToken());
+  }
+
+  /**
+   * Invalid numbers should be rejected.
+   * @throws IOException When reading fails.
+   */
+  @Test
+  public void testInvalidNumbers() throws IOException {
+    for (final String s : new String[] { ".", "-", "1e", "e5", "1.2.3", "1x" }) {
+      final CharTokenizer tokenizer = CharTokenizer.create(new StringReader(
+          s), ' ');
+      tokenizer.nextLine();
+      try {
+        tokenizer.nextDouble();
+        fail(s);
+      } catch (final NumberFormatException e) {}
+    }
+    for (final String s : new String[] { "1.0", "2147483648", "--1" }) {
+      final CharTokenizer tokenizer = CharTokenizer.create(new StringReader(
+          s), ' ');
+      tokenizer.nextLine();
+      try {
+        tokenizer.nextInt();
+        fail(s);
+      } catch (final NumberFormatException e) {}
+    }
+  }
+
+  /**
+   * Reading beyond the end of a line is not allowed.
+   * @throws IOException When reading fails.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoMoreTokens() throws IOException {
+    final CharTokenizer tokenizer = CharTokenizer.create(new StringReader(
+        "1\n2"), ' ');
+    tokenizer.nextLine();
+    tokenizer.nextInt();
+    tokenizer.nextInt();
+  }
+}
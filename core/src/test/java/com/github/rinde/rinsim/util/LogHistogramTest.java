@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LogHistogram}.
+ * @author Rinde van Lon
+ */
+public class LogHistogramTest {
+
+  /**
+   * Every value should end up in the bucket whose range contains it, for any
+   * number of sub bucket bits.
+   */
+  @Test
+  public void testBuckets() {
+    for (int bits = 0; bits <= 4; bits++) {
+      final LogHistogram h = LogHistogram.create(bits);
+      for (long v = 0; v < 10000; v += 7) {
+        final int bucket = h.bucket(v);
+        assertTrue(h.upperBound(bucket) >= v);
+        assertTrue(bucket == 0 || h.upperBound(bucket - 1) < v);
+      }
+      assertEquals(h.getNumBuckets() - 1, h.bucket(Long.MAX_VALUE));
+      assertEquals(Long.MAX_VALUE, h.upperBound(h.bucket(Long.MAX_VALUE)));
+    }
+    final LogHistogram log2 = LogHistogram.create(0);
+    assertEquals(Long.SIZE, log2.getNumBuckets());
+    assertEquals(0, log2.bucket(0));
+    assertEquals(1, log2.bucket(1));
+    assertEquals(4, log2.bucket(15));
+    assertEquals(15, log2.upperBound(4));
+  }
+
+  /**
+   * Tests the statistics and percentiles.
+   */
+  @Test
+  public void testPercentiles() {
+    final LogHistogram h = LogHistogram.create(4);
+    assertEquals(0, h.getPercentile(50));
+    assertEquals(0, h.getMin());
+    for (int i = 1; i <= 1000; i++) {
+      h.add(i * 1000L);
+    }
+    assertEquals(1000, h.getCount());
+    assertEquals(500500d, h.getMean(), 0);
+    assertEquals(1000L, h.getMin());
+    assertEquals(1000000L, h.getPercentile(100));
+    // the relative error is bounded by the number of sub buckets
+    final double error = 1d / 16;
+    assertEquals(500000d, h.getPercentile(50), 500000d * error);
+    assertEquals(990000d, h.getPercentile(99), 990000d * error);
+  }
+
+  /**
+   * Merging adds all values of the other histogram.
+   */
+  @Test
+  public void testMerge() {
+    final LogHistogram h = LogHistogram.create(4);
+    h.add(100L);
+    final LogHistogram copy = h.copy();
+    final LogHistogram other = LogHistogram.create(4);
+    other.add(5000000L);
+    h.merge(other);
+    h.merge(LogHistogram.create(4));
+    assertEquals(2, h.getCount());
+    assertEquals(5000000L, h.getPercentile(100));
+    assertEquals(100L, h.getMin());
+    // the copy is not affected by changes to the original
+    assertEquals(1, copy.getCount());
+    assertEquals(0, copy.getBuckets()[copy.bucket(5000000L)]);
+    assertEquals(1, h.getBuckets()[h.bucket(5000000L)]);
+  }
+
+  /**
+   * Histograms with a different number of sub buckets can not be merged.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentBits() {
+    LogHistogram.create(4).merge(LogHistogram.create(3));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import javax.measure.Measure;
+import javax.measure.converter.AddConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.util.UnitContext.Conversion;
+
+/**
+ * Tests for {@link UnitContext}.
+ * @author Rinde van Lon
+ */
+public class UnitContextTest {
+
+  /**
+   * Conversions should have exactly the same result as the converters.
+   */
+  @Test
+  public void testConversions() {
+    final UnitContext uc = UnitContext.create(SI.MILLI(SI.SECOND),
+        SI.KILOMETER, NonSI.KILOMETERS_PER_HOUR);
+    final double[] values = { 0, 1, 3.3, 1d / 3, 12345.678, 1e-9, 1e12 };
+    for (final double v : values) {
+      assertExact(SI.MILLI(SI.SECOND), SI.SECOND, uc.getTimeToSeconds(), v);
+      assertExact(SI.SECOND, SI.MILLI(SI.SECOND), uc.getSecondsToTime(), v);
+      assertExact(SI.KILOMETER, SI.METER, uc.getDistanceToMeters(), v);
+      assertExact(SI.METER, SI.KILOMETER, uc.getMetersToDistance(), v);
+      assertExact(NonSI.KILOMETERS_PER_HOUR, SI.METERS_PER_SECOND,
+          uc.getSpeedToMetersPerSecond(), v);
+      assertExact(SI.METERS_PER_SECOND, NonSI.KILOMETERS_PER_HOUR,
+          uc.getMetersPerSecondToSpeed(), v);
+    }
+    assertEquals(1000d, uc.getDistanceToMeters().getFactor(), 0);
+  }
+
+  /**
+   * The travel time should be identical to the travel time computed via
+   * {@link Measure}s.
+   */
+  @Test
+  public void testComputeTravelTime() {
+    final UnitContext uc = UnitContext.create(SI.MILLI(SI.SECOND),
+        SI.KILOMETER, NonSI.KILOMETERS_PER_HOUR);
+    for (int i = 1; i < 1000; i++) {
+      final double speed = 30d + i / 7d;
+      final double distance = i * 0.37;
+      final double expected = Measure.valueOf(
+          Measure.valueOf(distance, SI.KILOMETER).doubleValue(SI.METER)
+              / Measure.valueOf(speed, NonSI.KILOMETERS_PER_HOUR).doubleValue(
+                  SI.METERS_PER_SECOND), SI.SECOND).doubleValue(
+          SI.MILLI(SI.SECOND));
+      assertEquals(expected, uc.computeTravelTime(speed, distance), 0);
+    }
+  }
+
+  /**
+   * Contexts are cached.
+   */
+  @Test
+  public void testCache() {
+    final UnitContext uc = UnitContext.create(SI.SECOND, SI.METER,
+        SI.METERS_PER_SECOND);
+    assertSame(uc, UnitContext.create(SI.SECOND, SI.METER,
+        SI.METERS_PER_SECOND));
+    assertEquals(SI.SECOND, uc.getTimeUnit());
+    assertEquals(SI.METER, uc.getDistanceUnit());
+    assertEquals(SI.METERS_PER_SECOND, uc.getSpeedUnit());
+    assertEquals(1d, uc.getTimeToSeconds().getFactor(), 0);
+  }
+
+  /**
+   * Converters that are not a scaling are used as is.
+   */
+  @Test
+  public void testOtherConverter() {
+    final Conversion c = Conversion.of(new AddConverter(1));
+    assertEquals(3d, c.convert(2d), 0);
+    assertEquals(Double.NaN, c.getFactor(), 0);
+  }
+
+  static <Q extends Quantity> void assertExact(
+      Unit<Q> from, Unit<Q> to, Conversion conv, double value) {
+    assertEquals(from.getConverterTo(to).convert(value), conv.convert(value),
+        0);
+  }
+}
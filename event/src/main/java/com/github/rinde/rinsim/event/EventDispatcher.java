@@ -21,10 +21,12 @@ import static java.util.Arrays.asList;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 
 /**
  * Basic event dispatcher for easily dispatching {@link Event}s to
@@ -34,6 +36,12 @@ import com.google.common.collect.Multimap;
  */
 public class EventDispatcher implements EventAPI {
 
+  // the number of threads that are counting events, when no thread is counting
+  // the thread local does not need to be consulted
+  private static final AtomicInteger COUNTING_THREADS = new AtomicInteger();
+  private static final ThreadLocal<Multiset<Enum<?>>> COUNTERS =
+      new ThreadLocal<>();
+
   /**
    * A map of event types to registered {@link Listener}s.
    */
@@ -86,6 +94,12 @@ public class EventDispatcher implements EventAPI {
         supportedTypes.contains(e.getEventType()),
         "Cannot dispatch an event of type %s since it was not registered at this dispatcher.",
         e.getEventType());
+    if (COUNTING_THREADS.get() > 0) {
+      final Multiset<Enum<?>> counter = COUNTERS.get();
+      if (counter != null) {
+        counter.add(e.getEventType());
+      }
+    }
     for (final Listener l : listeners.get(e.getEventType())) {
       l.handleEvent(e);
     }
@@ -228,4 +242,38 @@ public class EventDispatcher implements EventAPI {
       return ref.containsListener(l, eventType);
     }
   }
+
+  /**
+   * Starts counting the events that are dispatched on the current thread by
+   * any dispatcher, each dispatched event increments the count of its type in
+   * the specified multiset. This is intended for profiling, when no thread is
+   * counting the overhead for dispatching an event is a single volatile read.
+   * @param counter The multiset to count in, it is used by a single thread
+   *          only unless it is shared by the caller.
+   */
+  public static void startCounting(Multiset<Enum<?>> counter) {
+    if (COUNTERS.get() == null) {
+      COUNTING_THREADS.incrementAndGet();
+    }
+    COUNTERS.set(counter);
+  }
+
+  /**
+   * @return <code>true</code> if the events that are dispatched on the current
+   *         thread are being counted, see {@link #startCounting(Multiset)}.
+   */
+  public static boolean isCounting() {
+    return COUNTERS.get() != null;
+  }
+
+  /**
+   * Stops counting the events that are dispatched on the current thread, see
+   * {@link #startCounting(Multiset)}.
+   */
+  public static void stopCounting() {
+    if (COUNTERS.get() != null) {
+      COUNTERS.remove();
+      COUNTING_THREADS.decrementAndGet();
+    }
+  }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.collect.Maps.newIdentityHashMap;
+
+import java.util.Map;
+import java.util.Queue;
+
+import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
+import com.github.rinde.rinsim.scenario.AddParcelEvent;
+import com.github.rinde.rinsim.scenario.AddVehicleEvent;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.TimedEvent;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Estimates the computation time of simulations. Before any simulation is
+ * finished the cost of a simulation is estimated based on the size of its
+ * scenario: the number of ticks times the number of vehicles plus the number
+ * of parcels and events. When simulations finish, their durations are used to
+ * refine the estimates, in order of preference the mean duration of
+ * simulations with the same scenario and configuration, the duration per size
+ * unit for the same configuration, or the duration per size unit over all
+ * configurations.
+ * Scenarios and configurations are compared by identity. This class is not
+ * thread safe.
+ * @author Rinde van Lon
+ */
+final class CostEstimator {
+  private final Map<Scenario, Double> scenarioSizes;
+  private final Map<Scenario, Map<MASConfiguration, Stats>> runStats;
+  private final Map<MASConfiguration, Stats> configStats;
+  private final Stats globalStats;
+
+  CostEstimator() {
+    scenarioSizes = newIdentityHashMap();
+    runStats = newIdentityHashMap();
+    configStats = newIdentityHashMap();
+    globalStats = new Stats();
+  }
+
+  /**
+   * Estimates the cost of a simulation, all estimates returned by an instance
+   * are on the same scale and can be compared.
+   * @param args The simulation.
+   * @return The estimated cost.
+   */
+  double estimate(SimArgs args) {
+    final Map<MASConfiguration, Stats> scenarioRuns = runStats
+        .get(args.scenario);
+    if (scenarioRuns != null && scenarioRuns.containsKey(args.masConfig)) {
+      return scenarioRuns.get(args.masConfig).meanDuration();
+    }
+    final double size = size(args.scenario);
+    final Stats config = configStats.get(args.masConfig);
+    if (config != null) {
+      return config.durationPerUnit() * size;
+    }
+    if (globalStats.count > 0) {
+      return globalStats.durationPerUnit() * size;
+    }
+    return size;
+  }
+
+  /**
+   * Records the duration of a finished simulation.
+   * @param args The simulation.
+   * @param nanos The duration in nanoseconds.
+   */
+  void record(SimArgs args, long nanos) {
+    final double size = size(args.scenario);
+    if (!runStats.containsKey(args.scenario)) {
+      final Map<MASConfiguration, Stats> map = newIdentityHashMap();
+      runStats.put(args.scenario, map);
+    }
+    get(runStats.get(args.scenario), args.masConfig).add(nanos, size);
+    get(configStats, args.masConfig).add(nanos, size);
+    globalStats.add(nanos, size);
+  }
+
+  static Stats get(Map<MASConfiguration, Stats> map, MASConfiguration key) {
+    if (!map.containsKey(key)) {
+      map.put(key, new Stats());
+    }
+    return map.get(key);
+  }
+
+  double size(Scenario s) {
+    final Double cached = scenarioSizes.get(s);
+    if (cached != null) {
+      return cached;
+    }
+    final double size = computeSize(s);
+    scenarioSizes.put(s, size);
+    return size;
+  }
+
+  static double computeSize(Scenario s) {
+    int events = 0;
+    int vehicles = 0;
+    int parcels = 0;
+    long lastEvent = 0;
+    // a queue is used such that the events of a streaming scenario are not
+    // all kept in memory
+    final Queue<TimedEvent> queue = s.asQueue();
+    TimedEvent e;
+    while ((e = queue.poll()) != null) {
+      events++;
+      if (e instanceof AddVehicleEvent) {
+        vehicles++;
+      } else if (e instanceof AddParcelEvent) {
+        parcels++;
+      }
+      lastEvent = Math.max(lastEvent, e.time);
+    }
+    final TimeWindow tw = s.getTimeWindow();
+    final long horizon = tw.end == Long.MAX_VALUE ? lastEvent : tw.end
+        - tw.begin;
+    final double ticks = Math.max(1d, (double) horizon / s.getTickSize());
+    return ticks * Math.max(1, vehicles) + parcels + events;
+  }
+
+  static final class Stats {
+    int count;
+    double totalDuration;
+    double totalSize;
+
+    void add(long nanos, double size) {
+      count++;
+      totalDuration += nanos;
+      totalSize += size;
+    }
+
+    double meanDuration() {
+      return totalDuration / count;
+    }
+
+    double durationPerUnit() {
+      return totalDuration / totalSize;
+    }
+  }
+}
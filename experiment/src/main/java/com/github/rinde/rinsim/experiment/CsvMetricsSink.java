@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map.Entry;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * A {@link MetricsSink} that appends the metrics to a CSV file. Every line
+ * contains a single metric: <code>timestamp,name,value</code>. Since each line
+ * is self contained, metrics that appear during an experiment (such as the
+ * metrics of a worker thread) do not change the layout of the file.
+ * @author Rinde van Lon
+ */
+public final class CsvMetricsSink implements MetricsSink {
+  static final String HEADER = "timestamp,metric,value";
+  private final Path file;
+
+  CsvMetricsSink(Path f) {
+    file = f;
+  }
+
+  /**
+   * Creates a new sink that writes to the specified file, if the file exists
+   * it is overwritten.
+   * @param file The file.
+   * @return A new sink.
+   */
+  public static CsvMetricsSink create(Path file) {
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      Files.write(file, (HEADER + System.lineSeparator())
+          .getBytes(Charsets.UTF_8));
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return new CsvMetricsSink(file);
+  }
+
+  @Override
+  public synchronized void report(long timestamp,
+      ImmutableSortedMap<String, Double> metrics) {
+    try (BufferedWriter writer = Files.newBufferedWriter(file,
+        Charsets.UTF_8, StandardOpenOption.APPEND)) {
+      for (final Entry<String, Double> entry : metrics.entrySet()) {
+        writer.write(Long.toString(timestamp));
+        writer.write(',');
+        writer.write(entry.getKey());
+        writer.write(',');
+        writer.write(entry.getValue().toString());
+        writer.newLine();
+      }
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -20,11 +20,14 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -48,6 +51,7 @@ import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.github.rinde.rinsim.util.StochasticSupplier;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
@@ -204,6 +208,7 @@ public final class Experiment {
   public static final class Builder {
     final ObjectiveFunction objectiveFunction;
     final Set<MASConfiguration> configurationsSet;
+    final Map<MASConfiguration, String> configurationIds;
     final ImmutableSet.Builder<Scenario> scenariosBuilder;
     Optional<FileProvider.Builder> scenarioProviderBuilder;
     Function<Path, ? extends Scenario> fileReader;
@@ -218,12 +223,18 @@ public final class Experiment {
     long masterSeed;
     int numThreads;
     int numBatches;
+    int queueCapacity;
+    boolean retainResults;
+    Optional<Path> journal;
+    Optional<ExperimentMetrics> metrics;
+    boolean loadWhileComputing;
 
     private Supplier<Computer> computerType;
 
     Builder(ObjectiveFunction objectiveFunction) {
       this.objectiveFunction = objectiveFunction;
       configurationsSet = newLinkedHashSet();
+      configurationIds = newHashMap();
       scenariosBuilder = ImmutableSet.builder();
       scenarioProviderBuilder = Optional.absent();
       fileReader = ScenarioIO.reader();
@@ -233,6 +244,11 @@ public final class Experiment {
       masterSeed = 0L;
       numThreads = Runtime.getRuntime().availableProcessors();
       numBatches = 1;
+      queueCapacity = 0;
+      retainResults = true;
+      journal = Optional.absent();
+      metrics = Optional.absent();
+      loadWhileComputing = false;
       computerType = Computers.LOCAL;
     }
 
@@ -285,6 +301,25 @@ public final class Experiment {
       return this;
     }
 
+    /**
+     * Add a configuration with an explicit id to the experiment. The id
+     * identifies the configuration in a journal (see
+     * {@link #withJournal(Path)}) and in result files, it should therefore
+     * remain the same when the experiment is resumed.
+     * @param config The configuration to add.
+     * @param id The id of the configuration, must be unique within this
+     *          experiment.
+     * @return This, as per the builder pattern.
+     */
+    public Builder addConfiguration(MASConfiguration config, String id) {
+      checkArgument(!id.isEmpty(), "The configuration id can not be empty.");
+      checkArgument(!configurationIds.containsValue(id),
+          "A configuration with id '%s' has already been added.", id);
+      addConfiguration(config);
+      configurationIds.put(config, id);
+      return this;
+    }
+
     /**
      * Adds all configurations to the experiment. For each simulation
      * {@link StochasticSupplier#get(long)} is called and the resulting
@@ -333,6 +368,23 @@ public final class Experiment {
       return this;
     }
 
+    /**
+     * Start computing simulations while the scenarios of the
+     * {@link FileProvider} (see {@link #addScenarios(FileProvider.Builder)})
+     * are being loaded. The scenarios are loaded in parallel and simulations
+     * are started as soon as their scenario is loaded, instead of waiting
+     * until all scenarios are loaded. Scenarios that are loaded from files are
+     * not checked for duplicates, each file results in a separate scenario.
+     * This setting is only used when computing locally without a journal, in
+     * all other cases the scenarios are loaded (in parallel) before the
+     * experiment starts.
+     * @return This, as per the builder pattern.
+     */
+    public Builder loadScenariosWhileComputing() {
+      loadWhileComputing = true;
+      return this;
+    }
+
     /**
      * Change the scenario reader which defines how {@link Path} instances are
      * converted to {@link Scenario} instances. By default
@@ -359,6 +411,66 @@ public final class Experiment {
       return this;
     }
 
+    /**
+     * Specify the maximum number of simulations that are submitted for local
+     * computation at the same time. Results are passed to the
+     * {@link ResultListener}s as soon as a simulation is finished, after which
+     * a new simulation is submitted. The default capacity is twice the number
+     * of threads.
+     * @param capacity The maximum number of simulations that are in progress or
+     *          waiting in the queue.
+     * @return This, as per the builder pattern.
+     */
+    public Builder withQueueCapacity(int capacity) {
+      checkArgument(capacity > 0,
+          "The queue capacity must be strictly positive, was %s.", capacity);
+      queueCapacity = capacity;
+      return this;
+    }
+
+    /**
+     * Results of the experiment are written to the specified file (using a
+     * {@link ResultFileWriter}) instead of being kept in memory. The
+     * {@link ExperimentResults#results} of the experiment will be empty, all
+     * other fields are as usual. This is useful for experiments with a very
+     * large number of simulations.
+     * @param file The file to write the results to, if it exists it is
+     *          overwritten.
+     * @return This, as per the builder pattern.
+     */
+    public Builder spillResultsTo(Path file) {
+      retainResults = false;
+      return addResultListener(new ResultFileWriter(file));
+    }
+
+    /**
+     * Use the specified file as a journal for this experiment. Every finished
+     * simulation is appended to the journal (using a {@link ResultFileWriter})
+     * as soon as it is done. When the experiment is performed and the journal
+     * already contains results, the simulations that are already in the
+     * journal are not performed again and their results are read from the
+     * journal instead. This allows to resume an experiment that was
+     * interrupted.
+     * <p>
+     * A simulation is identified by the problem class id, the problem instance
+     * id, the configuration id and the seed. All configurations must therefore
+     * be added with an explicit id using
+     * {@link #addConfiguration(MASConfiguration, String)} and different
+     * scenarios must differ in problem class id or problem instance id, this
+     * is checked when the experiment is performed. Data gathered by a
+     * {@link PostProcessor} is not stored in the journal, for results read from
+     * the journal {@link SimulationResult#simulationData} is absent.
+     * @param file The journal file, it is created if it doesn't exist.
+     * @return This, as per the builder pattern.
+     */
+    public Builder withJournal(Path file) {
+      checkState(!journal.isPresent(), "A journal has already been set: %s.",
+          journal);
+      journal = Optional.of(file);
+      return addResultListener(new ResultFileWriter(file, true,
+          Functions.forMap(configurationIds)));
+    }
+
     /**
      * Set the master random seed for the experiments.
      * @param seed The seed to use.
@@ -456,8 +568,7 @@ public final class Experiment {
 
     /**
      * Adds the specified {@link ResultListener} to the experiment. This
-     * listener will be called each time a simulation is done. <b>Currently only
-     * works for distributed computation</b>.
+     * listener will be called each time a simulation is done.
      * @param listener The listener to add.
      * @return This, as per the builder pattern.
      */
@@ -466,6 +577,18 @@ public final class Experiment {
       return this;
     }
 
+    /**
+     * Reports metrics of the experiment (throughput, durations of simulations,
+     * solver invocations, memory use) into the specified registry. This works
+     * for both local and distributed experiments.
+     * @param registry The registry to report into.
+     * @return This, as per the builder pattern.
+     */
+    public Builder withMetrics(ExperimentMetrics registry) {
+      metrics = Optional.of(registry);
+      return this;
+    }
+
     /**
      * Perform the experiment. For every scenario every configuration is used
      * <code>n</code> times. Where <code>n</code> is the number of repetitions
@@ -477,12 +600,85 @@ public final class Experiment {
       checkArgument(numThreads == 1 || !showGui,
           "The GUI can not be shown when using more than one thread.");
       final List<Long> seeds = generateSeeds();
+      if (metrics.isPresent()) {
+        metrics.get().nameConfigurations(configurationIds);
+      }
 
+      if (loadWhileComputing && scenarioProviderBuilder.isPresent()
+          && !journal.isPresent() && computerType == Computers.LOCAL) {
+        return new LocalComputer().computeWhileLoading(this, seeds);
+      }
+      if (journal.isPresent()) {
+        for (final MASConfiguration config : configurationsSet) {
+          checkState(configurationIds.containsKey(config),
+              "A journal requires an explicit id for every configuration, "
+                  + "configuration %s has no id.", config);
+        }
+      }
       // run Forrest run!
       final ImmutableSet<SimArgs> runners = createFactorialSetup(seeds);
+      if (journal.isPresent()) {
+        return resume(runners, journal.get());
+      }
       return computerType.get().compute(this, runners);
     }
 
+    private ExperimentResults resume(ImmutableSet<SimArgs> runners, Path file) {
+      final Map<List<String>, Scenario> scenarioIds = newHashMap();
+      for (final SimArgs args : runners) {
+        final Scenario other = scenarioIds.put(ImmutableList.of(
+            args.scenario.getProblemClass().getId(),
+            args.scenario.getProblemInstanceId()), args.scenario);
+        checkState(other == null || other.equals(args.scenario),
+            "A journal requires a unique combination of problem class id and "
+                + "problem instance id for every scenario, found different "
+                + "scenarios with problem class '%s' and instance id '%s'.",
+            args.scenario.getProblemClass().getId(),
+            args.scenario.getProblemInstanceId());
+      }
+      final Map<String, ResultFileWriter.Entry> journaled = newHashMap();
+      if (Files.exists(file)) {
+        for (final ResultFileWriter.Entry entry : ResultFileWriter.read(file)) {
+          journaled.put(entry.key(), entry);
+        }
+      }
+      final Map<String, SimulationResult> results = newHashMap();
+      final ImmutableSet.Builder<SimArgs> remainingBuilder = ImmutableSet
+          .builder();
+      for (final SimArgs args : runners) {
+        final String key = ResultFileWriter.Entry.key(args.scenario,
+            configurationIds.get(args.masConfig), args.randomSeed);
+        if (journaled.containsKey(key)) {
+          results.put(key, new SimulationResult(journaled.get(key).getStats(),
+              args.scenario, args.masConfig, args.randomSeed,
+              Optional.absent()));
+        } else {
+          remainingBuilder.add(args);
+        }
+      }
+      final ImmutableSet<SimArgs> remaining = remainingBuilder.build();
+      if (!remaining.isEmpty()) {
+        final ExperimentResults computed = computerType.get().compute(this,
+            remaining);
+        for (final SimulationResult res : computed.results) {
+          results.put(ResultFileWriter.Entry.key(res.scenario,
+              configurationIds.get(res.masConfiguration), res.seed), res);
+        }
+      }
+      final ImmutableSet.Builder<SimulationResult> merged = ImmutableSet
+          .builder();
+      if (retainResults) {
+        for (final SimArgs args : runners) {
+          final String key = ResultFileWriter.Entry.key(args.scenario,
+              configurationIds.get(args.masConfig), args.randomSeed);
+          if (results.containsKey(key)) {
+            merged.add(results.get(key));
+          }
+        }
+      }
+      return new ExperimentResults(this, merged.build());
+    }
+
     /**
      * Parses the command line arguments. Performs the experiment using
      * {@link #perform()} if the arguments allow it.
@@ -516,7 +712,8 @@ public final class Experiment {
       final Set<Scenario> scenarios = newLinkedHashSet(scenariosBuilder
           .build());
       if (scenarioProviderBuilder.isPresent()) {
-        scenarios.addAll(scenarioProviderBuilder.get().build(fileReader).get());
+        scenarios.addAll(scenarioProviderBuilder.get().build(fileReader)
+            .getParallel(numThreads));
       }
       return ImmutableSet.copyOf(scenarios);
     }
@@ -543,15 +740,20 @@ public final class Experiment {
       for (final MASConfiguration configuration : conf) {
         for (final Scenario scenario : scenarios) {
           for (int i = 0; i < repetitions; i++) {
-            final long seed = seeds.get(i);
-            runnerBuilder.add(new SimArgs(scenario, configuration,
-                seed, objectiveFunction, showGui, postProc, uiCreator));
+            runnerBuilder.add(createSimArgs(scenario, configuration,
+                seeds.get(i)));
           }
         }
       }
       return runnerBuilder.build();
     }
 
+    SimArgs createSimArgs(Scenario scenario, MASConfiguration configuration,
+        long seed) {
+      return new SimArgs(scenario, configuration, seed, objectiveFunction,
+          showGui, postProc, uiCreator);
+    }
+
     static ImmutableList<Long> generateDistinct(RandomGenerator rng, int size) {
       final Set<Long> numbers = newLinkedHashSet();
       while (numbers.size() < size) {
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+import java.io.Serializable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.util.LogHistogram;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * A registry of metrics of an {@link Experiment}: the throughput and the
+ * duration of simulations (overall and per {@link MASConfiguration}), the
+ * number and latency of solver invocations, the computation time measured by
+ * the {@link com.github.rinde.rinsim.pdptw.common.StatsTracker}, the heap and
+ * garbage collector of the JVM and the memory allocated by each worker thread.
+ * An instance is added to an experiment using
+ * {@link Experiment.Builder#withMetrics(ExperimentMetrics)}, both local and
+ * distributed experiments report into it.
+ * <p>
+ * The metrics can be obtained at any time using {@link #snapshot()} and are
+ * periodically reported to the {@link MetricsSink}s of the registry, e.g. a
+ * {@link CsvMetricsSink} or a {@link JmxMetricsSink}. A final report is made
+ * when the experiment is done. All durations are in milliseconds. This class
+ * is thread safe.
+ * @author Rinde van Lon
+ */
+public final class ExperimentMetrics {
+  private static final ThreadLocal<RunMetrics> CURRENT_RUN = new ThreadLocal<>();
+  private static final double NANOS_PER_MILLI = 1000000d;
+  private static final double NANOS_PER_SECOND = 1000000000d;
+  private static final int P50 = 50;
+  private static final int P99 = 99;
+  // percentiles have a relative error of at most 1/16
+  private static final int SUB_BUCKET_BITS = 4;
+
+  private final List<MetricsSink> sinks;
+  private final long reportInterval;
+  private final LogHistogram runDurations;
+  private final Map<String, LogHistogram> configDurations;
+  private final Map<MASConfiguration, String> configNames;
+  private final LogHistogram solverLatencies;
+  private final Map<String, long[]> workers;
+  private long computationTime;
+  private long startTime;
+  private long lastReport;
+
+  ExperimentMetrics(long reportIntervalMs) {
+    sinks = newCopyOnWriteArrayList();
+    reportInterval = TimeUnit.MILLISECONDS.toNanos(reportIntervalMs);
+    runDurations = createHistogram();
+    configDurations = newLinkedHashMap();
+    configNames = newHashMap();
+    solverLatencies = createHistogram();
+    workers = newLinkedHashMap();
+    startTime = System.nanoTime();
+    lastReport = startTime;
+  }
+
+  /**
+   * Creates a new registry.
+   * @param reportIntervalMs The minimum time between two consecutive reports
+   *          to the sinks in milliseconds.
+   * @return A new instance.
+   */
+  public static ExperimentMetrics create(long reportIntervalMs) {
+    checkArgument(reportIntervalMs >= 0,
+        "The report interval can not be negative, found %s.",
+        reportIntervalMs);
+    return new ExperimentMetrics(reportIntervalMs);
+  }
+
+  /**
+   * Adds a sink to which the metrics are reported.
+   * @param sink The sink.
+   * @return This, for chaining.
+   */
+  public ExperimentMetrics addSink(MetricsSink sink) {
+    sinks.add(sink);
+    return this;
+  }
+
+  /**
+   * Records the invocation of a solver in the simulation that is running on
+   * the current thread. When no simulation of an experiment with metrics is
+   * running on the current thread, this method does nothing.
+   * @param nanos The duration of the invocation in nanoseconds.
+   */
+  public static void recordSolverInvocation(long nanos) {
+    final RunMetrics run = CURRENT_RUN.get();
+    if (run != null) {
+      run.solverLatencies.add(nanos);
+    }
+  }
+
+  /**
+   * Takes a snapshot of all metrics, the keys are sorted alphabetically. The
+   * metrics of a {@link MASConfiguration} use the name of the configuration in
+   * their key. The name is the id of the configuration when it was added to
+   * the experiment with an id, otherwise it is the string representation of
+   * the configuration (or its class name when that is empty). A suffix is
+   * added when the name of a configuration is already used by another one.
+   * @return A map of metric names to values.
+   */
+  public synchronized ImmutableSortedMap<String, Double> snapshot() {
+    final ImmutableSortedMap.Builder<String, Double> b = ImmutableSortedMap
+        .naturalOrder();
+    final long count = runDurations.getCount();
+    final double seconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+    b.put("runs.completed", (double) count);
+    b.put("runs.perSecond", seconds > 0 ? count / seconds : 0d);
+    putTimer(b, "runs.duration", runDurations);
+    for (final Entry<String, LogHistogram> entry : configDurations
+        .entrySet()) {
+      putTimer(b, "config." + entry.getKey() + ".duration", entry.getValue());
+    }
+    b.put("solver.invocations", (double) solverLatencies.getCount());
+    putTimer(b, "solver.latency", solverLatencies);
+    b.put("stats.computationTime.mean", count == 0 ? 0d
+        : computationTime / (double) count);
+
+    final MemoryUsage heap = ManagementFactory.getMemoryMXBean()
+        .getHeapMemoryUsage();
+    b.put("jvm.heap.used", (double) heap.getUsed());
+    b.put("jvm.heap.committed", (double) heap.getCommitted());
+    long gcCount = 0;
+    long gcTime = 0;
+    for (final GarbageCollectorMXBean gc : ManagementFactory
+        .getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(0, gc.getCollectionCount());
+      gcTime += Math.max(0, gc.getCollectionTime());
+    }
+    b.put("jvm.gc.count", (double) gcCount);
+    b.put("jvm.gc.time", (double) gcTime);
+
+    for (final Entry<String, long[]> entry : workers.entrySet()) {
+      final String prefix = "worker." + entry.getKey();
+      b.put(prefix + ".runs", (double) entry.getValue()[0]);
+      b.put(prefix + ".allocatedBytes", (double) entry.getValue()[1]);
+      b.put(prefix + ".cpuTime", entry.getValue()[2] / NANOS_PER_MILLI);
+    }
+    return b.build();
+  }
+
+  static void putTimer(ImmutableSortedMap.Builder<String, Double> b,
+      String name, LogHistogram timer) {
+    b.put(name + ".count", (double) timer.getCount());
+    b.put(name + ".mean", timer.getMean() / NANOS_PER_MILLI);
+    b.put(name + ".p50", timer.getPercentile(P50) / NANOS_PER_MILLI);
+    b.put(name + ".p99", timer.getPercentile(P99) / NANOS_PER_MILLI);
+    b.put(name + ".max", timer.getMax() / NANOS_PER_MILLI);
+  }
+
+  /**
+   * Reports the current metrics to all sinks.
+   */
+  public void report() {
+    final ImmutableSortedMap<String, Double> snapshot = snapshot();
+    final long time = System.currentTimeMillis();
+    for (final MetricsSink sink : sinks) {
+      sink.report(time, snapshot);
+    }
+  }
+
+  synchronized void startComputing() {
+    startTime = System.nanoTime();
+    lastReport = startTime;
+  }
+
+  void record(SimulationResult result, RunMetrics run) {
+    final boolean doReport;
+    synchronized (this) {
+      runDurations.add(run.duration);
+      final String config = configName(result.masConfiguration);
+      if (!configDurations.containsKey(config)) {
+        configDurations.put(config, createHistogram());
+      }
+      configDurations.get(config).add(run.duration);
+      solverLatencies.merge(run.solverLatencies);
+      computationTime += result.stats.computationTime;
+
+      final String worker = name(run.worker);
+      if (!workers.containsKey(worker)) {
+        workers.put(worker, new long[3]);
+      }
+      final long[] w = workers.get(worker);
+      w[0]++;
+      w[1] += run.allocatedBytes;
+      w[2] += run.cpuTime;
+
+      final long now = System.nanoTime();
+      doReport = now - lastReport >= reportInterval;
+      if (doReport) {
+        lastReport = now;
+      }
+    }
+    if (doReport) {
+      report();
+    }
+  }
+
+  void doneComputing() {
+    report();
+  }
+
+  // metric names only contain characters that are safe in CSV and JMX
+  static String name(Object o) {
+    return o.toString().replaceAll("[^A-Za-z0-9_\\-]", "_");
+  }
+
+  // the configuration ids of an experiment take precedence over the names
+  // that are derived from the configurations themselves
+  synchronized void nameConfigurations(Map<MASConfiguration, String> ids) {
+    for (final Entry<MASConfiguration, String> entry : ids.entrySet()) {
+      configNames.put(entry.getKey(), name(entry.getValue()));
+    }
+  }
+
+  // anonymous configurations often have an empty string representation and
+  // different configurations may have the same one, each configuration gets
+  // a unique name such that their metrics are not mixed up
+  String configName(MASConfiguration config) {
+    if (!configNames.containsKey(config)) {
+      String base = name(config);
+      if (base.isEmpty()) {
+        base = name(config.getClass().getName());
+      }
+      String candidate = base;
+      for (int i = 2; configNames.containsValue(candidate); i++) {
+        candidate = base + "_" + i;
+      }
+      configNames.put(config, candidate);
+    }
+    return configNames.get(config);
+  }
+
+  static LogHistogram createHistogram() {
+    return LogHistogram.create(SUB_BUCKET_BITS);
+  }
+
+  /**
+   * Starts collecting the metrics of a simulation on the current thread.
+   */
+  static void startRun() {
+    CURRENT_RUN.set(new RunMetrics());
+  }
+
+  /**
+   * Stops collecting the metrics of the simulation on the current thread.
+   * @return The metrics of the simulation.
+   */
+  static RunMetrics finishRun() {
+    final RunMetrics run = CURRENT_RUN.get();
+    CURRENT_RUN.remove();
+    run.finish();
+    return run;
+  }
+
+  /**
+   * The metrics of a single simulation, these are collected on the thread
+   * that performs the simulation which may be on a remote node.
+   */
+  static final class RunMetrics implements Serializable {
+    private static final long serialVersionUID = 2512830428371520462L;
+    final String worker;
+    final LogHistogram solverLatencies;
+    long duration;
+    long allocatedBytes;
+    long cpuTime;
+
+    RunMetrics() {
+      worker = Thread.currentThread().getName();
+      solverLatencies = createHistogram();
+      duration = System.nanoTime();
+      allocatedBytes = allocatedBytes();
+      cpuTime = cpuTime();
+    }
+
+    void finish() {
+      duration = System.nanoTime() - duration;
+      allocatedBytes = allocatedBytes() - allocatedBytes;
+      cpuTime = cpuTime() - cpuTime;
+    }
+
+    // the number of bytes allocated by the current thread, this is only
+    // supported by HotSpot based JVMs, 0 otherwise
+    static long allocatedBytes() {
+      final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean b =
+            (com.sun.management.ThreadMXBean) bean;
+        if (b.isThreadAllocatedMemorySupported()
+            && b.isThreadAllocatedMemoryEnabled()) {
+          return Math.max(0,
+              b.getThreadAllocatedBytes(Thread.currentThread().getId()));
+        }
+      }
+      return 0;
+    }
+
+    static long cpuTime() {
+      final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean.isCurrentThreadCpuTimeSupported()) {
+        return Math.max(0, bean.getCurrentThreadCpuTime());
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * A {@link MetricsSink} that exposes the most recently reported metrics as
+ * read-only attributes of an MBean in the platform MBean server. The metrics
+ * can be inspected with any JMX client (e.g. <code>jconsole</code>) or scraped
+ * by a JMX exporter.
+ * @author Rinde van Lon
+ */
+public final class JmxMetricsSink implements MetricsSink, DynamicMBean {
+  /**
+   * The default name under which the MBean is registered.
+   */
+  public static final String DEFAULT_NAME =
+      "com.github.rinde.rinsim.experiment:type=ExperimentMetrics";
+
+  private final ObjectName name;
+  private volatile ImmutableSortedMap<String, Double> metrics;
+
+  JmxMetricsSink(ObjectName n) {
+    name = n;
+    metrics = ImmutableSortedMap.of();
+  }
+
+  /**
+   * Creates a sink and registers it in the platform MBean server under
+   * {@link #DEFAULT_NAME}.
+   * @return A new sink.
+   */
+  public static JmxMetricsSink register() {
+    return register(DEFAULT_NAME);
+  }
+
+  /**
+   * Creates a sink and registers it in the platform MBean server.
+   * @param objectName The name of the MBean.
+   * @return A new sink.
+   */
+  public static JmxMetricsSink register(String objectName) {
+    try {
+      final JmxMetricsSink sink = new JmxMetricsSink(new ObjectName(
+          objectName));
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(sink, sink.name);
+      return sink;
+    } catch (final JMException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Removes the MBean from the platform MBean server.
+   */
+  public void unregister() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (final JMException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return The name under which this sink is registered.
+   */
+  public ObjectName getObjectName() {
+    return name;
+  }
+
+  @Override
+  public void report(long timestamp, ImmutableSortedMap<String, Double> m) {
+    metrics = m;
+  }
+
+  @Override
+  public Object getAttribute(@Nullable String attribute)
+      throws AttributeNotFoundException {
+    final Double value = metrics.get(checkNotNull(attribute));
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  @Override
+  public void setAttribute(@Nullable Attribute attribute) {
+    throw new UnsupportedOperationException("Metrics are read-only.");
+  }
+
+  @Override
+  public AttributeList getAttributes(@Nullable String[] attributes) {
+    final ImmutableSortedMap<String, Double> m = metrics;
+    final AttributeList list = new AttributeList();
+    for (final String a : checkNotNull(attributes)) {
+      if (m.containsKey(a)) {
+        list.add(new Attribute(a, m.get(a)));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public AttributeList setAttributes(@Nullable AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Nullable
+  @Override
+  public Object invoke(@Nullable String actionName,
+      @Nullable Object[] params, @Nullable String[] signature) {
+    throw new UnsupportedOperationException("No operations are supported.");
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    final ImmutableSortedMap<String, Double> m = metrics;
+    final MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[m.size()];
+    int i = 0;
+    for (final Entry<String, Double> entry : m.entrySet()) {
+      attrs[i++] = new MBeanAttributeInfo(entry.getKey(),
+          Double.class.getName(), entry.getKey(), true, false, false);
+    }
+    return new MBeanInfo(getClass().getName(), "RinSim experiment metrics",
+        attrs, null, new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+  }
+}
@@ -23,6 +23,7 @@ import static com.google.common.collect.Maps.newLinkedHashMap;
 
 import java.io.Serializable;
 import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -43,12 +44,13 @@ import org.jppf.task.storage.MemoryMapDataProvider;
 import com.github.rinde.rinsim.experiment.Experiment.Builder;
 import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
 import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.ExperimentMetrics.RunMetrics;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem;
 import com.github.rinde.rinsim.pdptw.common.ObjectiveFunction;
 import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.scenario.BinaryScenarioIO;
 import com.github.rinde.rinsim.scenario.Scenario;
 import com.github.rinde.rinsim.scenario.ScenarioController.UICreator;
-import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
@@ -94,7 +96,7 @@ final class JppfComputer implements Computer {
       final String configId = configMap.storeAndGenerateId(
           args.masConfig);
       final String scenId = scenarioMap.storeAndGenerateId(
-          new ScenarioProvider(ScenarioIO.write(args.scenario),
+          new ScenarioProvider(BinaryScenarioIO.write(args.scenario),
               args.scenario.getClass()));
       scenariosMap.put(scenId, args.scenario);
       final String objFuncId = objFuncMap.storeAndGenerateId(
@@ -107,8 +109,10 @@ final class JppfComputer implements Computer {
       } else {
         postProcId = Optional.absent();
       }
-      tasks.add(new SimulationTask(tasks.size(), args.randomSeed, scenId,
-          configId, objFuncId, postProcId));
+      final SimulationTask task = new SimulationTask(tasks.size(),
+          args.randomSeed, scenId, configId, objFuncId, postProcId);
+      task.collectMetrics = builder.metrics.isPresent();
+      tasks.add(task);
     }
 
     // this sorts tasks using this chain: scenario, configuration, objective
@@ -122,7 +126,8 @@ final class JppfComputer implements Computer {
 
     final Map<Task<?>, JPPFJob> taskJobMap = newLinkedHashMap();
     final ResultsCollector res = new ResultsCollector(tasks.size(),
-        scenariosMap, taskJobMap, listeners);
+        scenariosMap, taskJobMap, listeners, builder.retainResults,
+        builder.metrics);
     final List<JPPFJob> jobs = newArrayList();
     for (int i = 0; i < numBatches; i++) {
       final JPPFJob job = new JPPFJob(new MemoryMapDataProvider(), res);
@@ -158,6 +163,9 @@ final class JppfComputer implements Computer {
     for (final ResultListener l : listeners) {
       l.startComputing(tasks.size());
     }
+    if (builder.metrics.isPresent()) {
+      builder.metrics.get().startComputing();
+    }
 
     checkState(!getJPPFClient().isClosed());
     try {
@@ -171,6 +179,9 @@ final class JppfComputer implements Computer {
     for (final ResultListener l : listeners) {
       l.doneComputing();
     }
+    if (builder.metrics.isPresent()) {
+      builder.metrics.get().doneComputing();
+    }
     return new ExperimentResults(builder, res.buildResults());
   }
 
@@ -194,14 +205,19 @@ final class JppfComputer implements Computer {
     private final Map<String, Scenario> scenariosMap;
     private final Map<Task<?>, JPPFJob> taskJobMap;
     private final List<ResultListener> listeners;
+    private final boolean retainResults;
+    private final Optional<ExperimentMetrics> metrics;
     private final int expectedNumResults;
     private int receivedNumResults;
     private Optional<IllegalArgumentException> exception;
 
     ResultsCollector(int expectedNumberOfResults,
         final Map<String, Scenario> scenMap,
-        final Map<Task<?>, JPPFJob> tjMap, List<ResultListener> list) {
+        final Map<Task<?>, JPPFJob> tjMap, List<ResultListener> list,
+        boolean retain, Optional<ExperimentMetrics> m) {
       results = ImmutableSet.builder();
+      retainResults = retain;
+      metrics = m;
       scenariosMap = scenMap;
       taskJobMap = tjMap;
       listeners = list;
@@ -218,7 +234,14 @@ final class JppfComputer implements Computer {
         try {
           final SimulationResult res = processResult(simTask, scenariosMap,
               taskJobMap);
-          results.add(res);
+          if (retainResults) {
+            results.add(res);
+          }
+          final Optional<RunMetrics> runMetrics = simTask.getResult()
+              .getMetrics();
+          if (metrics.isPresent() && runMetrics.isPresent()) {
+            metrics.get().record(res, runMetrics.get());
+          }
           for (final ResultListener l : listeners) {
             l.receive(res);
           }
@@ -328,12 +351,12 @@ final class JppfComputer implements Computer {
       Serializable {
     private static final long serialVersionUID = 1738175155810322872L;
 
-    private final String serializedScenario;
+    private final byte[] serializedScenario;
     private final Class<?> scenarioClass;
     @Nullable
     private transient Scenario localCache;
 
-    ScenarioProvider(String serialScen, Class<?> clz) {
+    ScenarioProvider(byte[] serialScen, Class<?> clz) {
       serializedScenario = serialScen;
       scenarioClass = clz;
       localCache = null;
@@ -343,7 +366,7 @@ final class JppfComputer implements Computer {
     @Override
     public Scenario get() {
       if (localCache == null) {
-        localCache = (Scenario) ScenarioIO.read(
+        localCache = (Scenario) BinaryScenarioIO.read(
             serializedScenario, scenarioClass);
       }
       return localCache;
@@ -351,7 +374,7 @@ final class JppfComputer implements Computer {
 
     @Override
     public int hashCode() {
-      return serializedScenario.hashCode();
+      return Arrays.hashCode(serializedScenario);
     }
 
     @Override
@@ -360,7 +383,7 @@ final class JppfComputer implements Computer {
         return false;
       }
       final ScenarioProvider sp = (ScenarioProvider) other;
-      return Objects.equal(serializedScenario, sp.serializedScenario);
+      return Arrays.equals(serializedScenario, sp.serializedScenario);
     }
   }
 
@@ -376,6 +399,7 @@ final class JppfComputer implements Computer {
     private final String id;
     private final int hashCode;
     private final int index;
+    boolean collectMetrics;
 
     SimulationTask(int ind, long randomSeed, String scenId, String configId,
         String objFuncId, Optional<String> postProcId) {
@@ -411,9 +435,20 @@ final class JppfComputer implements Computer {
           .getParameter(objectiveFunctionId);
 
       // perform simulation
-      final DynamicPDPTWProblem prob = Experiment.init(scenario.get(),
-          configuration, seed, false, Optional.<UICreator> absent());
-      final StatisticsDTO stats = prob.simulate();
+      if (collectMetrics) {
+        ExperimentMetrics.startRun();
+      }
+      final DynamicPDPTWProblem prob;
+      final StatisticsDTO stats;
+      final Optional<RunMetrics> runMetrics;
+      try {
+        prob = Experiment.init(scenario.get(), configuration, seed, false,
+            Optional.<UICreator> absent());
+        stats = prob.simulate();
+      } finally {
+        runMetrics = collectMetrics ? Optional.of(ExperimentMetrics
+            .finishRun()) : Optional.<RunMetrics> absent();
+      }
 
       final Optional<Object> data;
       if (postProcessorId.isPresent()) {
@@ -430,7 +465,7 @@ final class JppfComputer implements Computer {
       checkState(objectiveFunction.isValidResult(stats),
           "The simulation did not result in a valid result: %s.", stats);
 
-      setResult(new SimTaskResult(stats, data));
+      setResult(new SimTaskResult(stats, data, runMetrics));
     }
 
     long getSeed() {
@@ -500,10 +535,12 @@ final class JppfComputer implements Computer {
     private static final long serialVersionUID = -631947579134555016L;
     private final StatisticsDTO stats;
     private final Optional<?> data;
+    private final Optional<RunMetrics> metrics;
 
-    SimTaskResult(StatisticsDTO stat, Optional<?> d) {
+    SimTaskResult(StatisticsDTO stat, Optional<?> d, Optional<RunMetrics> m) {
       stats = stat;
       data = d;
+      metrics = m;
     }
 
     StatisticsDTO getStats() {
@@ -513,5 +550,9 @@ final class JppfComputer implements Computer {
     Optional<?> getData() {
       return data;
     }
+
+    Optional<RunMetrics> getMetrics() {
+      return metrics;
+    }
   }
 }
@@ -15,19 +15,40 @@
  */
 package com.github.rinde.rinsim.experiment;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newLinkedList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newIdentityHashMap;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.annotation.Nullable;
 
 import com.github.rinde.rinsim.experiment.Experiment.Builder;
 import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
 import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.ExperimentMetrics.RunMetrics;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem;
 import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -37,42 +58,291 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 
 final class LocalComputer implements Computer {
+  static final Future<SimulationResult> BATCH_DONE = Futures
+      .<SimulationResult> immediateFuture(null);
 
   @Override
   public ExperimentResults compute(Builder builder, Set<SimArgs> inputs) {
-    final ImmutableList.Builder<ExperimentRunner> runnerBuilder = ImmutableList
-        .builder();
-    for (final SimArgs args : inputs) {
-      runnerBuilder.add(new ExperimentRunner(args));
+    final List<ListenableFuture<List<Job>>> batches = newArrayList();
+    batches.add(Futures.<List<Job>> immediateFuture(createJobList(inputs)));
+    return compute(builder, inputs.size(), batches);
+  }
+
+  /**
+   * Performs the experiment while the scenarios of the
+   * {@link com.github.rinde.rinsim.io.FileProvider} are being loaded. The
+   * scenarios are loaded in parallel, the simulations of a scenario are
+   * started as soon as it is loaded. The resulting runs are the same as in
+   * {@link Builder#perform()} except that scenarios loaded from files are not
+   * checked for duplicates.
+   * @param builder The builder.
+   * @param seeds The seeds of the repetitions.
+   * @return The results of the experiment.
+   */
+  ExperimentResults computeWhileLoading(Builder builder, List<Long> seeds) {
+    final ImmutableList<Scenario> scenarios = builder.scenariosBuilder.build()
+        .asList();
+    final ImmutableList<MASConfiguration> configs = ImmutableList
+        .copyOf(builder.configurationsSet);
+    checkArgument(!configs.isEmpty(),
+        "At least one configuration is required.");
+
+    final ListeningExecutorService loader = MoreExecutors
+        .listeningDecorator(Executors.newFixedThreadPool(builder.numThreads));
+    try {
+      final List<? extends ListenableFuture<? extends Scenario>> loading =
+          builder.scenarioProviderBuilder.get().build(builder.fileReader)
+              .getAsync(loader);
+      final int numScenarios = scenarios.size() + loading.size();
+      checkArgument(numScenarios > 0, "At least one scenario is required.");
+
+      final List<ListenableFuture<List<Job>>> batches = newArrayList();
+      for (int i = 0; i < numScenarios; i++) {
+        final JobFactory factory = new JobFactory(builder, configs, seeds, i,
+            numScenarios);
+        if (i < scenarios.size()) {
+          batches.add(Futures.<List<Job>> immediateFuture(factory
+              .apply(scenarios.get(i))));
+        } else {
+          final ListenableFuture<List<Job>> batch = Futures.transform(
+              loading.get(i - scenarios.size()), factory);
+          batches.add(batch);
+        }
+      }
+      return compute(builder, configs.size() * numScenarios * seeds.size(),
+          batches);
+    } finally {
+      loader.shutdownNow();
     }
-    final List<ExperimentRunner> runners = runnerBuilder.build();
+  }
 
-    final int threads = Math.min(builder.numThreads, runners.size());
-    final ListeningExecutorService executor;
+  /**
+   * Computes all jobs in the batches, a job is dispatched as soon as its batch
+   * is done.
+   */
+  ExperimentResults compute(Builder builder, int numInputs,
+      List<ListenableFuture<List<Job>>> batches) {
+    final List<ResultListener> listeners = newArrayList(builder.resultListeners);
+    final int threads = Math.min(builder.numThreads, numInputs);
+    final ExecutorService executor;
     if (threads > 1) {
-      executor = MoreExecutors
-          .listeningDecorator(Executors.newFixedThreadPool(threads));
+      executor = Executors.newFixedThreadPool(threads);
     } else {
       executor = MoreExecutors.newDirectExecutorService();
     }
-    final List<SimulationResult> results;
+    // finished batches are signaled via the completion queue such that
+    // waiting for a simulation and waiting for a batch is the same
+    final BlockingQueue<Future<SimulationResult>> completed = new LinkedBlockingQueue<>();
+    final CompletionService<SimulationResult> completionService = new ExecutorCompletionService<>(
+        executor, completed);
+    final int capacity = builder.queueCapacity > 0 ? builder.queueCapacity
+        : 2 * threads;
+
+    final List<ListenableFuture<List<Job>>> loading = newLinkedList(batches);
+    for (final ListenableFuture<List<Job>> batch : batches) {
+      batch.addListener(new Runnable() {
+        @Override
+        public void run() {
+          completed.add(BATCH_DONE);
+        }
+      }, MoreExecutors.directExecutor());
+    }
+
+    for (final ResultListener l : listeners) {
+      l.startComputing(numInputs);
+    }
+    final Optional<ExperimentMetrics> metrics = builder.metrics;
+    if (metrics.isPresent()) {
+      metrics.get().startComputing();
+    }
+    // results are stored by input index such that the order of the results
+    // is the same as the order of the inputs
+    final int size = builder.retainResults ? numInputs : 0;
+    final SimulationResult[] results = new SimulationResult[size];
+    final CostEstimator estimator = new CostEstimator();
+    final List<Deque<Job>> pending = newArrayList();
+    final Map<Future<SimulationResult>, Job> running = newHashMap();
     try {
-      // safe cast according to javadoc
-      @SuppressWarnings({ "unchecked", "rawtypes" })
-      final List<ListenableFuture<SimulationResult>> futures = (List) executor
-          .invokeAll(runners);
-      results = Futures.allAsList(futures).get();
+      while (!loading.isEmpty() || !pending.isEmpty() || !running.isEmpty()) {
+        // at most 'capacity' simulations are submitted at the same time, this
+        // prevents that all runners (and their results) are in memory at once
+        while (!pending.isEmpty() && running.size() < capacity) {
+          final Job job = nextJob(pending, estimator);
+          job.collectMetrics = metrics.isPresent();
+          running.put(completionService.submit(job), job);
+        }
+        final Future<SimulationResult> future = completionService.take();
+        if (future == BATCH_DONE) {
+          final Iterator<ListenableFuture<List<Job>>> it = loading.iterator();
+          while (it.hasNext()) {
+            final ListenableFuture<List<Job>> batch = it.next();
+            if (batch.isDone()) {
+              it.remove();
+              pending.addAll(createJobs(batch.get()));
+            }
+          }
+          continue;
+        }
+        final Job job = running.remove(future);
+        final SimulationResult result = future.get();
+        estimator.record(job.arguments, job.duration);
+        if (job.runMetrics != null) {
+          metrics.get().record(result, job.runMetrics);
+        }
+        if (builder.retainResults) {
+          results[job.index] = result;
+        }
+        for (final ResultListener l : listeners) {
+          l.receive(result);
+        }
+      }
     } catch (final InterruptedException e) {
       throw new IllegalStateException(e);
     } catch (final ExecutionException e) {
       // FIXME need some way to gracefully handle this error. All data
       // should be saved to reproduce this simulation.
       throw new IllegalStateException(e);
+    } finally {
+      executor.shutdownNow();
+      // also when a simulation crashed, such that listeners (e.g. a
+      // ResultFileWriter) can flush and close what was received so far
+      for (final ResultListener l : listeners) {
+        l.doneComputing();
+      }
+      if (metrics.isPresent()) {
+        metrics.get().doneComputing();
+      }
+    }
+    return new ExperimentResults(builder, ImmutableSet.copyOf(results));
+  }
+
+  static List<Job> createJobList(Set<SimArgs> inputs) {
+    final List<Job> jobs = newArrayList();
+    for (final SimArgs args : inputs) {
+      jobs.add(new Job(args, jobs.size()));
+    }
+    return jobs;
+  }
+
+  /**
+   * Groups the inputs in jobs, inputs that have the same scenario and
+   * configuration end up in the same group.
+   */
+  static List<Deque<Job>> createJobs(Set<SimArgs> inputs) {
+    return createJobs(createJobList(inputs));
+  }
+
+  static List<Deque<Job>> createJobs(List<Job> jobs) {
+    final Map<Scenario, Map<MASConfiguration, Deque<Job>>> groupMap = newIdentityHashMap();
+    final List<Deque<Job>> groups = newArrayList();
+    for (final Job job : jobs) {
+      final SimArgs args = job.arguments;
+      if (!groupMap.containsKey(args.scenario)) {
+        final Map<MASConfiguration, Deque<Job>> map = newIdentityHashMap();
+        groupMap.put(args.scenario, map);
+      }
+      final Map<MASConfiguration, Deque<Job>> configMap = groupMap
+          .get(args.scenario);
+      if (!configMap.containsKey(args.masConfig)) {
+        final Deque<Job> group = new ArrayDeque<>();
+        configMap.put(args.masConfig, group);
+        groups.add(group);
+      }
+      configMap.get(args.masConfig).add(job);
     }
-    executor.shutdown();
+    return groups;
+  }
 
-    return new ExperimentResults(builder,
-        ImmutableSet.copyOf(results));
+  /**
+   * Selects the job with the highest estimated cost (longest processing time
+   * first). Since all jobs are in a single queue of the thread pool, an idle
+   * thread always takes the next most expensive job, which keeps the threads
+   * balanced when simulations have very different durations. Jobs of the same
+   * group are dispatched consecutively.
+   */
+  static Job nextJob(List<Deque<Job>> pending, CostEstimator estimator) {
+    int best = 0;
+    double bestCost = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < pending.size(); i++) {
+      final double cost = estimator
+          .estimate(pending.get(i).peekFirst().arguments);
+      if (cost > bestCost) {
+        best = i;
+        bestCost = cost;
+      }
+    }
+    final Job job = pending.get(best).pollFirst();
+    if (pending.get(best).isEmpty()) {
+      pending.remove(best);
+    }
+    return job;
+  }
+
+  /**
+   * Creates the jobs of a single scenario, the indices of the jobs are the
+   * same as the indices of the corresponding {@link SimArgs} in the factorial
+   * setup of {@link Builder#perform()}.
+   */
+  static class JobFactory implements Function<Scenario, List<Job>> {
+    private final Builder builder;
+    private final List<MASConfiguration> configurations;
+    private final List<Long> seeds;
+    private final int scenarioIndex;
+    private final int numScenarios;
+
+    JobFactory(Builder b, List<MASConfiguration> configs, List<Long> s,
+        int index, int num) {
+      builder = b;
+      configurations = configs;
+      seeds = s;
+      scenarioIndex = index;
+      numScenarios = num;
+    }
+
+    @Override
+    public List<Job> apply(@Nullable Scenario scenario) {
+      checkNotNull(scenario);
+      final List<Job> jobs = newArrayList();
+      for (int c = 0; c < configurations.size(); c++) {
+        for (int r = 0; r < seeds.size(); r++) {
+          final int index = (c * numScenarios + scenarioIndex) * seeds.size()
+              + r;
+          jobs.add(new Job(builder.createSimArgs(scenario,
+              configurations.get(c), seeds.get(r)), index));
+        }
+      }
+      return jobs;
+    }
+  }
+
+  static class Job implements Callable<SimulationResult> {
+    final SimArgs arguments;
+    final int index;
+    long duration;
+    boolean collectMetrics;
+    @Nullable
+    RunMetrics runMetrics;
+
+    Job(SimArgs args, int i) {
+      arguments = args;
+      index = i;
+    }
+
+    @Override
+    public SimulationResult call() {
+      final long start = System.nanoTime();
+      if (collectMetrics) {
+        ExperimentMetrics.startRun();
+      }
+      try {
+        return new ExperimentRunner(arguments).call();
+      } finally {
+        if (collectMetrics) {
+          runMetrics = ExperimentMetrics.finishRun();
+        }
+        duration = System.nanoTime() - start;
+      }
+    }
   }
 
   static class ExperimentRunner implements Callable<SimulationResult> {
@@ -99,9 +369,6 @@ final class LocalComputer implements Computer {
             "The simulation did not result in a valid result: %s.", stats);
         final SimulationResult result = new SimulationResult(stats,
             arguments.scenario, arguments.masConfig, arguments.randomSeed, data);
-
-        // FIXME this should be changed into a more decent progress indicator
-        System.out.print(".");
         return result;
       } catch (final RuntimeException e) {
         final StringBuilder sb = new StringBuilder()
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Receives the metrics of an {@link ExperimentMetrics} registry, see
+ * {@link ExperimentMetrics#addSink(MetricsSink)}.
+ * @author Rinde van Lon
+ */
+public interface MetricsSink {
+
+  /**
+   * Is called each time the registry reports its metrics. Implementations
+   * should return quickly, the caller may be a thread that dispatches
+   * simulations.
+   * @param timestamp The time of the report in milliseconds since the epoch.
+   * @param metrics The metrics, sorted by name.
+   */
+  void report(long timestamp, ImmutableSortedMap<String, Double> metrics);
+}
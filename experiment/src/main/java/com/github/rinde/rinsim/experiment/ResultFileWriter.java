@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.measure.unit.Unit;
+
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+/**
+ * A {@link ResultListener} that writes every received {@link SimulationResult}
+ * to a file as soon as it is received. Each line in the file is a JSON object
+ * containing the problem class id, problem instance id, configuration name,
+ * seed and the {@link StatisticsDTO}. The configuration name is the
+ * {@link MASConfiguration#toString()}, unless the writer is used as journal of
+ * an experiment in which case it is the configuration id. The statistics are
+ * stored as a JSON object with the fields of the {@link StatisticsDTO}, units
+ * are written by their symbol. Data gathered by a {@link PostProcessor} is not
+ * written.
+ * @author Rinde van Lon
+ */
+public class ResultFileWriter implements ResultListener {
+  static final Gson GSON = new GsonBuilder()
+      .registerTypeHierarchyAdapter(Unit.class, new UnitIO())
+      .create();
+
+  private final Path file;
+  private final boolean append;
+  private final Function<? super MASConfiguration, String> configurationIds;
+  private Optional<BufferedWriter> writer;
+
+  /**
+   * Create a new instance that writes to the specified file. If the file
+   * exists it is overwritten when the experiment starts.
+   * @param f The file to write to.
+   */
+  public ResultFileWriter(Path f) {
+    this(f, false, Functions.toStringFunction());
+  }
+
+  ResultFileWriter(Path f, boolean app,
+      Function<? super MASConfiguration, String> ids) {
+    file = f;
+    append = app;
+    configurationIds = ids;
+    writer = Optional.absent();
+  }
+
+  @Override
+  public void startComputing(int numberOfSimulations) {
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      final boolean newLine = append && !endsWithNewLine(file);
+      writer = Optional.of(Files.newBufferedWriter(file, Charsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          append ? StandardOpenOption.APPEND
+              : StandardOpenOption.TRUNCATE_EXISTING));
+      if (newLine) {
+        // the last line was not completely written (e.g. due to a crash), it
+        // is terminated such that new results start on a new line
+        writer.get().newLine();
+      }
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public synchronized void receive(SimulationResult result) {
+    checkState(writer.isPresent(), "startComputing() has not been called.");
+    try {
+      writer.get().write(GSON.toJson(new Entry(result,
+          configurationIds.apply(result.masConfiguration))));
+      writer.get().newLine();
+      // flush every result such that it is not lost in case of a crash
+      writer.get().flush();
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public synchronized void doneComputing() {
+    if (writer.isPresent()) {
+      try {
+        writer.get().close();
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+      writer = Optional.absent();
+    }
+  }
+
+  /**
+   * Reads all entries from a file that was written by a
+   * {@link ResultFileWriter}. Lines that can not be parsed (e.g. a line that
+   * was not completely written because the process was killed) are ignored.
+   * @param file The file to read.
+   * @return The entries in the order in which they appear in the file.
+   */
+  static ImmutableList<Entry> read(Path file) {
+    final ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+    try {
+      for (final String line : Files.readAllLines(file, Charsets.UTF_8)) {
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        try {
+          entries.add(GSON.fromJson(line, Entry.class));
+        } catch (final JsonParseException e) {
+          continue;
+        }
+      }
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return entries.build();
+  }
+
+  static boolean endsWithNewLine(Path file) throws IOException {
+    if (!Files.exists(file) || Files.size(file) == 0) {
+      return true;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+      raf.seek(raf.length() - 1);
+      return raf.read() == '\n';
+    }
+  }
+
+  /**
+   * A single line in the results file.
+   */
+  static final class Entry {
+    final String problemClass;
+    final String instanceId;
+    final String configuration;
+    final long seed;
+    final StatisticsDTO stats;
+
+    Entry(SimulationResult result, String configurationId) {
+      problemClass = result.scenario.getProblemClass().getId();
+      instanceId = result.scenario.getProblemInstanceId();
+      configuration = configurationId;
+      seed = result.seed;
+      stats = result.stats;
+    }
+
+    StatisticsDTO getStats() {
+      return stats;
+    }
+
+    String key() {
+      return key(problemClass, instanceId, configuration, seed);
+    }
+
+    static String key(Scenario scen, String configurationId, long seed) {
+      return key(scen.getProblemClass().getId(), scen.getProblemInstanceId(),
+          configurationId, seed);
+    }
+
+    static String key(String problemClass, String instanceId,
+        String configuration, long seed) {
+      return Joiner.on('\u0000').join(problemClass, instanceId,
+          configuration, seed);
+    }
+  }
+
+  static class UnitIO implements JsonSerializer<Unit<?>>,
+      JsonDeserializer<Unit<?>> {
+    @Override
+    public JsonElement serialize(Unit<?> src, Type typeOfSrc,
+        JsonSerializationContext context) {
+      return new JsonPrimitive(src.toString());
+    }
+
+    @Override
+    public Unit<?> deserialize(JsonElement json, Type typeOfT,
+        JsonDeserializationContext context) {
+      try {
+        return Unit.valueOf(json.getAsString());
+      } catch (final IllegalArgumentException e) {
+        throw new JsonParseException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.management.JMException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.pdptw.common.TestObjectiveFunction;
+import com.github.rinde.rinsim.scenario.ScenarioTestUtil;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Tests for {@link ExperimentMetrics} and its sinks.
+ * @author Rinde van Lon
+ */
+public class ExperimentMetricsTest {
+
+  /**
+   * Temporary folder for the metrics files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * Runs an experiment with metrics and checks the reported metrics.
+   * @throws IOException When reading the metrics file fails.
+   * @throws JMException When reading the MBean fails.
+   */
+  @Test
+  public void testExperiment() throws IOException, JMException {
+    final Path file = tempFolder.getRoot().toPath().resolve("metrics.csv");
+    final JmxMetricsSink jmx = JmxMetricsSink.register(
+        "com.github.rinde.rinsim.experiment:type=Test");
+    final ExperimentMetrics metrics = ExperimentMetrics.create(0)
+        .addSink(CsvMetricsSink.create(file))
+        .addSink(jmx);
+    try {
+      Experiment.build(TestObjectiveFunction.INSTANCE)
+          .addScenario(ScenarioTestUtil.create(123L))
+          .addConfiguration(TestMASConfiguration.create("A"))
+          .addConfiguration(TestMASConfiguration.create("B"))
+          .repeat(2)
+          .withThreads(2)
+          .withMetrics(metrics)
+          .perform();
+
+      final ImmutableSortedMap<String, Double> snapshot = metrics.snapshot();
+      assertEquals(4d, snapshot.get("runs.completed"), 0);
+      assertEquals(2d, snapshot.get("config.A.duration.count"), 0);
+      assertEquals(2d, snapshot.get("config.B.duration.count"), 0);
+      assertTrue(snapshot.get("runs.duration.p50") <= snapshot
+          .get("runs.duration.p99"));
+      assertTrue(snapshot.get("runs.duration.p99") <= snapshot
+          .get("runs.duration.max"));
+      assertTrue(snapshot.get("runs.perSecond") > 0);
+      assertEquals(0d, snapshot.get("solver.invocations"), 0);
+      double workerRuns = 0;
+      for (final String key : snapshot.keySet()) {
+        if (key.startsWith("worker.") && key.endsWith(".runs")) {
+          workerRuns += snapshot.get(key);
+        }
+      }
+      assertEquals(4d, workerRuns, 0);
+
+      final List<String> lines = Files.readAllLines(file, Charsets.UTF_8);
+      assertEquals(CsvMetricsSink.HEADER, lines.get(0));
+      assertTrue(lines.size() > snapshot.size());
+      assertTrue(lines.get(lines.size() - 1).split(",").length == 3);
+
+      assertEquals(4d, ManagementFactory.getPlatformMBeanServer()
+          .getAttribute(jmx.getObjectName(), "runs.completed"));
+    } finally {
+      jmx.unregister();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+        jmx.getObjectName()));
+  }
+
+  /**
+   * Solver invocations are only recorded while a run is in progress on the
+   * current thread.
+   */
+  @Test
+  public void testSolverInvocations() {
+    ExperimentMetrics.recordSolverInvocation(100L);
+    ExperimentMetrics.startRun();
+    ExperimentMetrics.recordSolverInvocation(100L);
+    ExperimentMetrics.recordSolverInvocation(300L);
+    final ExperimentMetrics.RunMetrics run = ExperimentMetrics.finishRun();
+    ExperimentMetrics.recordSolverInvocation(100L);
+    assertEquals(2, run.solverLatencies.getCount());
+    assertEquals(200d, run.solverLatencies.getMean(), 0);
+    assertEquals(Thread.currentThread().getName(), run.worker);
+    assertTrue(run.duration >= 0);
+  }
+
+  /**
+   * Configurations with an empty or equal string representation should get
+   * distinct metric names, explicit configuration ids are used as names.
+   */
+  @Test
+  public void testConfigurationNames() {
+    final ExperimentMetrics metrics = ExperimentMetrics.create(0);
+    Experiment.build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addConfiguration(TestMASConfiguration.create(""))
+        .addConfiguration(TestMASConfiguration.create(""))
+        .addConfiguration(TestMASConfiguration.create("C"))
+        .addConfiguration(TestMASConfiguration.create("C"))
+        .addConfiguration(TestMASConfiguration.create("x"), "my id")
+        .withMetrics(metrics)
+        .perform();
+
+    final ImmutableSortedMap<String, Double> snapshot = metrics.snapshot();
+    final String anonymous = ExperimentMetrics.name(TestMASConfiguration.class
+        .getName());
+    assertEquals(1d, snapshot.get("config." + anonymous + ".duration.count"),
+        0);
+    assertEquals(1d, snapshot.get("config." + anonymous
+        + "_2.duration.count"), 0);
+    assertEquals(1d, snapshot.get("config.C.duration.count"), 0);
+    assertEquals(1d, snapshot.get("config.C_2.duration.count"), 0);
+    assertEquals(1d, snapshot.get("config.my_id.duration.count"), 0);
+    assertFalse(snapshot.containsKey("config.x.duration.count"));
+  }
+}
@@ -15,27 +15,38 @@
  */
 package com.github.rinde.rinsim.experiment;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.rinde.rinsim.core.Simulator;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.experiment.Experiment;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
 import com.github.rinde.rinsim.experiment.ExperimentResults;
 import com.github.rinde.rinsim.experiment.MASConfiguration;
 import com.github.rinde.rinsim.experiment.PostProcessor;
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.io.FileProvider;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem;
 import com.github.rinde.rinsim.pdptw.common.ObjectiveFunction;
 import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
 import com.github.rinde.rinsim.pdptw.common.TestObjectiveFunction;
 import com.github.rinde.rinsim.scenario.Scenario;
 import com.github.rinde.rinsim.scenario.ScenarioTestUtil;
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -43,6 +54,11 @@ import com.google.common.collect.ImmutableList;
  * 
  */
 public class ExperimentTest {
+  /**
+   * Temporary folder for the scenario files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
 
   public static StatisticsDTO singleRun(Scenario scenario,
       MASConfiguration c, long seed, ObjectiveFunction objFunc, boolean showGui) {
@@ -108,6 +124,62 @@ public class ExperimentTest {
         "D"));
   }
 
+  /**
+   * Loading scenarios while computing should give the same results in the
+   * same order as loading all scenarios before computing.
+   * @throws IOException When creating the scenario files fails.
+   */
+  @Test
+  public void testLoadWhileComputing() throws IOException {
+    final Path dir = tempFolder.newFolder().toPath();
+    for (final long seed : new long[] { 1L, 2L, 3L }) {
+      Files.createFile(dir.resolve(Long.toString(seed)));
+    }
+    final Function<Path, Scenario> reader = new Function<Path, Scenario>() {
+      @Override
+      public Scenario apply(@Nullable Path input) {
+        return ScenarioTestUtil.create(Long.parseLong(checkNotNull(input)
+            .getFileName().toString()));
+      }
+    };
+    final MASConfiguration configA = TestMASConfiguration.create("A");
+    final MASConfiguration configB = TestMASConfiguration.create("B");
+
+    final ExperimentResults expected = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(456L))
+        .addScenarios(FileProvider.builder().add(dir))
+        .setScenarioReader(reader)
+        .addConfiguration(configA)
+        .addConfiguration(configB)
+        .withThreads(2)
+        .repeat(2)
+        .perform();
+
+    final ExperimentResults actual = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(456L))
+        .addScenarios(FileProvider.builder().add(dir))
+        .setScenarioReader(reader)
+        .addConfiguration(configA)
+        .addConfiguration(configB)
+        .withThreads(2)
+        .repeat(2)
+        .loadScenariosWhileComputing()
+        .perform();
+
+    assertEquals(16, actual.results.size());
+    // the scenarios are read twice, the resulting instances are not equal
+    final List<SimulationResult> exp = expected.results.asList();
+    final List<SimulationResult> act = actual.results.asList();
+    for (int i = 0; i < exp.size(); i++) {
+      assertEquals(exp.get(i).seed, act.get(i).seed);
+      assertEquals(exp.get(i).masConfiguration, act.get(i).masConfiguration);
+      assertEquals(exp.get(i).stats, act.get(i).stats);
+      assertEquals(exp.get(i).scenario.size(), act.get(i).scenario.size());
+    }
+  }
+
   static class TestPostProcessor implements
       PostProcessor<ImmutableList<Point>>, Serializable {
     private static final long serialVersionUID = -2166760289557525263L;
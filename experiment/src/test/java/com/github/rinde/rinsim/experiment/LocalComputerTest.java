@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.LocalComputer.Job;
+import com.github.rinde.rinsim.pdptw.common.TestObjectiveFunction;
+import com.github.rinde.rinsim.scenario.AddVehicleEvent;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioTestUtil;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests for the scheduling of simulations in {@link LocalComputer}.
+ * @author Rinde van Lon
+ */
+public class LocalComputerTest {
+
+  /**
+   * The most expensive simulations should be dispatched first, estimates are
+   * updated based on the observed durations.
+   */
+  @Test
+  public void testLongestFirst() {
+    final Scenario large = ScenarioTestUtil.create(123L);
+    final Scenario small = Scenario.builder(large)
+        .filterEvents(Predicates.not(Predicates
+            .instanceOf(AddVehicleEvent.class)))
+        .build();
+    final MASConfiguration config = TestMASConfiguration.create("A");
+
+    final SimArgs small1 = args(small, config, 1L);
+    final SimArgs small2 = args(small, config, 2L);
+    final SimArgs large1 = args(large, config, 1L);
+    final SimArgs large2 = args(large, config, 2L);
+    final List<Deque<Job>> pending = LocalComputer.createJobs(ImmutableSet
+        .of(small1, small2, large1, large2));
+    assertEquals(2, pending.size());
+
+    final CostEstimator estimator = new CostEstimator();
+    assertTrue(estimator.estimate(large1) > estimator.estimate(small1));
+    final Job first = LocalComputer.nextJob(pending, estimator);
+    assertSame(large1, first.arguments);
+    assertEquals(2, first.index);
+
+    // the small scenario turns out to be much more expensive
+    estimator.record(large1, 1000L);
+    estimator.record(small1, 1000000L);
+    final Job second = LocalComputer.nextJob(pending, estimator);
+    assertSame(small1, second.arguments);
+    assertSame(small2, LocalComputer.nextJob(pending, estimator).arguments);
+    assertEquals(1, pending.size());
+    assertSame(large2, LocalComputer.nextJob(pending, estimator).arguments);
+    assertTrue(pending.isEmpty());
+  }
+
+  /**
+   * Listeners are notified of the end of the experiment, also when a
+   * simulation crashes.
+   */
+  @Test
+  public void testDoneComputingOnCrash() {
+    final List<String> calls = newArrayList();
+    final Experiment.Builder builder = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addConfiguration(TestMASConfiguration.create("A"))
+        .usePostProcessor(new PostProcessor<Object>() {
+          @Override
+          public Object collectResults(Simulator sim) {
+            throw new IllegalArgumentException("crash");
+          }
+        })
+        .addResultListener(new ResultListener() {
+          @Override
+          public void startComputing(int numberOfSimulations) {
+            calls.add("start");
+          }
+
+          @Override
+          public void receive(SimulationResult result) {
+            calls.add("receive");
+          }
+
+          @Override
+          public void doneComputing() {
+            calls.add("done");
+          }
+        });
+    boolean fail = false;
+    try {
+      builder.perform();
+    } catch (final IllegalStateException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+    assertEquals(asList("start", "done"), calls);
+  }
+
+  static SimArgs args(Scenario s, MASConfiguration c, long seed) {
+    return new SimArgs(s, c, seed, TestObjectiveFunction.INSTANCE, false,
+        null, null);
+  }
+}
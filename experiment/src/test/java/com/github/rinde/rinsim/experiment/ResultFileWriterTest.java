@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.pdptw.common.TestObjectiveFunction;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioTestUtil;
+import com.google.common.base.Charsets;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests for streaming of results to {@link ResultListener}s and to a
+ * {@link ResultFileWriter}, and for resuming experiments from a journal.
+ * @author Rinde van Lon
+ */
+public class ResultFileWriterTest {
+
+  /**
+   * Temporary folder for the result files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * All results should be received by listeners, also when the queue capacity
+   * is smaller than the number of simulations.
+   */
+  @Test
+  public void testStreaming() {
+    final RecordingListener listener = new RecordingListener();
+    final ExperimentResults er = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addConfiguration(TestMASConfiguration.create("A"))
+        .addConfiguration(TestMASConfiguration.create("B"))
+        .repeat(3)
+        .withThreads(2)
+        .withQueueCapacity(1)
+        .addResultListener(listener)
+        .perform();
+
+    assertEquals(6, er.results.size());
+    assertEquals(6, listener.expected);
+    assertEquals(6, listener.received.size());
+    assertTrue(listener.done);
+    assertTrue(listener.received.containsAll(er.results));
+  }
+
+  /**
+   * Results that are spilled to a file should not be kept in memory, the file
+   * should contain a line for each simulation.
+   * @throws IOException When the file could not be read.
+   */
+  @Test
+  public void testSpillResults() throws IOException {
+    final Path file = tempFolder.getRoot().toPath().resolve("results.json");
+    final RecordingListener listener = new RecordingListener();
+    final ExperimentResults er = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addConfiguration(TestMASConfiguration.create("A"))
+        .repeat(4)
+        .withThreads(2)
+        .addResultListener(listener)
+        .spillResultsTo(file)
+        .perform();
+
+    assertTrue(er.results.isEmpty());
+    assertEquals(4, listener.received.size());
+
+    final List<StatisticsDTO> stats = newArrayList();
+    for (final SimulationResult res : listener.received) {
+      stats.add(res.stats);
+    }
+    final List<String> lines = Files.readAllLines(file, Charsets.UTF_8);
+    assertEquals(4, lines.size());
+    for (final String line : lines) {
+      final ResultFileWriter.Entry entry = ResultFileWriter.GSON.fromJson(
+          line, ResultFileWriter.Entry.class);
+      assertTrue(entry.configuration.endsWith("A"));
+      // the statistics are written as plain JSON
+      assertTrue(new JsonParser().parse(line).getAsJsonObject().get("stats")
+          .isJsonObject());
+      assertTrue(stats.contains(entry.getStats()));
+    }
+  }
+
+  /**
+   * An interrupted experiment should be resumed from its journal, only the
+   * missing simulations are performed and the merged results should equal the
+   * results of an uninterrupted experiment.
+   * @throws IOException When the journal could not be read or written.
+   */
+  @Test
+  public void testResumeFromJournal() throws IOException {
+    final Path complete = tempFolder.getRoot().toPath().resolve("complete");
+    final Path journal = tempFolder.getRoot().toPath().resolve("journal");
+    final Scenario scenario = ScenarioTestUtil.create(123L);
+    final MASConfiguration configA = TestMASConfiguration.create("A");
+    final MASConfiguration configB = TestMASConfiguration.create("B");
+
+    final ExperimentResults full = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(scenario)
+        .addConfiguration(configA, "A")
+        .addConfiguration(configB, "B")
+        .repeat(2)
+        .withJournal(complete)
+        .perform();
+    final List<String> lines = Files.readAllLines(complete, Charsets.UTF_8);
+    assertEquals(4, lines.size());
+
+    // simulate a crash after two simulations, the third is partially written
+    Files.write(journal, (lines.get(0) + "\n" + lines.get(1) + "\n"
+        + lines.get(2).substring(0, 20)).getBytes(Charsets.UTF_8));
+
+    final RecordingListener listener = new RecordingListener();
+    final ExperimentResults resumed = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(scenario)
+        .addConfiguration(configA, "A")
+        .addConfiguration(configB, "B")
+        .repeat(2)
+        .withJournal(journal)
+        .addResultListener(listener)
+        .perform();
+
+    assertEquals(2, listener.expected);
+    assertEquals(2, listener.received.size());
+    assertEquals(full.results, resumed.results);
+    assertEquals(4, ResultFileWriter.read(journal).size());
+
+    // everything is in the journal, nothing needs to be computed
+    final RecordingListener listener2 = new RecordingListener();
+    final ExperimentResults resumed2 = Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(scenario)
+        .addConfiguration(configA, "A")
+        .addConfiguration(configB, "B")
+        .repeat(2)
+        .withJournal(journal)
+        .addResultListener(listener2)
+        .perform();
+    assertTrue(listener2.received.isEmpty());
+    assertEquals(full.results, resumed2.results);
+  }
+
+  /**
+   * A journal can only be used when all configurations have an explicit id.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testJournalRequiresIds() {
+    Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addConfiguration(TestMASConfiguration.create("A"), "A")
+        .addConfiguration(TestMASConfiguration.create("B"))
+        .withJournal(tempFolder.getRoot().toPath().resolve("journal"))
+        .perform();
+  }
+
+  /**
+   * A journal can not distinguish different scenarios with the same problem
+   * class and instance id.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testJournalRequiresUniqueScenarioIds() {
+    Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addScenario(ScenarioTestUtil.create(123L))
+        .addScenario(ScenarioTestUtil.create(456L))
+        .addConfiguration(TestMASConfiguration.create("A"), "A")
+        .withJournal(tempFolder.getRoot().toPath().resolve("journal"))
+        .perform();
+  }
+
+  /**
+   * Configuration ids must be unique.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateIds() {
+    Experiment
+        .build(TestObjectiveFunction.INSTANCE)
+        .addConfiguration(TestMASConfiguration.create("A"), "X")
+        .addConfiguration(TestMASConfiguration.create("B"), "X");
+  }
+
+  static class RecordingListener implements ResultListener {
+    int expected;
+    boolean done;
+    final List<SimulationResult> received;
+
+    RecordingListener() {
+      received = newArrayList();
+    }
+
+    @Override
+    public void startComputing(int numberOfSimulations) {
+      expected = numberOfSimulations;
+    }
+
+    @Override
+    public void receive(SimulationResult result) {
+      received.add(result);
+    }
+
+    @Override
+    public void doneComputing() {
+      done = true;
+    }
+  }
+}
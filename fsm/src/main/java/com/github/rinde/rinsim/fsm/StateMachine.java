@@ -38,6 +38,11 @@ import com.google.common.collect.ImmutableTable;
  * in a {@link RuntimeException}. Note that the transition table is immutable.
  * StateMachine instances can only be created using its builder via the
  * {@link #create(State)} method.
+ * <p>
+ * When built, the transition table is compiled into an <code>int</code>
+ * matrix indexed by state and trigger ids, handling a trigger therefore does
+ * not require a table lookup. {@link StateTransitionEvent}s are only created
+ * when there is a listener for {@link StateMachineEvent#STATE_TRANSITION}.
  * 
  * @param <T> The trigger type. Concrete trigger objects that describe the same
  *          event should be <i>equal</i> (according to {@link #equals(Object)} )
@@ -89,6 +94,12 @@ public class StateMachine<T, C> {
    */
   protected final boolean explicitRecursiveTransitions;
 
+  /**
+   * The compiled form of {@link #transitionTable}, used for handling triggers.
+   */
+  final TransitionMatrix<T, C> matrix;
+  private int currentStateId;
+
   StateMachine(State<T, C> start,
       ImmutableTable<State<T, C>, T, State<T, C>> table,
       boolean explRecurTrns) {
@@ -97,6 +108,8 @@ public class StateMachine<T, C> {
     currentState = start;
     transitionTable = table;
     explicitRecursiveTransitions = explRecurTrns;
+    matrix = new TransitionMatrix<>(start, table);
+    currentStateId = matrix.stateId(start);
   }
 
   /**
@@ -130,18 +143,51 @@ public class StateMachine<T, C> {
    * @param context Reference to the context.
    */
   protected void changeState(T trigger, C context) {
-    checkArgument(transitionTable.contains(currentState, trigger),
-        "The trigger %s is not supported when in state %s.", trigger,
-        currentState);
-    final State<T, C> newState = transitionTable.get(currentState, trigger);
-    if (!newState.equals(currentState) || explicitRecursiveTransitions) {
+    final int newStateId = matrix.next(currentStateId(), trigger);
+    if (newStateId == TransitionMatrix.NONE) {
+      // not using checkArgument to avoid the varargs array in the common case
+      throw new IllegalArgumentException(String.format(
+          "The trigger %s is not supported when in state %s.", trigger,
+          currentState));
+    }
+    final State<T, C> newState = matrix.state(newStateId);
+    if (newStateId != currentStateId || explicitRecursiveTransitions) {
       currentState.onExit(trigger, context);
       final State<T, C> oldState = currentState;
       currentState = newState;
+      currentStateId = newStateId;
       currentState.onEntry(trigger, context);
-      eventDispatcher.dispatchEvent(new StateTransitionEvent<>(this,
-          oldState, trigger, newState));
+      if (eventDispatcher.hasListenerFor(StateMachineEvent.STATE_TRANSITION)) {
+        eventDispatcher.dispatchEvent(new StateTransitionEvent<>(this,
+            oldState, trigger, newState));
+      }
+    }
+  }
+
+  // currentState is protected and may have been changed by a subclass, in
+  // that case the id is looked up again
+  int currentStateId() {
+    if (currentStateId == TransitionMatrix.NONE
+        || matrix.state(currentStateId) != currentState) {
+      currentStateId = matrix.stateId(currentState);
     }
+    return currentStateId;
+  }
+
+  /**
+   * Sets the current state without performing a transition: no events are
+   * dispatched and {@link State#onExit(Object, Object)} and
+   * {@link State#onEntry(Object, Object)} are not called. This can be used for
+   * restoring the state of a copy of a state machine.
+   * @param state The new current state, must be a state of this machine.
+   * @throws IllegalArgumentException if the state is not part of this machine.
+   */
+  public void restoreState(State<T, C> state) {
+    final int id = matrix.stateId(state);
+    checkArgument(id != TransitionMatrix.NONE,
+        "%s is not a state of this state machine.", state);
+    currentState = state;
+    currentStateId = id;
   }
 
   /**
@@ -212,7 +258,7 @@ public class StateMachine<T, C> {
    *         current state, <code>false</code> otherwise.
    */
   public boolean isSupported(T trigger) {
-    return transitionTable.contains(currentState, trigger);
+    return matrix.next(currentStateId(), trigger) != TransitionMatrix.NONE;
   }
 
   /**
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.fsm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table.Cell;
+
+/**
+ * The compiled form of a transition table of a {@link StateMachine}. All states
+ * and triggers are assigned an id, the transitions are stored in an
+ * <code>int</code> matrix indexed by state id and trigger id. When all
+ * triggers are constants of the same {@link Enum} the id of a trigger is
+ * obtained via its ordinal, so that a lookup does not require any hashing.
+ * Instances are immutable.
+ * @param <T> The trigger type.
+ * @param <C> The context type.
+ * @author Rinde van Lon
+ */
+final class TransitionMatrix<T, C> {
+  static final int NONE = -1;
+
+  private final State<T, C>[] states;
+  private final ImmutableMap<State<T, C>, Integer> stateIds;
+  private final ImmutableMap<T, Integer> triggerIds;
+  @Nullable
+  private final Class<?> enumType;
+  private final int[] enumTriggerIds;
+  private final int[][] transitions;
+
+  @SuppressWarnings("unchecked")
+  TransitionMatrix(State<T, C> start,
+      ImmutableTable<State<T, C>, T, State<T, C>> table) {
+    final Map<State<T, C>, Integer> sIds = new LinkedHashMap<>();
+    sIds.put(start, 0);
+    for (final Cell<State<T, C>, T, State<T, C>> cell : table.cellSet()) {
+      putId(sIds, cell.getRowKey());
+      putId(sIds, cell.getValue());
+    }
+    stateIds = ImmutableMap.copyOf(sIds);
+    states = stateIds.keySet().toArray(new State[stateIds.size()]);
+
+    final Map<T, Integer> tIds = new LinkedHashMap<>();
+    for (final T trigger : table.columnKeySet()) {
+      putId(tIds, trigger);
+    }
+    triggerIds = ImmutableMap.copyOf(tIds);
+    enumType = commonEnumType(triggerIds.keySet());
+    if (enumType == null) {
+      enumTriggerIds = new int[0];
+    } else {
+      enumTriggerIds = new int[enumType.getEnumConstants().length];
+      Arrays.fill(enumTriggerIds, NONE);
+      for (final Map.Entry<T, Integer> entry : triggerIds.entrySet()) {
+        enumTriggerIds[((Enum<?>) entry.getKey()).ordinal()] = entry
+            .getValue();
+      }
+    }
+
+    transitions = new int[states.length][triggerIds.size()];
+    for (final int[] row : transitions) {
+      Arrays.fill(row, NONE);
+    }
+    for (final Cell<State<T, C>, T, State<T, C>> cell : table.cellSet()) {
+      transitions[stateIds.get(cell.getRowKey())][triggerIds.get(cell
+          .getColumnKey())] = stateIds.get(cell.getValue());
+    }
+  }
+
+  /**
+   * @param state The state to look up.
+   * @return The id of the state or {@link #NONE} if the state is not part of
+   *         this matrix.
+   */
+  int stateId(State<T, C> state) {
+    final Integer id = stateIds.get(state);
+    return id == null ? NONE : id;
+  }
+
+  /**
+   * @param id The id of a state.
+   * @return The state with the specified id.
+   */
+  State<T, C> state(int id) {
+    return states[id];
+  }
+
+  /**
+   * @param trigger The trigger to look up.
+   * @return The id of the trigger or {@link #NONE} if the trigger does not
+   *         occur in any transition.
+   */
+  int triggerId(Object trigger) {
+    if (enumType != null && trigger instanceof Enum<?>
+        && ((Enum<?>) trigger).getDeclaringClass() == enumType) {
+      return enumTriggerIds[((Enum<?>) trigger).ordinal()];
+    }
+    final Integer id = triggerIds.get(trigger);
+    return id == null ? NONE : id;
+  }
+
+  /**
+   * @param stateId The id of the current state.
+   * @param trigger The trigger.
+   * @return The id of the destination state or {@link #NONE} if there is no
+   *         transition for the specified state and trigger.
+   */
+  int next(int stateId, Object trigger) {
+    final int tId = triggerId(trigger);
+    if (stateId == NONE || tId == NONE) {
+      return NONE;
+    }
+    return transitions[stateId][tId];
+  }
+
+  @Nullable
+  static Class<?> commonEnumType(Iterable<?> triggers) {
+    Class<?> type = null;
+    for (final Object trigger : triggers) {
+      if (!(trigger instanceof Enum<?>)) {
+        return null;
+      }
+      final Class<?> cls = ((Enum<?>) trigger).getDeclaringClass();
+      if (type == null) {
+        type = cls;
+      } else if (type != cls) {
+        return null;
+      }
+    }
+    return type;
+  }
+
+  static <K> void putId(Map<K, Integer> ids, K key) {
+    if (!ids.containsKey(key)) {
+      ids.put(key, ids.size());
+    }
+  }
+}
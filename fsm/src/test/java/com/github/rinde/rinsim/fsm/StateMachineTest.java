@@ -16,9 +16,11 @@
 package com.github.rinde.rinsim.fsm;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -231,6 +233,33 @@ public class StateMachineTest {
     }
   }
 
+  /**
+   * Restoring a state should not perform a transition.
+   */
+  @Test
+  public void testRestoreState() {
+    final ListenerEventHistory history = new ListenerEventHistory();
+    fsm.getEventAPI()
+        .addListener(history, StateMachine.StateMachineEvent.values());
+    fsm.restoreState(pauseState);
+    assertEquals(pauseState, fsm.getCurrentState());
+    assertTrue(history.getHistory().isEmpty());
+    assertTrue(pauseState.onEntryHistory().isEmpty());
+    assertTrue(stopState.onExitHistory().isEmpty());
+
+    fsm.handle(Events.START, CONTEXT);
+    assertEquals(startState, fsm.getCurrentState());
+    assertEquals(1, pauseState.onExitHistory().size());
+
+    boolean fail = false;
+    try {
+      fsm.restoreState(new StartState());
+    } catch (final IllegalArgumentException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+  }
+
   /**
    * Test transition that is not allowed.
    */
@@ -271,6 +300,78 @@ public class StateMachineTest {
     assertFalse(sm.isSupported(new Object()));
   }
 
+  /**
+   * The compiled transition matrix should contain exactly the transitions of
+   * the transition table.
+   */
+  @Test
+  public void compiledTransitions() {
+    for (final State<Events, Context> state : fsm.getStates()) {
+      final int id = fsm.matrix.stateId(state);
+      assertEquals(state, fsm.matrix.state(id));
+      for (final Events trigger : Events.values()) {
+        final State<Events, Context> next = fsm.transitionTable.get(state,
+            trigger);
+        final int nextId = fsm.matrix.next(id, trigger);
+        if (next == null) {
+          assertEquals(TransitionMatrix.NONE, nextId);
+        } else {
+          assertEquals(next, fsm.matrix.state(nextId));
+        }
+      }
+    }
+    assertEquals(TransitionMatrix.NONE, fsm.matrix.next(0, "START"));
+  }
+
+  /**
+   * Triggers of different types can be mixed, in that case the trigger ids are
+   * looked up by equality.
+   */
+  @SuppressWarnings("static-method")
+  @Test
+  public void mixedTriggerTypes() {
+    final TestState state1 = new TestState("state1");
+    final TestState state2 = new TestState("state2");
+    final StateMachine<Object, Object> sm = StateMachine.create(state1)
+        .addTransition(state1, Events.START, state2)
+        .addTransition(state2, StateMachineEvent.STATE_TRANSITION, state1)
+        .addTransition(state2, "stop", state1)
+        .build();
+    assertNull(TransitionMatrix.commonEnumType(sm.transitionTable
+        .columnKeySet()));
+
+    assertTrue(sm.isSupported(Events.START));
+    assertFalse(sm.isSupported(Events.STOP));
+    sm.handle(Events.START, CONTEXT);
+    assertTrue(sm.stateIs(state2));
+    assertTrue(sm.isSupported(StateMachineEvent.STATE_TRANSITION));
+    sm.handle(StateMachineEvent.STATE_TRANSITION, CONTEXT);
+    assertTrue(sm.stateIs(state1));
+    sm.handle(Events.START, CONTEXT);
+    sm.handle(new String("stop"), CONTEXT);
+    assertTrue(sm.stateIs(state1));
+  }
+
+  /**
+   * Transitions without listeners should behave the same, a listener that is
+   * added later receives the events of subsequent transitions.
+   */
+  @Test
+  public void transitionsWithoutListener() {
+    fsm.handle(Events.START, CONTEXT);
+    fsm.handle(Events.PAUSE, CONTEXT);
+    assertEquals(pauseState, fsm.getCurrentState());
+
+    final ListenerEventHistory history = new ListenerEventHistory();
+    fsm.getEventAPI().addListener(history,
+        StateMachineEvent.STATE_TRANSITION);
+    fsm.handle(Events.START, CONTEXT);
+    assertEquals(startState, fsm.getCurrentState());
+    assertEquals(
+        asList(new StateTransitionEvent<>(fsm, pauseState, Events.START,
+            startState)), history.getHistory());
+  }
+
   static class TestState extends AbstractState<Object, Object> {
     private final String name;
 
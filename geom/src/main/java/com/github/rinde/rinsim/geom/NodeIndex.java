@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.geom;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Assigns dense <code>int</code> ids to points, typically the nodes of a
+ * {@link Graph}. The first added point gets id <code>0</code>, the next
+ * <code>1</code>, etc. Once a point is added its id never changes. Algorithms
+ * that need to associate data with nodes can use the ids as indices in arrays
+ * instead of using maps keyed on {@link Point}s, the coordinates of a node can
+ * be obtained without accessing the {@link Point} object via {@link #getX(int)}
+ * and {@link #getY(int)}.
+ * <p>
+ * The index can also be used for interning points: {@link #intern(Point)}
+ * returns a canonical instance for all equal points, interned points can be
+ * compared by identity. Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+public final class NodeIndex {
+  /**
+   * Value returned by {@link #indexOf(Point)} for points that are not in the
+   * index.
+   */
+  public static final int NOT_FOUND = -1;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Map<Point, Integer> ids;
+  private Point[] points;
+  private double[] xs;
+  private double[] ys;
+  private int size;
+
+  NodeIndex(int capacity) {
+    ids = newHashMap();
+    points = new Point[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+  }
+
+  /**
+   * @return A new empty index.
+   */
+  public static NodeIndex create() {
+    return new NodeIndex(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a new index containing all nodes of the specified graph. Nodes
+   * that are added to the graph later are not added automatically.
+   * @param graph The graph.
+   * @return A new index.
+   */
+  public static NodeIndex create(Graph<?> graph) {
+    final NodeIndex index = new NodeIndex(Math.max(INITIAL_CAPACITY,
+        graph.getNumberOfNodes()));
+    for (final Point p : graph.getNodes()) {
+      index.add(p);
+    }
+    return index;
+  }
+
+  /**
+   * Adds the specified point to the index if it is not already present.
+   * @param p The point to add.
+   * @return The id of the point.
+   */
+  public int add(Point p) {
+    final Integer id = ids.get(p);
+    if (id != null) {
+      return id;
+    }
+    if (size == points.length) {
+      final int capacity = points.length * 2;
+      points = Arrays.copyOf(points, capacity);
+      xs = Arrays.copyOf(xs, capacity);
+      ys = Arrays.copyOf(ys, capacity);
+    }
+    points[size] = p;
+    xs[size] = p.x;
+    ys[size] = p.y;
+    ids.put(p, size);
+    return size++;
+  }
+
+  /**
+   * Returns the canonical instance of the specified point, the point is added
+   * if it is not already present.
+   * @param p The point to intern.
+   * @return The canonical instance that is equal to <code>p</code>.
+   */
+  public Point intern(Point p) {
+    return points[add(p)];
+  }
+
+  /**
+   * @param p The point to look up.
+   * @return The id of the point or {@link #NOT_FOUND} if the point is not in
+   *         this index.
+   */
+  public int indexOf(Point p) {
+    final Integer id = ids.get(p);
+    return id == null ? NOT_FOUND : id;
+  }
+
+  /**
+   * @param p The point to check.
+   * @return <code>true</code> if the point is in this index,
+   *         <code>false</code> otherwise.
+   */
+  public boolean contains(Point p) {
+    return ids.containsKey(p);
+  }
+
+  /**
+   * @param id The id of a point.
+   * @return The (canonical) point with the specified id.
+   * @throws IndexOutOfBoundsException if there is no point with this id.
+   */
+  public Point getPoint(int id) {
+    checkElementIndex(id, size);
+    return points[id];
+  }
+
+  /**
+   * @param id The id of a point.
+   * @return The x coordinate of the point with the specified id.
+   * @throws IndexOutOfBoundsException if there is no point with this id.
+   */
+  public double getX(int id) {
+    checkElementIndex(id, size);
+    return xs[id];
+  }
+
+  /**
+   * @param id The id of a point.
+   * @return The y coordinate of the point with the specified id.
+   * @throws IndexOutOfBoundsException if there is no point with this id.
+   */
+  public double getY(int id) {
+    checkElementIndex(id, size);
+    return ys[id];
+  }
+
+  /**
+   * Computes the euclidean distance between two points in this index.
+   * @param from The id of the first point.
+   * @param to The id of the second point.
+   * @return The distance.
+   * @throws IndexOutOfBoundsException if one of the ids is not in this index.
+   */
+  public double distance(int from, int to) {
+    checkElementIndex(from, size);
+    checkElementIndex(to, size);
+    return Point.distance(xs[from], ys[from], xs[to], ys[to]);
+  }
+
+  /**
+   * @return The number of points in this index, all ids are in the range
+   *         <code>[0,size)</code>.
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -24,7 +24,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.google.common.base.Function;
-import com.google.common.base.Objects;
 import com.google.common.collect.ComparisonChain;
 
 /**
@@ -56,7 +55,24 @@ public class Point implements Serializable {
   public Point(double pX, double pY) {
     x = pX;
     y = pY;
-    hashCode = Objects.hashCode(x, y);
+    hashCode = hashCode(x, y);
+  }
+
+  /**
+   * Computes the hash code of a point with the specified coordinates without
+   * boxing, the result is identical to <code>Objects.hashCode(x, y)</code>.
+   * @param x The x coordinate.
+   * @param y The y coordinate.
+   * @return The hash code.
+   */
+  static int hashCode(double x, double y) {
+    final int prime = 31;
+    return prime * (prime + hashCode(x)) + hashCode(y);
+  }
+
+  static int hashCode(double d) {
+    final long bits = Double.doubleToLongBits(d);
+    return (int) (bits ^ (bits >>> 32));
   }
 
   /**
@@ -66,11 +82,78 @@ public class Point implements Serializable {
    * @return The distance between the two points.
    */
   public static double distance(Point p1, Point p2) {
-    final double dx = p1.x - p2.x;
-    final double dy = p1.y - p2.y;
+    return distance(p1.x, p1.y, p2.x, p2.y);
+  }
+
+  /**
+   * Computes the distance between two points given by their coordinates, this
+   * avoids the creation of {@link Point} objects in hot loops.
+   * @param x1 The x coordinate of the first point.
+   * @param y1 The y coordinate of the first point.
+   * @param x2 The x coordinate of the second point.
+   * @param y2 The y coordinate of the second point.
+   * @return The distance between the two points.
+   */
+  public static double distance(double x1, double y1, double x2, double y2) {
+    final double dx = x1 - x2;
+    final double dy = y1 - y2;
     return Math.sqrt(dx * dx + dy * dy);
   }
 
+  /**
+   * Linear interpolation of a single coordinate:
+   * <code>from + fraction * (to - from)</code>. Interpolating a point is done
+   * by interpolating its x and y coordinates separately.
+   * @param from The start coordinate.
+   * @param to The end coordinate.
+   * @param fraction The fraction of the distance between <code>from</code> and
+   *          <code>to</code>, <code>0</code> results in <code>from</code>,
+   *          <code>1</code> results in <code>to</code>.
+   * @return The interpolated coordinate.
+   */
+  public static double interpolate(double from, double to, double fraction) {
+    return from + fraction * (to - from);
+  }
+
+  /**
+   * Computes the point on the line segment between two points at the
+   * specified fraction of the distance.
+   * @param from The start point.
+   * @param to The end point.
+   * @param fraction The fraction of the distance, see
+   *          {@link #interpolate(double, double, double)}.
+   * @return A new point.
+   */
+  public static Point interpolate(Point from, Point to, double fraction) {
+    return new Point(interpolate(from.x, to.x, fraction), interpolate(from.y,
+        to.y, fraction));
+  }
+
+  /**
+   * Computes the bearing of the direction from the first point to the second
+   * point. The bearing is the angle in radians between the positive x axis
+   * and the direction, in the range <code>[-&pi;,&pi;]</code>.
+   * @param x1 The x coordinate of the first point.
+   * @param y1 The y coordinate of the first point.
+   * @param x2 The x coordinate of the second point.
+   * @param y2 The y coordinate of the second point.
+   * @return The bearing in radians.
+   */
+  public static double bearing(double x1, double y1, double x2, double y2) {
+    return Math.atan2(y2 - y1, x2 - x1);
+  }
+
+  /**
+   * Computes the bearing of the direction from the first point to the second
+   * point, see {@link #bearing(double, double, double, double)}.
+   * @param from The first point.
+   * @param to The second point.
+   * @return The bearing in radians.
+   */
+  public static double bearing(Point from, Point to) {
+    return bearing(from.x, from.y, to.x, to.y);
+  }
+
   /**
    * Computes the difference between two points: <code>p1 - p2</code>.
    * @param p1 A point.
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link NodeIndex}.
+ * @author Rinde van Lon
+ */
+public class NodeIndexTest {
+
+  /**
+   * Ids are dense, stable and assigned in order of addition.
+   */
+  @Test
+  public void testAdd() {
+    final NodeIndex index = NodeIndex.create();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, index.add(new Point(i, -i)));
+    }
+    assertEquals(100, index.size());
+    assertEquals(7, index.add(new Point(7, -7)));
+    assertEquals(100, index.size());
+
+    assertEquals(42, index.indexOf(new Point(42, -42)));
+    assertEquals(NodeIndex.NOT_FOUND, index.indexOf(new Point(42, 42)));
+    assertTrue(index.contains(new Point(99, -99)));
+    assertFalse(index.contains(new Point(100, -100)));
+
+    assertEquals(new Point(13, -13), index.getPoint(13));
+    assertEquals(13d, index.getX(13), 0);
+    assertEquals(-13d, index.getY(13), 0);
+    assertEquals(Point.distance(new Point(3, -3), new Point(7, -7)),
+        index.distance(3, 7), 0);
+  }
+
+  /**
+   * Interning returns the first added instance of equal points.
+   */
+  @Test
+  public void testIntern() {
+    final NodeIndex index = NodeIndex.create();
+    final Point p = new Point(1.5, 2.5);
+    final Point q = new Point(1.5, 2.5);
+    assertNotSame(p, q);
+    assertSame(p, index.intern(p));
+    assertSame(p, index.intern(q));
+    assertEquals(1, index.size());
+  }
+
+  /**
+   * All nodes of a graph are added.
+   */
+  @Test
+  public void testCreateFromGraph() {
+    final Graph<LengthData> graph = new MultimapGraph<>();
+    graph.addConnection(new Point(0, 0), new Point(1, 0));
+    graph.addConnection(new Point(1, 0), new Point(1, 1));
+    graph.addConnection(new Point(1, 1), new Point(0, 0));
+    final NodeIndex index = NodeIndex.create(graph);
+    assertEquals(3, index.size());
+    for (final Point p : graph.getNodes()) {
+      assertSame(p, index.getPoint(index.indexOf(p)));
+    }
+  }
+
+  /**
+   * Ids outside the index are not accepted.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testInvalidId() {
+    final NodeIndex index = NodeIndex.create();
+    index.add(new Point(0, 0));
+    index.getX(1);
+  }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Objects;
 
 /**
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
@@ -60,4 +61,34 @@ public class PointTest {
 		assertFalse(new Point(0, 0).equals((Object) new Point(1, 0)));
 	}
 
+	@Test
+	public void hashCodeTest() {
+		final double[] values = { 0, -0d, 1, -3.5, 1e-300, Double.MAX_VALUE,
+				Double.NaN, Double.POSITIVE_INFINITY };
+		for (final double x : values) {
+			for (final double y : values) {
+				assertEquals(Objects.hashCode(x, y), new Point(x, y).hashCode());
+			}
+		}
+	}
+
+	@Test
+	public void primitiveFuncs() {
+		assertEquals(5, Point.distance(1, 1, 4, 5), EPSILON);
+		assertEquals(Point.distance(new Point(-2, 3), new Point(7, 0.5)),
+				Point.distance(-2, 3, 7, 0.5), 0);
+
+		assertEquals(2.5, Point.interpolate(0, 10, .25), EPSILON);
+		assertEquals(-3, Point.interpolate(-3, 5, 0), 0);
+		assertEquals(5, Point.interpolate(-3, 5, 1), 0);
+		assertEquals(new Point(5, -5),
+				Point.interpolate(new Point(0, 0), new Point(10, -10), .5));
+
+		assertEquals(0, Point.bearing(0, 0, 10, 0), EPSILON);
+		assertEquals(Math.PI / 2, Point.bearing(0, 0, 0, 10), EPSILON);
+		assertEquals(Math.PI, Point.bearing(0, 0, -10, 0), EPSILON);
+		assertEquals(-Math.PI / 4,
+				Point.bearing(new Point(1, 1), new Point(2, 0)), EPSILON);
+	}
+
 }
@@ -31,6 +31,9 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nullable;
 
@@ -42,6 +45,9 @@ import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Configurable supplier of files.
@@ -65,9 +71,79 @@ public final class FileProvider<T> implements Supplier<ImmutableSet<T>> {
 
   @Override
   public ImmutableSet<T> get() {
+    final Set<T> converted = newLinkedHashSet();
+    for (final Path path : getPaths()) {
+      converted.add(pathReader.apply(path));
+    }
+    return ImmutableSet.copyOf(converted);
+  }
+
+  /**
+   * Same as {@link #get()} but the files are converted in parallel using the
+   * specified number of threads. The order of the result is the same as the
+   * order of {@link #get()}.
+   * @param numThreads The number of threads to use for converting files.
+   * @return The converted files.
+   */
+  public ImmutableSet<T> getParallel(int numThreads) {
+    checkArgument(numThreads > 0,
+        "The number of threads must be strictly positive, was %s.",
+        numThreads);
+    final ListeningExecutorService executor = MoreExecutors
+        .listeningDecorator(Executors.newFixedThreadPool(numThreads));
+    try {
+      final Set<T> converted = newLinkedHashSet();
+      for (final ListenableFuture<T> future : getAsync(executor)) {
+        converted.add(future.get());
+      }
+      return ImmutableSet.copyOf(converted);
+    } catch (final InterruptedException e) {
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Submits the conversion of each file to the specified executor. The
+   * returned futures are in the same order as {@link #getPaths()}, each future
+   * is done as soon as its file is converted. This allows to start working on
+   * converted files while other files are still being converted, see
+   * {@link com.google.common.util.concurrent.Futures#inCompletionOrder(Iterable)}
+   * . Note that in contrast to {@link #get()}, equal conversion results are not
+   * removed.
+   * @param executor The executor that is used to convert the files.
+   * @return A list of futures of the converted files.
+   */
+  public ImmutableList<ListenableFuture<T>> getAsync(
+      ListeningExecutorService executor) {
+    final ImmutableList.Builder<ListenableFuture<T>> futures = ImmutableList
+        .builder();
+    for (final Path path : getPaths()) {
+      futures.add(executor.submit(new Callable<T>() {
+        @Override
+        public T call() {
+          return pathReader.apply(path);
+        }
+      }));
+    }
+    return futures.build();
+  }
+
+  /**
+   * Walks the file tree and collects all files that satisfy the filter,
+   * without converting them.
+   * @return The files in the order in which they are visited, each file is
+   *         included at most once.
+   */
+  public ImmutableList<Path> getPaths() {
     try {
-      final PathCollector<T> pc = new PathCollector<>(pathPredicate,
-          pathReader);
+      final PathCollector pc = new PathCollector(pathPredicate);
       for (final Path path : roots) {
         Files.walkFileTree(path, pc);
       }
@@ -225,28 +301,26 @@ public final class FileProvider<T> implements Supplier<ImmutableSet<T>> {
     }
   }
 
-  static class PathCollector<T> extends SimpleFileVisitor<Path> {
-    final Set<T> convertedPaths;
+  static class PathCollector extends SimpleFileVisitor<Path> {
+    final Set<Path> paths;
     final Predicate<Path> pathPredicate;
-    final Function<Path, T> pathReader;
 
-    PathCollector(Predicate<Path> predicate, Function<Path, T> reader) {
-      convertedPaths = newLinkedHashSet();
+    PathCollector(Predicate<Path> predicate) {
+      paths = newLinkedHashSet();
       pathPredicate = predicate;
-      pathReader = reader;
     }
 
     @Override
     public FileVisitResult visitFile(@Nullable Path file, @Nullable BasicFileAttributes attrs)
         throws IOException {
       if (pathPredicate.apply(file)) {
-        convertedPaths.add(pathReader.apply(file));
+        paths.add(file);
       }
       return FileVisitResult.CONTINUE;
     }
 
-    public ImmutableSet<T> getResults() {
-      return ImmutableSet.copyOf(convertedPaths);
+    public ImmutableList<Path> getResults() {
+      return ImmutableList.copyOf(paths);
     }
   }
 
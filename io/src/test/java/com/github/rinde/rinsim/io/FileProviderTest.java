@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.io;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -25,7 +26,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nullable;
 
@@ -34,7 +37,13 @@ import org.junit.Test;
 import com.github.rinde.rinsim.cli.CliException;
 import com.github.rinde.rinsim.io.FileProvider;
 import com.github.rinde.rinsim.io.FileProvider.Builder;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Tests for {@link FileProvider}.
@@ -147,6 +156,40 @@ public class FileProviderTest {
     assertTrue(error);
   }
 
+  /**
+   * Parallel and asynchronous conversion should give the same results in the
+   * same order as sequential conversion.
+   * @throws Exception When a conversion fails.
+   */
+  @Test
+  public void testParallel() throws Exception {
+    final FileProvider<String> provider = FileProvider.builder()
+        .add(Paths.get("src/"))
+        .filter("glob:**.java")
+        .build(new Function<Path, String>() {
+          @Override
+          public String apply(@Nullable Path input) {
+            return checkNotNull(input).getFileName().toString();
+          }
+        });
+    final ImmutableSet<String> expected = provider.get();
+    assertEquals(expected.asList(), provider.getParallel(4).asList());
+
+    final ImmutableList<Path> paths = provider.getPaths();
+    final ListeningExecutorService executor = MoreExecutors
+        .listeningDecorator(Executors.newFixedThreadPool(2));
+    final List<ListenableFuture<String>> futures = provider.getAsync(executor);
+    executor.shutdown();
+    assertEquals(paths.size(), futures.size());
+    final Set<String> actual = newLinkedHashSet();
+    for (int i = 0; i < futures.size(); i++) {
+      final String name = futures.get(i).get();
+      assertEquals(paths.get(i).getFileName().toString(), name);
+      actual.add(name);
+    }
+    assertEquals(expected.asList(), ImmutableList.copyOf(actual));
+  }
+
   /**
    * Tests the CLI help method.
    */
@@ -29,6 +29,8 @@ import javax.measure.Measure;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.eclipse.swt.SWT;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.Simulator;
 import com.github.rinde.rinsim.core.TickListener;
 import com.github.rinde.rinsim.core.TimeLapse;
@@ -72,6 +74,22 @@ import com.google.common.collect.ImmutableMap;
  * required to plug your own vehicle in by using
  * {@link #addCreator(Class, Creator)}. Optionally this method can also be used
  * to plug in custom parcels and depots.
+ * <p>
+ * For large experiments where only the final {@link StatisticsDTO} is of
+ * interest a problem can be created in fast forward mode using
+ * {@link #fastForward(Scenario, long, Model...)}. In this mode the road model
+ * accumulates the traveled distances itself such that no event is created per
+ * move, and the stop condition is only evaluated after ticks in which the
+ * statistics changed. As a consequence, stop conditions that only depend on the
+ * current time are not supported in this mode. The UI can not be enabled in
+ * fast forward mode.
+ * <p>
+ * The simulator of a problem can be forked using
+ * {@link Simulator#fork(org.apache.commons.math3.random.RandomGenerator)} when
+ * the models, vehicles, parcels and depots support forking. This is the case
+ * for {@link RouteFollowingVehicle}, {@link DefaultParcel},
+ * {@link DefaultDepot} and {@link PDPRoadModel} on a forkable road model. The
+ * creators are shared with the fork, the fork stops on the same stop condition.
  * @author Rinde van Lon
  */
 public class DynamicPDPTWProblem {
@@ -142,6 +160,11 @@ public class DynamicPDPTWProblem {
    */
   protected Predicate<Simulator> stopCondition;
 
+  /**
+   * Indicates whether this problem runs in fast forward mode.
+   */
+  protected final boolean fastForward;
+
   /**
    * Create a new problem instance using the specified scenario.
    * @param scen The the {@link Scenario} which is used in this problem.
@@ -152,6 +175,22 @@ public class DynamicPDPTWProblem {
    */
   public DynamicPDPTWProblem(final Scenario scen, long randomSeed,
       Model<?>... models) {
+    this(scen, randomSeed, false, models);
+  }
+
+  /**
+   * Create a new problem instance using the specified scenario.
+   * @param scen The the {@link Scenario} which is used in this problem.
+   * @param randomSeed The random seed which will be passed into the random
+   *          number generator in the simulator.
+   * @param ff Indicates whether the problem runs in fast forward mode, see
+   *          {@link #fastForward(Scenario, long, Model...)}.
+   * @param models An optional list of models which can be added, with this
+   *          option custom models for specific solutions can be added.
+   */
+  protected DynamicPDPTWProblem(final Scenario scen, long randomSeed,
+      boolean ff, Model<?>... models) {
+    fastForward = ff;
     simulator = new Simulator(new MersenneTwister(randomSeed), Measure.valueOf(
         scen.getTickSize(), scen.getTimeUnit()));
     final List<? extends Supplier<? extends Model<?>>> modelSuppliers = scen
@@ -164,46 +203,37 @@ public class DynamicPDPTWProblem {
     }
     eventCreatorMap = newHashMap();
 
-    final TimedEventHandler handler = new TimedEventHandler() {
-      @SuppressWarnings("unchecked")
-      @Override
-      public boolean handleTimedEvent(TimedEvent event) {
-        if (eventCreatorMap.containsKey(event.getClass())) {
-          return ((Creator<TimedEvent>) eventCreatorMap.get(event.getClass()))
-              .create(simulator, event);
-        } else if (DEFAULT_EVENT_CREATOR_MAP.containsKey(event.getClass())) {
-          return ((Creator<TimedEvent>) DEFAULT_EVENT_CREATOR_MAP.get(event
-              .getClass())).create(simulator, event);
-        } else if (event.getEventType() == TIME_OUT) {
-          return true;
-        }
-        return false;
-      }
-    };
+    final TimedEventHandler handler = new EventHandler(eventCreatorMap,
+        simulator);
     final int ticks = scen.getTimeWindow().end == Long.MAX_VALUE ? -1
         : (int) (scen.getTimeWindow().end - scen.getTimeWindow().begin);
     controller = new ScenarioController(scen, simulator, handler, ticks);
-    statsTracker = new StatsTracker(controller, simulator);
+    statsTracker = new StatsTracker(controller, simulator, fastForward);
 
     simulator.register(statsTracker);
     simulator.configure();
     stopCondition = scen.getStopCondition();
 
-    simulator.addTickListener(new TickListener() {
-
-      @Override
-      public void tick(TimeLapse timeLapse) {}
-
-      @Override
-      public void afterTick(TimeLapse timeLapse) {
-        if (stopCondition.apply(simulator)) {
-          simulator.stop();
-        }
-      }
-    });
+    simulator.addTickListener(new StopConditionListener(simulator,
+        statsTracker));
     defaultUICreator = new DefaultUICreator(this);
   }
 
+  /**
+   * Create a new problem instance in fast forward mode, see
+   * {@link DynamicPDPTWProblem} for the limitations of this mode.
+   * @param scen The the {@link Scenario} which is used in this problem.
+   * @param randomSeed The random seed which will be passed into the random
+   *          number generator in the simulator.
+   * @param models An optional list of models which can be added, with this
+   *          option custom models for specific solutions can be added.
+   * @return A new problem instance.
+   */
+  public static DynamicPDPTWProblem fastForward(Scenario scen,
+      long randomSeed, Model<?>... models) {
+    return new DynamicPDPTWProblem(scen, randomSeed, true, models);
+  }
+
   /**
    * @return The statistics of the current simulation. Note that calling this
    *         method while the simulation is not yet finished gives the
@@ -246,6 +276,7 @@ public class DynamicPDPTWProblem {
    * @param creator The creator to use.
    */
   public void enableUI(UICreator creator) {
+    checkState(!fastForward, "The UI can not be enabled in fast forward mode.");
     controller.enableUI(creator);
   }
 
@@ -299,6 +330,71 @@ public class DynamicPDPTWProblem {
     return t.getStatsDTO();
   }
 
+  // creates the objects of the scenario events using the creators, a fork
+  // uses a copy of the creators
+  static final class EventHandler implements TimedEventHandler,
+      Forkable<EventHandler> {
+    final Map<Class<?>, Creator<?>> creators;
+    final Simulator simulator;
+
+    EventHandler(Map<Class<?>, Creator<?>> cs, Simulator sim) {
+      creators = cs;
+      simulator = sim;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean handleTimedEvent(TimedEvent event) {
+      if (creators.containsKey(event.getClass())) {
+        return ((Creator<TimedEvent>) creators.get(event.getClass()))
+            .create(simulator, event);
+      } else if (DEFAULT_EVENT_CREATOR_MAP.containsKey(event.getClass())) {
+        return ((Creator<TimedEvent>) DEFAULT_EVENT_CREATOR_MAP.get(event
+            .getClass())).create(simulator, event);
+      } else if (event.getEventType() == TIME_OUT) {
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public EventHandler fork(ForkContext context) {
+      return new EventHandler(newHashMap(creators),
+          context.get(simulator));
+    }
+  }
+
+  // stops the simulator when the stop condition of the problem is satisfied,
+  // a fork uses the stop condition of the same problem
+  final class StopConditionListener implements TickListener,
+      Forkable<StopConditionListener> {
+    final Simulator sim;
+    final StatsTracker tracker;
+
+    StopConditionListener(Simulator s, StatsTracker t) {
+      sim = s;
+      tracker = t;
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {}
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {
+      if (fastForward && !tracker.checkChanged()) {
+        return;
+      }
+      if (stopCondition.apply(sim)) {
+        sim.stop();
+      }
+    }
+
+    @Override
+    public StopConditionListener fork(ForkContext context) {
+      return new StopConditionListener(context.get(sim), context.get(tracker));
+    }
+  }
+
   /**
    * Factory for handling a certain type {@link TimedEvent}s. It is the
    * responsible of this instance to create the appropriate object when an event
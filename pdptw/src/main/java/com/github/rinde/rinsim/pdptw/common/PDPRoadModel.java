@@ -16,16 +16,20 @@
 package com.github.rinde.rinsim.pdptw.common;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Maps.newHashMap;
 
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 
 import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.TimeLapse;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.core.model.ModelProvider;
 import com.github.rinde.rinsim.core.model.ModelReceiver;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
@@ -68,10 +72,15 @@ import com.google.common.collect.Multimap;
  * <code>v1</code> is moving to the pickup location of parcel <code>p1</code>
  * but then changes its destination to the pickup location of parcel
  * <code>p2</code> we say that vehicle <code>v1</code> has diverted.
+ * <p>
+ * <b>Forking</b><br>
+ * This model can be forked when the decorated model is a
+ * {@link ForkableModel}.
  * 
  * @author Rinde van Lon
  */
-public class PDPRoadModel extends ForwardingRoadModel implements ModelReceiver {
+public class PDPRoadModel extends ForwardingRoadModel implements ModelReceiver,
+    ForkableModel {
 
   final Map<MovingRoadUser, DestinationObject> destinations;
   final Multimap<MovingRoadUser, DestinationObject> destinationHistory;
@@ -301,6 +310,34 @@ public class PDPRoadModel extends ForwardingRoadModel implements ModelReceiver {
     pdpModel = Optional.fromNullable(mp.getModel(PDPModel.class));
   }
 
+  @Override
+  public PDPRoadModel createFork() {
+    checkState(getClass() == PDPRoadModel.class,
+        "%s must override createFork().", getClass().getName());
+    checkState(delegate instanceof ForkableModel,
+        "The decorated model %s can not be forked.", delegate);
+    return new PDPRoadModel(
+        (AbstractRoadModel<?>) ((ForkableModel) delegate).createFork(),
+        allowDiversion);
+  }
+
+  @Override
+  public void forkState(ForkContext context) {
+    final PDPRoadModel fork = context.get(this);
+    context.put(delegate, fork.delegate);
+    ((ForkableModel) delegate).forkState(context);
+    for (final Entry<MovingRoadUser, DestinationObject> entry : destinations
+        .entrySet()) {
+      fork.destinations.put(context.get(entry.getKey()),
+          entry.getValue().fork(context));
+    }
+    for (final Entry<MovingRoadUser, DestinationObject> entry : destinationHistory
+        .entries()) {
+      fork.destinationHistory.put(context.get(entry.getKey()),
+          entry.getValue().fork(context));
+    }
+  }
+
   private static final class DestinationObject {
     final DestType type;
     final Point dest;
@@ -314,6 +351,10 @@ public class PDPRoadModel extends ForwardingRoadModel implements ModelReceiver {
       hashCode = Objects.hashCode(type, dest, obj);
     }
 
+    DestinationObject fork(ForkContext context) {
+      return new DestinationObject(type, dest, context.get(roadUser));
+    }
+
     @Override
     public int hashCode() {
       return hashCode;
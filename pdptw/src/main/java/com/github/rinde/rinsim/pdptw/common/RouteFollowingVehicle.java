@@ -17,12 +17,14 @@ package com.github.rinde.rinsim.pdptw.common;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.newLinkedList;
 import static java.util.Collections.unmodifiableCollection;
 
 import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 
@@ -36,8 +38,11 @@ import javax.measure.unit.Unit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.TimeLapse;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPObjectImpl;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.VehicleState;
@@ -74,9 +79,14 @@ import com.google.common.math.DoubleMath;
  * <b>Extension</b> The behavior of this vehicle can be altered by modifying the
  * state machine that is used internally. This can be done by overriding
  * {@link #createStateMachine()}.
+ * <p>
+ * <b>Forking</b> Subclasses should override {@link #fork(ForkContext)}, the
+ * state that is defined by this class (including the current state of the
+ * state machine) is copied by {@link #initFork(PDPObjectImpl, ForkContext)}.
  * @author Rinde van Lon 
  */
-public class RouteFollowingVehicle extends DefaultVehicle {
+public class RouteFollowingVehicle extends DefaultVehicle implements
+    Forkable<RouteFollowingVehicle> {
 
   /**
    * The logger of the vehicle.
@@ -289,6 +299,67 @@ public class RouteFollowingVehicle extends DefaultVehicle {
         .getSpeedUnit()));
   }
 
+  /**
+   * Creates a fork of this vehicle, subclasses should override this method.
+   * @param context The context of the fork.
+   * @return The fork.
+   */
+  @Override
+  public RouteFollowingVehicle fork(ForkContext context) {
+    final RouteFollowingVehicle fork = new RouteFollowingVehicle(dto,
+        allowDelayedRouteChanges);
+    fork.initFork(this, context);
+    return fork;
+  }
+
+  /**
+   * Copies the route, the depot and the current state of the state machine
+   * of the original, the parcels are replaced by their forks. The current
+   * state is matched by its position in {@link StateMachine#getStates()}, the
+   * destinations of the {@link Goto} state are copied as well. The current
+   * time is not copied, it is set at the start of the next tick.
+   * @param original The vehicle of which this vehicle is a fork.
+   * @param context The context of the fork.
+   */
+  @Override
+  protected void initFork(PDPObjectImpl original, ForkContext context) {
+    super.initFork(original, context);
+    final RouteFollowingVehicle v = (RouteFollowingVehicle) original;
+    route = newLinkedList(forks(v.route, context));
+    if (v.newRoute.isPresent()) {
+      newRoute = Optional.of(newLinkedList(forks(v.newRoute.get(), context)));
+    }
+    if (v.depot.isPresent()) {
+      depot = Optional.of(context.get(v.depot.get()));
+    }
+    isDiversionAllowed = v.isDiversionAllowed;
+    speed = v.speed;
+
+    final int stateIndex = newArrayList(v.stateMachine.getStates()).indexOf(
+        v.stateMachine.getCurrentState());
+    stateMachine.restoreState(newArrayList(stateMachine.getStates()).get(
+        stateIndex));
+    gotoState.destination = forks(v.gotoState.destination, context);
+    gotoState.prevDestination = forks(v.gotoState.prevDestination, context);
+  }
+
+  static List<DefaultParcel> forks(Collection<DefaultParcel> parcels,
+      ForkContext context) {
+    final List<DefaultParcel> forks = newArrayList();
+    for (final DefaultParcel p : parcels) {
+      forks.add(context.get(p));
+    }
+    return forks;
+  }
+
+  static Optional<DefaultParcel> forks(Optional<DefaultParcel> parcel,
+      ForkContext context) {
+    if (parcel.isPresent()) {
+      return Optional.of(context.get(parcel.get()));
+    }
+    return parcel;
+  }
+
   /**
    * This method can optionally be overridden to change route of this vehicle by
    * calling {@link #setRoute(Collection)} from within this method.
@@ -30,12 +30,16 @@ import static com.github.rinde.rinsim.core.model.pdp.PDPScenarioEvent.TIME_OUT;
 import static com.github.rinde.rinsim.core.model.road.AbstractRoadModel.RoadEventType.MOVE;
 import static com.github.rinde.rinsim.scenario.ScenarioController.EventType.SCENARIO_FINISHED;
 import static com.github.rinde.rinsim.scenario.ScenarioController.EventType.SCENARIO_STARTED;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
 import java.util.Map;
+import java.util.Map.Entry;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.Simulator;
 import com.github.rinde.rinsim.core.Simulator.SimulatorEventType;
+import com.github.rinde.rinsim.core.model.ForkableModel;
 import com.github.rinde.rinsim.core.model.Model;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.PDPModelEventType;
@@ -43,7 +47,9 @@ import com.github.rinde.rinsim.core.model.pdp.PDPModelEvent;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.core.model.pdp.Vehicle;
 import com.github.rinde.rinsim.core.model.road.AbstractRoadModel.RoadEventType;
+import com.github.rinde.rinsim.core.model.road.GenericRoadModel;
 import com.github.rinde.rinsim.core.model.road.MoveEvent;
+import com.github.rinde.rinsim.core.model.road.MoveStatistics;
 import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.core.pdptw.DefaultVehicle;
@@ -57,30 +63,77 @@ import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.google.common.base.Optional;
 
 /**
+ * Gathers the statistics of a simulation by listening to the events of the
+ * simulator, the scenario controller and the models. In fast forward mode the
+ * tracker does not listen to {@link RoadEventType#MOVE} events, instead the
+ * distances are accumulated by the road model itself (see
+ * {@link MoveStatistics}) and the vehicles that are back at the depot are
+ * determined when the statistics are requested. In this mode
+ * {@link StatisticsEventType#ALL_VEHICLES_AT_DEPOT} events are not dispatched.
+ * <p>
+ * A fork of the tracker continues with the statistics gathered so far and
+ * listens to the forks of the scenario controller, the simulator and the
+ * models. The listeners of the tracker itself are not copied.
  * @author Rinde van Lon 
  * 
  */
-final class StatsTracker implements Model<Object> {
+final class StatsTracker implements Model<Object>, ForkableModel {
+  // if we are closer than 10 cm to the depot, we say we are 'at' the depot
+  static final double MOVE_THRESHOLD = 0.0001;
 
   final EventDispatcher eventDispatcher;
   final TheListener theListener;
-  final Simulator simulator;
-  final RoadModel roadModel;
+  // the following fields are set by init()
+  ScenarioController scenarioController;
+  Simulator simulator;
+  RoadModel roadModel;
+  Optional<MoveStatistics> moveStatistics;
+  private long lastEvents;
+  private double lastDistance;
+  private int lastMovedVehicles;
 
   enum StatisticsEventType {
     PICKUP_TARDINESS, DELIVERY_TARDINESS, ALL_VEHICLES_AT_DEPOT;
   }
 
   StatsTracker(ScenarioController scenContr, Simulator sim) {
+    this(scenContr, sim, false);
+  }
+
+  StatsTracker(ScenarioController scenContr, Simulator sim,
+      boolean fastForward) {
+    this();
+    init(scenContr, sim, fastForward);
+  }
+
+  // creates an empty tracker, it is initialized by forkState
+  private StatsTracker() {
     eventDispatcher = new EventDispatcher(StatisticsEventType.values());
     theListener = new TheListener();
+  }
+
+  private void init(ScenarioController scenContr, Simulator sim,
+      boolean fastForward) {
+    scenarioController = scenContr;
     simulator = sim;
     scenContr.getEventAPI().addListener(theListener, SCENARIO_STARTED,
         SCENARIO_FINISHED, ADD_DEPOT, ADD_PARCEL, ADD_VEHICLE, TIME_OUT);
     simulator.getEventAPI().addListener(theListener, STARTED, STOPPED);
     roadModel = Optional.fromNullable(
         simulator.getModelProvider().getModel(RoadModel.class)).get();
-    roadModel.getEventAPI().addListener(theListener, MOVE);
+    if (fastForward) {
+      checkArgument(roadModel instanceof GenericRoadModel,
+          "Fast forward mode requires a GenericRoadModel, found %s.",
+          roadModel);
+      moveStatistics = Optional.of(((GenericRoadModel) roadModel)
+          .enableMoveStatistics());
+      // like the MOVE listener, moves within the threshold do not change the
+      // arrival time at the depot
+      moveStatistics.get().setMoveThreshold(MOVE_THRESHOLD);
+    } else {
+      moveStatistics = Optional.absent();
+      roadModel.getEventAPI().addListener(theListener, MOVE);
+    }
     Optional
         .fromNullable(simulator.getModelProvider().getModel(PDPModel.class))
         .get()
@@ -93,14 +146,43 @@ final class StatsTracker implements Model<Object> {
     return eventDispatcher.getPublicEventAPI();
   }
 
+  @Override
+  public StatsTracker createFork() {
+    return new StatsTracker();
+  }
+
+  // the scenario controller is forked here if it is not yet forked
+  @Override
+  public void forkState(ForkContext context) {
+    final StatsTracker fork = context.get(this);
+    fork.init(context.get(scenarioController), context.get(simulator),
+        moveStatistics.isPresent());
+    theListener.copyTo(fork.theListener, context);
+    fork.lastEvents = lastEvents;
+    fork.lastDistance = lastDistance;
+    fork.lastMovedVehicles = lastMovedVehicles;
+  }
+
   /**
    * @return A {@link StatisticsDTO} with the current simulation stats.
    */
   public StatisticsDTO getStatsDTO() {
-    final int vehicleBack = theListener.lastArrivalTimeAtDepot.size();
+    final Map<MovingRoadUser, Long> arrivalTimes;
+    final double totalDistance;
+    final int movedVehicles;
+    if (moveStatistics.isPresent()) {
+      arrivalTimes = arrivalTimesAtDepot(moveStatistics.get());
+      totalDistance = moveStatistics.get().getTotalDistance();
+      movedVehicles = moveStatistics.get().getMovedObjects();
+    } else {
+      arrivalTimes = theListener.lastArrivalTimeAtDepot;
+      totalDistance = theListener.totalDistance;
+      movedVehicles = theListener.distanceMap.size();
+    }
+    final int vehicleBack = arrivalTimes.size();
     long overTime = 0;
     if (theListener.simFinish) {
-      for (final Long time : theListener.lastArrivalTimeAtDepot.values()) {
+      for (final Long time : arrivalTimes.values()) {
         if (time - theListener.scenarioEndTime > 0) {
           overTime += time - theListener.scenarioEndTime;
         }
@@ -112,19 +194,59 @@ final class StatsTracker implements Model<Object> {
       compTime = System.currentTimeMillis() - theListener.startTimeReal;
     }
 
-    return new StatisticsDTO(theListener.totalDistance,
+    return new StatisticsDTO(totalDistance,
         theListener.totalPickups, theListener.totalDeliveries,
         theListener.totalParcels, theListener.acceptedParcels,
         theListener.pickupTardiness, theListener.deliveryTardiness, compTime,
         simulator.getCurrentTime(), theListener.simFinish, vehicleBack,
-        overTime, theListener.totalVehicles, theListener.distanceMap.size(),
+        overTime, theListener.totalVehicles, movedVehicles,
         simulator.getTimeUnit(), roadModel.getDistanceUnit(),
         roadModel.getSpeedUnit());
   }
 
-  class TheListener implements Listener {
+  // In fast forward mode the map of arrival times only contains the
+  // registration times of the vehicles, a vehicle that is at its depot arrived
+  // there at the last time it moved.
+  Map<MovingRoadUser, Long> arrivalTimesAtDepot(MoveStatistics ms) {
+    final Map<MovingRoadUser, Long> arrivalTimes = newLinkedHashMap();
+    for (final Entry<MovingRoadUser, Long> entry : theListener.lastArrivalTimeAtDepot
+        .entrySet()) {
+      final MovingRoadUser vehicle = entry.getKey();
+      if (roadModel.containsObject(vehicle)
+          && Point.distance(roadModel.getPosition(vehicle),
+              ((DefaultVehicle) vehicle).getDTO().startPosition) < MOVE_THRESHOLD) {
+        arrivalTimes.put(vehicle,
+            ms.getLastMoveTime(vehicle).or(entry.getValue()));
+      }
+    }
+    return arrivalTimes;
+  }
+
+  /**
+   * Checks whether the statistics have changed since the previous invocation
+   * of this method, changes of the current time are ignored.
+   * @return <code>true</code> if an event was handled or a vehicle moved since
+   *         the previous invocation, <code>false</code> otherwise.
+   */
+  boolean checkChanged() {
+    final double distance;
+    final int movedVehicles;
+    if (moveStatistics.isPresent()) {
+      distance = moveStatistics.get().getTotalDistance();
+      movedVehicles = moveStatistics.get().getMovedObjects();
+    } else {
+      distance = theListener.totalDistance;
+      movedVehicles = theListener.distanceMap.size();
+    }
+    final boolean changed = theListener.events != lastEvents
+        || distance != lastDistance || movedVehicles != lastMovedVehicles;
+    lastEvents = theListener.events;
+    lastDistance = distance;
+    lastMovedVehicles = movedVehicles;
+    return changed;
+  }
 
-    private static final double MOVE_THRESHOLD = 0.0001;
+  class TheListener implements Listener {
     // parcels
     protected int totalParcels;
     protected int acceptedParcels;
@@ -149,6 +271,9 @@ final class StatsTracker implements Model<Object> {
     protected boolean simFinish;
     protected long scenarioEndTime;
 
+    // the number of handled events
+    protected long events;
+
     TheListener() {
       totalParcels = 0;
       acceptedParcels = 0;
@@ -168,6 +293,7 @@ final class StatsTracker implements Model<Object> {
 
     @Override
     public void handleEvent(Event e) {
+      events++;
       if (e.getEventType() == SimulatorEventType.STARTED) {
         startTimeReal = System.currentTimeMillis();
         startTimeSim = simulator.getCurrentTime();
@@ -181,8 +307,6 @@ final class StatsTracker implements Model<Object> {
         increment(me.roadUser, me.pathProgress.distance.getValue()
             .doubleValue());
         totalDistance += me.pathProgress.distance.getValue().doubleValue();
-        // if we are closer than 10 cm to the depot, we say we are 'at'
-        // the depot
         if (Point.distance(me.roadModel.getPosition(me.roadUser),
             ((DefaultVehicle) me.roadUser).getDTO().startPosition) < MOVE_THRESHOLD) {
           // only override time if the vehicle did actually move
@@ -243,6 +367,32 @@ final class StatsTracker implements Model<Object> {
 
     }
 
+    void copyTo(TheListener fork, ForkContext context) {
+      fork.totalParcels = totalParcels;
+      fork.acceptedParcels = acceptedParcels;
+      fork.totalVehicles = totalVehicles;
+      for (final Entry<MovingRoadUser, Double> entry : distanceMap.entrySet()) {
+        fork.distanceMap.put(context.get(entry.getKey()), entry.getValue());
+      }
+      fork.totalDistance = totalDistance;
+      for (final Entry<MovingRoadUser, Long> entry : lastArrivalTimeAtDepot
+          .entrySet()) {
+        fork.lastArrivalTimeAtDepot.put(context.get(entry.getKey()),
+            entry.getValue());
+      }
+      fork.totalPickups = totalPickups;
+      fork.totalDeliveries = totalDeliveries;
+      fork.pickupTardiness = pickupTardiness;
+      fork.deliveryTardiness = deliveryTardiness;
+      fork.startTimeReal = startTimeReal;
+      fork.startTimeSim = startTimeSim;
+      fork.computationTime = computationTime;
+      fork.simulationTime = simulationTime;
+      fork.simFinish = simFinish;
+      fork.scenarioEndTime = scenarioEndTime;
+      fork.events = events;
+    }
+
     protected void increment(MovingRoadUser mru, double num) {
       if (!distanceMap.containsKey(mru)) {
         distanceMap.put(mru, num);
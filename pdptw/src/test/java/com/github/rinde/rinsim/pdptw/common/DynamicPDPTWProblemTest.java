@@ -15,8 +15,10 @@
  */
 package com.github.rinde.rinsim.pdptw.common;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
 import java.util.List;
@@ -29,17 +31,30 @@ import javax.measure.unit.NonSI;
 import javax.measure.unit.SI;
 import javax.measure.unit.Unit;
 
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.junit.Test;
 
+import com.github.rinde.rinsim.core.ForkContext;
 import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.TimeLapse;
 import com.github.rinde.rinsim.core.model.Model;
 import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
 import com.github.rinde.rinsim.core.model.pdp.PDPScenarioEvent;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.core.model.pdp.TimeWindowPolicy.TimeWindowPolicies;
 import com.github.rinde.rinsim.core.model.road.PlaneRoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.pdptw.DefaultParcel;
+import com.github.rinde.rinsim.core.pdptw.DefaultVehicle;
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.core.pdptw.VehicleDTO;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem.Creator;
 import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem.StopConditions;
+import com.github.rinde.rinsim.scenario.AddDepotEvent;
+import com.github.rinde.rinsim.scenario.AddParcelEvent;
 import com.github.rinde.rinsim.scenario.AddVehicleEvent;
 import com.github.rinde.rinsim.scenario.Scenario;
 import com.github.rinde.rinsim.scenario.TimedEvent;
@@ -85,6 +100,291 @@ public class DynamicPDPTWProblemTest {
     assertEquals(5, stats.simulationTime);
   }
 
+  /**
+   * The fast forward mode should compute the same statistics as the default
+   * mode.
+   */
+  @Test
+  public void testFastForward() {
+    final StatisticsDTO normal = simulateBackAndForth(false);
+    final StatisticsDTO fast = simulateBackAndForth(true);
+
+    assertTrue(normal.simFinish);
+    assertEquals(1, normal.vehiclesAtDepot);
+    assertTrue(normal.overTime > 0);
+    assertEquals(2d, normal.totalDistance, 1e-9);
+
+    assertEquals(normal.totalDistance, fast.totalDistance, 1e-9);
+    assertEquals(normal.simulationTime, fast.simulationTime);
+    assertEquals(normal.simFinish, fast.simFinish);
+    assertEquals(normal.vehiclesAtDepot, fast.vehiclesAtDepot);
+    assertEquals(normal.overTime, fast.overTime);
+    assertEquals(normal.totalVehicles, fast.totalVehicles);
+    assertEquals(normal.movedVehicles, fast.movedVehicles);
+  }
+
+  /**
+   * Moves at the depot that are smaller than the move threshold should not
+   * change the arrival time at the depot, in both modes.
+   */
+  @Test
+  public void testFastForwardJitter() {
+    final StatisticsDTO normal = simulateJitter(false);
+    final StatisticsDTO fast = simulateJitter(true);
+
+    assertTrue(normal.simFinish);
+    assertEquals(1, normal.vehiclesAtDepot);
+    assertTrue(normal.overTime > 0);
+    assertEqualStats(normal, fast);
+  }
+
+  /**
+   * The UI is not available in fast forward mode.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testFastForwardUI() {
+    DynamicPDPTWProblem.fastForward(new DummyScenario(asList(new TimedEvent(
+        PDPScenarioEvent.TIME_OUT, 10))), 123).enableUI();
+  }
+
+  /**
+   * A fork of a running problem should continue from the same state as the
+   * problem, simulating the fork should not affect the problem.
+   */
+  @Test
+  public void testFork() {
+    for (final boolean fastForward : asList(false, true)) {
+      final StatisticsDTO expected = createForkProblem(fastForward).simulate();
+      assertTrue(expected.totalDeliveries > 0);
+
+      final DynamicPDPTWProblem prob = createForkProblem(fastForward);
+      for (int i = 0; i < 2000; i++) {
+        prob.getSimulator().tick();
+      }
+      final StatisticsDTO before = prob.getStatistics();
+      assertTrue(before.totalPickups > 0);
+      assertTrue(before.totalDeliveries < expected.totalDeliveries);
+
+      final Simulator fork = prob.getSimulator().fork(new MersenneTwister(456));
+      assertEquals(2000, fork.getCurrentTime());
+      assertEqualStats(before, DynamicPDPTWProblem.getStats(fork));
+      fork.start();
+      assertEqualStats(expected, DynamicPDPTWProblem.getStats(fork));
+
+      // the problem itself is not affected by the fork
+      assertEqualStats(before, prob.getStatistics());
+      assertEqualStats(expected, prob.simulate());
+    }
+  }
+
+  static void assertEqualStats(StatisticsDTO expected, StatisticsDTO actual) {
+    assertEquals(expected.totalDistance, actual.totalDistance, 1e-9);
+    assertEquals(expected.totalPickups, actual.totalPickups);
+    assertEquals(expected.totalDeliveries, actual.totalDeliveries);
+    assertEquals(expected.totalParcels, actual.totalParcels);
+    assertEquals(expected.acceptedParcels, actual.acceptedParcels);
+    assertEquals(expected.pickupTardiness, actual.pickupTardiness);
+    assertEquals(expected.deliveryTardiness, actual.deliveryTardiness);
+    assertEquals(expected.simulationTime, actual.simulationTime);
+    assertEquals(expected.simFinish, actual.simFinish);
+    assertEquals(expected.vehiclesAtDepot, actual.vehiclesAtDepot);
+    assertEquals(expected.overTime, actual.overTime);
+    assertEquals(expected.totalVehicles, actual.totalVehicles);
+    assertEquals(expected.movedVehicles, actual.movedVehicles);
+  }
+
+  // two vehicles that each serve half of the parcels, a parcel is announced
+  // every ten minutes
+  DynamicPDPTWProblem createForkProblem(boolean fastForward) {
+    final long hour = 3600;
+    final List<TimedEvent> events = newArrayList();
+    events.add(new AddDepotEvent(0, new Point(5, 5)));
+    for (int i = 0; i < 2; i++) {
+      events.add(new AddVehicleEvent(0, VehicleDTO.builder()
+          .startPosition(new Point(5, 5))
+          .speed(30d)
+          .capacity(1)
+          .availabilityTimeWindow(new TimeWindow(0, 3 * hour))
+          .build()));
+    }
+    final RandomGenerator rng = new MersenneTwister(123);
+    for (int i = 0; i < 10; i++) {
+      final long time = i * 600;
+      events.add(new AddParcelEvent(ParcelDTO
+          .builder(new Point(rng.nextDouble() * 10, rng.nextDouble() * 10),
+              new Point(rng.nextDouble() * 10, rng.nextDouble() * 10))
+          .orderAnnounceTime(time)
+          .pickupTimeWindow(new TimeWindow(time, time + hour / 2))
+          .deliveryTimeWindow(new TimeWindow(time, time + hour))
+          .serviceDuration(120)
+          .build()));
+    }
+    events.add(new TimedEvent(PDPScenarioEvent.TIME_OUT, 3 * hour));
+
+    final Scenario scen = new DummyScenario(events) {
+      @Override
+      public ImmutableList<? extends Supplier<? extends Model<?>>> getModelSuppliers() {
+        return ImmutableList.<Supplier<? extends Model<?>>> builder()
+            .add(new Supplier<PDPRoadModel>() {
+              @Override
+              public PDPRoadModel get() {
+                return new PDPRoadModel(new PlaneRoadModel(new Point(0, 0),
+                    new Point(10, 10), 50d), false);
+              }
+            })
+            .add(DefaultPDPModel.supplier(TimeWindowPolicies.TARDY_ALLOWED))
+            .build();
+      }
+    };
+    final DynamicPDPTWProblem prob = fastForward ? DynamicPDPTWProblem
+        .fastForward(scen, 123) : new DynamicPDPTWProblem(scen, 123);
+    prob.addCreator(AddVehicleEvent.class, new Creator<AddVehicleEvent>() {
+      int vehicles;
+
+      @Override
+      public boolean create(Simulator sim, AddVehicleEvent event) {
+        return sim.register(new HalfVehicle(event.vehicleDTO, vehicles++));
+      }
+    });
+    return prob;
+  }
+
+  // serves the parcels with an even or odd announce time in tens of minutes
+  static class HalfVehicle extends RouteFollowingVehicle {
+    final int half;
+
+    HalfVehicle(VehicleDTO pDto, int h) {
+      super(pDto, false);
+      half = h;
+    }
+
+    @Override
+    protected void preTick(TimeLapse time) {
+      if (!getRoute().isEmpty()) {
+        return;
+      }
+      for (final Parcel p : pdpModel.get().getParcels(ParcelState.AVAILABLE,
+          ParcelState.ANNOUNCED)) {
+        final DefaultParcel dp = (DefaultParcel) p;
+        if (dp.dto.orderAnnounceTime / 600 % 2 == half) {
+          setRoute(asList(dp, dp));
+          return;
+        }
+      }
+    }
+
+    @Override
+    public HalfVehicle fork(ForkContext context) {
+      final HalfVehicle fork = new HalfVehicle(dto, half);
+      fork.initFork(this, context);
+      return fork;
+    }
+  }
+
+  // a vehicle drives 1 km and back, the scenario times out before it is back
+  StatisticsDTO simulateBackAndForth(boolean fastForward) {
+    final List<TimedEvent> events = asList(
+        new AddVehicleEvent(0, VehicleDTO.builder()
+            .startPosition(new Point(0, 0))
+            .speed(1d)
+            .capacity(1)
+            .availabilityTimeWindow(TimeWindow.ALWAYS)
+            .build()),
+        new TimedEvent(PDPScenarioEvent.TIME_OUT, 5000));
+    final Scenario scen = new DummyScenario(events) {
+      @Override
+      public StopConditions getStopCondition() {
+        return StopConditions.VEHICLES_DONE_AND_BACK_AT_DEPOT;
+      }
+    };
+    final DynamicPDPTWProblem prob = fastForward ? DynamicPDPTWProblem
+        .fastForward(scen, 123) : new DynamicPDPTWProblem(scen, 123);
+    prob.addCreator(AddVehicleEvent.class, new Creator<AddVehicleEvent>() {
+      @Override
+      public boolean create(Simulator sim, AddVehicleEvent event) {
+        return sim.register(new BackAndForthVehicle(event.vehicleDTO));
+      }
+    });
+    return prob.simulate();
+  }
+
+  // a vehicle drives 10 m and back and then keeps moving within the move
+  // threshold of the depot until the simulation is stopped
+  StatisticsDTO simulateJitter(boolean fastForward) {
+    final List<TimedEvent> events = asList(
+        new AddVehicleEvent(0, VehicleDTO.builder()
+            .startPosition(new Point(0, 0))
+            .speed(1d)
+            .capacity(1)
+            .availabilityTimeWindow(TimeWindow.ALWAYS)
+            .build()),
+        new TimedEvent(PDPScenarioEvent.TIME_OUT, 50));
+    final Scenario scen = new DummyScenario(events) {
+      @Override
+      public StopConditions getStopCondition() {
+        return StopConditions.ANY_TARDINESS;
+      }
+    };
+    final DynamicPDPTWProblem prob = fastForward ? DynamicPDPTWProblem
+        .fastForward(scen, 123) : new DynamicPDPTWProblem(scen, 123);
+    prob.addCreator(AddVehicleEvent.class, new Creator<AddVehicleEvent>() {
+      @Override
+      public boolean create(Simulator sim, AddVehicleEvent event) {
+        return sim.register(new JitterVehicle(event.vehicleDTO));
+      }
+    });
+    prob.addStopCondition(new TimeStopCondition(200));
+    return prob.simulate();
+  }
+
+  static class BackAndForthVehicle extends DefaultVehicle {
+    static final Point TARGET = new Point(1, 0);
+    boolean returning;
+
+    BackAndForthVehicle(VehicleDTO pDto) {
+      super(pDto);
+    }
+
+    @Override
+    protected void tickImpl(TimeLapse time) {
+      final RoadModel rm = roadModel.get();
+      if (!returning) {
+        rm.moveTo(this, TARGET, time);
+        returning = rm.getPosition(this).equals(TARGET);
+      } else if (!rm.getPosition(this).equals(dto.startPosition)) {
+        rm.moveTo(this, dto.startPosition, time);
+      }
+    }
+  }
+
+  static class JitterVehicle extends DefaultVehicle {
+    static final Point TARGET = new Point(.01, 0);
+    // half of the move threshold away from the depot
+    static final Point NEAR_DEPOT = new Point(.00005, 0);
+    boolean returning;
+    boolean back;
+
+    JitterVehicle(VehicleDTO pDto) {
+      super(pDto);
+    }
+
+    @Override
+    protected void tickImpl(TimeLapse time) {
+      final RoadModel rm = roadModel.get();
+      if (!returning) {
+        rm.moveTo(this, TARGET, time);
+        returning = rm.getPosition(this).equals(TARGET);
+      } else if (!back) {
+        rm.moveTo(this, dto.startPosition, time);
+        back = rm.getPosition(this).equals(dto.startPosition);
+      } else if (rm.getPosition(this).equals(dto.startPosition)) {
+        rm.moveTo(this, NEAR_DEPOT, time);
+      } else {
+        rm.moveTo(this, dto.startPosition, time);
+      }
+    }
+  }
+
   class TimeStopCondition implements Predicate<Simulator> {
     protected final long time;
 
@@ -18,7 +18,6 @@ package com.github.rinde.rinsim.scenario.fabrirecht;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Lists.newArrayList;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
@@ -35,6 +34,7 @@ import com.github.rinde.rinsim.scenario.AddVehicleEvent;
 import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.TimedEvent.TimeComparator;
+import com.github.rinde.rinsim.util.CharTokenizer;
 import com.github.rinde.rinsim.util.TimeWindow;
 import com.google.common.collect.ImmutableSet;
 
@@ -43,7 +43,7 @@ import com.google.common.collect.ImmutableSet;
  * @author Rinde van Lon
  */
 public final class FabriRechtParser {
-  private static final String LINE_SEPARATOR = ";";
+  private static final char SEPARATOR = ';';
 
   private FabriRechtParser() {}
 
@@ -63,89 +63,89 @@ public final class FabriRechtParser {
         PDPScenarioEvent.TIME_OUT);
     final List<TimedEvent> events = newArrayList();
 
-    final BufferedReader coordinateFileReader = new BufferedReader(
-        new FileReader(coordinateFile));
-    final BufferedReader ordersFileReader = new BufferedReader(new FileReader(
-        ordersFile));
-
     final List<Point> coordinates = newArrayList();
-    String line;
-    int coordinateCounter = 0;
     int minX = Integer.MAX_VALUE;
     int minY = Integer.MAX_VALUE;
     int maxX = Integer.MIN_VALUE;
     int maxY = Integer.MIN_VALUE;
-    while ((line = coordinateFileReader.readLine()) != null) {
-      final String[] parts = line.split(LINE_SEPARATOR);
-      if (Integer.parseInt(parts[0]) != coordinateCounter) {
-        coordinateFileReader.close();
-        ordersFileReader.close();
-        throw new IllegalArgumentException(
-            "The coordinate file seems to be in an unrecognized format.");
+    try (CharTokenizer coordinateTokenizer = CharTokenizer.create(
+        new FileReader(coordinateFile), SEPARATOR)) {
+      int coordinateCounter = 0;
+      while (coordinateTokenizer.nextLine()) {
+        final int id = coordinateTokenizer.nextInt();
+        if (id != coordinateCounter) {
+          throw new IllegalArgumentException(
+              "The coordinate file seems to be in an unrecognized format.");
+        }
+        final int x = coordinateTokenizer.nextInt();
+        final int y = coordinateTokenizer.nextInt();
+
+        minX = Math.min(x, minX);
+        minY = Math.min(y, minY);
+        maxX = Math.max(x, maxX);
+        maxY = Math.max(y, maxY);
+
+        coordinates.add(new Point(x, y));
+        if (id == 0) {
+          events.add(new AddDepotEvent(0, new Point(x, y)));
+        }
+        coordinateCounter++;
       }
-      final int x = Integer.parseInt(parts[1]);
-      final int y = Integer.parseInt(parts[2]);
-
-      minX = Math.min(x, minX);
-      minY = Math.min(y, minY);
-      maxX = Math.max(x, maxX);
-      maxY = Math.max(y, maxY);
-
-      coordinates.add(new Point(x, y));
-      if (Integer.parseInt(parts[0]) == 0) {
-        events.add(new AddDepotEvent(0, new Point(x, y)));
-      }
-      coordinateCounter++;
     }
-    coordinateFileReader.close();
 
     final Point min = new Point(minX, minY);
     final Point max = new Point(maxX, maxY);
 
-    // Anzahl der Fahrzeuge; Kapazität; untere Zeitfenstergrenze; obere
-    // Zeitfenstergrenze
-    final String firstLineString = ordersFileReader.readLine();
-    checkArgument(firstLineString != null);
-    final String[] firstLine = firstLineString.split(LINE_SEPARATOR);
-    // line 0 contains number of vehicles, but this is not needed
-    final int capacity = Integer.parseInt(firstLine[1]);
-    final long startTime = Long.parseLong(firstLine[2]);
-    final long endTime = Long.parseLong(firstLine[3]);
-    final TimeWindow timeWindow = new TimeWindow(startTime, endTime);
-
-    events.add(new TimedEvent(PDPScenarioEvent.TIME_OUT, endTime));
-    final VehicleDTO defaultVehicle = VehicleDTO.builder()
-        .startPosition(coordinates.get(0))
-        .speed(1d)
-        .capacity(capacity)
-        .availabilityTimeWindow(timeWindow)
-        .build();
-
-    // Nr. des Pickup-Orts; Nr. des Delivery-Orts; untere Zeitfenstergrenze
-    // Pickup; obere Zeitfenstergrenze Pickup; untere Zeitfenstergrenze
-    // Delivery; obere Zeitfenstergrenze Delivery; benötigte Kapazität;
-    // Anrufzeit; Servicezeit Pickup; Servicezeit Delivery
-    while ((line = ordersFileReader.readLine()) != null) {
-      final String[] parts = line.split(LINE_SEPARATOR);
-
-      final int neededCapacity = 1;
-
-      final ParcelDTO o = ParcelDTO
-          .builder(coordinates.get(Integer
-              .parseInt(parts[0])), coordinates.get(Integer.parseInt(parts[1])))
-          .pickupTimeWindow(
-              new TimeWindow(Long.parseLong(parts[2]), Long.parseLong(parts[3])))
-          .deliveryTimeWindow(
-              new TimeWindow(Long.parseLong(parts[4]), Long.parseLong(parts[5])))
-          .neededCapacity(neededCapacity)
-          .orderAnnounceTime(Long.parseLong(parts[7]))
-          .pickupDuration(Long.parseLong(parts[8]))
-          .deliveryDuration(Long.parseLong(parts[9]))
+    final TimeWindow timeWindow;
+    final VehicleDTO defaultVehicle;
+    try (CharTokenizer ordersTokenizer = CharTokenizer.create(new FileReader(
+        ordersFile), SEPARATOR)) {
+      // Anzahl der Fahrzeuge; Kapazität; untere Zeitfenstergrenze; obere
+      // Zeitfenstergrenze
+      checkArgument(ordersTokenizer.nextLine());
+      // token 0 contains number of vehicles, but this is not needed
+      ordersTokenizer.skipToken();
+      final int capacity = ordersTokenizer.nextInt();
+      final long startTime = ordersTokenizer.nextLong();
+      final long endTime = ordersTokenizer.nextLong();
+      timeWindow = new TimeWindow(startTime, endTime);
+
+      events.add(new TimedEvent(PDPScenarioEvent.TIME_OUT, endTime));
+      defaultVehicle = VehicleDTO.builder()
+          .startPosition(coordinates.get(0))
+          .speed(1d)
+          .capacity(capacity)
+          .availabilityTimeWindow(timeWindow)
           .build();
 
-      events.add(new AddParcelEvent(o));
+      // Nr. des Pickup-Orts; Nr. des Delivery-Orts; untere Zeitfenstergrenze
+      // Pickup; obere Zeitfenstergrenze Pickup; untere Zeitfenstergrenze
+      // Delivery; obere Zeitfenstergrenze Delivery; benötigte Kapazität;
+      // Anrufzeit; Servicezeit Pickup; Servicezeit Delivery
+      while (ordersTokenizer.nextLine()) {
+        final int neededCapacity = 1;
+        final Point pickup = coordinates.get(ordersTokenizer.nextInt());
+        final Point delivery = coordinates.get(ordersTokenizer.nextInt());
+        final TimeWindow pickupTimeWindow = new TimeWindow(
+            ordersTokenizer.nextLong(), ordersTokenizer.nextLong());
+        final TimeWindow deliveryTimeWindow = new TimeWindow(
+            ordersTokenizer.nextLong(), ordersTokenizer.nextLong());
+        // the needed capacity in the file is ignored
+        ordersTokenizer.skipToken();
+
+        final ParcelDTO o = ParcelDTO
+            .builder(pickup, delivery)
+            .pickupTimeWindow(pickupTimeWindow)
+            .deliveryTimeWindow(deliveryTimeWindow)
+            .neededCapacity(neededCapacity)
+            .orderAnnounceTime(ordersTokenizer.nextLong())
+            .pickupDuration(ordersTokenizer.nextLong())
+            .deliveryDuration(ordersTokenizer.nextLong())
+            .build();
+
+        events.add(new AddParcelEvent(o));
+      }
     }
-    ordersFileReader.close();
     Collections.sort(events, TimeComparator.INSTANCE);
     return new FabriRechtScenario(events, eventTypes, min, max,
         timeWindow, defaultVehicle);
@@ -23,7 +23,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -32,13 +31,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.RoundingMode;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,9 +56,11 @@ import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.scenario.AddDepotEvent;
 import com.github.rinde.rinsim.scenario.AddParcelEvent;
 import com.github.rinde.rinsim.scenario.AddVehicleEvent;
+import com.github.rinde.rinsim.scenario.BinaryScenarioIO;
 import com.github.rinde.rinsim.scenario.Scenario.ProblemClass;
 import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.TimedEvent.TimeComparator;
+import com.github.rinde.rinsim.util.CharTokenizer;
 import com.github.rinde.rinsim.util.TimeWindow;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
@@ -61,7 +68,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterators;
+import com.google.common.hash.Hashing;
 import com.google.common.math.DoubleMath;
 
 /**
@@ -102,6 +109,7 @@ public final class Gendreau06Parser {
   private long tickSize;
   private final ImmutableMap.Builder<String, ParcelsSupplier> parcelsSuppliers;
   private Optional<ImmutableList<ProblemClass>> problemClasses;
+  private Optional<Path> cacheDirectory;
 
   private Gendreau06Parser() {
     allowDiversion = false;
@@ -110,6 +118,7 @@ public final class Gendreau06Parser {
     tickSize = DEFAULT_TICK_SIZE;
     parcelsSuppliers = ImmutableMap.builder();
     problemClasses = Optional.absent();
+    cacheDirectory = Optional.absent();
   }
 
   /**
@@ -142,13 +151,8 @@ public final class Gendreau06Parser {
    */
   public Gendreau06Parser addFile(File file) {
     checkValidFileName(file.getName());
-    try {
-      parcelsSuppliers.put(file.getName(), new InputStreamToParcels(
-          new FileInputStream(
-              file)));
-    } catch (final FileNotFoundException e) {
-      throw new IllegalArgumentException(e);
-    }
+    checkArgument(file.isFile(), "File not found: %s", file);
+    parcelsSuppliers.put(file.getName(), new FileToParcels(file));
     return this;
   }
 
@@ -280,6 +284,24 @@ public final class Gendreau06Parser {
     return this;
   }
 
+  /**
+   * Enables caching of parsed scenarios in the binary scenario format (see
+   * {@link BinaryScenarioIO}). After a file is parsed its scenario is written
+   * to the specified directory, subsequent parses of the same file with the
+   * same parser settings read the cached scenario instead of parsing the file
+   * again. Cached scenarios are identified by the absolute path of their file.
+   * A cached scenario is ignored when it is older than its file.
+   * Scenarios that are added as a stream or as a list of events are not
+   * cached.
+   * @param directory The directory for the cached scenarios, it is created if
+   *          it doesn't exist.
+   * @return This, as per the builder pattern.
+   */
+  public Gendreau06Parser cache(Path directory) {
+    cacheDirectory = Optional.of(directory);
+    return this;
+  }
+
   /**
    * Parses the files which are added to this parser. In case
    * {@link #filter(GendreauProblemClass...)} has been called, only files in one
@@ -289,6 +311,55 @@ public final class Gendreau06Parser {
   public ImmutableList<Gendreau06Scenario> parse() {
     final ImmutableList.Builder<Gendreau06Scenario> scenarios = ImmutableList
         .builder();
+    for (final Entry<String, ParcelsSupplier> entry : selectEntries()) {
+      scenarios.add(parseEntry(entry.getKey(), entry.getValue()));
+    }
+    return scenarios.build();
+  }
+
+  /**
+   * Parses the files which are added to this parser in parallel, for example
+   * to parse an entire directory (see {@link #addDirectory(File)}) of
+   * scenarios at once. The result is identical to the result of
+   * {@link #parse()}.
+   * @param numThreads The number of threads to use.
+   * @return A list of scenarios in order of adding them to the parser.
+   */
+  public ImmutableList<Gendreau06Scenario> parseParallel(int numThreads) {
+    checkArgument(numThreads > 0,
+        "The number of threads must be strictly positive, was %s.",
+        numThreads);
+    final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      final List<Future<Gendreau06Scenario>> futures = newArrayList();
+      for (final Entry<String, ParcelsSupplier> entry : selectEntries()) {
+        futures.add(executor.submit(new Callable<Gendreau06Scenario>() {
+          @Override
+          public Gendreau06Scenario call() {
+            return parseEntry(entry.getKey(), entry.getValue());
+          }
+        }));
+      }
+      final ImmutableList.Builder<Gendreau06Scenario> scenarios = ImmutableList
+          .builder();
+      for (final Future<Gendreau06Scenario> future : futures) {
+        scenarios.add(future.get());
+      }
+      return scenarios.build();
+    } catch (final InterruptedException e) {
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  List<Entry<String, ParcelsSupplier>> selectEntries() {
+    final List<Entry<String, ParcelsSupplier>> entries = newArrayList();
     for (final Entry<String, ParcelsSupplier> entry : parcelsSuppliers.build()
         .entrySet()) {
       boolean include = false;
@@ -303,11 +374,56 @@ public final class Gendreau06Parser {
         }
       }
       if (include) {
-        scenarios.add(parse(entry.getValue(), entry.getKey(), numVehicles,
-            tickSize, allowDiversion, online));
+        entries.add(entry);
       }
     }
-    return scenarios.build();
+    return entries;
+  }
+
+  Gendreau06Scenario parseEntry(String fileName, ParcelsSupplier parcels) {
+    if (!cacheDirectory.isPresent() || !(parcels instanceof FileToParcels)) {
+      return parse(parcels, fileName, numVehicles, tickSize, allowDiversion,
+          online);
+    }
+    final Path file = ((FileToParcels) parcels).file.toPath();
+    final Path cached = cacheDirectory.get().resolve(
+        cacheFileName(fileName, file));
+    try {
+      if (Files.exists(cached)
+          && Files.getLastModifiedTime(cached).compareTo(
+              Files.getLastModifiedTime(file)) >= 0) {
+        return BinaryScenarioIO.read(cached, Gendreau06Scenario.class);
+      }
+      final Gendreau06Scenario scenario = parse(parcels, fileName,
+          numVehicles, tickSize, allowDiversion, online);
+      Files.createDirectories(cacheDirectory.get());
+      // the scenario is written to a temporary file first such that other
+      // parsers never see a partially written cache file
+      final Path tmp = Files.createTempFile(cacheDirectory.get(), fileName,
+          ".tmp");
+      BinaryScenarioIO.write(scenario, tmp);
+      Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      return scenario;
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  String cacheFileName(String fileName, Path file) {
+    // the path of the file is part of the name such that files with the same
+    // name in different directories do not share a cache file
+    final String path = file.toAbsolutePath().normalize().toString();
+    return new StringBuilder()
+        .append(fileName)
+        .append('-')
+        .append(Hashing.murmur3_128().hashString(path, Charsets.UTF_8))
+        .append("-v").append(numVehicles)
+        .append("-t").append(tickSize)
+        .append(online ? "-online" : "-offline")
+        .append(allowDiversion ? "-diversion" : "")
+        .append(".bin")
+        .toString();
   }
 
   static Matcher matcher(String fileName) {
@@ -376,37 +492,37 @@ public final class Gendreau06Parser {
       boolean online) {
     final ImmutableList.Builder<AddParcelEvent> listBuilder = ImmutableList
         .builder();
-    final BufferedReader reader = new BufferedReader(new InputStreamReader(
-        inputStream, Charsets.UTF_8));
-    String line;
-    try {
-      while ((line = reader.readLine()) != null) {
-        final Iterator<String> parts = Iterators.forArray(line.split(" "));
+    try (CharTokenizer tokenizer = CharTokenizer.create(new InputStreamReader(
+        inputStream, Charsets.UTF_8), ' ')) {
+      while (tokenizer.nextLine()) {
+        if (!tokenizer.hasNextToken()) {
+          continue;
+        }
         final long requestArrivalTime = DoubleMath.roundToLong(
-            Double.parseDouble(parts.next()) * TIME_MULTIPLIER,
+            tokenizer.nextDouble() * TIME_MULTIPLIER,
             RoundingMode.HALF_EVEN);
         // FIXME currently filtering out first and last lines of file. Is
         // this ok?
         if (requestArrivalTime >= 0) {
-          final long pickupServiceTime = Long.parseLong(parts.next())
+          final long pickupServiceTime = tokenizer.nextLong()
               * TIME_MULTIPLIER_INTEGER;
-          final double pickupX = Double.parseDouble(parts.next());
-          final double pickupY = Double.parseDouble(parts.next());
+          final double pickupX = tokenizer.nextDouble();
+          final double pickupY = tokenizer.nextDouble();
           final long pickupTimeWindowBegin = DoubleMath.roundToLong(
-              Double.parseDouble(parts.next()) * TIME_MULTIPLIER,
+              tokenizer.nextDouble() * TIME_MULTIPLIER,
               RoundingMode.HALF_EVEN);
           final long pickupTimeWindowEnd = DoubleMath.roundToLong(
-              Double.parseDouble(parts.next()) * TIME_MULTIPLIER,
+              tokenizer.nextDouble() * TIME_MULTIPLIER,
               RoundingMode.HALF_EVEN);
-          final long deliveryServiceTime = Long.parseLong(parts.next())
+          final long deliveryServiceTime = tokenizer.nextLong()
               * TIME_MULTIPLIER_INTEGER;
-          final double deliveryX = Double.parseDouble(parts.next());
-          final double deliveryY = Double.parseDouble(parts.next());
+          final double deliveryX = tokenizer.nextDouble();
+          final double deliveryY = tokenizer.nextDouble();
           final long deliveryTimeWindowBegin = DoubleMath.roundToLong(
-              Double.parseDouble(parts.next()) * TIME_MULTIPLIER,
+              tokenizer.nextDouble() * TIME_MULTIPLIER,
               RoundingMode.HALF_EVEN);
           final long deliveryTimeWindowEnd = DoubleMath.roundToLong(
-              Double.parseDouble(parts.next()) * TIME_MULTIPLIER,
+              tokenizer.nextDouble() * TIME_MULTIPLIER,
               RoundingMode.HALF_EVEN);
 
           // when an offline scenario is desired, all times are set to -1
@@ -426,7 +542,6 @@ public final class Gendreau06Parser {
           listBuilder.add(new AddParcelEvent(dto));
         }
       }
-      reader.close();
     } catch (final IOException e) {
       throw new IllegalArgumentException(e);
     }
@@ -463,6 +578,23 @@ public final class Gendreau06Parser {
     }
   }
 
+  static class FileToParcels implements ParcelsSupplier {
+    final File file;
+
+    FileToParcels(File f) {
+      file = f;
+    }
+
+    @Override
+    public ImmutableList<AddParcelEvent> get(boolean online) {
+      try {
+        return parseParcels(new FileInputStream(file), online);
+      } catch (final FileNotFoundException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
   static class Parcels implements ParcelsSupplier {
     final ImmutableList<AddParcelEvent> parcels;
 
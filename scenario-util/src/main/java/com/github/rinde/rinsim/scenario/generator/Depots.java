@@ -129,18 +129,16 @@ public final class Depots {
     private final StochasticSupplier<Point> positions;
     private final StochasticSupplier<Integer> numberOfDepots;
     private final StochasticSupplier<Long> times;
-    private final RandomGenerator rng;
 
     MultiDepotGenerator(Builder b) {
       positions = b.positions;
       numberOfDepots = b.numberOfDepots;
       times = b.times;
-      rng = new MersenneTwister();
     }
 
     @Override
     public Iterable<? extends AddDepotEvent> generate(long seed, Point center) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final int num = numberOfDepots.get(rng.nextLong());
       final ImmutableList.Builder<AddDepotEvent> builder = ImmutableList
           .builder();
@@ -71,6 +71,26 @@ public final class IntensityFunctions {
     return val;
   }
 
+  /**
+   * Computes an upper bound of the specified intensity function in the range
+   * <code>[lb,ub]</code>. For sine intensity functions (see
+   * {@link #sineIntensity()}) the bound is the maximum of the function in the
+   * range, for all other functions it is {@link IntensityFunction#getMax()}.
+   * @param f The intensity function.
+   * @param lb The lower bound of the range.
+   * @param ub The upper bound of the range.
+   * @return The upper bound, never larger than
+   *         {@link IntensityFunction#getMax()}.
+   */
+  public static double upperBound(IntensityFunction f, double lb, double ub) {
+    checkArgument(lb <= ub, "Lower bound (%s) must be <= upper bound (%s).",
+        lb, ub);
+    if (f instanceof SineIntensity) {
+      return ((SineIntensity) f).max(lb, ub);
+    }
+    return f.getMax();
+  }
+
   /**
    * @return A new builder for creating sine {@link IntensityFunction}
    *         instances.
@@ -110,6 +130,7 @@ public final class IntensityFunctions {
     private static final double HALF_PI = .5 * Math.PI;
     private static final double TWO_PI = 2d * Math.PI;
     private static final double ONE_FOURTH = .25d;
+    private static final double MAX_TOLERANCE = 1e-9;
 
     final double amplitude;
     final double height;
@@ -140,6 +161,26 @@ public final class IntensityFunctions {
               + height);
     }
 
+    /**
+     * Computes the maximum of this function in the range <code>[lb,ub]</code>.
+     * @param lb The lower bound of the range.
+     * @param ub The upper bound of the range.
+     * @return The maximum.
+     */
+    double max(double lb, double ub) {
+      // the peaks of the sine are at x = (k + 1/4 + phaseShift/2) / frequency
+      final double offset = ONE_FOURTH + phaseShift / 2d;
+      final double firstPeak = (Math.ceil(lb * frequency - offset) + offset)
+          / frequency;
+      if (firstPeak <= ub) {
+        return getMax();
+      }
+      // without a peak in the range the function has its maximum at one of the
+      // bounds, a small margin is added to compensate for rounding errors
+      final double max = Math.max(apply(lb), apply(ub));
+      return Math.min(getMax(), max + MAX_TOLERANCE * getMax());
+    }
+
     /**
      * @return The amplitude of this sine function.
      */
@@ -455,7 +455,6 @@ public final class Locations {
   private static class SupplierLocGen extends AbstractLocGen {
     private final StochasticSupplier<Double> xSupplier;
     private final StochasticSupplier<Double> ySupplier;
-    private final RandomGenerator rng;
 
     SupplierLocGen(Point mi, Point ma, Point ce,
         StochasticSupplier<Double> xSup,
@@ -463,12 +462,11 @@ public final class Locations {
       super(mi, ma, ce);
       xSupplier = xSup;
       ySupplier = ySup;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<Point> generate(long seed, int numOrders) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final ImmutableList.Builder<Point> locs = ImmutableList.builder();
       for (int i = 0; i < numOrders; i++) {
         locs.add(new Point(
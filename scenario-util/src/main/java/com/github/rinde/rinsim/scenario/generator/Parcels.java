@@ -84,7 +84,6 @@ public final class Parcels {
   }
 
   static class DefaultParcelGenerator implements ParcelGenerator {
-    private final RandomGenerator rng;
     private final TimeSeriesGenerator announceTimeGenerator;
     private final LocationGenerator locationGenerator;
     private final TimeWindowGenerator timeWindowGenerator;
@@ -93,7 +92,6 @@ public final class Parcels {
     private final StochasticSupplier<Integer> neededCapacityGenerator;
 
     DefaultParcelGenerator(Builder b) {
-      rng = new MersenneTwister();
       announceTimeGenerator = b.announceTimeGenerator;
       locationGenerator = b.locationGenerator;
       timeWindowGenerator = b.timeWindowGenerator;
@@ -105,7 +103,7 @@ public final class Parcels {
     @Override
     public ImmutableList<AddParcelEvent> generate(long seed,
         TravelTimes travelModel, long endTime) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final ImmutableList.Builder<AddParcelEvent> eventList = ImmutableList
           .builder();
       final List<Double> times = announceTimeGenerator.generate(rng.nextLong());
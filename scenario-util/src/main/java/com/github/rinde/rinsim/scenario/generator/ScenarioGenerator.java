@@ -18,8 +18,16 @@ package com.github.rinde.rinsim.scenario.generator;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Lists.newArrayList;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.measure.Measure;
 import javax.measure.quantity.Duration;
@@ -27,6 +35,7 @@ import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
 import javax.measure.unit.Unit;
 
+import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import com.github.rinde.rinsim.core.model.Model;
@@ -39,16 +48,21 @@ import com.github.rinde.rinsim.scenario.AddVehicleEvent;
 import com.github.rinde.rinsim.scenario.Scenario;
 import com.github.rinde.rinsim.scenario.Scenario.AbstractBuilder;
 import com.github.rinde.rinsim.scenario.Scenario.ProblemClass;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.generator.Depots.DepotGenerator;
 import com.github.rinde.rinsim.scenario.generator.Models.ModelSupplierScenGen;
 import com.github.rinde.rinsim.scenario.generator.Parcels.ParcelGenerator;
 import com.github.rinde.rinsim.scenario.generator.Vehicles.VehicleGenerator;
 import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 
 /**
  * A generator of {@link Scenario}s.
@@ -181,6 +195,97 @@ public final class ScenarioGenerator {
         .build();
   }
 
+  /**
+   * Generates a new {@link Scenario} instance using a random seed that is
+   * derived from the master seed and the id, see
+   * {@link #deriveSeed(long, String)}. The result only depends on the master
+   * seed and the id, not on the order in which scenarios are generated.
+   * @param masterSeed The master seed.
+   * @param id The id of this specific scenario.
+   * @return A new instance.
+   */
+  public Scenario generate(long masterSeed, String id) {
+    return generate(new MersenneTwister(deriveSeed(masterSeed, id)), id);
+  }
+
+  /**
+   * Generates a scenario for each of the specified ids (using
+   * {@link #generate(long, String)}) and writes it to a file in the specified
+   * directory using {@link ScenarioIO}. The file of a scenario is named
+   * <code>id.json</code>, existing files are overwritten. The scenarios are
+   * generated and written in parallel and are not kept in memory. Since the
+   * scenario of an id only depends on the master seed and the id, the files
+   * are identical regardless of the number of threads. Note that this
+   * requires that all generators and suppliers that are used by this
+   * generator are thread safe, all generators and suppliers that are
+   * provided by RinSim are.
+   * @param masterSeed The master seed.
+   * @param ids The ids of the scenarios, must be unique.
+   * @param directory The directory to write the scenarios to, it is created if
+   *          it doesn't exist.
+   * @param numThreads The number of threads to use.
+   * @return The files of the generated scenarios, in the same order as the
+   *         ids.
+   */
+  public ImmutableList<Path> generate(final long masterSeed,
+      Iterable<String> ids, Path directory, int numThreads) {
+    checkArgument(numThreads > 0,
+        "The number of threads must be strictly positive, was %s.",
+        numThreads);
+    final ImmutableSet<String> idSet = ImmutableSet.copyOf(ids);
+    checkArgument(idSet.size() == Iterables.size(ids),
+        "All ids must be unique, found: %s.", ids);
+    try {
+      Files.createDirectories(directory);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      final List<Future<Path>> futures = newArrayList();
+      for (final String id : idSet) {
+        final Path file = directory.resolve(id + ".json");
+        futures.add(executor.submit(new Callable<Path>() {
+          @Override
+          public Path call() throws IOException {
+            ScenarioIO.write(generate(masterSeed, id), file);
+            return file;
+          }
+        }));
+      }
+      final ImmutableList.Builder<Path> files = ImmutableList.builder();
+      for (final Future<Path> future : futures) {
+        files.add(future.get());
+      }
+      return files.build();
+    } catch (final InterruptedException e) {
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Derives a random seed for a scenario from a master seed and the id of the
+   * scenario. The seeds of different ids are independent of each other.
+   * @param masterSeed The master seed.
+   * @param id The id of the scenario.
+   * @return The seed for the scenario.
+   */
+  public static long deriveSeed(long masterSeed, String id) {
+    return Hashing.murmur3_128().newHasher()
+        .putLong(masterSeed)
+        .putString(id, Charsets.UTF_8)
+        .hash()
+        .asLong();
+  }
+
   /**
    * Create a {@link Builder} for constructing {@link ScenarioGenerator}s.
    * @param problemClass The {@link ProblemClass} of the scenarios that will be
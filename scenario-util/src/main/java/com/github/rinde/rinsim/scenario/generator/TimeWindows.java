@@ -166,7 +166,6 @@ public final class TimeWindows {
   }
 
   static class DefaultTimeWindowGenerator implements TimeWindowGenerator {
-    private final RandomGenerator rng;
     private final StochasticSupplier<Long> pickupUrgency;
     private final StochasticSupplier<Long> pickupTWLength;
     private final StochasticSupplier<Long> deliveryOpening;
@@ -174,7 +173,6 @@ public final class TimeWindows {
     private final Optional<StochasticSupplier<Long>> minDeliveryLength;
 
     DefaultTimeWindowGenerator(Builder b) {
-      rng = new MersenneTwister();
       pickupUrgency = b.pickupUrgency;
       pickupTWLength = b.pickupTWLength;
       deliveryOpening = b.deliveryOpening;
@@ -185,7 +183,7 @@ public final class TimeWindows {
     @Override
     public void generate(long seed, ParcelDTO.Builder parcelBuilder,
         TravelTimes travelTimes, long endTime) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final long orderAnnounceTime = parcelBuilder.getOrderAnnounceTime();
       final Point pickup = parcelBuilder.getPickupLocation();
       final Point delivery = parcelBuilder.getDeliveryLocation();
@@ -202,9 +200,9 @@ public final class TimeWindows {
       final long latestPickupClosing = endTime - deliveryToDepotTT
           - pickupToDeliveryTT - parcelBuilder.getPickupDuration()
           - parcelBuilder.getDeliveryDuration();
-      final TimeWindow pickupTW = urgencyTimeWindow(earliestPickupOpening,
-          earliestPickupClosing, latestPickupClosing, pickupUrgency,
-          pickupTWLength);
+      final TimeWindow pickupTW = urgencyTimeWindow(rng,
+          earliestPickupOpening, earliestPickupClosing, latestPickupClosing,
+          pickupUrgency, pickupTWLength);
 
       // DELIVERY
       final long earliestDeliveryOpening = pickupTW.begin + pickupToDeliveryTT
@@ -247,9 +245,9 @@ public final class TimeWindows {
       return Math.max(lowerBound, Math.min(value, upperBound));
     }
 
-    TimeWindow urgencyTimeWindow(long earliestOpening, long earliestClosing,
-        long latestClosing, StochasticSupplier<Long> urgency,
-        StochasticSupplier<Long> length) {
+    static TimeWindow urgencyTimeWindow(RandomGenerator rng,
+        long earliestOpening, long earliestClosing, long latestClosing,
+        StochasticSupplier<Long> urgency, StochasticSupplier<Long> length) {
       final long closing = boundValue(
           earliestClosing + urgency.get(rng.nextLong()), earliestClosing,
           latestClosing);
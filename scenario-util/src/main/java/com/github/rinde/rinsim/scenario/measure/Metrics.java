@@ -19,9 +19,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
@@ -128,30 +130,84 @@ public final class Metrics {
     return ImmutableList.of(pickupPart, travelPart, deliveryPart);
   }
 
+  /**
+   * Sums the load parts at every time instance, starting at <code>st</code>
+   * and ending at the last end of the parts. Instead of visiting all parts at
+   * every time instance, the parts are sorted by their begin and end times and
+   * the load is only recomputed at these boundaries: in between two
+   * consecutive boundaries the set of active parts and therefore the load is
+   * constant. The load of a time instance is the sum of the loads of the
+   * active parts in the order of the specified list, divided by
+   * <code>num</code>.
+   * @param st The first time instance.
+   * @param parts The load parts, duplicates are ignored.
+   * @param num The number of vehicles to divide the load by.
+   * @return The load at every time instance, the value at index
+   *         <code>i</code> is the load at time <code>st + i</code>.
+   */
   static ImmutableList<Double> sum(long st, List<LoadPart> parts, int num) {
     checkArgument(num >= 1);
+    final List<LoadPart> list = newArrayList(newLinkedHashSet(parts));
+    final int n = list.size();
+    final Integer[] byBegin = new Integer[n];
+    final Integer[] byEnd = new Integer[n];
+    long maxEnd = Long.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      byBegin[i] = i;
+      byEnd[i] = i;
+      maxEnd = Math.max(maxEnd, list.get(i).end());
+    }
+    Arrays.sort(byBegin, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return Long.compare(list.get(o1).begin(), list.get(o2).begin());
+      }
+    });
+    Arrays.sort(byEnd, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return Long.compare(list.get(o1).end(), list.get(o2).end());
+      }
+    });
+
     final ImmutableList.Builder<Double> builder = ImmutableList.builder();
+    final BitSet active = new BitSet(n);
+    int nextBegin = 0;
+    int nextEnd = 0;
     long i = st;
-    final Set<LoadPart> partSet = newLinkedHashSet(parts);
-    while (!partSet.isEmpty()) {
-      double currentLoadVal = 0d;
-      final List<LoadPart> toRemove = newArrayList();
-      for (final LoadPart lp : partSet) {
-        if (lp.isIn(i)) {
-          currentLoadVal += lp.get(i);
-        }
-        if (!lp.isBeforeEnd(i)) {
-          toRemove.add(lp);
+    while (i < maxEnd) {
+      while (nextBegin < n && list.get(byBegin[nextBegin]).begin() <= i) {
+        if (list.get(byBegin[nextBegin]).end() > i) {
+          active.set(byBegin[nextBegin]);
         }
+        nextBegin++;
+      }
+      while (nextEnd < n && list.get(byEnd[nextEnd]).end() <= i) {
+        active.clear(byEnd[nextEnd]);
+        nextEnd++;
       }
-      partSet.removeAll(toRemove);
 
-      if (!partSet.isEmpty()) {
-        if (num > 1) {
-          currentLoadVal /= num;
-        }
-        builder.add(currentLoadVal);
-        i++;
+      // the parts are added in list order such that the result is exactly
+      // the same as when the parts are visited one by one
+      double currentLoadVal = 0d;
+      for (int p = active.nextSetBit(0); p >= 0; p = active.nextSetBit(p + 1)) {
+        currentLoadVal += list.get(p).load();
+      }
+      if (num > 1) {
+        currentLoadVal /= num;
+      }
+
+      long nextBoundary = maxEnd;
+      if (nextBegin < n) {
+        nextBoundary = Math.min(nextBoundary, list.get(byBegin[nextBegin])
+            .begin());
+      }
+      if (nextEnd < n) {
+        nextBoundary = Math.min(nextBoundary, list.get(byEnd[nextEnd]).end());
+      }
+      final Double value = currentLoadVal;
+      for (; i < nextBoundary; i++) {
+        builder.add(value);
       }
     }
     return builder.build();
@@ -467,6 +523,10 @@ public final class Metrics {
       return tw.length();
     }
 
+    double load() {
+      return load;
+    }
+
     double get(long i) {
       if (tw.isIn(i)) {
         return load;
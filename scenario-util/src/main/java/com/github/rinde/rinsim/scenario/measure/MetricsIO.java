@@ -15,11 +15,21 @@
  */
 package com.github.rinde.rinsim.scenario.measure;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.scenario.Scenario;
 import com.google.common.annotations.Beta;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
@@ -119,4 +129,61 @@ public final class MetricsIO {
       throw new IllegalStateException(e);
     }
   }
+
+  /**
+   * Measures all scenarios of a data set in parallel and writes the results to
+   * the specified directory. For a scenario with name <code>name</code> the
+   * following files are written:
+   * <ul>
+   * <li><code>name.load</code> containing the load, see
+   * {@link #writeLoads(List, File)},</li>
+   * <li><code>name.times</code> containing the order arrival times, see
+   * {@link #writeTimes(double, List, File)},</li>
+   * <li><code>name.locations</code> containing the service points, see
+   * {@link #writeLocationList(List, File)}.</li>
+   * </ul>
+   * @param scenarios The scenarios to measure, keyed by their name.
+   * @param dir The directory to write to, it is created if it doesn't exist.
+   * @param numThreads The number of threads to use.
+   */
+  public static void writeMetrics(Map<String, ? extends Scenario> scenarios,
+      final File dir, int numThreads) {
+    checkArgument(numThreads > 0,
+        "The number of threads must be strictly positive, was %s.",
+        numThreads);
+    final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      final List<Future<?>> futures = newArrayList();
+      for (final Entry<String, ? extends Scenario> entry : scenarios
+          .entrySet()) {
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            writeMetrics(entry.getValue(), new File(dir, entry.getKey()));
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  static void writeMetrics(Scenario s, File prefix) {
+    final String path = prefix.getPath();
+    writeLoads(Metrics.measureLoad(s), new File(path + ".load"));
+    writeTimes(s.getTimeWindow().end, Metrics.getOrderArrivalTimes(s),
+        new File(path + ".times"));
+    writeLocationList(Metrics.getServicePoints(s), new File(path
+        + ".locations"));
+  }
 }
@@ -25,9 +25,15 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.rinde.rinsim.core.model.pdp.PDPScenarioEvent;
 import com.github.rinde.rinsim.pdptw.common.PDPRoadModel;
@@ -35,6 +41,7 @@ import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Parser;
 import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06Scenario;
 import com.github.rinde.rinsim.scenario.gendreau06.GendreauProblemClass;
+import com.google.common.base.Charsets;
 
 /**
  * @author Rinde van Lon 
@@ -46,6 +53,12 @@ public class Gendreau06ParserTest {
   private static final String FILE_DIR = "files/test/gendreau06/";
   private static final String FILE_PATH = FILE_DIR + FILE_NAME;
 
+  /**
+   * Temporary folder for cached scenarios.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   /**
    * Test for default behavior for all (convenience) methods.
    * @throws FileNotFoundException When file is not available.
@@ -214,6 +227,105 @@ public class Gendreau06ParserTest {
     Gendreau06Parser.parser().setNumVehicles(0);
   }
 
+  /**
+   * Parsing in parallel should give the same scenarios in the same order as
+   * parsing sequentially.
+   * @throws FileNotFoundException When file is not available.
+   */
+  @Test
+  public void parseParallelTest() throws FileNotFoundException {
+    final Gendreau06Parser parser = parser()
+        .addDirectory(FILE_DIR)
+        .addFile(new FileInputStream(FILE_PATH), "req_rapide_2_240_24")
+        .addFile(new FileInputStream(FILE_PATH), "req_rapide_3_240_24")
+        .setNumVehicles(3);
+    final List<Gendreau06Scenario> scenarios = parser.parseParallel(2);
+    assertEquals(3, scenarios.size());
+    assertEquals(parser().addFile(FILE_PATH).setNumVehicles(3).parse(),
+        scenarios.subList(0, 1));
+    assertEquals("1", scenarios.get(0).getProblemInstanceId());
+    assertEquals("2", scenarios.get(1).getProblemInstanceId());
+    assertEquals("3", scenarios.get(2).getProblemInstanceId());
+    for (final Gendreau06Scenario scen : scenarios) {
+      containsVehicles(scen, 3);
+    }
+  }
+
+  /**
+   * Scenarios should be written to and read from the cache, the cached
+   * scenario should be identical to the parsed scenario.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void cacheTest() throws IOException {
+    final Path cacheDir = tempFolder.getRoot().toPath();
+    final Gendreau06Scenario parsed = parser()
+        .addFile(FILE_PATH)
+        .allowDiversion()
+        .cache(cacheDir)
+        .parse()
+        .get(0);
+    final Path cached = cacheDir.resolve(parser().allowDiversion()
+        .cacheFileName(FILE_NAME, new File(FILE_PATH).toPath()));
+    assertTrue(Files.exists(cached));
+    final long modified = Files.getLastModifiedTime(cached).toMillis();
+
+    final Gendreau06Scenario fromCache = parser()
+        .addFile(FILE_PATH)
+        .allowDiversion()
+        .cache(cacheDir)
+        .parse()
+        .get(0);
+    assertEquals(modified, Files.getLastModifiedTime(cached).toMillis());
+    assertEquals(parsed, fromCache);
+    assertEquals(parsed.getProblemClass(), fromCache.getProblemClass());
+    assertEquals(parsed.getProblemInstanceId(),
+        fromCache.getProblemInstanceId());
+    assertEquals(parsed.getTickSize(), fromCache.getTickSize());
+    assertTrue(isDiversionAllowed(fromCache));
+
+    // different settings use a different cache file
+    final Gendreau06Scenario offline = parser()
+        .addFile(FILE_PATH)
+        .offline()
+        .cache(cacheDir)
+        .parse()
+        .get(0);
+    assertFalse(isOnline(offline));
+    assertFalse(isDiversionAllowed(offline));
+    assertEquals(2, cacheDir.toFile().list().length);
+  }
+
+  /**
+   * Files with the same name in different directories should not share a
+   * cached scenario, also when the second file is older than the cache.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void cacheSameFileNameTest() throws IOException {
+    final Path cacheDir = tempFolder.newFolder("cache").toPath();
+    final Path source = new File(FILE_PATH).toPath();
+    final List<String> lines = Files.readAllLines(source, Charsets.UTF_8);
+    final Path first = tempFolder.newFolder("a").toPath().resolve(FILE_NAME);
+    final Path second = tempFolder.newFolder("b").toPath().resolve(FILE_NAME);
+    Files.copy(source, first);
+    Files.write(second, lines.subList(0, lines.size() / 2), Charsets.UTF_8);
+    Files.setLastModifiedTime(second, FileTime.fromMillis(0));
+
+    parser().addFile(first.toString()).cache(cacheDir).parse();
+    final Gendreau06Scenario cached = parser()
+        .addFile(second.toString())
+        .cache(cacheDir)
+        .parse()
+        .get(0);
+    final Gendreau06Scenario parsed = parser()
+        .addFile(second.toString())
+        .parse()
+        .get(0);
+    assertEquals(parsed, cached);
+    assertEquals(2, cacheDir.toFile().list().length);
+  }
+
   static void containsVehicles(Gendreau06Scenario scen, int num) {
     int vehicles = 0;
     for (final TimedEvent e : scen.asList()) {
@@ -18,6 +18,7 @@ package com.github.rinde.rinsim.scenario.generator;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedWriter;
@@ -31,6 +32,7 @@ import javax.annotation.Nullable;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
+import org.apache.commons.math3.stat.inference.KolmogorovSmirnovTest;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -45,6 +47,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
+import com.google.common.primitives.Doubles;
 
 public class NHPoissonProcessTest {
 
@@ -217,6 +220,100 @@ public class NHPoissonProcessTest {
     }
   }
 
+  /**
+   * Checks whether
+   * {@link TimeSeries#nonHomogenousPoisson(double, IntensityFunction, int)}
+   * generates time series with the same distribution as
+   * {@link TimeSeries#nonHomogenousPoisson(double, IntensityFunction)}. The
+   * number of events is compared with the area under the intensity function
+   * and the times of the events of both processes are compared using a two
+   * sample Kolmogorov-Smirnov test.
+   */
+  @Test
+  public void testEnvelopeDistribution() {
+    final double length = 4 * 3600d;
+    final int numSamples = 2000;
+    final IntensityFunction intensity = IntensityFunctions.sineIntensity()
+        .height(-.9)
+        .period(3600d)
+        .area(10d)
+        .build();
+    final double expectedEvents = IntensityFunctions.areaByIntegration(
+        intensity, 0, length);
+
+    final TimeSeriesGenerator global = TimeSeries.nonHomogenousPoisson(
+        length, intensity);
+    final TimeSeriesGenerator envelope = TimeSeries.nonHomogenousPoisson(
+        length, intensity, 64);
+
+    final RandomGenerator rng = new MersenneTwister(123);
+    final List<Double> globalTimes = newArrayList();
+    final List<Double> envelopeTimes = newArrayList();
+    for (int i = 0; i < numSamples; i++) {
+      globalTimes.addAll(global.generate(rng.nextLong()));
+      final List<Double> times = envelope.generate(rng.nextLong());
+      for (int j = 1; j < times.size(); j++) {
+        assertTrue(times.get(j - 1) <= times.get(j));
+      }
+      envelopeTimes.addAll(times);
+    }
+
+    // the number of events is Poisson distributed, the mean number of events
+    // should be within four standard errors of the expected number of events
+    final double maxDeviation = 4 * Math.sqrt(expectedEvents / numSamples);
+    assertEquals(expectedEvents, (double) globalTimes.size() / numSamples,
+        maxDeviation);
+    assertEquals(expectedEvents, (double) envelopeTimes.size() / numSamples,
+        maxDeviation);
+
+    final double pValue = new KolmogorovSmirnovTest().kolmogorovSmirnovTest(
+        Doubles.toArray(globalTimes), Doubles.toArray(envelopeTimes));
+    assertTrue("p-value: " + pValue, pValue > .001);
+  }
+
+  /**
+   * Compares the speed of thinning with respect to the global maximum and with
+   * respect to a piecewise constant envelope for intensity functions with
+   * increasingly high peaks.
+   */
+  @Ignore
+  @Test
+  public void benchmarkEnvelope() {
+    final double length = 4 * 60 * 60 * 1000d;
+    final int numSamples = 1000;
+    final double[] relHeights = new double[] { 1, 0, -.5, -.9, -.99 };
+    for (final double relHeight : relHeights) {
+      final IntensityFunction intensity = IntensityFunctions.sineIntensity()
+          .height(relHeight)
+          .period(30 * 60 * 1000d)
+          .area(10d)
+          .build();
+      final TimeSeriesGenerator global = TimeSeries.nonHomogenousPoisson(
+          length, intensity);
+      final TimeSeriesGenerator envelope = TimeSeries.nonHomogenousPoisson(
+          length, intensity, 256);
+
+      final long globalNanos = time(global, numSamples);
+      final long envelopeNanos = time(envelope, numSamples);
+      System.out.printf(
+          "relative height: %1.2f global: %1.3f ms envelope: %1.3f ms%n",
+          relHeight, globalNanos / 1000000d / numSamples,
+          envelopeNanos / 1000000d / numSamples);
+    }
+  }
+
+  static long time(TimeSeriesGenerator tsg, int numSamples) {
+    // warm up
+    for (int i = 0; i < numSamples; i++) {
+      tsg.generate(i);
+    }
+    final long start = System.nanoTime();
+    for (int i = 0; i < numSamples; i++) {
+      tsg.generate(i);
+    }
+    return System.nanoTime() - start;
+  }
+
   private static class DynamismModel {
     private static double X_MIN = -.99;
     private static double X_MAX = 1.0;
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.model.pdp.TimeWindowPolicy.TimeWindowPolicies;
+import com.github.rinde.rinsim.pdptw.common.DynamicPDPTWProblem.StopConditions;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for batch generation of scenarios in {@link ScenarioGenerator}.
+ * @author Rinde van Lon
+ */
+public class ScenarioGeneratorTest {
+  /**
+   * Temporary folder for the generated scenarios.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * The generated files should not depend on the number of threads or on the
+   * order of the ids.
+   * @throws IOException When reading the generated files fails.
+   */
+  @Test
+  public void testBatchDeterministic() throws IOException {
+    final ScenarioGenerator generator = ScenarioGenerator.builder()
+        .timeUnit(SI.MILLI(SI.SECOND))
+        .distanceUnit(SI.KILOMETER)
+        .speedUnit(NonSI.KILOMETERS_PER_HOUR)
+        .tickSize(1000L)
+        .scenarioLength(4 * 60 * 60 * 1000L)
+        .stopCondition(Predicates.and(StopConditions.ANY_TARDINESS,
+            StopConditions.TIME_OUT_EVENT))
+        .parcels(Parcels.builder()
+            .announceTimes(
+                TimeSeries.homogenousPoisson(4 * 60 * 60 * 1000L, 20))
+            .locations(Locations.builder().square(5).buildUniform())
+            .timeWindows(TimeWindows.builder().build())
+            .build())
+        .addModel(Models.roadModel(50d, true))
+        .addModel(Models.pdpModel(TimeWindowPolicies.TARDY_ALLOWED))
+        .build();
+
+    final ImmutableList<String> ids = ImmutableList.of("a", "b", "c", "d", "e", "f");
+    final Path dir1 = tempFolder.newFolder().toPath();
+    final Path dir4 = tempFolder.newFolder().toPath();
+    final List<Path> files1 = generator.generate(123L, ids, dir1, 1);
+    final List<Path> files4 = generator.generate(123L, ids.subList(3, 6)
+        .reverse(), dir4, 4);
+    generator.generate(123L, ids.subList(0, 3), dir4, 4);
+
+    assertEquals(ids.size(), files1.size());
+    assertEquals(dir4.resolve("f.json"), files4.get(0));
+    for (final String id : ids) {
+      final Path f1 = dir1.resolve(id + ".json");
+      final Path f4 = dir4.resolve(id + ".json");
+      assertArrayEquals(Files.readAllBytes(f1), Files.readAllBytes(f4));
+
+      final Scenario scen = ScenarioIO.read(f1);
+      assertEquals(id, scen.getProblemInstanceId());
+      assertEquals(generator.generate(123L, id), scen);
+    }
+    assertNotEquals(ScenarioGenerator.deriveSeed(123L, "a"),
+        ScenarioGenerator.deriveSeed(123L, "b"));
+    assertNotEquals(ScenarioGenerator.deriveSeed(123L, "a"),
+        ScenarioGenerator.deriveSeed(124L, "a"));
+  }
+}
@@ -197,4 +197,32 @@ public class SineIntensityTest {
       }
     }
   }
+
+  /**
+   * Tests that the upper bound of a range is at least the value of the
+   * function at every point in the range and equals the maximum in the range.
+   */
+  @Test
+  public void upperBoundTest() {
+    final IntensityFunction sine = IntensityFunctions.sineIntensity()
+        .height(-.5)
+        .period(100d)
+        .phaseShift(.3)
+        .build();
+    final int steps = 100;
+    for (int lb = 0; lb < 300; lb += 7) {
+      for (int len = 1; len < 120; len += 13) {
+        final double bound = IntensityFunctions.upperBound(sine, lb, lb + len);
+        double max = 0d;
+        for (int i = 0; i <= steps; i++) {
+          final double x = lb + (double) i * len / steps;
+          final double val = sine.apply(x);
+          assertTrue(bound >= val);
+          max = Math.max(max, val);
+        }
+        assertTrue(bound <= sine.getMax());
+        assertEquals(max, bound, .01);
+      }
+    }
+  }
 }
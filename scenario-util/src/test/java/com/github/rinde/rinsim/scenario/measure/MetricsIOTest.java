@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario.measure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.model.pdp.TimeWindowPolicy.TimeWindowPolicies;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.generator.Locations;
+import com.github.rinde.rinsim.scenario.generator.Models;
+import com.github.rinde.rinsim.scenario.generator.Parcels;
+import com.github.rinde.rinsim.scenario.generator.ScenarioGenerator;
+import com.github.rinde.rinsim.scenario.generator.TimeSeries;
+import com.github.rinde.rinsim.scenario.generator.TimeWindows;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@link MetricsIO}.
+ * @author Rinde van Lon
+ */
+public class MetricsIOTest {
+  /**
+   * Temporary folder for the metric files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * Measuring a data set in parallel should write the same files as measuring
+   * each scenario separately.
+   * @throws IOException When reading the written files fails.
+   */
+  @Test
+  public void testWriteMetrics() throws IOException {
+    final ScenarioGenerator generator = ScenarioGenerator.builder()
+        .timeUnit(NonSI.MINUTE)
+        .distanceUnit(SI.KILOMETER)
+        .speedUnit(NonSI.KILOMETERS_PER_HOUR)
+        .tickSize(1L)
+        .scenarioLength(4 * 60L)
+        .parcels(Parcels.builder()
+            .announceTimes(
+                TimeSeries.homogenousPoisson(4 * 60L, 20))
+            .locations(Locations.builder().square(5).buildUniform())
+            .timeWindows(TimeWindows.builder().build())
+            .build())
+        .addModel(Models.roadModel(50d, true))
+        .addModel(Models.pdpModel(TimeWindowPolicies.TARDY_ALLOWED))
+        .build();
+    final Map<String, Scenario> scenarios = ImmutableMap.of(
+        "a", generator.generate(123L, "a"),
+        "b", generator.generate(123L, "b"),
+        "c", generator.generate(123L, "c"));
+    final File dir = new File(tempFolder.getRoot(), "parallel");
+    MetricsIO.writeMetrics(scenarios, dir, 2);
+
+    final File expectedDir = tempFolder.newFolder("sequential");
+    for (final String name : scenarios.keySet()) {
+      MetricsIO.writeMetrics(scenarios.get(name), new File(expectedDir, name));
+      for (final String ext : new String[] { ".load", ".times", ".locations" }) {
+        final File actual = new File(dir, name + ext);
+        assertTrue(actual.exists());
+        assertEquals(
+            Files.toString(new File(expectedDir, name + ext), Charsets.UTF_8),
+            Files.toString(actual, Charsets.UTF_8));
+      }
+    }
+    assertEquals(9, dir.list().length);
+  }
+
+  /**
+   * The number of threads must be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWriteMetricsInvalidThreads() {
+    MetricsIO.writeMetrics(ImmutableMap.<String, Scenario> of(),
+        tempFolder.getRoot(), 0);
+  }
+}
@@ -20,6 +20,7 @@ import static com.github.rinde.rinsim.scenario.measure.Metrics.measureLoad;
 import static com.github.rinde.rinsim.scenario.measure.Metrics.sum;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 
@@ -29,6 +30,7 @@ import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.math3.distribution.ExponentialDistribution;
 import org.apache.commons.math3.random.MersenneTwister;
@@ -214,6 +216,59 @@ public class MetricsTest {
     }
   }
 
+  /**
+   * The sweep implementation of sum should give exactly the same results as
+   * visiting all parts at every time instance.
+   */
+  @Test
+  public void testSumEquivalence() {
+    final RandomGenerator rng = new MersenneTwister(123);
+    for (int k = 0; k < 500; k++) {
+      final List<LoadPart> parts = newArrayList();
+      final int n = rng.nextInt(30);
+      for (int i = 0; i < n; i++) {
+        final long begin = rng.nextInt(200);
+        parts.add(new LoadPart(begin, begin + rng.nextInt(50), rng
+            .nextDouble() / (1 + rng.nextInt(7))));
+      }
+      if (n > 0 && rng.nextBoolean()) {
+        // duplicates should be ignored
+        parts.add(parts.get(0));
+      }
+      final long start = rng.nextBoolean() ? 0 : rng.nextInt(100);
+      final int num = 1 + rng.nextInt(3);
+      assertEquals(naiveSum(start, parts, num), sum(start, parts, num));
+    }
+  }
+
+  // reference implementation that visits all parts at every time instance
+  static List<Double> naiveSum(long st, List<LoadPart> parts, int num) {
+    final List<Double> result = newArrayList();
+    long i = st;
+    final Set<LoadPart> partSet = newLinkedHashSet(parts);
+    while (!partSet.isEmpty()) {
+      double currentLoadVal = 0d;
+      final List<LoadPart> toRemove = newArrayList();
+      for (final LoadPart lp : partSet) {
+        if (lp.isIn(i)) {
+          currentLoadVal += lp.get(i);
+        }
+        if (!lp.isBeforeEnd(i)) {
+          toRemove.add(lp);
+        }
+      }
+      partSet.removeAll(toRemove);
+      if (!partSet.isEmpty()) {
+        if (num > 1) {
+          currentLoadVal /= num;
+        }
+        result.add(currentLoadVal);
+        i++;
+      }
+    }
+    return result;
+  }
+
   static Times generateTimes(RandomGenerator rng, double intensity) {
     final ExponentialDistribution ed = new ExponentialDistribution(
         1000d / intensity);
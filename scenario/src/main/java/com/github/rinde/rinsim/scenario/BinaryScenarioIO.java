@@ -0,0 +1,564 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.core.pdptw.VehicleDTO;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.scenario.Scenario.DefaultScenario;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Provides utilities for reading and writing scenarios in a compact binary
+ * format. A binary scenario file contains:
+ * <ol>
+ * <li>a header with a magic number, the format version and flags,</li>
+ * <li>all properties of the scenario except its events, in the JSON format of
+ * {@link ScenarioIO},</li>
+ * <li>the events, stored per column (times, positions, time windows,
+ * capacities, etc.). When compression is enabled this block is compressed
+ * using the deflate algorithm.</li>
+ * </ol>
+ * All numbers are stored in their binary representation, therefore a scenario
+ * that is converted to the binary format and back is identical to the
+ * original. Only events supported by {@link ScenarioIO} can be stored:
+ * {@link AddParcelEvent}, {@link AddVehicleEvent}, {@link AddDepotEvent} and
+ * plain {@link TimedEvent}s.
+ * <p>
+ * This class can also be used as a command line converter between the JSON and
+ * the binary format, see {@link #main(String[])}.
+ * @author Rinde van Lon
+ */
+public final class BinaryScenarioIO {
+  /**
+   * The magic number that identifies a binary scenario file ("RSCN").
+   */
+  static final int MAGIC = 0x5253434E;
+  /**
+   * The current version of the format.
+   */
+  static final int VERSION = 1;
+  static final int FLAG_COMPRESSED = 1;
+
+  static final byte TIMED_EVENT = 0;
+  static final byte DEPOT_EVENT = 1;
+  static final byte VEHICLE_EVENT = 2;
+  static final byte PARCEL_EVENT = 3;
+
+  private BinaryScenarioIO() {}
+
+  /**
+   * Writes the specified {@link Scenario} to disk in the compressed binary
+   * format.
+   * @param s The scenario.
+   * @param to The file to write to.
+   * @throws IOException In case anything went wrong during writing the
+   *           scenario.
+   */
+  public static void write(Scenario s, Path to) throws IOException {
+    write(s, to, true);
+  }
+
+  /**
+   * Writes the specified {@link Scenario} to disk in the binary format.
+   * @param s The scenario.
+   * @param to The file to write to.
+   * @param compress Indicates whether the events should be compressed.
+   * @throws IOException In case anything went wrong during writing the
+   *           scenario.
+   */
+  public static void write(Scenario s, Path to, boolean compress)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(to))) {
+      write(s, out, compress);
+    }
+  }
+
+  /**
+   * Writes the specified {@link Scenario} in the compressed binary format.
+   * @param s The scenario.
+   * @return The scenario in binary form.
+   */
+  public static byte[] write(Scenario s) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write(s, bytes, true);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Writes the specified {@link Scenario} in the binary format to the
+   * specified stream. The stream is not closed.
+   * @param s The scenario.
+   * @param out The stream to write to.
+   * @param compress Indicates whether the events should be compressed.
+   * @throws IOException In case anything went wrong during writing the
+   *           scenario.
+   */
+  public static void write(Scenario s, OutputStream out, boolean compress)
+      throws IOException {
+    final DataOutputStream header = new DataOutputStream(out);
+    header.writeInt(MAGIC);
+    header.writeShort(VERSION);
+    header.writeByte(compress ? FLAG_COMPRESSED : 0);
+    final byte[] properties = ScenarioIO.writeWithoutEvents(s).getBytes(
+        Charsets.UTF_8);
+    header.writeInt(properties.length);
+    header.write(properties);
+    header.flush();
+
+    if (compress) {
+      final Deflater deflater = new Deflater();
+      try {
+        final DeflaterOutputStream deflaterStream = new DeflaterOutputStream(
+            out, deflater);
+        final DataOutputStream data = new DataOutputStream(
+            new BufferedOutputStream(deflaterStream));
+        writeEvents(s.asList(), data);
+        data.flush();
+        deflaterStream.finish();
+      } finally {
+        deflater.end();
+      }
+    } else {
+      final DataOutputStream data = new DataOutputStream(
+          new BufferedOutputStream(out));
+      writeEvents(s.asList(), data);
+      data.flush();
+    }
+  }
+
+  /**
+   * Reads a {@link Scenario} from disk.
+   * @param file The file to read from.
+   * @return A {@link Scenario} instance.
+   * @throws IOException When reading fails.
+   */
+  public static Scenario read(Path file) throws IOException {
+    return read(file, DefaultScenario.class);
+  }
+
+  /**
+   * Reads a scenario from disk.
+   * @param file The file to read from.
+   * @param type The type of scenario to read.
+   * @param <T> The scenario type.
+   * @return A scenario of type T.
+   * @throws IOException When reading fails.
+   */
+  public static <T> T read(Path file, Class<T> type) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      return read(in, type);
+    }
+  }
+
+  /**
+   * Reads a {@link Scenario} from its binary form.
+   * @param bytes The bytes to read.
+   * @param type The type of scenario to read.
+   * @param <T> The scenario type.
+   * @return A scenario of type T.
+   */
+  public static <T> T read(byte[] bytes, Class<T> type) {
+    try {
+      return read(new ByteArrayInputStream(bytes), type);
+    } catch (final IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Reads a scenario from the specified stream. The stream is not closed.
+   * @param in The stream to read from.
+   * @param type The type of scenario to read.
+   * @param <T> The scenario type.
+   * @return A scenario of type T.
+   * @throws IOException When reading fails.
+   */
+  public static <T> T read(InputStream in, Class<T> type) throws IOException {
+    final DataInputStream header = new DataInputStream(in);
+    final int magic = header.readInt();
+    checkArgument(magic == MAGIC, "Not a binary scenario, found magic: %s.",
+        Integer.toHexString(magic));
+    final int version = header.readShort();
+    checkArgument(version == VERSION,
+        "Unsupported binary scenario version: %s, expected: %s.", version,
+        VERSION);
+    final int flags = header.readByte();
+    final byte[] properties = new byte[header.readInt()];
+    header.readFully(properties);
+
+    final ImmutableList<TimedEvent> events;
+    if ((flags & FLAG_COMPRESSED) != 0) {
+      final Inflater inflater = new Inflater();
+      try {
+        events = readEvents(new DataInputStream(new BufferedInputStream(
+            new InflaterInputStream(in, inflater))));
+      } finally {
+        inflater.end();
+      }
+    } else {
+      events = readEvents(header);
+    }
+    return ScenarioIO.readWithEvents(new String(properties, Charsets.UTF_8),
+        type, events);
+  }
+
+  /**
+   * Checks whether the specified file is a binary scenario file.
+   * @param file The file to check.
+   * @return <code>true</code> if the file starts with the header of a binary
+   *         scenario, <code>false</code> otherwise.
+   * @throws IOException When reading fails.
+   */
+  public static boolean isBinary(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+      return Files.size(file) >= 4 && in.readInt() == MAGIC;
+    }
+  }
+
+  /**
+   * @return A {@link Function} that converts (reads) {@link Path}s of binary
+   *         scenario files into {@link Scenario} instances.
+   */
+  public static Function<Path, Scenario> reader() {
+    return new BinaryScenarioReader<>(Scenario.class, DefaultScenario.class);
+  }
+
+  /**
+   * Creates a {@link Function} that converts {@link Path}s of binary scenario
+   * files into the specified subclass of {@link Scenario}.
+   * @param clz The class instance to indicate the type scenario.
+   * @param <T> The type of scenario.
+   * @return A new reader instance.
+   */
+  public static <T extends Scenario> Function<Path, T> reader(Class<T> clz) {
+    return new BinaryScenarioReader<>(clz, clz);
+  }
+
+  /**
+   * Converts a scenario file from the JSON format to the binary format or vice
+   * versa. The direction of conversion is determined by the format of the
+   * input file. Usage:
+   *
+   * <pre>
+   * BinaryScenarioIO [-u] [-t scenarioClass] input output
+   * </pre>
+   *
+   * With <code>-u</code> the events are not compressed, <code>-t</code> can be
+   * used to specify the fully qualified class name of the scenario.
+   * @param args The command line arguments.
+   * @throws IOException When reading or writing fails.
+   * @throws ClassNotFoundException When the specified scenario class can not
+   *           be found.
+   */
+  public static void main(String[] args) throws IOException,
+      ClassNotFoundException {
+    boolean compress = true;
+    Class<?> type = DefaultScenario.class;
+    final List<String> files = newArrayList();
+    for (int i = 0; i < args.length; i++) {
+      if ("-u".equals(args[i])) {
+        compress = false;
+      } else if ("-t".equals(args[i]) && i + 1 < args.length) {
+        type = Class.forName(args[++i]);
+      } else {
+        files.add(args[i]);
+      }
+    }
+    if (files.size() != 2) {
+      System.err
+          .println("Usage: BinaryScenarioIO [-u] [-t scenarioClass] input output");
+      return;
+    }
+    final Path in = Paths.get(files.get(0));
+    final Path out = Paths.get(files.get(1));
+    if (isBinary(in)) {
+      ScenarioIO.write((Scenario) read(in, type), out);
+    } else {
+      write((Scenario) ScenarioIO.read(in, type), out, compress);
+    }
+  }
+
+  static void writeEvents(List<TimedEvent> events, DataOutputStream out)
+      throws IOException {
+    final List<TimedEvent> timed = newArrayList();
+    final List<AddDepotEvent> depots = newArrayList();
+    final List<AddVehicleEvent> vehicles = newArrayList();
+    final List<AddParcelEvent> parcels = newArrayList();
+    final Map<Enum<?>, Integer> eventTypes = newLinkedHashMap();
+
+    out.writeInt(events.size());
+    for (final TimedEvent e : events) {
+      if (e.getClass() == AddParcelEvent.class) {
+        out.writeByte(PARCEL_EVENT);
+        parcels.add((AddParcelEvent) e);
+      } else if (e.getClass() == AddVehicleEvent.class) {
+        out.writeByte(VEHICLE_EVENT);
+        vehicles.add((AddVehicleEvent) e);
+      } else if (e.getClass() == AddDepotEvent.class) {
+        out.writeByte(DEPOT_EVENT);
+        depots.add((AddDepotEvent) e);
+      } else if (e.getClass() == TimedEvent.class) {
+        out.writeByte(TIMED_EVENT);
+        timed.add(e);
+        if (!eventTypes.containsKey(e.getEventType())) {
+          eventTypes.put(e.getEventType(), eventTypes.size());
+        }
+      } else {
+        throw new IllegalArgumentException("Event not supported: "
+            + e.getClass());
+      }
+    }
+    for (final TimedEvent e : events) {
+      out.writeLong(e.time);
+    }
+
+    // event types of plain timed events
+    out.writeInt(eventTypes.size());
+    for (final Entry<Enum<?>, Integer> entry : eventTypes.entrySet()) {
+      out.writeUTF(entry.getKey().getDeclaringClass().getName());
+      out.writeUTF(entry.getKey().name());
+    }
+    for (final TimedEvent e : timed) {
+      out.writeInt(eventTypes.get(e.getEventType()));
+    }
+
+    // depots
+    for (final AddDepotEvent e : depots) {
+      out.writeDouble(e.position.x);
+    }
+    for (final AddDepotEvent e : depots) {
+      out.writeDouble(e.position.y);
+    }
+
+    // vehicles
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeDouble(e.vehicleDTO.startPosition.x);
+    }
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeDouble(e.vehicleDTO.startPosition.y);
+    }
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeDouble(e.vehicleDTO.speed);
+    }
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeInt(e.vehicleDTO.capacity);
+    }
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeLong(e.vehicleDTO.availabilityTimeWindow.begin);
+    }
+    for (final AddVehicleEvent e : vehicles) {
+      out.writeLong(e.vehicleDTO.availabilityTimeWindow.end);
+    }
+
+    // parcels, the order announce time equals the event time
+    for (final AddParcelEvent e : parcels) {
+      out.writeDouble(e.parcelDTO.pickupLocation.x);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeDouble(e.parcelDTO.pickupLocation.y);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeDouble(e.parcelDTO.deliveryLocation.x);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeDouble(e.parcelDTO.deliveryLocation.y);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.pickupTimeWindow.begin);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.pickupTimeWindow.end);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.deliveryTimeWindow.begin);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.deliveryTimeWindow.end);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeInt(e.parcelDTO.neededCapacity);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.pickupDuration);
+    }
+    for (final AddParcelEvent e : parcels) {
+      out.writeLong(e.parcelDTO.deliveryDuration);
+    }
+  }
+
+  static ImmutableList<TimedEvent> readEvents(DataInputStream in)
+      throws IOException {
+    final int size = in.readInt();
+    final byte[] kinds = new byte[size];
+    in.readFully(kinds);
+    final int[] counts = new int[PARCEL_EVENT + 1];
+    for (final byte kind : kinds) {
+      checkArgument(kind >= TIMED_EVENT && kind <= PARCEL_EVENT,
+          "Unknown event kind: %s.", kind);
+      counts[kind]++;
+    }
+    final long[] times = readLongs(in, size);
+
+    final Enum<?>[] eventTypes = new Enum<?>[in.readInt()];
+    for (int i = 0; i < eventTypes.length; i++) {
+      eventTypes[i] = ScenarioIO.EnumIO.getEnum(in.readUTF(), in.readUTF());
+    }
+    final int[] timedTypes = readInts(in, counts[TIMED_EVENT]);
+
+    final int depots = counts[DEPOT_EVENT];
+    final double[] depotX = readDoubles(in, depots);
+    final double[] depotY = readDoubles(in, depots);
+
+    final int vehicles = counts[VEHICLE_EVENT];
+    final double[] vehicleX = readDoubles(in, vehicles);
+    final double[] vehicleY = readDoubles(in, vehicles);
+    final double[] speed = readDoubles(in, vehicles);
+    final int[] capacity = readInts(in, vehicles);
+    final long[] availBegin = readLongs(in, vehicles);
+    final long[] availEnd = readLongs(in, vehicles);
+
+    final int parcels = counts[PARCEL_EVENT];
+    final double[] pickupX = readDoubles(in, parcels);
+    final double[] pickupY = readDoubles(in, parcels);
+    final double[] deliveryX = readDoubles(in, parcels);
+    final double[] deliveryY = readDoubles(in, parcels);
+    final long[] pickupBegin = readLongs(in, parcels);
+    final long[] pickupEnd = readLongs(in, parcels);
+    final long[] deliveryBegin = readLongs(in, parcels);
+    final long[] deliveryEnd = readLongs(in, parcels);
+    final int[] neededCapacity = readInts(in, parcels);
+    final long[] pickupDuration = readLongs(in, parcels);
+    final long[] deliveryDuration = readLongs(in, parcels);
+
+    final TimedEvent[] events = new TimedEvent[size];
+    final int[] index = new int[PARCEL_EVENT + 1];
+    for (int i = 0; i < size; i++) {
+      final int j = index[kinds[i]]++;
+      switch (kinds[i]) {
+      case TIMED_EVENT:
+        events[i] = new TimedEvent(eventTypes[timedTypes[j]], times[i]);
+        break;
+      case DEPOT_EVENT:
+        events[i] = new AddDepotEvent(times[i],
+            new Point(depotX[j], depotY[j]));
+        break;
+      case VEHICLE_EVENT:
+        events[i] = new AddVehicleEvent(times[i], VehicleDTO.builder()
+            .startPosition(new Point(vehicleX[j], vehicleY[j]))
+            .speed(speed[j])
+            .capacity(capacity[j])
+            .availabilityTimeWindow(new TimeWindow(availBegin[j], availEnd[j]))
+            .build());
+        break;
+      default:
+        events[i] = new AddParcelEvent(ParcelDTO
+            .builder(new Point(pickupX[j], pickupY[j]),
+                new Point(deliveryX[j], deliveryY[j]))
+            .pickupTimeWindow(new TimeWindow(pickupBegin[j], pickupEnd[j]))
+            .deliveryTimeWindow(
+                new TimeWindow(deliveryBegin[j], deliveryEnd[j]))
+            .neededCapacity(neededCapacity[j])
+            .orderAnnounceTime(times[i])
+            .pickupDuration(pickupDuration[j])
+            .deliveryDuration(deliveryDuration[j])
+            .build());
+      }
+    }
+    return ImmutableList.copyOf(events);
+  }
+
+  static long[] readLongs(DataInputStream in, int size) throws IOException {
+    final long[] arr = new long[size];
+    for (int i = 0; i < size; i++) {
+      arr[i] = in.readLong();
+    }
+    return arr;
+  }
+
+  static int[] readInts(DataInputStream in, int size) throws IOException {
+    final int[] arr = new int[size];
+    for (int i = 0; i < size; i++) {
+      arr[i] = in.readInt();
+    }
+    return arr;
+  }
+
+  static double[] readDoubles(DataInputStream in, int size)
+      throws IOException {
+    final double[] arr = new double[size];
+    for (int i = 0; i < size; i++) {
+      arr[i] = in.readDouble();
+    }
+    return arr;
+  }
+
+  private static final class BinaryScenarioReader<T extends Scenario>
+      implements Function<Path, T> {
+    final Class<T> returnType;
+    final Class<?> scenarioType;
+
+    BinaryScenarioReader(Class<T> ret, Class<?> scen) {
+      returnType = ret;
+      scenarioType = scen;
+    }
+
+    @Override
+    public @Nullable T apply(@Nullable Path input) {
+      checkNotNull(input);
+      try {
+        return returnType.cast(read(input, scenarioType));
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
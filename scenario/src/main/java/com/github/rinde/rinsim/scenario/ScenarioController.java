@@ -16,9 +16,13 @@
 package com.github.rinde.rinsim.scenario;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Lists.newLinkedList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 
@@ -27,6 +31,8 @@ import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.Simulator;
 import com.github.rinde.rinsim.core.TickListener;
 import com.github.rinde.rinsim.core.TimeLapse;
@@ -47,7 +53,8 @@ import com.google.common.base.Optional;
  * @author Bartosz Michalik 
  * @since 2.0
  */
-public class ScenarioController implements TickListener {
+public class ScenarioController implements TickListener,
+    Forkable<ScenarioController> {
   // rename to event scheduler?
   /**
    * Logger for this class.
@@ -129,11 +136,35 @@ public class ScenarioController implements TickListener {
     uiCreator = Optional.absent();
 
     scenarioQueue = scenario.asQueue();
+    disp = createDispatcher();
+    simulator.addTickListener(this);
+  }
 
+  /**
+   * Creates a fork of the specified scenario controller that controls the
+   * fork of the simulator. The events that are not yet dispatched are shared
+   * with the original, the {@link TimedEventHandler} is forked as well. The
+   * UI and the listeners of the original are not copied.
+   * @param original The scenario controller to fork.
+   * @param context The context of the fork.
+   */
+  protected ScenarioController(ScenarioController original,
+      ForkContext context) {
+    scenario = original.scenario;
+    simulator = context.get(original.simulator);
+    timedEventHandler = context.get(original.timedEventHandler);
+    ticks = original.ticks;
+    status = original.status;
+    uiCreator = Optional.absent();
+    scenarioQueue = copy(original.scenarioQueue);
+    disp = createDispatcher();
+  }
+
+  private EventDispatcher createDispatcher() {
     final Set<Enum<?>> typeSet = newHashSet(scenario.getPossibleEventTypes());
     typeSet.addAll(asList(EventType.values()));
-    disp = new EventDispatcher(typeSet);
-    disp.addListener(new InternalTimedEventHandler(),
+    final EventDispatcher dispatcher = new EventDispatcher(typeSet);
+    dispatcher.addListener(new InternalTimedEventHandler(),
         scenario.getPossibleEventTypes());
 
     simulator.getEventAPI().addListener(new Listener() {
@@ -145,8 +176,28 @@ public class ScenarioController implements TickListener {
 
       }
     }, SimulatorEventType.STARTED);
-    simulator.addTickListener(this);
+    return dispatcher;
+  }
 
+  static Queue<TimedEvent> copy(Queue<TimedEvent> queue) {
+    if (queue instanceof StreamingScenario.EventQueue) {
+      return ((StreamingScenario.EventQueue) queue).copy();
+    } else if (queue instanceof PriorityQueue) {
+      return new PriorityQueue<TimedEvent>((PriorityQueue<TimedEvent>) queue);
+    }
+    return newLinkedList(queue);
+  }
+
+  /**
+   * Creates a fork of this scenario controller, subclasses should override
+   * this method.
+   * @param context The context of the fork.
+   * @return The fork.
+   * @see #ScenarioController(ScenarioController, ForkContext)
+   */
+  @Override
+  public ScenarioController fork(ForkContext context) {
+    return new ScenarioController(this, context);
   }
 
   // TODO add UICreator directly to Simulator?
@@ -170,6 +221,23 @@ public class ScenarioController implements TickListener {
     return disp.getPublicEventAPI();
   }
 
+  /**
+   * Closes the queue of remaining events when it is {@link Closeable}, such
+   * as the queue of a {@link StreamingScenario}. This should be called when a
+   * scenario controller, e.g. the one of a fork of a simulator, is discarded
+   * before all events are dispatched. Events that are not yet dispatched can
+   * no longer be dispatched after closing.
+   */
+  public void close() {
+    if (scenarioQueue instanceof Closeable) {
+      try {
+        ((Closeable) scenarioQueue).close();
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   /**
    * Stop the simulation.
    */
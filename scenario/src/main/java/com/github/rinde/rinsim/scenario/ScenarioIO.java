@@ -25,7 +25,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.Reader;
 import java.io.Serializable;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -49,10 +51,8 @@ import com.github.rinde.rinsim.scenario.Scenario.SimpleProblemClass;
 import com.github.rinde.rinsim.util.TimeWindow;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
-import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
-import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
@@ -66,6 +66,7 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -77,9 +78,15 @@ import com.google.gson.stream.JsonWriter;
  */
 public final class ScenarioIO {
   private static final Gson GSON = initialize();
+  // the events that are read in place of the placeholder written by
+  // writeWithoutEvents(Scenario), see readWithEvents(..)
+  private static final ThreadLocal<ImmutableList<TimedEvent>> EXTERNAL =
+      new ThreadLocal<>();
   private static final String VALUE_SEPARATOR = ",";
   private static final String VALUE = "value";
   private static final String CLAZZ = "class";
+  private static final String EVENTS = "events";
+  private static final String EXTERNAL_EVENTS = "external";
 
   private ScenarioIO() {}
 
@@ -90,8 +97,6 @@ public final class ScenarioIO {
     builder
         .registerTypeHierarchyAdapter(ProblemClass.class,
             new ProblemClassHierarchyIO())
-        .registerTypeHierarchyAdapter(TimedEvent.class,
-            new TimedEventHierarchyIO())
         .registerTypeHierarchyAdapter(TimeWindowPolicy.class,
             new TimeWindowHierarchyIO())
 
@@ -103,7 +108,10 @@ public final class ScenarioIO {
         .registerTypeAdapter(Enum.class, new EnumIO())
         .registerTypeAdapter(Predicate.class, new PredicateIO())
         .registerTypeAdapter(ImmutableList.class, new ImmutableListIO())
-        .registerTypeAdapter(ImmutableSet.class, new ImmutableSetIO());
+        .registerTypeAdapter(ImmutableSet.class, new ImmutableSetIO())
+        // the events are (de)serialized in a streaming fashion
+        .registerTypeAdapterFactory(new TimedEventIO())
+        .registerTypeAdapterFactory(new EventListIO());
 
     return builder.create();
   }
@@ -116,8 +124,10 @@ public final class ScenarioIO {
    *           scenario.
    */
   public static void write(Scenario s, Path to) throws IOException {
-    Files.write(to, Splitter.on(System.lineSeparator()).split(write(s)),
-        Charsets.UTF_8);
+    try (Writer writer = Files.newBufferedWriter(to, Charsets.UTF_8)) {
+      GSON.toJson(s, writer);
+      writer.write(System.lineSeparator());
+    }
   }
 
   /**
@@ -139,9 +149,9 @@ public final class ScenarioIO {
    * @throws IOException When reading fails.
    */
   public static <T> T read(Path file, Class<T> type) throws IOException {
-    return read(
-        Joiner.on(System.lineSeparator()).join(
-            Files.readAllLines(file, Charsets.UTF_8)), type);
+    try (Reader reader = Files.newBufferedReader(file, Charsets.UTF_8)) {
+      return GSON.fromJson(reader, type);
+    }
   }
 
   /**
@@ -192,6 +202,55 @@ public final class ScenarioIO {
     return new DefaultScenarioReader<>(clz);
   }
 
+  /**
+   * Writes the specified {@link Scenario} in JSON format without its events,
+   * the events are replaced by a placeholder. The events can be supplied when
+   * reading using {@link #readWithEvents(String, Class, ImmutableList)}.
+   * @param s The scenario.
+   * @return The scenario as JSON.
+   */
+  static String writeWithoutEvents(Scenario s) {
+    final JsonObject obj = GSON.toJsonTree(s).getAsJsonObject();
+    obj.add(EVENTS, new JsonPrimitive(EXTERNAL_EVENTS));
+    return GSON.toJson(obj);
+  }
+
+  /**
+   * Reads a scenario that was written using {@link #writeWithoutEvents(Scenario)}.
+   * @param s The string to read.
+   * @param type The type of scenario to convert to.
+   * @param events The events of the scenario.
+   * @param <T> The scenario type.
+   * @return A scenario of type T.
+   */
+  static <T> T readWithEvents(String s, Class<T> type,
+      ImmutableList<TimedEvent> events) {
+    EXTERNAL.set(events);
+    try {
+      return GSON.fromJson(s, type);
+    } finally {
+      EXTERNAL.remove();
+    }
+  }
+
+  /**
+   * Writes a single event in JSON format.
+   * @param e The event.
+   * @return The event as JSON.
+   */
+  static String writeEvent(TimedEvent e) {
+    return GSON.toJson(e, e.getClass());
+  }
+
+  /**
+   * Reads a single event that was written using {@link #writeEvent(TimedEvent)}.
+   * @param s The string to read.
+   * @return The event.
+   */
+  static TimedEvent readEvent(String s) {
+    return GSON.fromJson(s, TimedEvent.class);
+  }
+
   static String serializeObject(Object obj) throws IOException {
     final ByteArrayOutputStream bo = new ByteArrayOutputStream();
     final ObjectOutputStream oos = new ObjectOutputStream(bo);
@@ -309,37 +368,191 @@ public final class ScenarioIO {
     }
   }
 
-  static class TimedEventHierarchyIO implements JsonDeserializer<TimedEvent> {
+  /**
+   * Reads and writes {@link TimedEvent}s directly from and to the JSON stream,
+   * without creating intermediate JSON trees. Events of unknown types and
+   * events with an issuer are written using the default reflective adapter.
+   */
+  static class TimedEventIO implements TypeAdapterFactory {
+    @Nullable
+    @Override
+    public <T> TypeAdapter<T> create(@Nullable Gson gson,
+        @Nullable TypeToken<T> type) {
+      checkNotNull(gson);
+      checkNotNull(type);
+      if (!TimedEvent.class.isAssignableFrom(type.getRawType())) {
+        return null;
+      }
+      @SuppressWarnings("unchecked")
+      final TypeAdapter<T> adapter = (TypeAdapter<T>) new TimedEventAdapter(
+          gson, this);
+      return adapter;
+    }
+  }
+
+  static class TimedEventAdapter extends TypeAdapter<TimedEvent> {
+    private static final String TIME = "time";
+    private static final String EVENT_TYPE = "eventType";
+    private static final String ISSUER = "issuer";
+    private static final String POSITION = "position";
+    private static final String VEHICLE_DTO = "vehicleDTO";
+    private static final String PARCEL_DTO = "parcelDTO";
+    private static final String START_POSITION = "startPosition";
+    private static final String SPEED = "speed";
+    private static final String CAPACITY = "capacity";
+    private static final String AVAILABILITY_TW = "availabilityTimeWindow";
+    private static final String PICKUP_LOCATION = "pickupLocation";
+    private static final String DELIVERY_LOCATION = "deliveryLocation";
+    private static final String PICKUP_TW = "pickupTimeWindow";
+    private static final String DELIVERY_TW = "deliveryTimeWindow";
+    private static final String NEEDED_CAPACITY = "neededCapacity";
+    private static final String ORDER_ANNOUNCE_TIME = "orderAnnounceTime";
+    private static final String PICKUP_DURATION = "pickupDuration";
+    private static final String DELIVERY_DURATION = "deliveryDuration";
+
+    private final Gson gson;
+    private final TypeAdapterFactory factory;
+    private final PointIO pointIO;
+    private final TimeWindowIO timeWindowIO;
+
+    TimedEventAdapter(Gson g, TypeAdapterFactory f) {
+      gson = g;
+      factory = f;
+      pointIO = new PointIO();
+      timeWindowIO = new TimeWindowIO();
+    }
+
     @Override
-    public TimedEvent deserialize(@Nullable JsonElement json, @Nullable Type typeOfT,
-        @Nullable JsonDeserializationContext context) {
-      checkNotNull(json);
-      checkNotNull(typeOfT);
-      checkNotNull(context);
-      final JsonObject obj = json.getAsJsonObject();
-      final long time = obj.get("time").getAsLong();
-      final Enum<?> type = context
-          .deserialize(obj.get("eventType"), Enum.class);
+    public void write(@Nullable JsonWriter out, @Nullable TimedEvent e)
+        throws IOException {
+      checkNotNull(out);
+      if (e == null) {
+        out.nullValue();
+        return;
+      }
+      final Class<?> clz = e.getClass();
+      if (e.hasIssuer()
+          || clz != TimedEvent.class && clz != AddDepotEvent.class
+          && clz != AddVehicleEvent.class && clz != AddParcelEvent.class) {
+        @SuppressWarnings("unchecked")
+        final TypeAdapter<TimedEvent> delegate = (TypeAdapter<TimedEvent>) gson
+            .getDelegateAdapter(factory, TypeToken.get(clz));
+        delegate.write(out, e);
+        return;
+      }
+      // the fields are written in the same order as the reflective adapter
+      out.beginObject();
+      if (clz == AddDepotEvent.class) {
+        out.name(POSITION);
+        pointIO.write(out, ((AddDepotEvent) e).position);
+      } else if (clz == AddVehicleEvent.class) {
+        out.name(VEHICLE_DTO);
+        writeVehicle(out, ((AddVehicleEvent) e).vehicleDTO);
+      } else if (clz == AddParcelEvent.class) {
+        out.name(PARCEL_DTO);
+        writeParcel(out, ((AddParcelEvent) e).parcelDTO);
+      }
+      out.name(TIME).value(e.time);
+      out.name(EVENT_TYPE);
+      writeEnum(out, e.getEventType());
+      out.name(ISSUER).beginObject().endObject();
+      out.endObject();
+    }
+
+    void writeVehicle(JsonWriter out, @Nullable VehicleDTO dto)
+        throws IOException {
+      if (dto == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name(START_POSITION);
+      pointIO.write(out, dto.startPosition);
+      out.name(SPEED).value(dto.speed);
+      out.name(CAPACITY).value(dto.capacity);
+      out.name(AVAILABILITY_TW);
+      timeWindowIO.write(out, dto.availabilityTimeWindow);
+      out.endObject();
+    }
+
+    void writeParcel(JsonWriter out, @Nullable ParcelDTO dto)
+        throws IOException {
+      if (dto == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name(PICKUP_LOCATION);
+      pointIO.write(out, dto.pickupLocation);
+      out.name(DELIVERY_LOCATION);
+      pointIO.write(out, dto.deliveryLocation);
+      out.name(PICKUP_TW);
+      timeWindowIO.write(out, dto.pickupTimeWindow);
+      out.name(DELIVERY_TW);
+      timeWindowIO.write(out, dto.deliveryTimeWindow);
+      out.name(NEEDED_CAPACITY).value(dto.neededCapacity);
+      out.name(ORDER_ANNOUNCE_TIME).value(dto.orderAnnounceTime);
+      out.name(PICKUP_DURATION).value(dto.pickupDuration);
+      out.name(DELIVERY_DURATION).value(dto.deliveryDuration);
+      out.endObject();
+    }
+
+    static void writeEnum(JsonWriter out, Enum<?> e) throws IOException {
+      out.beginObject();
+      out.name(CLAZZ).value(e.getDeclaringClass().getName());
+      out.name(VALUE).value(e.name());
+      out.endObject();
+    }
+
+    @Nullable
+    @Override
+    public TimedEvent read(@Nullable JsonReader in) throws IOException {
+      checkNotNull(in);
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      Long time = null;
+      Enum<?> type = null;
+      Point position = null;
+      VehicleDTO vehicle = null;
+      ParcelDTO parcel = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+        case TIME:
+          time = in.nextLong();
+          break;
+        case EVENT_TYPE:
+          type = readEnum(in);
+          break;
+        case POSITION:
+          position = pointIO.read(in);
+          break;
+        case VEHICLE_DTO:
+          vehicle = readVehicle(in);
+          break;
+        case PARCEL_DTO:
+          parcel = readParcel(in);
+          break;
+        default:
+          in.skipValue();
+        }
+      }
+      in.endObject();
 
-      checkArgument(type instanceof PDPScenarioEvent);
+      checkArgument(type instanceof PDPScenarioEvent,
+          "Event type not supported: %s.", type);
       final PDPScenarioEvent scenEvent = (PDPScenarioEvent) type;
-      final TimedEvent event;
       switch (scenEvent) {
       case ADD_DEPOT:
-        event = new AddDepotEvent(time, (Point) context.deserialize(
-            obj.get("position"), Point.class));
-        break;
+        return new AddDepotEvent(checkNotNull(time), checkNotNull(position));
       case ADD_VEHICLE:
-        event = new AddVehicleEvent(time, (VehicleDTO) context.deserialize(
-            obj.get("vehicleDTO"), VehicleDTO.class));
-        break;
+        return new AddVehicleEvent(checkNotNull(time), checkNotNull(vehicle));
       case ADD_PARCEL:
-        event = new AddParcelEvent((ParcelDTO) context.deserialize(
-            obj.get("parcelDTO"), ParcelDTO.class));
-        break;
+        return new AddParcelEvent(checkNotNull(parcel));
       case TIME_OUT:
-        event = new TimedEvent(type, time);
-        break;
+        return new TimedEvent(scenEvent, checkNotNull(time));
       case REMOVE_DEPOT:
         // fall through
       case REMOVE_PARCEL:
@@ -349,7 +562,183 @@ public final class ScenarioIO {
       default:
         throw new IllegalArgumentException("Event not supported: " + scenEvent);
       }
-      return event;
+    }
+
+    VehicleDTO readVehicle(JsonReader in) throws IOException {
+      final VehicleDTO.Builder builder = VehicleDTO.builder();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+        case START_POSITION:
+          builder.startPosition(checkNotNull(pointIO.read(in)));
+          break;
+        case SPEED:
+          builder.speed(in.nextDouble());
+          break;
+        case CAPACITY:
+          builder.capacity(in.nextInt());
+          break;
+        case AVAILABILITY_TW:
+          builder.availabilityTimeWindow(checkNotNull(timeWindowIO.read(in)));
+          break;
+        default:
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return builder.build();
+    }
+
+    ParcelDTO readParcel(JsonReader in) throws IOException {
+      Point pickup = null;
+      Point delivery = null;
+      TimeWindow pickupTW = TimeWindow.ALWAYS;
+      TimeWindow deliveryTW = TimeWindow.ALWAYS;
+      int neededCapacity = 0;
+      long announceTime = 0L;
+      long pickupDuration = 0L;
+      long deliveryDuration = 0L;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+        case PICKUP_LOCATION:
+          pickup = pointIO.read(in);
+          break;
+        case DELIVERY_LOCATION:
+          delivery = pointIO.read(in);
+          break;
+        case PICKUP_TW:
+          pickupTW = checkNotNull(timeWindowIO.read(in));
+          break;
+        case DELIVERY_TW:
+          deliveryTW = checkNotNull(timeWindowIO.read(in));
+          break;
+        case NEEDED_CAPACITY:
+          neededCapacity = in.nextInt();
+          break;
+        case ORDER_ANNOUNCE_TIME:
+          announceTime = in.nextLong();
+          break;
+        case PICKUP_DURATION:
+          pickupDuration = in.nextLong();
+          break;
+        case DELIVERY_DURATION:
+          deliveryDuration = in.nextLong();
+          break;
+        default:
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return ParcelDTO.builder(checkNotNull(pickup), checkNotNull(delivery))
+          .pickupTimeWindow(pickupTW)
+          .deliveryTimeWindow(deliveryTW)
+          .neededCapacity(neededCapacity)
+          .orderAnnounceTime(announceTime)
+          .pickupDuration(pickupDuration)
+          .deliveryDuration(deliveryDuration)
+          .build();
+    }
+
+    static Enum<?> readEnum(JsonReader in) throws IOException {
+      String clazz = null;
+      String value = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        final String name = in.nextName();
+        if (CLAZZ.equals(name)) {
+          clazz = in.nextString();
+        } else if (VALUE.equals(name)) {
+          value = in.nextString();
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return EnumIO.getEnum(checkNotNull(clazz), checkNotNull(value));
+    }
+  }
+
+  /**
+   * Reads and writes the list of events of a scenario directly from and to the
+   * JSON stream. The format is the same as used by {@link ImmutableListIO}.
+   */
+  static class EventListIO implements TypeAdapterFactory {
+    static final TypeToken<ImmutableList<TimedEvent>> EVENT_LIST_TYPE =
+        new TypeToken<ImmutableList<TimedEvent>>() {};
+
+    @Nullable
+    @Override
+    public <T> TypeAdapter<T> create(@Nullable Gson gson,
+        @Nullable TypeToken<T> type) {
+      checkNotNull(gson);
+      if (!EVENT_LIST_TYPE.equals(type)) {
+        return null;
+      }
+      @SuppressWarnings("unchecked")
+      final TypeAdapter<T> adapter = (TypeAdapter<T>) new EventListAdapter(
+          gson.getAdapter(TimedEvent.class));
+      return adapter;
+    }
+  }
+
+  static class EventListAdapter extends TypeAdapter<ImmutableList<TimedEvent>> {
+    private final TypeAdapter<TimedEvent> eventAdapter;
+
+    EventListAdapter(TypeAdapter<TimedEvent> adapter) {
+      eventAdapter = adapter;
+    }
+
+    @Override
+    public void write(@Nullable JsonWriter out,
+        @Nullable ImmutableList<TimedEvent> list) throws IOException {
+      checkNotNull(out);
+      if (list == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (final TimedEvent e : list) {
+        out.beginObject();
+        out.name(CLAZZ).value(e.getClass().getName());
+        out.name(VALUE);
+        eventAdapter.write(out, e);
+        out.endObject();
+      }
+      out.endArray();
+    }
+
+    @Nullable
+    @Override
+    public ImmutableList<TimedEvent> read(@Nullable JsonReader in)
+        throws IOException {
+      checkNotNull(in);
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      if (in.peek() == JsonToken.STRING) {
+        final ImmutableList<TimedEvent> externalEvents = EXTERNAL.get();
+        checkArgument(EXTERNAL_EVENTS.equals(in.nextString())
+            && externalEvents != null,
+            "The events of this scenario are stored externally.");
+        return externalEvents;
+      }
+      final ImmutableList.Builder<TimedEvent> builder = ImmutableList.builder();
+      in.beginArray();
+      while (in.hasNext()) {
+        in.beginObject();
+        while (in.hasNext()) {
+          if (VALUE.equals(in.nextName())) {
+            builder.add(checkNotNull(eventAdapter.read(in)));
+          } else {
+            in.skipValue();
+          }
+        }
+        in.endObject();
+      }
+      in.endArray();
+      return builder.build();
     }
   }
 
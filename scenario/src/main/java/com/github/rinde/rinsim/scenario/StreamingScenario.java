@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+
+import javax.annotation.Nullable;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Velocity;
+import javax.measure.unit.Unit;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.Model;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * A {@link Scenario} of which the events are not kept in memory. The events
+ * are obtained from an event source (a {@link Supplier} of {@link Iterator}s,
+ * e.g. a file reader or a generator) each time the scenario is played. The
+ * {@link Queue} returned by {@link #asQueue()} pulls the events lazily from the
+ * source, as a result a {@link ScenarioController} only holds the next event
+ * in memory.
+ * <p>
+ * The event source must return the events sorted by time, this is checked
+ * while the events are pulled. All other properties of the scenario are
+ * copied from a regular scenario, the possible event types of this scenario
+ * must include the types of all events in the source. Note that
+ * {@link #asList()} and {@link #size()} iterate over the entire source. When
+ * the iterators of the source are {@link Closeable} they are closed as soon as
+ * they are no longer needed.
+ * @author Rinde van Lon
+ */
+public final class StreamingScenario extends Scenario {
+  private final Scenario properties;
+  private final Supplier<? extends Iterator<? extends TimedEvent>> eventSource;
+
+  StreamingScenario(Scenario props,
+      Supplier<? extends Iterator<? extends TimedEvent>> source) {
+    super(ImmutableList.<TimedEvent> of(), props.getPossibleEventTypes());
+    properties = props;
+    eventSource = source;
+  }
+
+  /**
+   * Creates a new streaming scenario.
+   * @param props The scenario of which all properties except the events are
+   *          used.
+   * @param source The source of events, each call to {@link Supplier#get()}
+   *          should return a new iterator over all events sorted by time.
+   * @return A new instance.
+   */
+  public static StreamingScenario create(Scenario props,
+      Supplier<? extends Iterator<? extends TimedEvent>> source) {
+    return new StreamingScenario(props, source);
+  }
+
+  /**
+   * Creates a new streaming scenario that reads its events from the specified
+   * file, the file should be written using
+   * {@link #writeEvents(Iterable, Path)}.
+   * @param props The scenario of which all properties except the events are
+   *          used.
+   * @param eventFile The file containing the events.
+   * @return A new instance.
+   */
+  public static StreamingScenario create(Scenario props, Path eventFile) {
+    return new StreamingScenario(props, new EventFileSource(eventFile));
+  }
+
+  /**
+   * Writes the specified events to a file that can be used as event source
+   * for {@link #create(Scenario, Path)}. Each line in the file contains a
+   * single event in the JSON format of {@link ScenarioIO}.
+   * @param events The events to write, sorted by time.
+   * @param file The file to write to.
+   * @throws IOException When writing fails.
+   */
+  public static void writeEvents(Iterable<? extends TimedEvent> events,
+      Path file) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file,
+        Charsets.UTF_8)) {
+      for (final TimedEvent e : events) {
+        writer.write(ScenarioIO.writeEvent(e));
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Materializes all events of the event source into a list.
+   * @return The list of events.
+   */
+  @Override
+  public ImmutableList<TimedEvent> asList() {
+    final EventQueue queue = new EventQueue(eventSource);
+    try {
+      return ImmutableList.<TimedEvent> copyOf(queue.iterator());
+    } finally {
+      queue.close();
+    }
+  }
+
+  /**
+   * Creates a queue that pulls events lazily from the event source. The
+   * returned queue does not support adding events. The queue implements
+   * {@link Closeable}, it should be closed when it is discarded before all
+   * its events are polled.
+   * @return A new lazy queue.
+   */
+  @Override
+  public Queue<TimedEvent> asQueue() {
+    return new EventQueue(eventSource);
+  }
+
+  @Override
+  public int size() {
+    return count(eventSource.get());
+  }
+
+  @Override
+  public Unit<Duration> getTimeUnit() {
+    return properties.getTimeUnit();
+  }
+
+  @Override
+  public TimeWindow getTimeWindow() {
+    return properties.getTimeWindow();
+  }
+
+  @Override
+  public long getTickSize() {
+    return properties.getTickSize();
+  }
+
+  @Override
+  public Unit<Velocity> getSpeedUnit() {
+    return properties.getSpeedUnit();
+  }
+
+  @Override
+  public Unit<Length> getDistanceUnit() {
+    return properties.getDistanceUnit();
+  }
+
+  @Override
+  public Predicate<Simulator> getStopCondition() {
+    return properties.getStopCondition();
+  }
+
+  @Override
+  public ImmutableList<? extends Supplier<? extends Model<?>>> getModelSuppliers() {
+    return properties.getModelSuppliers();
+  }
+
+  @Override
+  public ProblemClass getProblemClass() {
+    return properties.getProblemClass();
+  }
+
+  @Override
+  public String getProblemInstanceId() {
+    return properties.getProblemInstanceId();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || other.getClass() != getClass()) {
+      return false;
+    }
+    final StreamingScenario o = (StreamingScenario) other;
+    return Objects.equal(properties, o.properties)
+        && Objects.equal(eventSource, o.eventSource);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(properties, eventSource);
+  }
+
+  static int count(Iterator<?> it) {
+    try {
+      return Iterators.size(it);
+    } finally {
+      close(it);
+    }
+  }
+
+  static void close(Iterator<?> it) {
+    if (it instanceof Closeable) {
+      try {
+        ((Closeable) it).close();
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * A queue that lazily pulls events from an iterator. The time order of the
+   * events is checked while pulling. Events that are pulled but not yet
+   * polled are buffered, as a result the queue can be iterated over without
+   * removing its events. Copies of a queue share the buffer.
+   */
+  static final class EventQueue extends AbstractQueue<TimedEvent> implements
+      Closeable {
+    private final Supplier<? extends Iterator<? extends TimedEvent>> source;
+    private final EventBuffer buffer;
+    // the node of the last polled event
+    private Node last;
+    private int polled;
+    private boolean closed;
+
+    EventQueue(Supplier<? extends Iterator<? extends TimedEvent>> src) {
+      this(src, new EventBuffer(src.get()), new Node(null), 0);
+    }
+
+    private EventQueue(Supplier<? extends Iterator<? extends TimedEvent>> src,
+        EventBuffer buf, Node lastNode, int numPolled) {
+      source = src;
+      buffer = buf;
+      buffer.open();
+      last = lastNode;
+      polled = numPolled;
+    }
+
+    /**
+     * Creates a queue with the same remaining events as this queue. The new
+     * queue shares the buffer and the iterator of the event source with this
+     * queue, events that are already pulled are not read again.
+     * @return The new queue.
+     */
+    EventQueue copy() {
+      checkState(!closed, "A closed queue can not be copied.");
+      return new EventQueue(source, buffer, last, polled);
+    }
+
+    @Override
+    public boolean offer(@Nullable TimedEvent e) {
+      throw new UnsupportedOperationException(
+          "Events can not be added to a streaming scenario.");
+    }
+
+    @Nullable
+    @Override
+    public TimedEvent poll() {
+      final Node next = buffer.next(last);
+      if (next == null) {
+        return null;
+      }
+      last = next;
+      polled++;
+      return next.event;
+    }
+
+    @Nullable
+    @Override
+    public TimedEvent peek() {
+      final Node next = buffer.next(last);
+      return next == null ? null : next.event;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return buffer.next(last) == null;
+    }
+
+    /**
+     * The returned iterator does not remove the events from this queue. The
+     * events it pulls from the event source are kept in memory until they are
+     * polled.
+     * @return An iterator over the remaining events of this queue.
+     */
+    @Override
+    public Iterator<TimedEvent> iterator() {
+      return new AbstractIterator<TimedEvent>() {
+        Node current = last;
+
+        @Nullable
+        @Override
+        protected TimedEvent computeNext() {
+          final Node next = buffer.next(current);
+          if (next == null) {
+            return endOfData();
+          }
+          current = next;
+          return next.event;
+        }
+      };
+    }
+
+    /**
+     * The total number of events is computed only once for a queue and its
+     * copies. Unless all events are already pulled, this counts the events of
+     * a new iterator of the event source, the counted events are not kept in
+     * memory.
+     * @return The number of events that are not yet polled.
+     */
+    @Override
+    public int size() {
+      return buffer.total(source) - polled;
+    }
+
+    /**
+     * Closes this queue. The iterator of the event source is closed when all
+     * copies of the queue are closed, after that events that are not yet
+     * pulled from the source can no longer be obtained.
+     */
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        buffer.release();
+      }
+    }
+  }
+
+  /**
+   * A singly linked list of the events that are pulled from an iterator. Each
+   * node is filled at most once, the nodes that are no longer referenced by a
+   * queue or iterator can be garbage collected. The buffer counts the queues
+   * that use it, the iterator is closed when the last queue is closed.
+   */
+  static final class EventBuffer {
+    private final Iterator<? extends TimedEvent> events;
+    private long lastTime;
+    private int openQueues;
+    private boolean closed;
+    private boolean exhausted;
+    private int pulled;
+    // the total number of events, negative if not yet known
+    private int total;
+
+    EventBuffer(Iterator<? extends TimedEvent> it) {
+      events = it;
+      lastTime = Long.MIN_VALUE;
+      total = -1;
+    }
+
+    @Nullable
+    synchronized Node next(Node node) {
+      if (node.next == null && !closed) {
+        if (events.hasNext()) {
+          final TimedEvent e = events.next();
+          checkState(e.time >= lastTime,
+              "Events must be sorted by time, found %s after %s.", e.time,
+              lastTime);
+          lastTime = e.time;
+          node.next = new Node(e);
+          pulled++;
+        } else {
+          exhausted = true;
+          close();
+        }
+      }
+      return node.next;
+    }
+
+    synchronized int total(
+        Supplier<? extends Iterator<? extends TimedEvent>> source) {
+      if (total < 0) {
+        total = exhausted ? pulled : count(source.get());
+      }
+      return total;
+    }
+
+    synchronized void open() {
+      openQueues++;
+    }
+
+    synchronized void release() {
+      openQueues--;
+      if (openQueues == 0) {
+        close();
+      }
+    }
+
+    synchronized void close() {
+      if (!closed) {
+        closed = true;
+        StreamingScenario.close(events);
+      }
+    }
+  }
+
+  static final class Node {
+    @Nullable
+    final TimedEvent event;
+    @Nullable
+    Node next;
+
+    Node(@Nullable TimedEvent e) {
+      event = e;
+    }
+  }
+
+  /**
+   * Reads events from a file, one event per line. The file is closed when all
+   * events have been read or when the returned iterator is closed.
+   */
+  static final class EventFileSource implements Supplier<Iterator<TimedEvent>>,
+      Serializable {
+    private static final long serialVersionUID = -4290543327356312877L;
+    private final String file;
+
+    EventFileSource(Path f) {
+      file = f.toString();
+    }
+
+    @Override
+    public Iterator<TimedEvent> get() {
+      try {
+        return new EventReader(Files.newBufferedReader(Paths.get(file),
+            Charsets.UTF_8));
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return other != null && other.getClass() == getClass()
+          && file.equals(((EventFileSource) other).file);
+    }
+
+    @Override
+    public int hashCode() {
+      return file.hashCode();
+    }
+  }
+
+  /**
+   * Iterator over the events of a file, closing it closes the file.
+   */
+  static final class EventReader extends AbstractIterator<TimedEvent>
+      implements Closeable {
+    private final BufferedReader reader;
+
+    EventReader(BufferedReader r) {
+      reader = r;
+    }
+
+    @Nullable
+    @Override
+    protected TimedEvent computeNext() {
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.trim().isEmpty()) {
+            return ScenarioIO.readEvent(line);
+          }
+        }
+        reader.close();
+        return endOfData();
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
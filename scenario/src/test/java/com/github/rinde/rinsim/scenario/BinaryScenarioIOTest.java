@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.model.pdp.PDPScenarioEvent;
+import com.github.rinde.rinsim.core.pdptw.ParcelDTO;
+import com.github.rinde.rinsim.core.pdptw.VehicleDTO;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Tests for {@link BinaryScenarioIO}.
+ * @author Rinde van Lon
+ */
+public class BinaryScenarioIOTest {
+
+  /**
+   * Temporary folder for scenario files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * A scenario converted to binary and back should be identical to the
+   * original, the JSON representation is used to compare all fields.
+   */
+  @Test
+  public void testRoundTrip() {
+    for (final Scenario s : new Scenario[] { createScenario(),
+        ScenarioTestUtil.create(123L) }) {
+      for (final boolean compress : new boolean[] { true, false }) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+          BinaryScenarioIO.write(s, out, compress);
+        } catch (final IOException e) {
+          throw new IllegalStateException(e);
+        }
+        final Scenario read = BinaryScenarioIO.read(out.toByteArray(),
+            Scenario.DefaultScenario.class);
+        assertEquals(ScenarioIO.write(s), ScenarioIO.write(read));
+      }
+    }
+  }
+
+  /**
+   * Tests reading and writing of files and conversion using the command line
+   * interface.
+   * @throws Exception When IO fails.
+   */
+  @Test
+  public void testConverter() throws Exception {
+    final Scenario s = ScenarioTestUtil.create(456L);
+    final Path json = tempFolder.getRoot().toPath().resolve("scen.json");
+    final Path bin = tempFolder.getRoot().toPath().resolve("scen.bin");
+    final Path json2 = tempFolder.getRoot().toPath().resolve("scen2.json");
+    ScenarioIO.write(s, json);
+
+    BinaryScenarioIO.main(new String[] { json.toString(), bin.toString() });
+    assertTrue(BinaryScenarioIO.isBinary(bin));
+    assertFalse(BinaryScenarioIO.isBinary(json));
+    assertEquals(ScenarioIO.write(s),
+        ScenarioIO.write(BinaryScenarioIO.reader().apply(bin)));
+
+    BinaryScenarioIO.main(new String[] { bin.toString(), json2.toString() });
+    assertEquals(ScenarioIO.write(s), ScenarioIO.write(ScenarioIO.read(json2)));
+  }
+
+  /**
+   * Events that are not supported by the format should be refused.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedEvent() {
+    BinaryScenarioIO.write(Scenario.builder()
+        .addEvent(new TimedEvent(PDPScenarioEvent.TIME_OUT, 10) {})
+        .build());
+  }
+
+  static Scenario createScenario() {
+    return Scenario
+        .builder()
+        .addEvent(new AddVehicleEvent(100, VehicleDTO.builder()
+            .startPosition(new Point(7.1, 7.3))
+            .speed(7.123456789d)
+            .capacity(2)
+            .availabilityTimeWindow(new TimeWindow(0, 1000L))
+            .build()))
+        .addEvent(new AddDepotEvent(76, new Point(1d / 3d, 3)))
+        .addEvent(new AddParcelEvent(ParcelDTO
+            .builder(new Point(0.1, 0.2), new Point(Math.PI, Math.E))
+            .pickupTimeWindow(new TimeWindow(2500, 10000))
+            .deliveryTimeWindow(new TimeWindow(5000, Long.MAX_VALUE))
+            .neededCapacity(3)
+            .orderAnnounceTime(2400)
+            .pickupDuration(200)
+            .deliveryDuration(800)
+            .build()))
+        .addEvent(new TimedEvent(PDPScenarioEvent.TIME_OUT, 200000))
+        .build();
+  }
+}
@@ -40,6 +40,8 @@ import org.apache.commons.math3.random.MersenneTwister;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.rinde.rinsim.core.ForkContext;
+import com.github.rinde.rinsim.core.Forkable;
 import com.github.rinde.rinsim.core.Simulator;
 import com.github.rinde.rinsim.core.TimeLapse;
 import com.github.rinde.rinsim.core.TimeLapseFactory;
@@ -265,6 +267,41 @@ public class ScenarioControllerTest {
     controller.stop();
   }
 
+  /**
+   * A fork of a scenario controller should continue with the remaining events
+   * independently of the original.
+   */
+  @Test
+  public void fork() {
+    final ForkableHistory history = new ForkableHistory();
+    controller = new ScenarioController(scenario, simulator, history, -1);
+    simulator.configure();
+    simulator.tick();
+    simulator.tick();
+    assertEquals(asList(EVENT_A, EVENT_B, EVENT_B, EVENT_A),
+        history.eventTypes);
+
+    final Simulator fork = simulator.fork(new MersenneTwister(456));
+    final ScenarioController forkController = (ScenarioController) fork
+        .getTickListeners().iterator().next();
+    assertTrue(controller != forkController);
+    final ForkableHistory forkHistory = (ForkableHistory) forkController
+        .timedEventHandler;
+    for (int i = 0; i < 4; i++) {
+      fork.tick();
+    }
+    assertEquals(asList(EVENT_A, EVENT_B, EVENT_B, EVENT_A, EVENT_C),
+        forkHistory.eventTypes);
+    assertEquals(4, history.eventTypes.size());
+    assertFalse(forkController.isScenarioFinished());
+    assertFalse(controller.isScenarioFinished());
+
+    for (int i = 0; i < 4; i++) {
+      simulator.tick();
+    }
+    assertEquals(forkHistory.eventList, history.eventList);
+  }
+
   class TestHandler implements TimedEventHandler {
     Set<Enum<?>> types;
 
@@ -297,4 +334,16 @@ public class ScenarioControllerTest {
 
   }
 
+  class ForkableHistory extends EventHistory implements
+      Forkable<ForkableHistory> {
+
+    @Override
+    public ForkableHistory fork(ForkContext context) {
+      final ForkableHistory fork = new ForkableHistory();
+      fork.eventList.addAll(eventList);
+      fork.eventTypes.addAll(eventTypes);
+      return fork;
+    }
+  }
+
 }
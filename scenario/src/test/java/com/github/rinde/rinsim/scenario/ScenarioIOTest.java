@@ -17,7 +17,11 @@ package com.github.rinde.rinsim.scenario;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.junit.Test;
@@ -35,6 +39,8 @@ import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.Scenario.ProblemClass;
 import com.github.rinde.rinsim.scenario.Scenario.SimpleProblemClass;
 import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
 
 /**
  * Scenario IO test.
@@ -86,6 +92,85 @@ public class ScenarioIOTest {
     }
   }
 
+  /**
+   * The streaming event IO should read and write exactly the same JSON as the
+   * previous (tree based) implementation.
+   * @throws IOException When writing or reading the temporary file fails.
+   */
+  @Test
+  public void testEventFormat() throws IOException {
+    final String eventType = "\"eventType\":{\"class\":"
+        + "\"com.github.rinde.rinsim.core.model.pdp.PDPScenarioEvent\","
+        + "\"value\":\"%s\"},\"issuer\":{}";
+    final String events = "\"events\":["
+        + Joiner.on(",").join(
+            "{\"class\":\"com.github.rinde.rinsim.scenario.AddDepotEvent\","
+                + "\"value\":{\"position\":\"2.5,2.5\",\"time\":-1,"
+                + String.format(eventType, "ADD_DEPOT") + "}}",
+            "{\"class\":\"com.github.rinde.rinsim.scenario.AddVehicleEvent\","
+                + "\"value\":{\"vehicleDTO\":{\"startPosition\":\"2.5,2.5\","
+                + "\"speed\":50.0,\"capacity\":1,"
+                + "\"availabilityTimeWindow\":\"0,14400000\"},\"time\":-1,"
+                + String.format(eventType, "ADD_VEHICLE") + "}}",
+            "{\"class\":\"com.github.rinde.rinsim.scenario.AddParcelEvent\","
+                + "\"value\":{\"parcelDTO\":{\"pickupLocation\":\"0.5,1.25\","
+                + "\"deliveryLocation\":\"4.0,3.75\","
+                + "\"pickupTimeWindow\":\"1538241,3000000\","
+                + "\"deliveryTimeWindow\":\"1600000,4000000\","
+                + "\"neededCapacity\":0,\"orderAnnounceTime\":1538241,"
+                + "\"pickupDuration\":300000,\"deliveryDuration\":300000},"
+                + "\"time\":1538241,"
+                + String.format(eventType, "ADD_PARCEL") + "}}",
+            "{\"class\":\"com.github.rinde.rinsim.scenario.TimedEvent\","
+                + "\"value\":{\"time\":14400000,"
+                + String.format(eventType, "TIME_OUT") + "}}")
+        + "]";
+
+    final Scenario s = Scenario.builder(Scenario.DEFAULT_PROBLEM_CLASS)
+        .addEvent(new AddDepotEvent(-1, new Point(2.5, 2.5)))
+        .addEvent(new AddVehicleEvent(-1, VehicleDTO.builder()
+            .startPosition(new Point(2.5, 2.5))
+            .speed(50d)
+            .capacity(1)
+            .availabilityTimeWindow(new TimeWindow(0, 14400000))
+            .build()))
+        .addEvent(new AddParcelEvent(ParcelDTO
+            .builder(new Point(.5, 1.25), new Point(4, 3.75))
+            .pickupTimeWindow(new TimeWindow(1538241, 3000000))
+            .deliveryTimeWindow(new TimeWindow(1600000, 4000000))
+            .neededCapacity(0)
+            .orderAnnounceTime(1538241)
+            .pickupDuration(300000)
+            .deliveryDuration(300000)
+            .build()))
+        .addEvent(new TimedEvent(PDPScenarioEvent.TIME_OUT, 14400000))
+        .build();
+
+    final String json = ScenarioIO.write(s);
+    assertTrue(json, json.contains(events));
+
+    final Path file = Files.createTempFile("scenario", ".json");
+    try {
+      ScenarioIO.write(s, file);
+      assertEquals(json + System.lineSeparator(),
+          new String(Files.readAllBytes(file), Charsets.UTF_8));
+      final Scenario read = ScenarioIO.read(file);
+      assertEquals(s, read);
+
+      final AddParcelEvent ape = (AddParcelEvent) read.asList().get(2);
+      assertEquals(new Point(.5, 1.25), ape.parcelDTO.pickupLocation);
+      assertEquals(new TimeWindow(1600000, 4000000),
+          ape.parcelDTO.deliveryTimeWindow);
+      assertEquals(300000, ape.parcelDTO.deliveryDuration);
+      final AddVehicleEvent ave = (AddVehicleEvent) read.asList().get(1);
+      assertEquals(s.asList().get(1), ave);
+      assertEquals(((AddVehicleEvent) s.asList().get(1)).vehicleDTO,
+          ave.vehicleDTO);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
   enum TestProblemClass implements ProblemClass {
     TEST;
 
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario;
+
+import static com.github.rinde.rinsim.scenario.ScenarioControllerTest.TestEvents.EVENT_A;
+import static com.github.rinde.rinsim.scenario.ScenarioControllerTest.TestEvents.EVENT_B;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.TimeLapseFactory;
+import com.google.common.base.Supplier;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ForwardingIterator;
+
+/**
+ * Tests for {@link StreamingScenario}.
+ * @author Rinde van Lon
+ */
+public class StreamingScenarioTest {
+
+  /**
+   * Temporary folder for event files.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * The scenario controller should only pull the events it needs.
+   */
+  @Test
+  public void testLazyController() {
+    final Generator generator = new Generator(100);
+    final Scenario s = StreamingScenario.create(Scenario.builder()
+        .addEventTypes(asList(EVENT_A, EVENT_B))
+        .build(), generator);
+    final Simulator sim = new Simulator(new MersenneTwister(123),
+        Measure.valueOf(1L, SI.SECOND));
+    final int[] handled = new int[1];
+    final ScenarioController sc = new ScenarioController(s, sim,
+        new TimedEventHandler() {
+          @Override
+          public boolean handleTimedEvent(TimedEvent event) {
+            handled[0]++;
+            return true;
+          }
+        }, -1);
+    // nothing is pulled before the first tick
+    assertEquals(0, generator.pulled);
+
+    for (int t = 0; t < 5; t++) {
+      sc.tick(TimeLapseFactory.create(t, t + 1));
+    }
+    assertEquals(5, handled[0]);
+    assertEquals(6, generator.pulled);
+    assertFalse(sc.isScenarioFinished());
+
+    for (int t = 5; t < 100; t++) {
+      sc.tick(TimeLapseFactory.create(t, t + 1));
+    }
+    assertEquals(100, handled[0]);
+    assertTrue(sc.isScenarioFinished());
+  }
+
+  /**
+   * Tests a streaming scenario that reads its events from a file.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void testEventFile() throws IOException {
+    final Scenario original = ScenarioTestUtil.create(123L);
+    final Path file = tempFolder.getRoot().toPath().resolve("events");
+    StreamingScenario.writeEvents(original.asList(), file);
+
+    final Scenario props = Scenario.builder(original).clearEvents().build();
+    final StreamingScenario s = StreamingScenario.create(props, file);
+    assertEquals(original.size(), s.size());
+    assertEquals(original.asList(), s.asList());
+    assertEquals(original.getPossibleEventTypes(), s.getPossibleEventTypes());
+    assertEquals(original.getTimeWindow(), s.getTimeWindow());
+    assertEquals(original.getStopCondition(), s.getStopCondition());
+    assertEquals(ScenarioIO.writeEvent(original.asList().get(15)),
+        ScenarioIO.writeEvent(s.asList().get(15)));
+
+    assertEquals(s, StreamingScenario.create(props, file));
+    assertNotEquals(s, StreamingScenario.create(props, new Generator(3)));
+  }
+
+  /**
+   * Events that are not sorted by time should be detected.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testUnsorted() {
+    final Scenario s = StreamingScenario.create(Scenario.builder().build(),
+        new Supplier<Iterator<TimedEvent>>() {
+          @Override
+          public Iterator<TimedEvent> get() {
+            return asList(new TimedEvent(EVENT_A, 5),
+                new TimedEvent(EVENT_A, 3)).iterator();
+          }
+        });
+    final Queue<TimedEvent> q = s.asQueue();
+    q.poll();
+    q.poll();
+  }
+
+  /**
+   * A copy of a queue should contain the remaining events of the queue.
+   */
+  @Test
+  public void testCopyQueue() {
+    final Generator generator = new Generator(10);
+    final Scenario s = StreamingScenario.create(Scenario.builder()
+        .addEventTypes(asList(EVENT_A, EVENT_B))
+        .build(), generator);
+    final Queue<TimedEvent> q = s.asQueue();
+    q.poll();
+    q.poll();
+    q.poll();
+    assertEquals(3, generator.pulled);
+    final Queue<TimedEvent> copy = ScenarioController.copy(q);
+    assertEquals(new TimedEvent(EVENT_B, 3), copy.peek());
+    final List<TimedEvent> remaining = newArrayList(q.iterator());
+    assertEquals(7, remaining.size());
+    assertEquals(remaining, newArrayList(copy.iterator()));
+    // the copy shares the events that are already pulled by the original
+    assertEquals(10, generator.pulled);
+    while (q.poll() != null) {}
+    assertTrue(q.isEmpty());
+    assertEquals(new TimedEvent(EVENT_B, 3), copy.poll());
+    assertEquals(10, generator.pulled);
+  }
+
+  /**
+   * The iterator of the event source should be closed when all copies of a
+   * queue are closed.
+   */
+  @Test
+  public void testCloseCopies() {
+    final ClosingGenerator generator = new ClosingGenerator(10);
+    final StreamingScenario.EventQueue q = new StreamingScenario.EventQueue(
+        generator);
+    q.poll();
+    final StreamingScenario.EventQueue copy = q.copy();
+    final StreamingScenario.EventQueue copy2 = copy.copy();
+    q.close();
+    copy.close();
+    copy.close();
+    assertEquals(0, generator.closed);
+    assertEquals(new TimedEvent(EVENT_B, 1), copy2.poll());
+    copy2.close();
+    assertEquals(1, generator.closed);
+  }
+
+  /**
+   * Iterating over a queue should not remove its events, its size should be
+   * the number of remaining events.
+   */
+  @Test
+  public void testQueueIterator() {
+    final Generator generator = new Generator(10);
+    final Scenario s = StreamingScenario.create(Scenario.builder()
+        .addEventTypes(asList(EVENT_A, EVENT_B))
+        .build(), generator);
+    final Queue<TimedEvent> q = s.asQueue();
+    assertEquals(10, q.size());
+    q.poll();
+    final Iterator<TimedEvent> it = q.iterator();
+    assertEquals(new TimedEvent(EVENT_B, 1), it.next());
+    assertEquals(new TimedEvent(EVENT_A, 2), it.next());
+    assertEquals(9, q.size());
+    assertEquals(new TimedEvent(EVENT_B, 1), q.poll());
+    assertEquals(8, q.size());
+    // the events are only counted once
+    assertEquals(13, generator.pulled);
+    assertEquals(8, newArrayList(q).size());
+    assertEquals(newArrayList(q), newArrayList(q));
+    assertEquals(new TimedEvent(EVENT_A, 2), q.peek());
+  }
+
+  /**
+   * Closing a queue should close the iterator of the event source.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void testClose() throws IOException {
+    final Path file = tempFolder.getRoot().toPath().resolve("events");
+    StreamingScenario.writeEvents(ScenarioTestUtil.create(123L).asList(),
+        file);
+    final Iterator<TimedEvent> it = new StreamingScenario.EventFileSource(file)
+        .get();
+    assertTrue(it instanceof Closeable);
+    it.next();
+    ((Closeable) it).close();
+    boolean fail = false;
+    try {
+      it.next();
+    } catch (final IllegalStateException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+
+    final ClosingGenerator generator = new ClosingGenerator(10);
+    final StreamingScenario.EventQueue q = new StreamingScenario.EventQueue(
+        generator);
+    q.poll();
+    assertEquals(0, generator.closed);
+    q.close();
+    assertEquals(1, generator.closed);
+    q.close();
+    assertEquals(1, generator.closed);
+
+    // a fully read queue is closed automatically
+    final StreamingScenario.EventQueue q2 = new StreamingScenario.EventQueue(
+        generator);
+    while (q2.poll() != null) {}
+    assertEquals(2, generator.closed);
+    assertEquals(10, StreamingScenario.count(generator.get()));
+    assertEquals(3, generator.closed);
+  }
+
+  static class ClosingGenerator implements Supplier<Iterator<TimedEvent>> {
+    final Generator delegate;
+    int closed;
+
+    ClosingGenerator(int n) {
+      delegate = new Generator(n);
+    }
+
+    @Override
+    public Iterator<TimedEvent> get() {
+      return new ClosingIterator(delegate.get());
+    }
+
+    class ClosingIterator extends ForwardingIterator<TimedEvent> implements
+        Closeable {
+      final Iterator<TimedEvent> it;
+
+      ClosingIterator(Iterator<TimedEvent> i) {
+        it = i;
+      }
+
+      @Override
+      protected Iterator<TimedEvent> delegate() {
+        return it;
+      }
+
+      @Override
+      public void close() {
+        closed++;
+      }
+    }
+  }
+
+  static class Generator implements Supplier<Iterator<TimedEvent>> {
+    final int num;
+    int pulled;
+
+    Generator(int n) {
+      num = n;
+    }
+
+    @Override
+    public Iterator<TimedEvent> get() {
+      return new AbstractIterator<TimedEvent>() {
+        int time;
+
+        @Override
+        protected TimedEvent computeNext() {
+          if (time == num) {
+            return endOfData();
+          }
+          pulled++;
+          return new TimedEvent(time % 2 == 0 ? EVENT_A : EVENT_B, time++);
+        }
+      };
+    }
+  }
+}
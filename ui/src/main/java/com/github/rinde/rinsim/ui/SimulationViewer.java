@@ -20,6 +20,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +64,7 @@ import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.ui.renderers.CanvasRenderer;
 import com.github.rinde.rinsim.ui.renderers.PanelRenderer;
 import com.github.rinde.rinsim.ui.renderers.Renderer;
+import com.github.rinde.rinsim.ui.renderers.SnapshotRenderer;
 import com.github.rinde.rinsim.ui.renderers.ViewPort;
 import com.github.rinde.rinsim.ui.renderers.ViewRect;
 import com.google.common.collect.ImmutableList;
@@ -100,6 +102,10 @@ final class SimulationViewer extends Composite implements TickListener,
   private static final int MIN_SPEED_UP = 1;
   private static final int MAX_SPEED_UP = 512;
   private static final int MAX_ZOOM_LEVEL = 16;
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  private static final int TILE_SIZE = 512;
+  private static final int MAX_TILES = 64;
+  private static final int TILE_MARGIN = 16;
 
   boolean firstTime = true;
   final Simulator simulator;
@@ -112,10 +118,13 @@ final class SimulationViewer extends Composite implements TickListener,
   private org.eclipse.swt.graphics.Point origin;
   private org.eclipse.swt.graphics.Point size;
 
-  @Nullable
-  private Image image;
+  // the static layer is rendered lazily in tiles, only the visible tiles are
+  // rendered and a limited number of tiles is kept
+  private final Map<Long, Image> tiles;
+  private boolean contentSized;
   private final ImmutableList<PanelRenderer> panelRenderers;
   private final List<CanvasRenderer> renderers;
+  private final List<SnapshotRenderer> snapshotRenderers;
   private final Set<ModelReceiver> modelRenderers;
   private final boolean autoPlay;
   private MenuItem playPauseMenuItem;
@@ -130,13 +139,24 @@ final class SimulationViewer extends Composite implements TickListener,
   // rendering frequency related
   private int speedUp;
   private long lastRefresh;
+  private final long frameInterval;
+  // true if all canvas renderers and panels draw from snapshots only
+  private final boolean snapshotsOnly;
+  private long lastFrame;
+
+  // snapshot related, the lock guards the pending flag and the times
+  private final Object snapshotLock;
+  private boolean snapshotPending;
+  private long pendingSnapshotTime;
+  private long snapshotTime;
 
   private int zoomRatio;
   private final Display display;
   private final Map<MenuItems, Integer> accelerators;
 
   SimulationViewer(Shell shell, final Simulator sim, int pSpeedUp,
-      boolean pAutoPlay, List<Renderer> pRenderers, Map<MenuItems, Integer> acc) {
+      int pFrameRate, boolean pAutoPlay, List<Renderer> pRenderers,
+      Map<MenuItems, Integer> acc) {
     super(shell, SWT.NONE);
 
     accelerators = acc;
@@ -144,6 +164,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
     final Multimap<Integer, PanelRenderer> panels = LinkedHashMultimap.create();
     renderers = newArrayList();
+    snapshotRenderers = newArrayList();
     modelRenderers = newLinkedHashSet();
     for (final Renderer r : pRenderers) {
       if (r instanceof ModelReceiver) {
@@ -160,6 +181,9 @@ final class SimulationViewer extends Composite implements TickListener,
         renderers.add((CanvasRenderer) r);
         valid = true;
       }
+      if (r instanceof SnapshotRenderer) {
+        snapshotRenderers.add((SnapshotRenderer) r);
+      }
 
       checkState(valid, "A renderer was not of a recognized subtype: %s", r);
 
@@ -168,11 +192,34 @@ final class SimulationViewer extends Composite implements TickListener,
       }
     }
     panelRenderers = ImmutableList.copyOf(panels.values());
+    snapshotsOnly = snapshotRenderers.containsAll(renderers)
+        && snapshotRenderers.containsAll(panelRenderers);
 
     simulator = sim;
     simulator.addTickListener(this);
 
     speedUp = pSpeedUp;
+    frameInterval = pFrameRate > 0 ? NANOS_PER_SECOND / pFrameRate : 0L;
+    snapshotLock = new Object();
+    configureModelRenderers();
+    // the initial snapshot is taken by the thread that owns the simulator, if
+    // the simulator is already playing the first tick will take it
+    if (!simulator.isPlaying()) {
+      takeSnapshots(simulator.getCurrentTime());
+    }
+    tiles = new LinkedHashMap<Long, Image>(MAX_TILES, .75f, true) {
+      private static final long serialVersionUID = 2373461186454541924L;
+
+      @Override
+      protected boolean removeEldestEntry(
+          @Nullable Map.Entry<Long, Image> eldest) {
+        if (size() > MAX_TILES && eldest != null) {
+          eldest.getValue().dispose();
+          return true;
+        }
+        return false;
+      }
+    };
     shell.setLayout(new FillLayout());
     display = shell.getDisplay();
     setLayout(new FillLayout());
@@ -436,11 +483,9 @@ final class SimulationViewer extends Composite implements TickListener,
       origin.y /= 2;
       zoomRatio >>= 1;
     }
-    if (image != null) {
-      image.dispose();
-    }
+    disposeTiles();
     // this forces a redraw
-    image = null;
+    contentSized = false;
     canvas.redraw();
   }
 
@@ -456,19 +501,61 @@ final class SimulationViewer extends Composite implements TickListener,
     }
   }
 
-  Image renderStatic() {
-    size = new org.eclipse.swt.graphics.Point((int) (m * viewRect.width),
-        (int) (m * viewRect.height));
-    final Image img = new Image(getDisplay(), size.x, size.y);
-    final GC gc = new GC(img);
+  void disposeTiles() {
+    for (final Image tile : tiles.values()) {
+      tile.dispose();
+    }
+    tiles.clear();
+  }
 
+  /**
+   * Renders a tile of the static layer. The renderers receive a viewport of
+   * which the visible rectangle covers the tile plus a small margin.
+   */
+  Image renderTile(int tx, int ty) {
+    final int x = tx * TILE_SIZE;
+    final int y = ty * TILE_SIZE;
+    final Image img = new Image(getDisplay(), Math.min(TILE_SIZE, size.x - x),
+        Math.min(TILE_SIZE, size.y - y));
+    final GC gc = new GC(img);
+    final ViewRect visible = toViewRect(x - TILE_MARGIN, y - TILE_MARGIN,
+        x + TILE_SIZE + TILE_MARGIN, y + TILE_SIZE + TILE_MARGIN);
     for (final CanvasRenderer r : renderers) {
-      r.renderStatic(gc, new ViewPort(new Point(0, 0), viewRect, m));
+      r.renderStatic(gc, new ViewPort(new Point(-x, -y), viewRect, m,
+          visible));
     }
     gc.dispose();
     return img;
   }
 
+  void drawTiles(GC gc, org.eclipse.swt.graphics.Point center) {
+    final Rectangle client = canvas.getClientArea();
+    final int tx0 = Math.max(0, (client.x - center.x) / TILE_SIZE);
+    final int ty0 = Math.max(0, (client.y - center.y) / TILE_SIZE);
+    final int tx1 = Math.min((size.x - 1) / TILE_SIZE,
+        (client.x + client.width - center.x) / TILE_SIZE);
+    final int ty1 = Math.min((size.y - 1) / TILE_SIZE,
+        (client.y + client.height - center.y) / TILE_SIZE);
+    for (int tx = tx0; tx <= tx1; tx++) {
+      for (int ty = ty0; ty <= ty1; ty++) {
+        final long key = (long) tx << Integer.SIZE | ty;
+        Image tile = tiles.get(key);
+        if (tile == null) {
+          tile = renderTile(tx, ty);
+          tiles.put(key, tile);
+        }
+        gc.drawImage(tile, center.x + tx * TILE_SIZE, center.y + ty
+            * TILE_SIZE);
+      }
+    }
+  }
+
+  // converts a rectangle in pixels relative to the content to a view rect
+  ViewRect toViewRect(int x0, int y0, int x1, int y1) {
+    return new ViewRect(new Point(viewRect.min.x + x0 / m, viewRect.min.y + y0
+        / m), new Point(viewRect.min.x + x1 / m, viewRect.min.y + y1 / m));
+  }
+
   @Override
   public void paintControl(@Nullable PaintEvent e) {
     checkState(e != null);
@@ -476,29 +563,34 @@ final class SimulationViewer extends Composite implements TickListener,
 
     final boolean wasFirstTime = firstTime;
     if (firstTime) {
-      configureModelRenderers();
       calculateSizes();
       firstTime = false;
     }
+    swapSnapshots();
 
-    if (image == null) {
-      image = renderStatic();
+    if (!contentSized) {
+      size = new org.eclipse.swt.graphics.Point((int) (m * viewRect.width),
+          (int) (m * viewRect.height));
+      contentSized = true;
       updateScrollbars(false);
     }
 
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
+    drawTiles(gc, center);
 
-    gc.drawImage(image, center.x, center.y);
+    final Rectangle area = canvas.getClientArea();
+    final ViewRect visible = toViewRect(area.x - center.x, area.y - center.y,
+        area.x + area.width - center.x, area.y + area.height - center.y);
     for (final CanvasRenderer renderer : renderers) {
       renderer.renderDynamic(gc, new ViewPort(new Point(center.x,
           center.y),
-          viewRect, m), simulator.getCurrentTime());
+          viewRect, m, visible), snapshotTime);
     }
     for (final PanelRenderer renderer : panelRenderers) {
       renderer.render();
     }
 
-    final Rectangle content = image.getBounds();
+    final Rectangle content = contentBounds();
     final Rectangle client = canvas.getClientArea();
 
     hBar.setVisible(content.width > client.width);
@@ -510,8 +602,12 @@ final class SimulationViewer extends Composite implements TickListener,
     }
   }
 
+  Rectangle contentBounds() {
+    return new Rectangle(0, 0, size.x, size.y);
+  }
+
   org.eclipse.swt.graphics.Point getCenteredOrigin() {
-    final Rectangle rect = image.getBounds();
+    final Rectangle rect = contentBounds();
     final Rectangle client = canvas.getClientArea();
     final int zeroX = client.x + client.width / 2 - rect.width / 2;
     final int zeroY = client.y + client.height / 2 - rect.height / 2;
@@ -520,7 +616,7 @@ final class SimulationViewer extends Composite implements TickListener,
   }
 
   void updateScrollbars(boolean adaptToScrollbar) {
-    final Rectangle rect = image.getBounds();
+    final Rectangle rect = contentBounds();
     final Rectangle client = canvas.getClientArea();
 
     hBar.setMaximum(rect.width);
@@ -577,7 +673,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   @Override
   public void controlResized(ControlEvent e) {
-    if (image != null) {
+    if (contentSized) {
       updateScrollbars(true);
       scrollHorizontal();
       scrollVertical();
@@ -596,7 +692,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   void scrollVertical() {
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
-    final Rectangle content = image.getBounds();
+    final Rectangle content = contentBounds();
     final Rectangle client = canvas.getClientArea();
     if (client.height > content.height) {
       origin.y = 0;
@@ -612,7 +708,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   void scrollHorizontal() {
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
-    final Rectangle content = image.getBounds();
+    final Rectangle content = contentBounds();
     final Rectangle client = canvas.getClientArea();
     if (client.width > content.width) {
       origin.x = 0;
@@ -634,6 +730,10 @@ final class SimulationViewer extends Composite implements TickListener,
 
   @Override
   public void afterTick(final TimeLapse timeLapse) {
+    if (frameInterval > 0) {
+      afterTickDecoupled(timeLapse);
+      return;
+    }
     if (simulator.isPlaying()
         && lastRefresh + timeLapse.getTimeStep() * speedUp > timeLapse
             .getStartTime()) {
@@ -649,22 +749,106 @@ final class SimulationViewer extends Composite implements TickListener,
     if (display.isDisposed()) {
       return;
     }
+    refreshAndWait(simulator.getCurrentTime());
+  }
+
+  /**
+   * Takes a snapshot and redraws the canvas on the UI thread while the
+   * simulation thread waits.
+   * @param time The current simulation time.
+   */
+  void refreshAndWait(final long time) {
     display.syncExec(new Runnable() {
       @Override
       public void run() {
         if (!canvas.isDisposed()) {
-          if (simulator.getTimeStep() > 500) {
-            final String formatted = FORMATTER
-                .print(
-                new Period(0, simulator.getCurrentTime()));
-            timeLabel.setText(formatted);
-          } else {
-            timeLabel.setText("" + simulator.getCurrentTime());
-          }
-          timeLabel.pack();
+          // the simulation thread waits for this runnable, the models can be
+          // read safely
+          takeSnapshots(time);
+          updateTimeLabel(time);
+          canvas.redraw();
+          canvas.update();
+        }
+      }
+    });
+  }
+
+  /**
+   * Takes a snapshot at most once per frame interval and only if the previous
+   * snapshot has been picked up by the UI thread. The UI thread is notified
+   * asynchronously, the simulation thread never waits for the GUI. If there is
+   * a renderer or panel that reads the models while drawing, the simulation
+   * thread waits for every frame instead.
+   */
+  void afterTickDecoupled(TimeLapse timeLapse) {
+    final long now = System.nanoTime();
+    if (simulator.isPlaying() && now - lastFrame < frameInterval) {
+      return;
+    }
+    synchronized (snapshotLock) {
+      if (snapshotPending) {
+        return;
+      }
+    }
+    lastFrame = now;
+    if (display.isDisposed()) {
+      return;
+    }
+    final long time = simulator.getCurrentTime();
+    if (!snapshotsOnly) {
+      refreshAndWait(time);
+      return;
+    }
+    takeSnapshots(time);
+    display.asyncExec(new Runnable() {
+      @Override
+      public void run() {
+        if (!canvas.isDisposed()) {
+          updateTimeLabel(time);
           canvas.redraw();
         }
       }
     });
   }
+
+  /**
+   * Writes the back snapshots of all snapshot renderers. Must be called from
+   * the thread that runs the simulation (or while it is waiting) and only when
+   * no snapshot is pending.
+   * @param time The time of the snapshot.
+   */
+  void takeSnapshots(long time) {
+    for (final SnapshotRenderer r : snapshotRenderers) {
+      r.snapshot(time);
+    }
+    synchronized (snapshotLock) {
+      pendingSnapshotTime = time;
+      snapshotPending = true;
+    }
+  }
+
+  /**
+   * Makes the pending snapshot, if any, the snapshot that is drawn. Must be
+   * called from the UI thread.
+   */
+  void swapSnapshots() {
+    synchronized (snapshotLock) {
+      if (snapshotPending) {
+        for (final SnapshotRenderer r : snapshotRenderers) {
+          r.swapSnapshots();
+        }
+        snapshotTime = pendingSnapshotTime;
+        snapshotPending = false;
+      }
+    }
+  }
+
+  void updateTimeLabel(long time) {
+    if (simulator.getTimeStep() > 500) {
+      timeLabel.setText(FORMATTER.print(new Period(0, time)));
+    } else {
+      timeLabel.setText("" + time);
+    }
+    timeLabel.pack();
+  }
 }
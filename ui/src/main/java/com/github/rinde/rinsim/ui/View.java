@@ -77,6 +77,7 @@ public final class View {
     boolean fullScreen;
     boolean async;
     int speedUp;
+    int frameRate;
     long stopTime;
     long sleep;
     @Nullable
@@ -98,6 +99,7 @@ public final class View {
       fullScreen = false;
       title = "Simulator";
       speedUp = 1;
+      frameRate = 0;
       stopTime = -1;
       screenSize = DEFAULT_WINDOW_SIZE;
       rendererList = newArrayList();
@@ -157,6 +159,31 @@ public final class View {
       return this;
     }
 
+    /**
+     * Decouples the GUI from the simulation: the simulation runs at full speed
+     * and the GUI is refreshed at most <code>fps</code> times per second. For
+     * each frame the renderers that implement
+     * {@link com.github.rinde.rinsim.ui.renderers.SnapshotRenderer} take a
+     * snapshot on the simulation thread, drawing happens from that snapshot on
+     * the UI thread. A new snapshot is only taken when the previous one has
+     * been drawn, the simulation never waits for the GUI. This is only safe
+     * when no renderer reads the models while drawing. Therefore, if any of
+     * the {@link com.github.rinde.rinsim.ui.renderers.CanvasRenderer}s or
+     * {@link com.github.rinde.rinsim.ui.renderers.PanelRenderer}s is not a
+     * snapshot renderer (e.g. a route renderer or a statistics panel), the
+     * simulation waits for every frame to be drawn, the frame rate is still
+     * limited to <code>fps</code>. When set, {@link #setSpeedUp(int)} is
+     * ignored. Default: <code>disabled</code>, the GUI is refreshed every
+     * speed up ticks and the simulation waits for it.
+     * @param fps The maximum number of frames per second, must be positive.
+     * @return This as per the builder pattern.
+     */
+    public Builder setFrameRate(int fps) {
+      checkArgument(fps > 0, "Frame rate must be positive, found %s.", fps);
+      frameRate = fps;
+      return this;
+    }
+
     /**
      * Should be used in case there is already an SWT application running that
      * was launched from the same VM as the current GUI that is created.
@@ -335,8 +362,8 @@ public final class View {
       });
 
       // simulator viewer is run in here
-      new SimulationViewer(shell, simulator, speedUp, autoPlay, rendererList,
-          accelerators);
+      new SimulationViewer(shell, simulator, speedUp, frameRate, autoPlay,
+          rendererList, accelerators);
       shell.open();
       if (!async) {
         while (!shell.isDisposed()) {
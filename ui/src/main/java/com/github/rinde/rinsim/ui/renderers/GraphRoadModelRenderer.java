@@ -37,16 +37,24 @@ import com.google.common.base.Optional;
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
  * 
  */
-public final class GraphRoadModelRenderer implements ModelRenderer {
+public final class GraphRoadModelRenderer implements ModelRenderer,
+    SnapshotRenderer {
 
   private static final int NODE_RADIUS = 2;
   private static final Point RELATIVE_TEXT_POSITION = new Point(4, -14);
+  // the maximum error in pixels of simplified roads
+  private static final double LOD_TOLERANCE = .5;
+  // margin in pixels for culling nodes, large enough for their labels
+  private static final int NODE_MARGIN = 100;
 
   private GraphRoadModel grm;
   private final int margin;
   private final boolean showNodes;
   private final boolean showNodeLabels;
   private final boolean drawDirectionArrows;
+  @Nullable
+  private PolylineIndex index;
+  private int indexedConnections;
 
   public GraphRoadModelRenderer(int pMargin, boolean pShowNodes,
       boolean pShowNodeLabels, boolean pDrawDirectionArrows) {
@@ -64,12 +72,24 @@ public final class GraphRoadModelRenderer implements ModelRenderer {
     this(20, false, false, false);
   }
 
+  /**
+   * Only the part of the graph that is in the visible rectangle of the
+   * viewport is drawn. Unless direction arrows are drawn, roads are drawn as
+   * polylines that are simplified depending on the scale of the viewport:
+   * details smaller than half a pixel are omitted and roads smaller than a
+   * pixel are drawn as a single point.
+   * @param gc The graphics context to draw on.
+   * @param vp The viewport.
+   */
   @Override
   public void renderStatic(GC gc, ViewPort vp) {
     final Graph<? extends ConnectionData> graph = grm.getGraph();
 
     if (showNodes || showNodeLabels) {
       for (final Point node : graph.getNodes()) {
+        if (!vp.isVisible(node.x, node.y, NODE_MARGIN)) {
+          continue;
+        }
         final int x1 = vp.toCoordX(node.x) - NODE_RADIUS;
         final int y1 = vp.toCoordY(node.y) - NODE_RADIUS;
 
@@ -86,7 +106,46 @@ public final class GraphRoadModelRenderer implements ModelRenderer {
       }
     }
 
+    gc.setForeground(gc.getDevice().getSystemColor(SWT.COLOR_GRAY));
+    if (drawDirectionArrows) {
+      renderConnections(gc, vp, graph);
+    } else {
+      renderPolylines(gc, vp, getIndex(graph));
+    }
+  }
+
+  void renderPolylines(GC gc, ViewPort vp, PolylineIndex idx) {
+    final double tolerance = LOD_TOLERANCE / vp.scale;
+    final int[] found = idx.query(vp.visibleRect);
+    final int size = idx.lastQuerySize();
+    int[] coords = new int[16];
+    for (int i = 0; i < size; i++) {
+      final double[] line = idx.getPolyline(found[i], tolerance);
+      if (idx.extent(found[i]) < 2 * tolerance) {
+        gc.drawPoint(vp.toCoordX(line[0]), vp.toCoordY(line[1]));
+        continue;
+      }
+      if (coords.length != line.length) {
+        coords = new int[line.length];
+      }
+      for (int j = 0; j < line.length; j += 2) {
+        coords[j] = vp.toCoordX(line[j]);
+        coords[j + 1] = vp.toCoordY(line[j + 1]);
+      }
+      gc.drawPolyline(coords);
+    }
+  }
+
+  void renderConnections(GC gc, ViewPort vp,
+      Graph<? extends ConnectionData> graph) {
+    final ViewRect visible = vp.visibleRect;
     for (final Connection<? extends ConnectionData> e : graph.getConnections()) {
+      if (Math.max(e.from.x, e.to.x) < visible.min.x
+          || Math.min(e.from.x, e.to.x) > visible.max.x
+          || Math.max(e.from.y, e.to.y) < visible.min.y
+          || Math.min(e.from.y, e.to.y) > visible.max.y) {
+        continue;
+      }
       final int x1 = vp.toCoordX(e.from.x);
       final int y1 = vp.toCoordY(e.from.y);
 
@@ -95,36 +154,50 @@ public final class GraphRoadModelRenderer implements ModelRenderer {
       gc.setForeground(gc.getDevice().getSystemColor(SWT.COLOR_GRAY));
       gc.drawLine(x1, y1, x2, y2);
 
-      if (drawDirectionArrows) {
-        final double dist = Point
-            .distance(new Point(x1, y1), new Point(x2, y2));
-        final double r = 14d / dist;
-        final double r2 = 4d / dist;
-        final Point unit = Point.divide(
-            Point.diff(new Point(x1, y1), new Point(x2, y2)), dist);
-
-        // get two points on the line
-        final int x3 = (int) (r * x1 + (1 - r) * x2);
-        final int y3 = (int) (r * y1 + (1 - r) * y2);
-        final int x6 = (int) (r2 * x1 + (1 - r2) * x2);
-        final int y6 = (int) (r2 * y1 + (1 - r2) * y2);
-
-        // get two points perpendicular to the line next to point 3
-        final int x4 = (int) (x3 + 5 * unit.y);
-        final int y4 = (int) (y3 + 5 * unit.x);
-        final int x5 = (int) (x3 - 5 * unit.y);
-        final int y5 = (int) (y3 - 5 * unit.x);
-
-        // draw the arrow
-        gc.setBackground(gc.getDevice().getSystemColor(SWT.COLOR_GRAY));
-        gc.fillPolygon(new int[] { x4, y4, x5, y5, x6, y6 });
-      }
+      final double dist = Point
+          .distance(new Point(x1, y1), new Point(x2, y2));
+      final double r = 14d / dist;
+      final double r2 = 4d / dist;
+      final Point unit = Point.divide(
+          Point.diff(new Point(x1, y1), new Point(x2, y2)), dist);
+
+      // get two points on the line
+      final int x3 = (int) (r * x1 + (1 - r) * x2);
+      final int y3 = (int) (r * y1 + (1 - r) * y2);
+      final int x6 = (int) (r2 * x1 + (1 - r2) * x2);
+      final int y6 = (int) (r2 * y1 + (1 - r2) * y2);
+
+      // get two points perpendicular to the line next to point 3
+      final int x4 = (int) (x3 + 5 * unit.y);
+      final int y4 = (int) (y3 + 5 * unit.x);
+      final int x5 = (int) (x3 - 5 * unit.y);
+      final int y5 = (int) (y3 - 5 * unit.x);
+
+      // draw the arrow
+      gc.setBackground(gc.getDevice().getSystemColor(SWT.COLOR_GRAY));
+      gc.fillPolygon(new int[] { x4, y4, x5, y5, x6, y6 });
     }
   }
 
+  // the index is rebuilt when the number of connections has changed
+  PolylineIndex getIndex(Graph<? extends ConnectionData> graph) {
+    if (index == null || indexedConnections != graph.getNumberOfConnections()) {
+      index = PolylineIndex.create(graph);
+      indexedConnections = graph.getNumberOfConnections();
+    }
+    return index;
+  }
+
   @Override
   public void renderDynamic(GC gc, ViewPort vp, long time) {}
 
+  // the graph is only drawn on the static tiles
+  @Override
+  public void snapshot(long time) {}
+
+  @Override
+  public void swapSnapshots() {}
+
   @Nullable
   @Override
   public ViewRect getViewRect() {
@@ -15,9 +15,10 @@
  */
 package com.github.rinde.rinsim.ui.renderers;
 
+import static com.google.common.collect.Lists.newArrayList;
+
 import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
@@ -32,14 +33,15 @@ import com.github.rinde.rinsim.core.model.pdp.Vehicle;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
 import com.github.rinde.rinsim.core.model.pdp.PDPModel.VehicleState;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
-import com.github.rinde.rinsim.core.model.road.RoadUser;
 import com.github.rinde.rinsim.geom.Point;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * @author Rinde van Lon 
  * 
  */
-public final class PDPModelRenderer implements ModelRenderer {
+public final class PDPModelRenderer implements ModelRenderer,
+    SnapshotRenderer {
 
   private Color black;
   private Color white;
@@ -57,6 +59,8 @@ public final class PDPModelRenderer implements ModelRenderer {
 
   private boolean isInitialized;
   private final boolean drawDestLines;
+  private Snapshot front;
+  private Snapshot back;
 
   public PDPModelRenderer() {
     this(true);
@@ -64,6 +68,8 @@ public final class PDPModelRenderer implements ModelRenderer {
 
   public PDPModelRenderer(boolean drawDestinationLines) {
     drawDestLines = drawDestinationLines;
+    front = new Snapshot();
+    back = new Snapshot();
   }
 
   // TODO dispose colors on exit!
@@ -88,86 +94,98 @@ public final class PDPModelRenderer implements ModelRenderer {
   public void renderStatic(GC gc, ViewPort vp) {}
 
   @Override
-  public void renderDynamic(GC gc, ViewPort vp, long time) {
-    if (!isInitialized) {
-      initialize(gc);
-    }
-
+  public void snapshot(long time) {
+    back.clear();
     synchronized (pdpModel) {
-      final Map<RoadUser, Point> posMap = roadModel.getObjectsAndPositions();
-      final Set<Vehicle> vehicles = pdpModel.getVehicles();
-
-      for (final Vehicle v : vehicles) {
-        if (posMap.containsKey(v)) {
-          final Point p = posMap.get(v);
-          final double size = pdpModel.getContentsSize(v);
-
-          final Collection<Parcel> contents = pdpModel.getContents(v);
-          final int x = vp.toCoordX(p.x);
-          final int y = vp.toCoordY(p.y);
-
-          if (drawDestLines) {
-            gc.setForeground(black);
-            for (final Parcel parcel : contents) {
-              final Point po = parcel.getDestination();
-              final int xd = vp.toCoordX(po.x);
-              final int yd = vp.toCoordY(po.y);
-              if (parcel.getDeliveryTimeWindow().isBeforeStart(time)) {
-                gc.setBackground(darkGreen);
-              } else if (parcel.getDeliveryTimeWindow().isBeforeEnd(time)) {
-                gc.setBackground(green);
-              } else {
-                gc.setBackground(orange);
-              }
-              gc.drawLine(x, y, xd, yd);
-              gc.fillOval(xd - 5, yd - 5, 10, 10);
-              gc.drawOval(xd - 5, yd - 5, 10, 10);
-            }
-          }
-          gc.setBackground(backgroundInfo);
-          gc.setForeground(foregroundInfo);
+      for (final Vehicle v : pdpModel.getVehicles()) {
+        if (roadModel.containsObject(v)) {
           final VehicleState state = pdpModel.getVehicleState(v);
+          String stateInfo = null;
           // FIXME, investigate why the second check is
           // neccesary..
           if (state != VehicleState.IDLE
               && pdpModel.getVehicleActionInfo(v) != null) {
-            gc.drawText(
-                state.toString() + " "
-                    + pdpModel.getVehicleActionInfo(v).timeNeeded(), x, y - 20);
+            stateInfo = state.toString() + " "
+                + pdpModel.getVehicleActionInfo(v).timeNeeded();
           }
-          gc.drawText("" + size, x, y);
-          drawMore(gc, vp, time, v, p, posMap);
+          back.vehicles.add(new VehicleInfo(roadModel.getPosition(v),
+              pdpModel.getContentsSize(v), stateInfo, pdpModel.getContents(v)));
         }
       }
-
       final Collection<Parcel> parcels = pdpModel.getParcels(
           ParcelState.AVAILABLE, ParcelState.ANNOUNCED);
       for (final Parcel parcel : parcels) {
+        if (roadModel.containsObject(parcel)) {
+          back.parcels.add(new ParcelInfo(parcel, roadModel
+              .getPosition(parcel)));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void swapSnapshots() {
+    final Snapshot temp = front;
+    front = back;
+    back = temp;
+  }
 
-        final Point p = posMap.get(parcel);
-        if (posMap.containsKey(parcel)) {
-          final int x = vp.toCoordX(p.x);
-          final int y = vp.toCoordY(p.y);
-          gc.setForeground(lightGray);
-          gc.drawLine(x, y, vp.toCoordX(parcel.getDestination().x),
-              vp.toCoordY(parcel.getDestination().y));
+  @Override
+  public void renderDynamic(GC gc, ViewPort vp, long time) {
+    if (!isInitialized) {
+      initialize(gc);
+    }
 
-          if (parcel.getPickupTimeWindow().isBeforeStart(time)) {
+    for (final VehicleInfo v : front.vehicles) {
+      final Point p = v.position;
+      final int x = vp.toCoordX(p.x);
+      final int y = vp.toCoordY(p.y);
+
+      if (drawDestLines) {
+        gc.setForeground(black);
+        for (final Parcel parcel : v.contents) {
+          final Point po = parcel.getDestination();
+          final int xd = vp.toCoordX(po.x);
+          final int yd = vp.toCoordY(po.y);
+          if (parcel.getDeliveryTimeWindow().isBeforeStart(time)) {
             gc.setBackground(darkGreen);
-          } else if (parcel.getPickupTimeWindow().isBeforeEnd(time)) {
+          } else if (parcel.getDeliveryTimeWindow().isBeforeEnd(time)) {
             gc.setBackground(green);
           } else {
             gc.setBackground(orange);
           }
-          gc.setForeground(black);
-          gc.fillOval(x - 5, y - 5, 10, 10);
+          gc.drawLine(x, y, xd, yd);
+          gc.fillOval(xd - 5, yd - 5, 10, 10);
+          gc.drawOval(xd - 5, yd - 5, 10, 10);
         }
       }
+      gc.setBackground(backgroundInfo);
+      gc.setForeground(foregroundInfo);
+      if (v.stateInfo != null) {
+        gc.drawText(v.stateInfo, x, y - 20);
+      }
+      gc.drawText("" + v.contentsSize, x, y);
     }
-  }
 
-  protected void drawMore(GC gc, ViewPort vp, long time, Vehicle v, Point p,
-      Map<RoadUser, Point> posMap) {}
+    for (final ParcelInfo info : front.parcels) {
+      final Parcel parcel = info.parcel;
+      final int x = vp.toCoordX(info.position.x);
+      final int y = vp.toCoordY(info.position.y);
+      gc.setForeground(lightGray);
+      gc.drawLine(x, y, vp.toCoordX(parcel.getDestination().x),
+          vp.toCoordY(parcel.getDestination().y));
+
+      if (parcel.getPickupTimeWindow().isBeforeStart(time)) {
+        gc.setBackground(darkGreen);
+      } else if (parcel.getPickupTimeWindow().isBeforeEnd(time)) {
+        gc.setBackground(green);
+      } else {
+        gc.setBackground(orange);
+      }
+      gc.setForeground(black);
+      gc.fillOval(x - 5, y - 5, 10, 10);
+    }
+  }
 
   @Nullable
   @Override
@@ -181,4 +199,45 @@ public final class PDPModelRenderer implements ModelRenderer {
     roadModel = mp.getModel(RoadModel.class);
   }
 
+  static final class Snapshot {
+    final List<VehicleInfo> vehicles;
+    final List<ParcelInfo> parcels;
+
+    Snapshot() {
+      vehicles = newArrayList();
+      parcels = newArrayList();
+    }
+
+    void clear() {
+      vehicles.clear();
+      parcels.clear();
+    }
+  }
+
+  static final class VehicleInfo {
+    final Point position;
+    final double contentsSize;
+    @Nullable
+    final String stateInfo;
+    final ImmutableSet<Parcel> contents;
+
+    VehicleInfo(Point pos, double size, @Nullable String info,
+        ImmutableSet<Parcel> cont) {
+      position = pos;
+      contentsSize = size;
+      stateInfo = info;
+      contents = cont;
+    }
+  }
+
+  static final class ParcelInfo {
+    final Parcel parcel;
+    final Point position;
+
+    ParcelInfo(Parcel p, Point pos) {
+      parcel = p;
+      position = pos;
+    }
+  }
+
 }
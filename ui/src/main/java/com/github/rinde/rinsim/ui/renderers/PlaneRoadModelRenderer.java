@@ -28,7 +28,8 @@ import com.github.rinde.rinsim.geom.Point;
  * @author Rinde van Lon 
  * 
  */
-public final class PlaneRoadModelRenderer implements ModelRenderer {
+public final class PlaneRoadModelRenderer implements ModelRenderer,
+    SnapshotRenderer {
 
   private RoadModel rm;
   private final double margin;
@@ -69,6 +70,13 @@ public final class PlaneRoadModelRenderer implements ModelRenderer {
   @Override
   public void renderDynamic(GC gc, ViewPort vp, long time) {}
 
+  // only the static bounds are drawn, there is nothing to snapshot
+  @Override
+  public void snapshot(long time) {}
+
+  @Override
+  public void swapSnapshots() {}
+
   @Override
   public ViewRect getViewRect() {
     return new ViewRect(new Point(bounds.get(0).x - xMargin, bounds.get(0).y
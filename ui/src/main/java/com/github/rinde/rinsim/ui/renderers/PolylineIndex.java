@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.rinde.rinsim.geom.Connection;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * A spatial index over the roads of a {@link Graph}, used for drawing large
+ * graphs. Connections are merged into polylines: chains of nodes that have
+ * exactly two neighbors form a single polyline, both directions of a road are
+ * merged as well. The polylines are stored in a uniform grid such that the
+ * polylines that intersect a rectangle can be found quickly. For each level of
+ * detail a simplified version of the polylines is computed (lazily) using the
+ * Douglas-Peucker algorithm. Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+final class PolylineIndex {
+  private static final int POLYLINES_PER_CELL = 4;
+  private static final int MAX_CELLS_PER_AXIS = 1024;
+
+  private final double[][] polylines;
+  private final double[] bounds;
+  private final double minX;
+  private final double minY;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int columns;
+  private final int rows;
+  private final int[][] cells;
+  private final Map<Integer, double[][]> simplified;
+  private final int[] marks;
+  private int queryId;
+  private int[] result;
+  private int querySize;
+
+  PolylineIndex(List<double[]> lines) {
+    polylines = lines.toArray(new double[lines.size()][]);
+    bounds = new double[polylines.length * 4];
+    double x0 = Double.POSITIVE_INFINITY;
+    double y0 = Double.POSITIVE_INFINITY;
+    double x1 = Double.NEGATIVE_INFINITY;
+    double y1 = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < polylines.length; i++) {
+      final double[] line = polylines[i];
+      double lx0 = Double.POSITIVE_INFINITY;
+      double ly0 = Double.POSITIVE_INFINITY;
+      double lx1 = Double.NEGATIVE_INFINITY;
+      double ly1 = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < line.length; j += 2) {
+        lx0 = Math.min(lx0, line[j]);
+        ly0 = Math.min(ly0, line[j + 1]);
+        lx1 = Math.max(lx1, line[j]);
+        ly1 = Math.max(ly1, line[j + 1]);
+      }
+      bounds[i * 4] = lx0;
+      bounds[i * 4 + 1] = ly0;
+      bounds[i * 4 + 2] = lx1;
+      bounds[i * 4 + 3] = ly1;
+      x0 = Math.min(x0, lx0);
+      y0 = Math.min(y0, ly0);
+      x1 = Math.max(x1, lx1);
+      y1 = Math.max(y1, ly1);
+    }
+    if (polylines.length == 0) {
+      x0 = 0;
+      y0 = 0;
+      x1 = 0;
+      y1 = 0;
+    }
+    final int cellsPerAxis = Math.max(1, Math.min(MAX_CELLS_PER_AXIS,
+        (int) Math.sqrt(polylines.length / (double) POLYLINES_PER_CELL)));
+    minX = x0;
+    minY = y0;
+    columns = cellsPerAxis;
+    rows = cellsPerAxis;
+    // the grid is slightly larger than the bounds such that the maximum
+    // coordinates fall in the last cell
+    cellWidth = Math.max(Double.MIN_NORMAL, (x1 - x0) / columns * (1 + 1e-9));
+    cellHeight = Math.max(Double.MIN_NORMAL, (y1 - y0) / rows * (1 + 1e-9));
+
+    // first count, then fill the cells
+    final int[] counts = new int[columns * rows];
+    for (int i = 0; i < polylines.length; i++) {
+      for (int r = row(bounds[i * 4 + 1]); r <= row(bounds[i * 4 + 3]); r++) {
+        for (int c = column(bounds[i * 4]); c <= column(bounds[i * 4 + 2]); c++) {
+          counts[r * columns + c]++;
+        }
+      }
+    }
+    cells = new int[columns * rows][];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = new int[counts[i]];
+    }
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < polylines.length; i++) {
+      for (int r = row(bounds[i * 4 + 1]); r <= row(bounds[i * 4 + 3]); r++) {
+        for (int c = column(bounds[i * 4]); c <= column(bounds[i * 4 + 2]); c++) {
+          final int cell = r * columns + c;
+          cells[cell][counts[cell]++] = i;
+        }
+      }
+    }
+    simplified = newHashMap();
+    marks = new int[polylines.length];
+    result = new int[16];
+  }
+
+  /**
+   * Creates an index for the specified graph.
+   * @param graph The graph to index.
+   * @return A new index.
+   */
+  static PolylineIndex create(Graph<?> graph) {
+    // undirected adjacency using node ids
+    final Map<Point, Integer> ids = newHashMap();
+    final List<Point> nodes = newArrayList(graph.getNodes());
+    for (int i = 0; i < nodes.size(); i++) {
+      ids.put(nodes.get(i), i);
+    }
+    final List<Set<Integer>> neighbors = newArrayList();
+    for (int i = 0; i < nodes.size(); i++) {
+      neighbors.add(new LinkedHashSet<Integer>());
+    }
+    // incoming connections are derived from the connections, computing the
+    // incoming connections per node is expensive for some graphs
+    for (final Connection<?> conn : graph.getConnections()) {
+      final int from = ids.get(conn.from);
+      final int to = ids.get(conn.to);
+      if (from != to) {
+        neighbors.get(from).add(to);
+        neighbors.get(to).add(from);
+      }
+    }
+
+    final Set<Long> visited = newHashSet();
+    final List<double[]> lines = newArrayList();
+    // chains start at nodes that are not in the middle of a chain
+    for (int i = 0; i < nodes.size(); i++) {
+      if (neighbors.get(i).size() != 2) {
+        for (final int n : neighbors.get(i)) {
+          if (!visited.contains(key(i, n, nodes.size()))) {
+            lines.add(walk(i, n, nodes, neighbors, visited));
+          }
+        }
+      }
+    }
+    // remaining edges are part of cycles
+    for (int i = 0; i < nodes.size(); i++) {
+      for (final int n : neighbors.get(i)) {
+        if (!visited.contains(key(i, n, nodes.size()))) {
+          lines.add(walk(i, n, nodes, neighbors, visited));
+        }
+      }
+    }
+    return new PolylineIndex(lines);
+  }
+
+  static double[] walk(int start, int next, List<Point> nodes,
+      List<Set<Integer>> neighbors, Set<Long> visited) {
+    final List<Integer> chain = newArrayList();
+    chain.add(start);
+    chain.add(next);
+    visited.add(key(start, next, nodes.size()));
+    int prev = start;
+    int cur = next;
+    while (neighbors.get(cur).size() == 2) {
+      int following = -1;
+      for (final int n : neighbors.get(cur)) {
+        if (n != prev) {
+          following = n;
+        }
+      }
+      if (!visited.add(key(cur, following, nodes.size()))) {
+        break;
+      }
+      chain.add(following);
+      prev = cur;
+      cur = following;
+    }
+    final double[] line = new double[chain.size() * 2];
+    for (int i = 0; i < chain.size(); i++) {
+      final Point p = nodes.get(chain.get(i));
+      line[i * 2] = p.x;
+      line[i * 2 + 1] = p.y;
+    }
+    return line;
+  }
+
+  static long key(int a, int b, int numNodes) {
+    return (long) Math.min(a, b) * numNodes + Math.max(a, b);
+  }
+
+  /**
+   * @return The number of polylines.
+   */
+  int size() {
+    return polylines.length;
+  }
+
+  /**
+   * Finds all polylines of which the bounding box intersects the specified
+   * rectangle. The returned array is reused by subsequent queries.
+   * @param rect The rectangle.
+   * @return An array of which the first {@link #lastQuerySize()} elements are
+   *         the indices of the found polylines.
+   */
+  int[] query(ViewRect rect) {
+    queryId++;
+    if (queryId == 0) {
+      Arrays.fill(marks, 0);
+      queryId++;
+    }
+    querySize = 0;
+    final int c0 = column(rect.min.x);
+    final int c1 = column(rect.max.x);
+    final int r0 = row(rect.min.y);
+    final int r1 = row(rect.max.y);
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) {
+        for (final int i : cells[r * columns + c]) {
+          if (marks[i] != queryId && intersects(i, rect)) {
+            marks[i] = queryId;
+            if (querySize == result.length) {
+              result = Arrays.copyOf(result, result.length * 2);
+            }
+            result[querySize++] = i;
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return The number of polylines found by the last call to
+   *         {@link #query(ViewRect)}.
+   */
+  int lastQuerySize() {
+    return querySize;
+  }
+
+  boolean intersects(int i, ViewRect rect) {
+    return bounds[i * 4] <= rect.max.x && bounds[i * 4 + 2] >= rect.min.x
+        && bounds[i * 4 + 1] <= rect.max.y && bounds[i * 4 + 3] >= rect.min.y;
+  }
+
+  /**
+   * @param i The index of the polyline.
+   * @return The largest side of the bounding box of the polyline.
+   */
+  double extent(int i) {
+    return Math.max(bounds[i * 4 + 2] - bounds[i * 4], bounds[i * 4 + 3]
+        - bounds[i * 4 + 1]);
+  }
+
+  /**
+   * Returns the polyline simplified with a tolerance of at most the specified
+   * tolerance. Tolerances are rounded down to a power of two such that
+   * simplified polylines can be cached per level of detail.
+   * @param i The index of the polyline.
+   * @param tolerance The maximum distance between the simplified and the
+   *          original polyline.
+   * @return The coordinates of the simplified polyline, x and y interleaved.
+   */
+  double[] getPolyline(int i, double tolerance) {
+    if (tolerance <= 0 || polylines[i].length <= 4) {
+      return polylines[i];
+    }
+    final int level = Math.getExponent(tolerance);
+    double[][] lines = simplified.get(level);
+    if (lines == null) {
+      lines = new double[polylines.length][];
+      simplified.put(level, lines);
+    }
+    if (lines[i] == null) {
+      lines[i] = simplify(polylines[i], Math.scalb(1d, level));
+    }
+    return lines[i];
+  }
+
+  /**
+   * Simplifies a polyline using the Douglas-Peucker algorithm, the first and
+   * last point are always kept.
+   * @param line The polyline, x and y interleaved.
+   * @param tolerance The maximum distance between the simplified and the
+   *          original polyline.
+   * @return The simplified polyline.
+   */
+  static double[] simplify(double[] line, double tolerance) {
+    final int n = line.length / 2;
+    final boolean[] keep = new boolean[n];
+    keep[0] = true;
+    keep[n - 1] = true;
+    final int[] stack = new int[n * 2];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = n - 1;
+    int kept = 2;
+    final double sqTolerance = tolerance * tolerance;
+    while (top > 0) {
+      final int last = stack[--top];
+      final int first = stack[--top];
+      double maxDist = 0;
+      int index = -1;
+      for (int i = first + 1; i < last; i++) {
+        final double d = sqSegmentDistance(line, i, first, last);
+        if (d > maxDist) {
+          maxDist = d;
+          index = i;
+        }
+      }
+      if (index >= 0 && maxDist > sqTolerance) {
+        keep[index] = true;
+        kept++;
+        stack[top++] = first;
+        stack[top++] = index;
+        stack[top++] = index;
+        stack[top++] = last;
+      }
+    }
+    final double[] simple = new double[kept * 2];
+    int j = 0;
+    for (int i = 0; i < n; i++) {
+      if (keep[i]) {
+        simple[j++] = line[i * 2];
+        simple[j++] = line[i * 2 + 1];
+      }
+    }
+    return simple;
+  }
+
+  // squared distance from point p to the segment a-b
+  static double sqSegmentDistance(double[] line, int p, int a, int b) {
+    final double ax = line[a * 2];
+    final double ay = line[a * 2 + 1];
+    double dx = line[b * 2] - ax;
+    double dy = line[b * 2 + 1] - ay;
+    double x = ax;
+    double y = ay;
+    if (dx != 0 || dy != 0) {
+      final double t = ((line[p * 2] - ax) * dx + (line[p * 2 + 1] - ay) * dy)
+          / (dx * dx + dy * dy);
+      if (t > 1) {
+        x = line[b * 2];
+        y = line[b * 2 + 1];
+      } else if (t > 0) {
+        x += dx * t;
+        y += dy * t;
+      }
+    }
+    dx = line[p * 2] - x;
+    dy = line[p * 2 + 1] - y;
+    return dx * dx + dy * dy;
+  }
+
+  int column(double x) {
+    return clamp((int) Math.floor((x - minX) / cellWidth), columns);
+  }
+
+  int row(double y) {
+    return clamp((int) Math.floor((y - minY) / cellHeight), rows);
+  }
+
+  static int clamp(int value, int size) {
+    return Math.max(0, Math.min(size - 1, value));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.rinde.rinsim.core.model.road.RoadUser;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * A compact copy of the positions of road users, stored in parallel arrays
+ * that are reused between updates. Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+final class PositionSnapshot {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private RoadUser[] users;
+  private double[] xs;
+  private double[] ys;
+  private int size;
+
+  PositionSnapshot() {
+    users = new RoadUser[INITIAL_CAPACITY];
+    xs = new double[INITIAL_CAPACITY];
+    ys = new double[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Replaces the contents of this snapshot with the specified positions.
+   * @param positions The positions to copy.
+   */
+  void update(Map<RoadUser, Point> positions) {
+    final int newSize = positions.size();
+    if (newSize > users.length) {
+      final int capacity = Math.max(newSize, users.length * 2);
+      users = new RoadUser[capacity];
+      xs = new double[capacity];
+      ys = new double[capacity];
+    }
+    int i = 0;
+    for (final Entry<RoadUser, Point> entry : positions.entrySet()) {
+      users[i] = entry.getKey();
+      xs[i] = entry.getValue().x;
+      ys[i] = entry.getValue().y;
+      i++;
+    }
+    // release references to road users that are no longer in the snapshot
+    if (newSize < size) {
+      Arrays.fill(users, newSize, size, null);
+    }
+    size = newSize;
+  }
+
+  int size() {
+    return size;
+  }
+
+  RoadUser getUser(int index) {
+    return users[index];
+  }
+
+  double getX(int index) {
+    return xs[index];
+  }
+
+  double getY(int index) {
+    return ys[index];
+  }
+}
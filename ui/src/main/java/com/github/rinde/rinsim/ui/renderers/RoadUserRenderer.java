@@ -15,8 +15,9 @@
  */
 package com.github.rinde.rinsim.ui.renderers;
 
-import java.util.Map;
-import java.util.Map.Entry;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
 
 import javax.annotation.Nullable;
 
@@ -26,8 +27,6 @@ import org.eclipse.swt.graphics.Image;
 
 import com.github.rinde.rinsim.core.model.ModelProvider;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
-import com.github.rinde.rinsim.core.model.road.RoadUser;
-import com.github.rinde.rinsim.geom.Point;
 
 /**
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
@@ -35,7 +34,19 @@ import com.github.rinde.rinsim.geom.Point;
  *         handling colors
  * 
  */
-public final class RoadUserRenderer implements ModelRenderer {
+public final class RoadUserRenderer implements ModelRenderer,
+    SnapshotRenderer {
+  /**
+   * The default number of visible road users above which the density of road
+   * users is drawn instead of the individual road users.
+   */
+  public static final int DEFAULT_DENSITY_THRESHOLD = 5000;
+  // the size in pixels of the cells in which road users are aggregated
+  private static final int DENSITY_CELL_SIZE = 8;
+  private static final int MIN_DENSITY_ALPHA = 48;
+  private static final int MAX_ALPHA = 255;
+  // margin in pixels for culling, large enough for the images of road users
+  private static final int CULLING_MARGIN = 64;
 
   @Nullable
   private RoadModel rs;
@@ -43,6 +54,10 @@ public final class RoadUserRenderer implements ModelRenderer {
   private final UiSchema uiSchema;
   @Nullable
   private final ViewRect viewRect;
+  private PositionSnapshot front;
+  private PositionSnapshot back;
+  private final int densityThreshold;
+  private int[] densityCells;
 
   public RoadUserRenderer() {
     this(null, null, false);
@@ -54,9 +69,43 @@ public final class RoadUserRenderer implements ModelRenderer {
 
   public RoadUserRenderer(@Nullable ViewRect rect, @Nullable UiSchema schema,
       boolean useEncirclement) {
+    this(rect, schema, useEncirclement, DEFAULT_DENSITY_THRESHOLD);
+  }
+
+  /**
+   * Creates a new instance.
+   * @param rect The view rect, may be <code>null</code>.
+   * @param schema The schema defining the colors and images of road users, may
+   *          be <code>null</code>.
+   * @param useEncirclement Whether road users should be encircled.
+   * @param pDensityThreshold When more than this number of road users is
+   *          visible, the density of road users is drawn instead: the visible
+   *          area is divided in cells of a few pixels which are filled with an
+   *          opacity relative to the number of road users in them.
+   */
+  public RoadUserRenderer(@Nullable ViewRect rect, @Nullable UiSchema schema,
+      boolean useEncirclement, int pDensityThreshold) {
+    checkArgument(pDensityThreshold >= 0,
+        "Density threshold may not be negative, found %s.", pDensityThreshold);
+    densityThreshold = pDensityThreshold;
+    densityCells = new int[0];
     viewRect = rect;
     this.useEncirclement = useEncirclement;
     uiSchema = schema == null ? new UiSchema() : schema;
+    front = new PositionSnapshot();
+    back = new PositionSnapshot();
+  }
+
+  @Override
+  public void snapshot(long time) {
+    back.update(rs.getObjectsAndPositions());
+  }
+
+  @Override
+  public void swapSnapshots() {
+    final PositionSnapshot temp = front;
+    front = back;
+    back = temp;
   }
 
   @Override
@@ -66,39 +115,93 @@ public final class RoadUserRenderer implements ModelRenderer {
     uiSchema.initialize(gc.getDevice());
     gc.setBackground(uiSchema.getDefaultColor());
 
-    final Map<RoadUser, Point> objects = rs.getObjectsAndPositions();
-    synchronized (objects) {
-      for (final Entry<RoadUser, Point> entry : objects.entrySet()) {
-        final Point p = entry.getValue();
-        final Class<?> type = entry.getKey().getClass();
-        final Image image = uiSchema.getImage(type);
-        final int x = vp.toCoordX(p.x) - radius;
-        final int y = vp.toCoordY(p.y) - radius;
-
-        if (image != null) {
-          final int offsetX = x - image.getBounds().width / 2;
-          final int offsetY = y - image.getBounds().height / 2;
-          gc.drawImage(image, offsetX, offsetY);
-        } else {
-          final Color color = uiSchema.getColor(type);
-          if (color == null) {
-            continue;
-          }
-          gc.setBackground(color);
-          if (useEncirclement) {
-            gc.setForeground(gc.getBackground());
-            gc.drawOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
-                - outerRadius, (int) (vp.origin.y + (p.y - vp.rect.min.y)
-                * vp.scale)
-                - outerRadius, 2 * outerRadius, 2 * outerRadius);
-          }
-          gc.fillOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
-              - radius, (int) (vp.origin.y + (p.y - vp.rect.min.y) * vp.scale)
-              - radius, 2 * radius, 2 * radius);
+    final PositionSnapshot objects = front;
+    int numVisible = 0;
+    for (int i = 0; i < objects.size(); i++) {
+      if (vp.isVisible(objects.getX(i), objects.getY(i), CULLING_MARGIN)) {
+        numVisible++;
+      }
+    }
+    if (numVisible > densityThreshold) {
+      renderDensity(gc, vp, objects);
+      return;
+    }
+
+    for (int i = 0; i < objects.size(); i++) {
+      final double px = objects.getX(i);
+      final double py = objects.getY(i);
+      if (!vp.isVisible(px, py, CULLING_MARGIN)) {
+        continue;
+      }
+      final Class<?> type = objects.getUser(i).getClass();
+      final Image image = uiSchema.getImage(type);
+      final int x = vp.toCoordX(px) - radius;
+      final int y = vp.toCoordY(py) - radius;
+
+      if (image != null) {
+        final int offsetX = x - image.getBounds().width / 2;
+        final int offsetY = y - image.getBounds().height / 2;
+        gc.drawImage(image, offsetX, offsetY);
+      } else {
+        final Color color = uiSchema.getColor(type);
+        if (color == null) {
+          continue;
+        }
+        gc.setBackground(color);
+        if (useEncirclement) {
+          gc.setForeground(gc.getBackground());
+          gc.drawOval((int) (vp.origin.x + (px - vp.rect.min.x) * vp.scale)
+              - outerRadius, (int) (vp.origin.y + (py - vp.rect.min.y)
+              * vp.scale)
+              - outerRadius, 2 * outerRadius, 2 * outerRadius);
         }
+        gc.fillOval((int) (vp.origin.x + (px - vp.rect.min.x) * vp.scale)
+            - radius, (int) (vp.origin.y + (py - vp.rect.min.y) * vp.scale)
+            - radius, 2 * radius, 2 * radius);
+      }
+    }
+  }
 
+  void renderDensity(GC gc, ViewPort vp, PositionSnapshot objects) {
+    final int x0 = vp.toCoordX(vp.visibleRect.min.x);
+    final int y0 = vp.toCoordY(vp.visibleRect.min.y);
+    final int columns = (vp.toCoordX(vp.visibleRect.max.x) - x0)
+        / DENSITY_CELL_SIZE + 1;
+    final int rows = (vp.toCoordY(vp.visibleRect.max.y) - y0)
+        / DENSITY_CELL_SIZE + 1;
+    if (densityCells.length < columns * rows) {
+      densityCells = new int[columns * rows];
+    } else {
+      Arrays.fill(densityCells, 0, columns * rows, 0);
+    }
+    int max = 0;
+    for (int i = 0; i < objects.size(); i++) {
+      final int dx = vp.toCoordX(objects.getX(i)) - x0;
+      final int dy = vp.toCoordY(objects.getY(i)) - y0;
+      if (dx >= 0 && dy >= 0) {
+        final int c = dx / DENSITY_CELL_SIZE;
+        final int r = dy / DENSITY_CELL_SIZE;
+        if (c < columns && r < rows) {
+          max = Math.max(max, ++densityCells[r * columns + c]);
+        }
+      }
+    }
+    // the opacity grows logarithmically with the number of road users
+    final double logMax = Math.log1p(max);
+    gc.setBackground(uiSchema.getDefaultColor());
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        final int count = densityCells[r * columns + c];
+        if (count > 0) {
+          gc.setAlpha(MIN_DENSITY_ALPHA
+              + (int) ((MAX_ALPHA - MIN_DENSITY_ALPHA) * Math.log1p(count)
+              / logMax));
+          gc.fillRectangle(x0 + c * DENSITY_CELL_SIZE, y0 + r
+              * DENSITY_CELL_SIZE, DENSITY_CELL_SIZE, DENSITY_CELL_SIZE);
+        }
       }
     }
+    gc.setAlpha(MAX_ALPHA);
   }
 
   @Override
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+/**
+ * A {@link CanvasRenderer} that draws from a snapshot of the simulation state
+ * instead of reading the models while drawing. Implementations keep two
+ * snapshots: a back snapshot that is written by {@link #snapshot(long)} on the
+ * simulation thread and a front snapshot that is read by
+ * {@link #renderDynamic(org.eclipse.swt.graphics.GC, ViewPort, long)} on the
+ * UI thread. The viewer guarantees that {@link #snapshot(long)} and
+ * {@link #swapSnapshots()} are never called at the same time and that the
+ * front snapshot is not modified while it is drawn, implementations therefore
+ * do not need any synchronization.
+ * @author Rinde van Lon
+ */
+public interface SnapshotRenderer extends CanvasRenderer {
+
+  /**
+   * Copies the state that is needed for drawing into the back snapshot. This
+   * method is called from the simulation thread in between ticks.
+   * @param time The current simulation time.
+   */
+  void snapshot(long time);
+
+  /**
+   * Swaps the back and the front snapshot such that the latest snapshot is
+   * drawn. This method is called from the UI thread.
+   */
+  void swapSnapshots();
+}
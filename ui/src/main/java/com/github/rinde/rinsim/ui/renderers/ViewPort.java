@@ -29,11 +29,23 @@ public class ViewPort {
   public final Point origin;
   public final ViewRect rect;
   public final double scale;
+  /**
+   * The part of {@link #rect} that is visible on the screen (or in the image
+   * that is being drawn), in the same coordinates as {@link #rect}. Renderers
+   * may skip everything that falls outside of it.
+   */
+  public final ViewRect visibleRect;
 
   public ViewPort(Point pOrigin, ViewRect pViewRect, double pZoom) {
+    this(pOrigin, pViewRect, pZoom, pViewRect);
+  }
+
+  public ViewPort(Point pOrigin, ViewRect pViewRect, double pZoom,
+      ViewRect pVisibleRect) {
     origin = pOrigin;
     rect = pViewRect;
     scale = pZoom;
+    visibleRect = pVisibleRect;
   }
 
   public int toCoordX(double x) {
@@ -44,4 +56,17 @@ public class ViewPort {
     return (int) (origin.y + ((y - rect.min.y) * scale));
   }
 
+  /**
+   * Checks whether a point is within the visible rectangle extended by a
+   * margin.
+   * @param x The x coordinate of the point.
+   * @param y The y coordinate of the point.
+   * @param margin The margin in pixels.
+   * @return <code>true</code> if the point is visible.
+   */
+  public boolean isVisible(double x, double y, int margin) {
+    final double m = margin / scale;
+    return x >= visibleRect.min.x - m && x <= visibleRect.max.x + m
+        && y >= visibleRect.min.y - m && y <= visibleRect.max.y + m;
+  }
 }
@@ -33,6 +33,7 @@ import com.github.rinde.rinsim.core.model.road.PlaneRoadModel;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.testutil.GuiTests;
+import com.github.rinde.rinsim.ui.renderers.PDPModelRenderer;
 import com.github.rinde.rinsim.ui.renderers.PlaneRoadModelRenderer;
 import com.github.rinde.rinsim.ui.renderers.RoadUserRenderer;
 import com.github.rinde.rinsim.ui.renderers.TestRenderer;
@@ -113,6 +114,43 @@ public class ViewTest {
         .show();
   }
 
+  /**
+   * Tests a view that is refreshed at a limited frame rate, decoupled from a
+   * simulation with many road users.
+   */
+  @Test
+  public void testFrameRate() {
+    final Simulator sim = new Simulator(new MersenneTwister(123),
+        Measure.valueOf(1000L, SI.MILLI(SI.SECOND)));
+    sim.register(new PlaneRoadModel(new Point(0, 0), new Point(10, 10), 50));
+    sim.register(new DefaultPDPModel());
+    sim.configure();
+    for (int i = 0; i < 1000; i++) {
+      sim.register(new TestDepot());
+    }
+    sim.addTickListener(new TickListener() {
+      @Override
+      public void tick(TimeLapse timeLapse) {
+        if (timeLapse.getTime() >= 100000) {
+          sim.stop();
+        }
+      }
+
+      @Override
+      public void afterTick(TimeLapse timeLapse) {}
+    });
+
+    View.create(sim)
+        .setTitleAppendix("ViewTest")
+        .setFrameRate(30)
+        .enableAutoClose()
+        .enableAutoPlay()
+        .with(new PlaneRoadModelRenderer())
+        .with(new RoadUserRenderer())
+        .with(new PDPModelRenderer())
+        .show();
+  }
+
   /**
    * Tests a view with a simulator that is not configured.
    */
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2011-2014 Rinde van Lon, iMinds DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.MultimapGraph;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Tests for {@link PolylineIndex}.
+ * @author Rinde van Lon
+ */
+public class PolylineIndexTest {
+
+  /**
+   * Chains of nodes with two neighbors are merged into a single polyline, both
+   * directions of a road are merged as well.
+   */
+  @Test
+  public void testChains() {
+    final Graph<MultiAttributeData> graph = new MultimapGraph<>();
+    // a bidirectional chain a-b-c-d and a branch c-e
+    final Point a = new Point(0, 0);
+    final Point b = new Point(1, 0);
+    final Point c = new Point(2, 0);
+    final Point d = new Point(3, 0);
+    final Point e = new Point(2, 5);
+    graph.addConnection(a, b);
+    graph.addConnection(b, a);
+    graph.addConnection(b, c);
+    graph.addConnection(c, d);
+    graph.addConnection(c, e);
+    // a cycle
+    graph.addConnection(new Point(10, 10), new Point(11, 10));
+    graph.addConnection(new Point(11, 10), new Point(11, 11));
+    graph.addConnection(new Point(11, 11), new Point(10, 10));
+
+    final PolylineIndex index = PolylineIndex.create(graph);
+    // a-b-c, c-d, c-e and the cycle
+    assertEquals(4, index.size());
+
+    final int[] found = index.query(new ViewRect(new Point(-1, -1),
+        new Point(.5, .5)));
+    assertEquals(1, index.lastQuerySize());
+    final double[] line = index.getPolyline(found[0], 0);
+    assertEquals(6, line.length);
+    assertTrue(Arrays.equals(new double[] { 0, 0, 1, 0, 2, 0 }, line)
+        || Arrays.equals(new double[] { 2, 0, 1, 0, 0, 0 }, line));
+
+    index.query(new ViewRect(new Point(9, 9), new Point(12, 12)));
+    assertEquals(1, index.lastQuerySize());
+  }
+
+  /**
+   * The query should find exactly the polylines of which the bounding box
+   * intersects the rectangle.
+   */
+  @Test
+  public void testQuery() {
+    final Graph<MultiAttributeData> graph = new MultimapGraph<>();
+    for (int i = 0; i < 40; i++) {
+      for (int j = 0; j < 40; j++) {
+        final Point p = new Point(i * 10, j * 10);
+        if (i > 0) {
+          graph.addConnection(p, new Point((i - 1) * 10, j * 10));
+        }
+        if (j > 0) {
+          graph.addConnection(p, new Point(i * 10, (j - 1) * 10));
+        }
+      }
+    }
+    final PolylineIndex index = PolylineIndex.create(graph);
+    // only the corners have two neighbors
+    assertEquals(graph.getNumberOfConnections() - 4, index.size());
+
+    final ViewRect[] rects = new ViewRect[] {
+        new ViewRect(new Point(-5, -5), new Point(1000, 1000)),
+        new ViewRect(new Point(101, 101), new Point(109, 109)),
+        new ViewRect(new Point(95, 133), new Point(251, 209)),
+        new ViewRect(new Point(500, 500), new Point(600, 600)) };
+    for (final ViewRect rect : rects) {
+      final int[] found = Arrays.copyOf(index.query(rect),
+          index.lastQuerySize());
+      Arrays.sort(found);
+      int expected = 0;
+      for (int i = 0; i < index.size(); i++) {
+        if (index.intersects(i, rect)) {
+          assertEquals(i, found[expected]);
+          expected++;
+        }
+      }
+      assertEquals(expected, found.length);
+    }
+  }
+
+  /**
+   * Simplified polylines keep their end points and stay within the tolerance.
+   */
+  @Test
+  public void testSimplify() {
+    final int n = 500;
+    final double[] line = new double[n * 2];
+    for (int i = 0; i < n; i++) {
+      line[i * 2] = i;
+      line[i * 2 + 1] = Math.sin(i / 20d) * 10;
+    }
+    final double[] simple = PolylineIndex.simplify(line, 1);
+    assertTrue(simple.length < line.length / 4);
+    assertArrayEquals(new double[] { line[0], line[1] },
+        Arrays.copyOf(simple, 2), 0);
+    assertArrayEquals(new double[] { line[n * 2 - 2], line[n * 2 - 1] },
+        Arrays.copyOfRange(simple, simple.length - 2, simple.length), 0);
+
+    // each original point is within the tolerance of the simplified line
+    for (int i = 0; i < n; i++) {
+      double min = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < simple.length / 2 - 1; j++) {
+        final double[] segment = new double[] { simple[j * 2],
+            simple[j * 2 + 1], simple[j * 2 + 2], simple[j * 2 + 3],
+            line[i * 2], line[i * 2 + 1] };
+        min = Math.min(min, PolylineIndex.sqSegmentDistance(segment, 2, 0, 1));
+      }
+      assertTrue(Math.sqrt(min) <= 1);
+    }
+  }
+}